@@ -43,6 +43,7 @@ public class ConfigClient
 	private static final Logger logger = LoggerFactory.getLogger(ConfigClient.class);
 
 	private static final MediaType TEXT_PLAIN = MediaType.parse("text/plain");
+	private static final MediaType JSON = MediaType.parse("application/json");
 
 	private final UUID uuid;
 
@@ -52,6 +53,19 @@ public class ConfigClient
 	}
 
 	public Configuration get() throws IOException
+	{
+		return get(null);
+	}
+
+	/**
+	 * Get the configuration, unless it is unchanged since the version
+	 * identified by the given entity tag
+	 *
+	 * @param etag entity tag of a previously fetched configuration, or null
+	 * @return the configuration, or null if it has not been modified
+	 * @throws IOException
+	 */
+	public Configuration get(String etag) throws IOException
 	{
 		HttpUrl url = RuneLiteAPI.getApiBase().newBuilder()
 			.addPathSegment("config")
@@ -59,15 +73,27 @@ public class ConfigClient
 
 		logger.debug("Built URI: {}", url);
 
-		Request request = new Request.Builder()
+		Request.Builder builder = new Request.Builder()
 			.header(RuneLiteAPI.RUNELITE_AUTH, uuid.toString())
-			.url(url)
-			.build();
+			.url(url);
 
-		try (Response response = RuneLiteAPI.CLIENT.newCall(request).execute())
+		if (etag != null)
 		{
+			builder.header("If-None-Match", etag);
+		}
+
+		try (Response response = RuneLiteAPI.CLIENT.newCall(builder.build()).execute())
+		{
+			if (response.code() == 304)
+			{
+				logger.debug("Configuration is unchanged since {}", etag);
+				return null;
+			}
+
 			InputStream in = response.body().byteStream();
-			return RuneLiteAPI.GSON.fromJson(new InputStreamReader(in), Configuration.class);
+			Configuration configuration = RuneLiteAPI.GSON.fromJson(new InputStreamReader(in), Configuration.class);
+			configuration.setEtag(response.header("ETag"));
+			return configuration;
 		}
 		catch (JsonParseException ex)
 		{
@@ -75,6 +101,31 @@ public class ConfigClient
 		}
 	}
 
+	public void patch(ConfigPatch patch) throws IOException
+	{
+		HttpUrl url = RuneLiteAPI.getApiBase().newBuilder()
+			.addPathSegment("config")
+			.build();
+
+		logger.debug("Built URI: {}", url);
+
+		Request request = new Request.Builder()
+			.patch(RequestBody.create(JSON, RuneLiteAPI.GSON.toJson(patch)))
+			.header(RuneLiteAPI.RUNELITE_AUTH, uuid.toString())
+			.url(url)
+			.build();
+
+		try (Response response = RuneLiteAPI.CLIENT.newCall(request).execute())
+		{
+			if (!response.isSuccessful())
+			{
+				throw new IOException("Unable to patch configuration: " + response.code());
+			}
+
+			logger.debug("Patched configuration with {} edits and {} unsets", patch.getEdit().size(), patch.getUnset().size());
+		}
+	}
+
 	public void set(String key, String value) throws IOException
 	{
 		HttpUrl url = RuneLiteAPI.getApiBase().newBuilder()
@@ -31,6 +31,11 @@ public class Configuration
 {
 	private List<ConfigEntry> config = new ArrayList<>();
 
+	/**
+	 * Entity tag of the version this configuration was loaded from. Not serialized.
+	 */
+	private transient String etag;
+
 	public Configuration(List<ConfigEntry> config)
 	{
 		this.config = config;
@@ -40,4 +45,14 @@ public class Configuration
 	{
 		return config;
 	}
+
+	public String getEtag()
+	{
+		return etag;
+	}
+
+	public void setEtag(String etag)
+	{
+		this.etag = etag;
+	}
 }
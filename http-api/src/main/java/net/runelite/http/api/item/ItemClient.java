@@ -41,9 +41,28 @@ public class ItemClient
 {
 	private static final Logger logger = LoggerFactory.getLogger(ItemClient.class);
 
+	/**
+	 * maximum number of ids sent in one price lookup. The ids are sent as
+	 * query parameters, so this keeps the request line under the 8KB header
+	 * limit of the service
+	 */
+	public static final int MAX_BATCH_LOOKUP = 512;
+
+	private HttpUrl apiBase;
+
+	public void setApiBase(HttpUrl apiBase)
+	{
+		this.apiBase = apiBase;
+	}
+
+	private HttpUrl getApiBase()
+	{
+		return apiBase != null ? apiBase : RuneLiteAPI.getApiBase();
+	}
+
 	public ItemPrice lookupItemPrice(int itemId) throws IOException
 	{
-		HttpUrl url = RuneLiteAPI.getApiBase().newBuilder()
+		HttpUrl url = getApiBase().newBuilder()
 			.addPathSegment("item")
 			.addPathSegment("" + itemId)
 			.addPathSegment("price")
@@ -72,9 +91,53 @@ public class ItemClient
 		}
 	}
 
+	/**
+	 * Look up the prices of several items in one request. Items without a
+	 * known price are left out of the result.
+	 *
+	 * @param itemIds item ids, at most {@link #MAX_BATCH_LOOKUP}
+	 * @return the known prices
+	 * @throws IOException
+	 */
+	public ItemPrice[] lookupItemPrices(int[] itemIds) throws IOException
+	{
+		HttpUrl.Builder urlBuilder = getApiBase().newBuilder()
+			.addPathSegment("item")
+			.addPathSegment("price");
+
+		for (int itemId : itemIds)
+		{
+			urlBuilder.addQueryParameter("id", String.valueOf(itemId));
+		}
+
+		HttpUrl url = urlBuilder.build();
+
+		logger.debug("Built URI: {}", url);
+
+		Request request = new Request.Builder()
+			.url(url)
+			.build();
+
+		try (Response response = RuneLiteAPI.CLIENT.newCall(request).execute())
+		{
+			if (!response.isSuccessful())
+			{
+				throw new IOException("Error looking up item prices: " + response.message());
+			}
+
+			InputStream in = response.body().byteStream();
+			ItemPrice[] itemPrices = RuneLiteAPI.GSON.fromJson(new InputStreamReader(in), ItemPrice[].class);
+			return itemPrices != null ? itemPrices : new ItemPrice[0];
+		}
+		catch (JsonParseException ex)
+		{
+			throw new IOException(ex);
+		}
+	}
+
 	public BufferedImage getIcon(int itemId) throws IOException
 	{
-		HttpUrl url = RuneLiteAPI.getApiBase().newBuilder()
+		HttpUrl url = getApiBase().newBuilder()
 			.addPathSegment("item")
 			.addPathSegment("" + itemId)
 			.addPathSegment("icon")
@@ -104,7 +167,7 @@ public class ItemClient
 
 	public SearchResult search(String itemName) throws IOException
 	{
-		HttpUrl url = RuneLiteAPI.getApiBase().newBuilder()
+		HttpUrl url = getApiBase().newBuilder()
 			.addPathSegment("item")
 			.addPathSegment("search")
 			.addQueryParameter("query", itemName)
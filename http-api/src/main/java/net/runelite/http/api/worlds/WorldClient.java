@@ -69,4 +69,42 @@ public class WorldClient
 			throw new IOException(ex);
 		}
 	}
+
+	/**
+	 * Look up the player count changes since a previously fetched world list
+	 *
+	 * @param version version of the previously fetched world list
+	 * @return the changes, or the full world list if they are unknown, or null on error
+	 * @throws IOException
+	 */
+	public WorldDelta lookupWorldDelta(int version) throws IOException
+	{
+		HttpUrl url = RuneLiteAPI.getApiBase().newBuilder()
+			.addPathSegment("worlds")
+			.addPathSegment("delta")
+			.addQueryParameter("since", Integer.toString(version))
+			.build();
+
+		logger.debug("Built URI: {}", url);
+
+		Request request = new Request.Builder()
+			.url(url)
+			.build();
+
+		try (Response response = RuneLiteAPI.CLIENT.newCall(request).execute())
+		{
+			if (!response.isSuccessful())
+			{
+				logger.debug("Error looking up world delta: {}", response.message());
+				return null;
+			}
+
+			InputStream in = response.body().byteStream();
+			return RuneLiteAPI.GSON.fromJson(new InputStreamReader(in), WorldDelta.class);
+		}
+		catch (JsonParseException ex)
+		{
+			throw new IOException(ex);
+		}
+	}
 }
@@ -28,8 +28,19 @@ import java.util.List;
 
 public class WorldResult
 {
+	private int version;
 	private List<World> worlds;
 
+	public int getVersion()
+	{
+		return version;
+	}
+
+	public void setVersion(int version)
+	{
+		this.version = version;
+	}
+
 	public List<World> getWorlds()
 	{
 		return worlds;
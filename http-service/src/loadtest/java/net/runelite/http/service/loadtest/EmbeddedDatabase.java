@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.loadtest;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * A MariaDB server run from a temporary directory for the duration of the load test
+ */
+class EmbeddedDatabase
+{
+	/**
+	 * The level columns of the xp table are generated by a stored function,
+	 * which the embedded server does not allow. Nothing in the service reads
+	 * them, so they are created as plain columns.
+	 */
+	private static final Pattern LEVEL_COLUMN = Pattern.compile("GENERATED ALWAYS AS \\(level_for_xp\\([^)]*\\)\\) VIRTUAL");
+
+	private DB db;
+
+	void start() throws ManagedProcessException
+	{
+		DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+		config.setPort(0); // pick a free port
+		if ("root".equals(System.getProperty("user.name")))
+		{
+			// mysqld refuses to run as root unless told to
+			config.addArg("--user=root");
+		}
+		db = DB.newEmbeddedDB(config.build());
+		db.start();
+	}
+
+	void stop() throws ManagedProcessException
+	{
+		if (db != null)
+		{
+			db.stop();
+		}
+	}
+
+	/**
+	 * Create a database and run the given classpath scripts against it.
+	 * The scripts are run over JDBC rather than with the bundled mysql
+	 * client, which needs libraries most hosts no longer ship.
+	 */
+	void create(String name, String... scripts) throws IOException, SQLException
+	{
+		try (Connection con = DriverManager.getConnection(getUrl(""), "root", "");
+			Statement statement = con.createStatement())
+		{
+			statement.execute("create database `" + name + "`");
+			statement.execute("use `" + name + "`");
+
+			for (String script : scripts)
+			{
+				source(statement, script);
+			}
+		}
+	}
+
+	/**
+	 * Run a script the way the mysql client does, honoring DELIMITER lines
+	 */
+	private static void source(Statement statement, String script) throws IOException, SQLException
+	{
+		InputStream in = EmbeddedDatabase.class.getClassLoader().getResourceAsStream(script);
+		if (in == null)
+		{
+			throw new IOException("no such script: " + script);
+		}
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+		{
+			String delimiter = ";";
+			StringBuilder sql = new StringBuilder();
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				String trimmed = line.trim();
+				if (sql.length() == 0 && (trimmed.isEmpty() || trimmed.startsWith("--")))
+				{
+					continue;
+				}
+
+				if (trimmed.toUpperCase().startsWith("DELIMITER "))
+				{
+					delimiter = trimmed.substring("DELIMITER ".length()).trim();
+					continue;
+				}
+
+				if (trimmed.endsWith(delimiter))
+				{
+					sql.append(line, 0, line.lastIndexOf(delimiter));
+					statement.execute(LEVEL_COLUMN.matcher(sql).replaceAll("DEFAULT NULL"));
+					sql.setLength(0);
+				}
+				else
+				{
+					sql.append(line).append('\n');
+				}
+			}
+		}
+	}
+
+	String getUrl(String name)
+	{
+		return "jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/" + name
+			+ "?useSSL=false&rewriteBatchedStatements=true";
+	}
+}
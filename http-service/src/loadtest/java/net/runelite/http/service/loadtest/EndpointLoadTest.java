@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.loadtest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.api.config.ConfigPatch;
+import net.runelite.http.api.xtea.XteaKey;
+import net.runelite.http.api.xtea.XteaRequest;
+import net.runelite.http.service.xtea.XteaService;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.sql2o.Sql2o;
+
+/**
+ * Drives the endpoints of the service, running against an embedded
+ * database, an object storage stub and an upstream stub, and reports
+ * latency percentiles and database queries per request.
+ * <p>
+ * Run with {@code mvn -Ploadtest test}. The concurrency and the number
+ * of requests per scenario can be set with the {@code loadtest.threads},
+ * {@code loadtest.requests} and {@code loadtest.warmup} system properties.
+ * Query counts include the queries of scheduled background tasks which
+ * ran during a scenario.
+ */
+public class EndpointLoadTest
+{
+	private static final int THREADS = Integer.getInteger("loadtest.threads", 16);
+	private static final int REQUESTS = Integer.getInteger("loadtest.requests", 4000);
+	private static final int WARMUP = Integer.getInteger("loadtest.warmup", 200);
+
+	private static final String BUCKET = "runelite";
+	private static final MediaType JSON = MediaType.parse("application/json");
+	private static final MediaType TEXT = MediaType.parse("text/plain");
+
+	private static final EmbeddedDatabase database = new EmbeddedDatabase();
+	private static final ObjectStorageStub storage = new ObjectStorageStub();
+	private static final UpstreamStub upstream = new UpstreamStub();
+	private static final List<String> report = new ArrayList<>();
+
+	private static ConfigurableApplicationContext context;
+	private static QueryCounter queryCounter;
+	private static OkHttpClient client;
+	private static HttpUrl base;
+
+	@BeforeClass
+	public static void before() throws Exception
+	{
+		Logger.getLogger(MockWebServer.class.getName()).setLevel(Level.WARNING);
+
+		database.start();
+		database.create("runelite", "net/runelite/http/service/session/session.sql");
+		database.create("cache", "net/runelite/http/service/loadtest/cache.sql");
+		database.create("xptracker", "net/runelite/http/service/xp/schema.sql");
+
+		storage.start();
+		upstream.start();
+
+		context = new SpringApplicationBuilder(LoadTestApplication.class)
+			.run(
+				"--server.port=0",
+				"--loadtest.jdbc.runelite=" + database.getUrl("runelite"),
+				"--loadtest.jdbc.cache=" + database.getUrl("cache"),
+				"--loadtest.jdbc.tracker=" + database.getUrl("xptracker"),
+				"--loadtest.upstream=" + upstream.getUrl(),
+				"--runelite.itemdb.url=" + upstream.getItemDbUrl(),
+				"--minio.endpoint=" + storage.getUrl(),
+				"--minio.bucket=" + BUCKET
+			);
+
+		LoadTestData.seedRunelite(context.getBean("Runelite SQL2O", Sql2o.class));
+		LoadTestData.seedCache(context.getBean("Runelite Cache SQL2O", Sql2o.class), storage, BUCKET);
+		LoadTestData.seedXtea(context.getBean("Runelite SQL2O", Sql2o.class));
+		LoadTestData.seedExamine(context.getBean("Runelite SQL2O", Sql2o.class));
+		LoadTestData.seedXp(context.getBean("Runelite XP Tracker SQL2O", Sql2o.class));
+		context.getBean(XteaService.class).loadKeys();
+
+		queryCounter = context.getBean(QueryCounter.class);
+
+		int port = ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+		base = HttpUrl.parse("http://localhost:" + port + "/");
+
+		client = new OkHttpClient.Builder()
+			.connectionPool(new ConnectionPool(THREADS, 1, TimeUnit.MINUTES))
+			.build();
+	}
+
+	@AfterClass
+	public static void after() throws Exception
+	{
+		System.out.println();
+		System.out.println(String.format("%-16s %8s %8s %10s %10s %12s",
+			"scenario", "requests", "errors", "p50 ms", "p99 ms", "queries/req"));
+		report.forEach(System.out::println);
+
+		if (context != null)
+		{
+			context.close();
+		}
+		upstream.shutdown();
+		storage.shutdown();
+		database.stop();
+	}
+
+	@Test
+	public void testItem() throws Exception
+	{
+		run("item", random -> get("item/" + random.nextInt(LoadTestData.ITEMS)));
+	}
+
+	@Test
+	public void testItemPrice() throws Exception
+	{
+		run("item price", random -> get("item/" + random.nextInt(LoadTestData.ITEMS) + "/price"));
+	}
+
+	@Test
+	public void testItemPrices() throws Exception
+	{
+		run("item prices", random ->
+		{
+			HttpUrl.Builder url = base.newBuilder().addPathSegments("item/price");
+			for (int i = 0; i < 28; ++i)
+			{
+				url.addQueryParameter("id", Integer.toString(random.nextInt(LoadTestData.ITEMS)));
+			}
+			return new Request.Builder().url(url.build()).build();
+		});
+	}
+
+	@Test
+	public void testItemSearch() throws Exception
+	{
+		run("item search", random ->
+		{
+			String name = LoadTestData.itemName(random.nextInt(LoadTestData.ITEMS));
+			return get(base.newBuilder()
+				.addPathSegments("item/search")
+				.addQueryParameter("query", name.split(" ")[0])
+				.build());
+		});
+	}
+
+	@Test
+	public void testConfigGet() throws Exception
+	{
+		run("config get", random -> authenticated(base.newBuilder().addPathSegment("config").build())
+			.build());
+	}
+
+	@Test
+	public void testConfigSet() throws Exception
+	{
+		run("config set", random ->
+		{
+			String key = LoadTestData.configKey(random.nextInt(LoadTestData.CONFIG_KEYS));
+			return authenticated(base.newBuilder().addPathSegment("config").addPathSegment(key).build())
+				.put(RequestBody.create(null, Integer.toString(random.nextInt())))
+				.build();
+		});
+	}
+
+	@Test
+	public void testConfigPatch() throws Exception
+	{
+		run("config patch", random ->
+		{
+			ConfigPatch patch = new ConfigPatch();
+			for (int i = 0; i < 8; ++i)
+			{
+				patch.getEdit().put(LoadTestData.configKey(random.nextInt(LoadTestData.CONFIG_KEYS)),
+					Integer.toString(random.nextInt()));
+			}
+			return authenticated(base.newBuilder().addPathSegment("config").build())
+				.patch(RequestBody.create(JSON, RuneLiteAPI.GSON.toJson(patch)))
+				.build();
+		});
+	}
+
+	@Test
+	public void testCacheArchive() throws Exception
+	{
+		run("cache archive", random -> get("cache/1/2/" + random.nextInt(LoadTestData.CONFIG_ARCHIVES) + "/data"));
+	}
+
+	@Test
+	public void testCacheIndex() throws Exception
+	{
+		run("cache index", random -> get("cache/1/5"));
+	}
+
+	@Test
+	public void testXteaSubmit() throws Exception
+	{
+		run("xtea submit", random ->
+		{
+			XteaRequest xteaRequest = new XteaRequest();
+			xteaRequest.setRevision(LoadTestData.CACHE_REVISION);
+			for (int i = 0; i < 9; ++i)
+			{
+				int region = LoadTestData.REGIONS[random.nextInt(LoadTestData.REGIONS.length)];
+				XteaKey key = new XteaKey();
+				key.setRegion(region);
+				key.setKeys(LoadTestData.REGION_KEYS[region]);
+				xteaRequest.addKey(key);
+			}
+			return new Request.Builder()
+				.url(base.newBuilder().addPathSegment("xtea").build())
+				.post(RequestBody.create(JSON, RuneLiteAPI.GSON.toJson(xteaRequest)))
+				.build();
+		});
+	}
+
+	@Test
+	public void testXteaGet() throws Exception
+	{
+		run("xtea get", random -> random.nextInt(8) == 0
+			? get("xtea")
+			: get("xtea/" + LoadTestData.REGIONS[random.nextInt(LoadTestData.REGIONS.length / 2) * 2]));
+	}
+
+	@Test
+	public void testHiscore() throws Exception
+	{
+		run("hiscore", random -> get(base.newBuilder()
+			.addPathSegments("hiscore/NORMAL")
+			.addQueryParameter("username", "player" + random.nextInt(2000))
+			.build()));
+	}
+
+	@Test
+	public void testExamineSubmit() throws Exception
+	{
+		// the submissions are stored by the scheduled flush, whose queries are counted
+		run("examine submit", random ->
+		{
+			int id = random.nextInt(LoadTestData.NPCS);
+			return new Request.Builder()
+				.url(base.newBuilder().addPathSegments("examine/npc/" + id).build())
+				.post(RequestBody.create(TEXT, LoadTestData.examineText(id, random.nextInt(8) == 0)))
+				.build();
+		});
+	}
+
+	@Test
+	public void testExamineGet() throws Exception
+	{
+		run("examine get", random -> get("examine/npc/" + random.nextInt(LoadTestData.NPCS)));
+	}
+
+	@Test
+	public void testXpUpdate() throws Exception
+	{
+		// the updates are stored by the scheduled flush, whose queries are counted
+		run("xp update", random -> get(base.newBuilder()
+			.addPathSegments("xp/update")
+			.addQueryParameter("username", LoadTestData.xpPlayer(random.nextInt(LoadTestData.XP_PLAYERS)))
+			.build()));
+	}
+
+	@Test
+	public void testXpRange() throws Exception
+	{
+		run("xp range", random -> get(base.newBuilder()
+			.addPathSegments("xp/range")
+			.addQueryParameter("username", LoadTestData.xpPlayer(random.nextInt(LoadTestData.XP_PLAYERS)))
+			.addQueryParameter("start", Instant.now().minus(LoadTestData.XP_HOURS, ChronoUnit.HOURS).toString())
+			.build()));
+	}
+
+	private static Request get(String path)
+	{
+		return get(base.newBuilder().addPathSegments(path).build());
+	}
+
+	private static Request get(HttpUrl url)
+	{
+		return new Request.Builder().url(url).build();
+	}
+
+	private static Request.Builder authenticated(HttpUrl url)
+	{
+		return new Request.Builder()
+			.url(url)
+			.header(RuneLiteAPI.RUNELITE_AUTH, LoadTestData.SESSION.toString());
+	}
+
+	private static void run(String name, Function<Random, Request> requests) throws Exception
+	{
+		drive(WARMUP, requests);
+
+		long queries = queryCounter.get();
+		LatencyStats stats = drive(REQUESTS, requests);
+		queries = queryCounter.get() - queries;
+
+		String line = String.format("%-16s %8d %8d %10.2f %10.2f %12.2f",
+			name, stats.getCount(), stats.getErrors(), stats.percentile(50), stats.percentile(99),
+			(double) queries / stats.getCount());
+		System.out.println(line);
+		report.add(line);
+
+		assertEquals(name + " had errors", 0, stats.getErrors());
+	}
+
+	private static LatencyStats drive(int count, Function<Random, Request> requests) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		LatencyStats stats = new LatencyStats(count);
+
+		try
+		{
+			List<Future<LatencyStats>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; ++t)
+			{
+				int share = count / THREADS + (t < count % THREADS ? 1 : 0);
+				futures.add(executor.submit(() ->
+				{
+					Random random = ThreadLocalRandom.current();
+					LatencyStats threadStats = new LatencyStats(share);
+					for (int i = 0; i < share; ++i)
+					{
+						Request request = requests.apply(random);
+						long start = System.nanoTime();
+						boolean success;
+						try (Response response = client.newCall(request).execute())
+						{
+							response.body().bytes();
+							success = response.isSuccessful();
+						}
+						threadStats.record(System.nanoTime() - start, success);
+					}
+					return threadStats;
+				}));
+			}
+
+			for (Future<LatencyStats> future : futures)
+			{
+				stats.add(future.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		return stats;
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the requests of one scenario
+ */
+class LatencyStats
+{
+	private final long[] nanos;
+	private int count;
+	private int errors;
+
+	LatencyStats(int capacity)
+	{
+		nanos = new long[capacity];
+	}
+
+	synchronized void record(long elapsed, boolean success)
+	{
+		if (!success)
+		{
+			++errors;
+		}
+		nanos[count++] = elapsed;
+	}
+
+	/**
+	 * Merge the latencies recorded by another thread
+	 */
+	synchronized void add(LatencyStats other)
+	{
+		System.arraycopy(other.nanos, 0, nanos, count, other.count);
+		count += other.count;
+		errors += other.errors;
+	}
+
+	synchronized int getCount()
+	{
+		return count;
+	}
+
+	synchronized int getErrors()
+	{
+		return errors;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return latency in milliseconds
+	 */
+	synchronized double percentile(double percentile)
+	{
+		if (count == 0)
+		{
+			return 0;
+		}
+
+		long[] sorted = Arrays.copyOf(nanos, count);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+		return sorted[Math.max(0, index)] / 1_000_000.0;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.loadtest;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import net.runelite.http.service.SpringBootWebApplication;
+import net.runelite.http.service.SpringBootWebApplicationTest;
+import net.runelite.http.service.hiscore.HiscoreService;
+import net.runelite.http.service.metrics.QueryMetrics;
+import net.runelite.http.service.util.InstantConverter;
+import okhttp3.HttpUrl;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.sql2o.Sql2o;
+import org.sql2o.converters.Converter;
+import org.sql2o.quirks.NoQuirks;
+
+/**
+ * The service wired to the embedded database and stubs instead of JNDI
+ * data sources and the real upstream services
+ */
+@Configuration
+@EnableAutoConfiguration
+@EnableScheduling
+@ComponentScan(
+	basePackages = "net.runelite.http.service",
+	excludeFilters = @ComponentScan.Filter(
+		type = FilterType.ASSIGNABLE_TYPE,
+		classes = {SpringBootWebApplication.class, SpringBootWebApplicationTest.class}
+	)
+)
+public class LoadTestApplication
+{
+	@Bean
+	QueryCounter queryCounter()
+	{
+		return new QueryCounter();
+	}
+
+	@Bean(destroyMethod = "close")
+	org.apache.tomcat.jdbc.pool.DataSource runeliteDataSource(@Value("${loadtest.jdbc.runelite}") String url)
+	{
+		return createDataSource(url);
+	}
+
+	@Bean(destroyMethod = "close")
+	org.apache.tomcat.jdbc.pool.DataSource cacheDataSource(@Value("${loadtest.jdbc.cache}") String url)
+	{
+		return createDataSource(url);
+	}
+
+	@Bean(destroyMethod = "close")
+	org.apache.tomcat.jdbc.pool.DataSource trackerDataSource(@Value("${loadtest.jdbc.tracker}") String url)
+	{
+		return createDataSource(url);
+	}
+
+	@Bean("Runelite SQL2O")
+	Sql2o sql2o(QueryCounter queryCounter, QueryMetrics queryMetrics, @Qualifier("runeliteDataSource") DataSource dataSource)
+	{
+		return createSql2o(queryMetrics.wrap("runelite", queryCounter.wrap(dataSource)));
+	}
+
+	@Bean("Runelite Cache SQL2O")
+	Sql2o cacheSql2o(QueryCounter queryCounter, QueryMetrics queryMetrics, @Qualifier("cacheDataSource") DataSource dataSource)
+	{
+		return createSql2o(queryMetrics.wrap("cache", queryCounter.wrap(dataSource)));
+	}
+
+	@Bean("Runelite XP Tracker SQL2O")
+	Sql2o trackerSql2o(QueryCounter queryCounter, QueryMetrics queryMetrics, @Qualifier("trackerDataSource") DataSource dataSource)
+	{
+		return createSql2o(queryMetrics.wrap("tracker", queryCounter.wrap(dataSource)));
+	}
+
+	@Bean
+	@Primary
+	HiscoreService loadTestHiscoreService(@Value("${loadtest.upstream}") String upstream)
+	{
+		return new LoadTestHiscoreService(HttpUrl.parse(upstream));
+	}
+
+	private static org.apache.tomcat.jdbc.pool.DataSource createDataSource(String url)
+	{
+		// similar to the pool tomcat provides the service over JNDI
+		PoolProperties properties = new PoolProperties();
+		properties.setUrl(url);
+		properties.setDriverClassName("com.mysql.jdbc.Driver");
+		properties.setUsername("root");
+		properties.setPassword("");
+		properties.setMaxActive(100);
+		properties.setMaxIdle(30);
+		properties.setMaxWait(10000);
+		return new org.apache.tomcat.jdbc.pool.DataSource(properties);
+	}
+
+	private static Sql2o createSql2o(DataSource dataSource)
+	{
+		Map<Class, Converter> converters = new HashMap<>();
+		converters.put(Instant.class, new InstantConverter());
+		return new Sql2o(dataSource, new NoQuirks(converters));
+	}
+}
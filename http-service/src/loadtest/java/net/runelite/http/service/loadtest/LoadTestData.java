@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.loadtest;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.UUID;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.util.Djb2;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+
+/**
+ * Seeds the databases and object storage with data shaped like production
+ */
+class LoadTestData
+{
+	static final int ITEMS = 4000;
+	static final int PRICE_DAYS = 180;
+	static final int CONFIG_KEYS = 400;
+	static final int CONFIG_ARCHIVES = 500;
+	static final int REGIONS_PER_SIDE = 24;
+	static final int CACHE_REVISION = 165;
+	static final int NPCS = 4000;
+	static final int XP_PLAYERS = 1000;
+	static final int XP_HOURS = 24;
+
+	private static final String[] SYLLABLES =
+	{
+		"rune", "dra", "gon", "ad", "man", "mith", "ril", "steel", "iron", "bronze",
+		"scim", "itar", "long", "sword", "shield", "helm", "plate", "body", "legs", "bow",
+		"ar", "row", "staff", "amu", "let", "ring", "pot", "ion", "herb", "seed"
+	};
+
+	private static final String[] XP_SKILL_COLUMNS =
+	{
+		"attack_xp", "defence_xp", "strength_xp", "hitpoints_xp", "ranged_xp", "prayer_xp", "magic_xp", "cooking_xp",
+		"woodcutting_xp", "fletching_xp", "fishing_xp", "firemaking_xp", "crafting_xp", "smithing_xp", "mining_xp",
+		"herblore_xp", "agility_xp", "thieving_xp", "slayer_xp", "farming_xp", "runecraft_xp", "hunter_xp",
+		"construction_xp"
+	};
+
+	static final UUID SESSION = UUID.fromString("4a6f2b16-5b0e-4f0c-9d5a-6c2f3e1b7a90");
+	static final int USER = 1;
+
+	/**
+	 * region id to the xtea keys its map archive is encrypted with
+	 */
+	static final int[][] REGION_KEYS = new int[1 << 16][];
+	static final int[] REGIONS = new int[REGIONS_PER_SIDE * REGIONS_PER_SIDE];
+
+	static String itemName(int id)
+	{
+		Random random = new Random(id);
+		StringBuilder sb = new StringBuilder();
+		int words = 1 + random.nextInt(3);
+		for (int i = 0; i < words; ++i)
+		{
+			if (i > 0)
+			{
+				sb.append(' ');
+			}
+			int syllables = 1 + random.nextInt(3);
+			for (int j = 0; j < syllables; ++j)
+			{
+				sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+			}
+		}
+		sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+		return sb.toString();
+	}
+
+	/**
+	 * Seed the tables of the runelite database. These are created by the
+	 * services, so this must be done once the application is running.
+	 */
+	static void seedRunelite(Sql2o sql2o)
+	{
+		Instant now = Instant.now();
+		Instant today = now.truncatedTo(ChronoUnit.DAYS);
+		byte[] icon = "GIF89a".getBytes();
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query items = con.createQuery("insert into items (id, name, description, type, icon, icon_large) "
+				+ "values (:id, :name, :description, 'DEFAULT', :icon, :icon)");
+			Query prices = con.createQuery("insert into prices (item, price, time, fetched_time) "
+				+ "values (:item, :price, :time, :fetched_time)");
+
+			for (int id = 0; id < ITEMS; ++id)
+			{
+				items.addParameter("id", id)
+					.addParameter("name", itemName(id))
+					.addParameter("description", "A " + itemName(id).toLowerCase() + ".")
+					.addParameter("icon", icon)
+					.addToBatch();
+
+				Random random = new Random(id);
+				for (int day = 0; day < PRICE_DAYS; ++day)
+				{
+					prices.addParameter("item", id)
+						.addParameter("price", 100 + random.nextInt(100_000))
+						.addParameter("time", Timestamp.from(today.minus(day, ChronoUnit.DAYS)))
+						.addParameter("fetched_time", Timestamp.from(now))
+						.addToBatch();
+				}
+			}
+
+			items.executeBatch();
+			prices.executeBatch();
+
+			con.createQuery("insert into users (id, username) values (:id, 'loadtest@example.com')")
+				.addParameter("id", USER)
+				.executeUpdate();
+			con.createQuery("insert into sessions (user, uuid, last_used) values (:user, :uuid, :last_used)")
+				.addParameter("user", USER)
+				.addParameter("uuid", SESSION.toString())
+				.addParameter("last_used", Timestamp.from(now))
+				.executeUpdate();
+
+			Query config = con.createQuery("insert into config (user, `key`, value) values (:user, :key, :value)");
+			for (int i = 0; i < CONFIG_KEYS; ++i)
+			{
+				config.addParameter("user", USER)
+					.addParameter("key", configKey(i))
+					.addParameter("value", Integer.toString(i))
+					.addToBatch();
+			}
+			config.executeBatch();
+
+			con.commit();
+		}
+	}
+
+	/**
+	 * Seed keys for every other region of the seeded cache, which leaves
+	 * the rest to be submitted
+	 */
+	static void seedXtea(Sql2o sql2o)
+	{
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("insert into xtea (region, rev, key1, key2, key3, key4) "
+				+ "values (:region, :rev, :key1, :key2, :key3, :key4)");
+
+			for (int i = 0; i < REGIONS.length; i += 2)
+			{
+				int[] keys = REGION_KEYS[REGIONS[i]];
+				query.addParameter("region", REGIONS[i])
+					.addParameter("rev", CACHE_REVISION)
+					.addParameter("key1", keys[0])
+					.addParameter("key2", keys[1])
+					.addParameter("key3", keys[2])
+					.addParameter("key4", keys[3])
+					.addToBatch();
+			}
+
+			query.executeBatch();
+			con.commit();
+		}
+	}
+
+	/**
+	 * Seed tracked players with a day of hourly xp gains
+	 */
+	static void seedXp(Sql2o sql2o)
+	{
+		Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS);
+		Random random = new Random(42);
+
+		StringBuilder columns = new StringBuilder("player, time");
+		StringBuilder values = new StringBuilder(":player, :time");
+		for (String column : XP_SKILL_COLUMNS)
+		{
+			columns.append(", ").append(column);
+			values.append(", :").append(column);
+		}
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query players = con.createQuery("insert into player (id, name) values (:id, :name)");
+			Query hourly = con.createQuery("insert into xp_hourly (" + columns + ") values (" + values + ")");
+
+			for (int player = 1; player <= XP_PLAYERS; ++player)
+			{
+				players.addParameter("id", player)
+					.addParameter("name", xpPlayer(player - 1))
+					.addToBatch();
+
+				for (int h = 0; h < XP_HOURS; ++h)
+				{
+					hourly.addParameter("player", player)
+						.addParameter("time", Timestamp.from(hour.minus(h, ChronoUnit.HOURS)));
+					for (String column : XP_SKILL_COLUMNS)
+					{
+						hourly.addParameter(column, random.nextInt(4) == 0 ? random.nextInt(50_000) : 0);
+					}
+					hourly.addToBatch();
+				}
+			}
+
+			players.executeBatch();
+			hourly.executeBatch();
+			con.commit();
+		}
+	}
+
+	static String xpPlayer(int i)
+	{
+		return "tracked" + i;
+	}
+
+	/**
+	 * Seed the examine texts of npcs, each with a winning text and a less
+	 * submitted variant.
+	 */
+	static void seedExamine(Sql2o sql2o)
+	{
+		Random random = new Random(42);
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("insert into examine (type, id, count, text) values ('NPC', :id, :count, :text)");
+
+			for (int id = 0; id < NPCS; ++id)
+			{
+				query.addParameter("id", id)
+					.addParameter("count", 100 + random.nextInt(1000))
+					.addParameter("text", examineText(id, false))
+					.addToBatch();
+				query.addParameter("id", id)
+					.addParameter("count", 1 + random.nextInt(10))
+					.addParameter("text", examineText(id, true))
+					.addToBatch();
+			}
+
+			query.executeBatch();
+			con.commit();
+		}
+	}
+
+	static String examineText(int id, boolean variant)
+	{
+		return "A " + itemName(id).toLowerCase() + (variant ? "!" : ".");
+	}
+
+	static String configKey(int i)
+	{
+		return "plugin" + (i % 40) + ".key" + i;
+	}
+
+	/**
+	 * Seed a cache with a config index and encrypted map archives, storing
+	 * the archive data in object storage
+	 */
+	static void seedCache(Sql2o sql2o, ObjectStorageStub storage, String bucket) throws IOException
+	{
+		Random random = new Random(42);
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			int cache = con.createQuery("insert into cache (revision, date) values (:revision, :date)")
+				.addParameter("revision", CACHE_REVISION)
+				.addParameter("date", Timestamp.from(Instant.now()))
+				.executeUpdate()
+				.getKey(int.class);
+
+			Query insertIndexArchive = con.createQuery("insert into index_archive (`index`, archive) values (:index, :archive)");
+
+			int configs = insertIndex(con, cache, IndexType.CONFIGS);
+			for (int archiveId = 0; archiveId < CONFIG_ARCHIVES; ++archiveId)
+			{
+				byte[] data = new byte[1024 + random.nextInt(64 * 1024)];
+				random.nextBytes(data);
+				int id = insertArchive(con, storage, bucket, archiveId, 0, compress(data, null));
+				addIndexArchive(insertIndexArchive, configs, id);
+			}
+
+			int maps = insertIndex(con, cache, IndexType.MAPS);
+			int archiveId = 0;
+			for (int x = 0; x < REGIONS_PER_SIDE; ++x)
+			{
+				for (int y = 0; y < REGIONS_PER_SIDE; ++y)
+				{
+					int regionX = 40 + x;
+					int regionY = 40 + y;
+					int region = regionX << 8 | regionY;
+					int[] keys = {random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt()};
+					REGION_KEYS[region] = keys;
+					REGIONS[x * REGIONS_PER_SIDE + y] = region;
+
+					byte[] data = new byte[2048 + random.nextInt(8 * 1024)];
+					random.nextBytes(data);
+					int id = insertArchive(con, storage, bucket, archiveId++, Djb2.hash("l" + regionX + "_" + regionY),
+						compress(data, keys));
+					addIndexArchive(insertIndexArchive, maps, id);
+				}
+			}
+
+			insertIndexArchive.executeBatch();
+			con.commit();
+		}
+	}
+
+	private static int insertIndex(Connection con, int cache, IndexType type)
+	{
+		return con.createQuery("insert into `index` (cache, indexId, crc, revision) values (:cache, :indexId, 0, 1)")
+			.addParameter("cache", cache)
+			.addParameter("indexId", type.getNumber())
+			.executeUpdate()
+			.getKey(int.class);
+	}
+
+	private static int insertArchive(Connection con, ObjectStorageStub storage, String bucket,
+		int archiveId, int nameHash, byte[] data)
+	{
+		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+		String hashStr = BaseEncoding.base16().encode(hash);
+		storage.put(bucket, hashStr.substring(0, 2) + "/" + hashStr.substring(2), data);
+
+		return con.createQuery("insert into archive (archiveId, nameHash, crc, revision, hash) "
+			+ "values (:archiveId, :nameHash, :crc, 1, :hash)")
+			.addParameter("archiveId", archiveId)
+			.addParameter("nameHash", nameHash)
+			.addParameter("crc", Hashing.crc32().hashBytes(data).asInt())
+			.addParameter("hash", hash)
+			.executeUpdate()
+			.getKey(int.class);
+	}
+
+	private static void addIndexArchive(Query query, int index, int archive)
+	{
+		query.addParameter("index", index)
+			.addParameter("archive", archive)
+			.addToBatch();
+	}
+
+	private static byte[] compress(byte[] data, int[] keys) throws IOException
+	{
+		Container container = new Container(CompressionType.GZ, -1);
+		container.compress(data, keys);
+		return container.data;
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.loadtest;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * In-process stand-in for the MinIO server, which understands just enough
+ * of the S3 protocol for the object reads done by the cache service.
+ */
+class ObjectStorageStub
+{
+	private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+	private static final String LOCATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+		+ "<LocationConstraint xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">us-east-1</LocationConstraint>";
+
+	private final MockWebServer server = new MockWebServer();
+	private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+	void start() throws IOException
+	{
+		server.setDispatcher(new Dispatcher()
+		{
+			@Override
+			public MockResponse dispatch(RecordedRequest request)
+			{
+				return ObjectStorageStub.this.dispatch(request);
+			}
+		});
+		server.start();
+	}
+
+	void shutdown() throws IOException
+	{
+		server.shutdown();
+	}
+
+	HttpUrl getUrl()
+	{
+		return server.url("/");
+	}
+
+	void put(String bucket, String path, byte[] data)
+	{
+		objects.put("/" + bucket + "/" + path, data);
+	}
+
+	private MockResponse dispatch(RecordedRequest request)
+	{
+		HttpUrl url = request.getRequestUrl();
+
+		if (url.queryParameter("location") != null)
+		{
+			return new MockResponse()
+				.setHeader("Content-Type", "application/xml")
+				.setBody(LOCATION);
+		}
+
+		byte[] data = objects.get(url.encodedPath());
+		if (data == null)
+		{
+			return new MockResponse()
+				.setResponseCode(404)
+				.setHeader("Content-Type", "application/xml")
+				.setBody("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+					+ "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message></Error>");
+		}
+
+		int from = 0;
+		int to = data.length - 1;
+		int code = 200;
+
+		String range = request.getHeader("Range");
+		if (range != null)
+		{
+			Matcher matcher = RANGE.matcher(range);
+			if (matcher.matches())
+			{
+				from = Integer.parseInt(matcher.group(1));
+				if (!matcher.group(2).isEmpty())
+				{
+					to = Math.min(to, Integer.parseInt(matcher.group(2)));
+				}
+				code = 206;
+			}
+		}
+
+		MockResponse response = new MockResponse()
+			.setResponseCode(code)
+			.setHeader("Content-Type", "application/octet-stream")
+			.setHeader("ETag", "\"" + Integer.toHexString(data.length) + "\"")
+			.setHeader("Last-Modified", "Mon, 05 Mar 2018 00:00:00 GMT");
+
+		if (code == 206)
+		{
+			response.setHeader("Content-Range", "bytes " + from + "-" + to + "/" + data.length);
+		}
+
+		if ("HEAD".equals(request.getMethod()))
+		{
+			return response.setHeader("Content-Length", data.length);
+		}
+
+		return response.setBody(new Buffer().write(data, from, to - from + 1));
+	}
+}
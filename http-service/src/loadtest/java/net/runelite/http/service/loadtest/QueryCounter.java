@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+/**
+ * Counts the statements prepared on connections of wrapped data sources.
+ * sql2o prepares one statement per query, including batches.
+ */
+class QueryCounter
+{
+	private final AtomicLong queries = new AtomicLong();
+
+	long get()
+	{
+		return queries.get();
+	}
+
+	DataSource wrap(DataSource dataSource)
+	{
+		return proxy(DataSource.class, dataSource, (method, result) ->
+		{
+			if (result instanceof Connection)
+			{
+				return wrap((Connection) result);
+			}
+			return result;
+		});
+	}
+
+	private Connection wrap(Connection connection)
+	{
+		return proxy(Connection.class, connection, (method, result) ->
+		{
+			switch (method.getName())
+			{
+				case "prepareStatement":
+				case "prepareCall":
+				case "createStatement":
+					queries.incrementAndGet();
+			}
+			return result;
+		});
+	}
+
+	private interface ResultHandler
+	{
+		Object handle(Method method, Object result);
+	}
+
+	private static <T> T proxy(Class<T> type, T target, ResultHandler handler)
+	{
+		InvocationHandler invocationHandler = (proxy, method, args) ->
+		{
+			try
+			{
+				return handler.handle(method, method.invoke(target, args));
+			}
+			catch (InvocationTargetException ex)
+			{
+				throw ex.getCause();
+			}
+		};
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler));
+	}
+}
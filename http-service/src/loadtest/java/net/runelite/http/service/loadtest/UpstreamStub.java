@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.api.hiscore.HiscoreSkill;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Mock of the Jagex hiscore and grand exchange services. Responses are
+ * generated deterministically from the player name or item id.
+ */
+class UpstreamStub
+{
+	private static final String ITEMDB = "/m=itemdb_oldschool";
+	private static final int SKILLS = 24;
+
+	private final MockWebServer server = new MockWebServer();
+
+	void start() throws IOException
+	{
+		server.setDispatcher(new Dispatcher()
+		{
+			@Override
+			public MockResponse dispatch(RecordedRequest request)
+			{
+				return UpstreamStub.this.dispatch(request);
+			}
+		});
+		server.start();
+	}
+
+	void shutdown() throws IOException
+	{
+		server.shutdown();
+	}
+
+	HttpUrl getUrl()
+	{
+		return server.url("/");
+	}
+
+	/**
+	 * Base url of the grand exchange api, in the form the item service expects
+	 */
+	String getItemDbUrl()
+	{
+		String url = server.url(ITEMDB).toString();
+		return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+	}
+
+	private MockResponse dispatch(RecordedRequest request)
+	{
+		HttpUrl url = request.getRequestUrl();
+		String path = url.encodedPath();
+
+		if (path.endsWith("/index_lite.ws"))
+		{
+			String player = url.queryParameter("player");
+			return player != null ? hiscore(player) : new MockResponse().setResponseCode(404);
+		}
+
+		if (path.equals(ITEMDB + "/api/catalogue/detail.json"))
+		{
+			int id = Integer.parseInt(url.queryParameter("item"));
+			Map<String, Object> response = new HashMap<>();
+			response.put("item", item(id));
+			return json(response);
+		}
+
+		if (path.startsWith(ITEMDB + "/api/graph/"))
+		{
+			String file = url.pathSegments().get(url.pathSize() - 1);
+			int id = Integer.parseInt(file.substring(0, file.indexOf('.')));
+			return json(prices(id));
+		}
+
+		if (path.equals(ITEMDB + "/api/catalogue/items.json"))
+		{
+			String alpha = url.queryParameter("alpha");
+			List<Object> items = new ArrayList<>();
+			for (int i = 0; i < 10; ++i)
+			{
+				items.add(item(Math.abs((alpha + i).hashCode()) % LoadTestData.ITEMS));
+			}
+			Map<String, Object> response = new HashMap<>();
+			response.put("items", items);
+			return json(response);
+		}
+
+		if (path.startsWith("/icon/"))
+		{
+			return new MockResponse()
+				.setHeader("Content-Type", "image/gif")
+				.setBody("GIF89a");
+		}
+
+		return new MockResponse().setResponseCode(404);
+	}
+
+	private MockResponse hiscore(String player)
+	{
+		Random random = new Random(player.toLowerCase().hashCode());
+		int[] xp = new int[SKILLS];
+		long total = 0;
+
+		for (int i = 1; i < SKILLS; ++i)
+		{
+			xp[i] = random.nextInt(13_034_431);
+			total += xp[i];
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(random.nextInt(2_000_000) + 1).append(",1500,").append(total).append('\n');
+		for (int i = 1; i < SKILLS; ++i)
+		{
+			sb.append(random.nextInt(2_000_000) + 1).append(",50,").append(xp[i]).append('\n');
+		}
+		for (int i = SKILLS; i < HiscoreSkill.values().length; ++i)
+		{
+			sb.append("-1,-1\n");
+		}
+
+		return new MockResponse()
+			.setHeader("Content-Type", "text/plain")
+			.setBody(sb.toString());
+	}
+
+	private Map<String, Object> item(int id)
+	{
+		Map<String, Object> item = new HashMap<>();
+		item.put("id", id);
+		item.put("name", LoadTestData.itemName(id));
+		item.put("description", "A " + LoadTestData.itemName(id).toLowerCase() + ".");
+		item.put("type", "Default");
+		item.put("icon", server.url("/icon/" + id + ".gif").toString());
+		item.put("icon_large", server.url("/icon/" + id + "_large.gif").toString());
+		return item;
+	}
+
+	private static Map<String, Object> prices(int id)
+	{
+		Random random = new Random(id);
+		Map<String, Object> daily = new HashMap<>();
+		long day = System.currentTimeMillis() / 86_400_000L * 86_400_000L;
+		for (int i = 0; i < 180; ++i)
+		{
+			daily.put(Long.toString(day - i * 86_400_000L), 100 + random.nextInt(100_000));
+		}
+
+		Map<String, Object> response = new HashMap<>();
+		response.put("daily", daily);
+		return response;
+	}
+
+	private static MockResponse json(Object object)
+	{
+		return new MockResponse()
+			.setHeader("Content-Type", "application/json")
+			.setBody(RuneLiteAPI.GSON.toJson(object));
+	}
+}
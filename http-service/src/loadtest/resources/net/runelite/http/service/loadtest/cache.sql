@@ -0,0 +1,53 @@
+--
+-- Schema of the cache database, as created by the cache updater
+--
+
+CREATE TABLE `cache` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `revision` int(11) NOT NULL,
+  `date` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `revision_date` (`revision`,`date`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+CREATE TABLE `index` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `cache` int(11) NOT NULL,
+  `indexId` int(11) NOT NULL,
+  `crc` int(11) NOT NULL,
+  `revision` int(11) NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `cache_index` (`cache`,`indexId`),
+  CONSTRAINT `index_cache` FOREIGN KEY (`cache`) REFERENCES `cache` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+CREATE TABLE `archive` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `archiveId` int(11) NOT NULL,
+  `nameHash` int(11) NOT NULL,
+  `crc` int(11) NOT NULL,
+  `revision` int(11) NOT NULL,
+  `hash` binary(32) NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `archive_revision` (`archiveId`,`revision`,`crc`),
+  KEY `nameHash` (`nameHash`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+CREATE TABLE `index_archive` (
+  `index` int(11) NOT NULL,
+  `archive` int(11) NOT NULL,
+  PRIMARY KEY (`index`,`archive`),
+  KEY `archive` (`archive`),
+  CONSTRAINT `index_archive_index` FOREIGN KEY (`index`) REFERENCES `index` (`id`),
+  CONSTRAINT `index_archive_archive` FOREIGN KEY (`archive`) REFERENCES `archive` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+CREATE TABLE `file` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `archive` int(11) NOT NULL,
+  `fileId` int(11) NOT NULL,
+  `nameHash` int(11) NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `archive_file` (`archive`,`fileId`),
+  CONSTRAINT `file_archive` FOREIGN KEY (`archive`) REFERENCES `archive` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
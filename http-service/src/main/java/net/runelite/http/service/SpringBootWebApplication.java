@@ -36,6 +36,7 @@ import javax.servlet.ServletContextListener;
 import javax.sql.DataSource;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.service.metrics.QueryMetrics;
 import net.runelite.http.service.util.InstantConverter;
 import okhttp3.Cache;
 import okhttp3.OkHttpClient;
@@ -98,27 +99,27 @@ public class SpringBootWebApplication extends SpringBootServletInitializer
 	}
 
 	@Bean("Runelite SQL2O")
-	Sql2o sql2o() throws NamingException
+	Sql2o sql2o(QueryMetrics queryMetrics) throws NamingException
 	{
-		DataSource dataSource = (DataSource) getContext().lookup("jdbc/runelite");
+		DataSource dataSource = queryMetrics.wrap("runelite", (DataSource) getContext().lookup("jdbc/runelite"));
 		Map<Class, Converter> converters = new HashMap<>();
 		converters.put(Instant.class, new InstantConverter());
 		return new Sql2o(dataSource, new NoQuirks(converters));
 	}
 
 	@Bean("Runelite Cache SQL2O")
-	Sql2o cacheSql2o() throws NamingException
+	Sql2o cacheSql2o(QueryMetrics queryMetrics) throws NamingException
 	{
-		DataSource dataSource = (DataSource) getContext().lookup("jdbc/runelite-cache2");
+		DataSource dataSource = queryMetrics.wrap("cache", (DataSource) getContext().lookup("jdbc/runelite-cache2"));
 		Map<Class, Converter> converters = new HashMap<>();
 		converters.put(Instant.class, new InstantConverter());
 		return new Sql2o(dataSource, new NoQuirks(converters));
 	}
 
 	@Bean("Runelite XP Tracker SQL2O")
-	Sql2o trackerSql2o() throws NamingException
+	Sql2o trackerSql2o(QueryMetrics queryMetrics) throws NamingException
 	{
-		DataSource dataSource = (DataSource) getContext().lookup("jdbc/runelite-tracker");
+		DataSource dataSource = queryMetrics.wrap("tracker", (DataSource) getContext().lookup("jdbc/runelite-tracker"));
 		Map<Class, Converter> converters = new HashMap<>();
 		converters.put(Instant.class, new InstantConverter());
 		return new Sql2o(dataSource, new NoQuirks(converters));
@@ -240,6 +240,8 @@ public class AccountService
 			return;
 		}
 
+		SessionManager.setAccount(session, username);
+
 		WSService service = session.getServlet();
 
 		LoginResponse response = new LoginResponse();
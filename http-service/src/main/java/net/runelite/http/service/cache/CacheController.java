@@ -25,8 +25,12 @@
 package net.runelite.http.service.cache;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.ConfigType;
 import net.runelite.cache.IndexType;
@@ -46,8 +50,13 @@ import net.runelite.http.service.cache.beans.ArchiveEntry;
 import net.runelite.http.service.cache.beans.CacheEntry;
 import net.runelite.http.service.cache.beans.IndexEntry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -160,6 +169,134 @@ public class CacheController
 		return cacheService.getArchive(archiveEntry);
 	}
 
+	/**
+	 * Stream the data of every archive in an index, or of the selected
+	 * archives, ordered by archive id. See
+	 * {@link CacheService#streamArchives(List, long, long, long, java.io.OutputStream)}
+	 * for the format. A single byte range may be requested to resume an
+	 * interrupted download.
+	 */
+	@RequestMapping("{cacheId}/{indexId}/stream")
+	public void streamArchives(
+		HttpServletResponse response,
+		@PathVariable int cacheId,
+		@PathVariable int indexId,
+		@RequestParam(value = "archive", required = false) int[] archiveIds,
+		@RequestHeader(value = HttpHeaders.RANGE, required = false) String range
+	) throws IOException
+	{
+		CacheEntry cache = cacheService.findCache(cacheId);
+		if (cache == null)
+		{
+			throw new NotFoundException();
+		}
+
+		IndexEntry indexEntry = cacheService.findIndexForCache(cache, indexId);
+		if (indexEntry == null)
+		{
+			throw new NotFoundException();
+		}
+
+		List<ArchiveEntry> archives = cacheService.findArchivesForIndex(indexEntry);
+		if (archiveIds != null)
+		{
+			Set<Integer> selected = Arrays.stream(archiveIds).boxed().collect(Collectors.toSet());
+			archives.removeIf(archive -> !selected.contains(archive.getArchiveId()));
+		}
+		// the order has to be stable for ranges to resume correctly
+		archives.sort(Comparator.comparingInt(ArchiveEntry::getArchiveId));
+
+		response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+		if (range == null || !range.startsWith("bytes=") || range.contains(","))
+		{
+			cacheService.streamArchives(archives, 0, 0, Long.MAX_VALUE, response.getOutputStream());
+			return;
+		}
+
+		long[] sizes = cacheService.getArchiveSizes(archives);
+		long total = 0;
+		for (long size : sizes)
+		{
+			total += CacheService.ARCHIVE_HEADER_SIZE + size;
+		}
+
+		long[] bounds = parseRange(range.substring("bytes=".length()), total);
+		if (bounds == null)
+		{
+			response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + total);
+			response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+			return;
+		}
+
+		long start = bounds[0], end = bounds[1];
+
+		// skip the archives which end before the range starts
+		int first = 0;
+		long position = 0;
+		while (position + CacheService.ARCHIVE_HEADER_SIZE + sizes[first] <= start)
+		{
+			position += CacheService.ARCHIVE_HEADER_SIZE + sizes[first++];
+		}
+
+		response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+		response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + total);
+		response.setContentLengthLong(end - start + 1);
+
+		cacheService.streamArchives(archives.subList(first, archives.size()), position, start, end + 1, response.getOutputStream());
+	}
+
+	/**
+	 * Parse a single byte range
+	 *
+	 * @param range the range, without the unit
+	 * @param length length of the content
+	 * @return the first and last byte of the range, or null if it is not satisfiable
+	 */
+	static long[] parseRange(String range, long length)
+	{
+		int dash = range.indexOf('-');
+		if (dash == -1)
+		{
+			return null;
+		}
+
+		String first = range.substring(0, dash).trim();
+		String last = range.substring(dash + 1).trim();
+
+		try
+		{
+			long start, end;
+			if (first.isEmpty())
+			{
+				// suffix range, the last n bytes
+				long suffix = Long.parseLong(last);
+				start = Math.max(length - suffix, 0);
+				end = length - 1;
+				if (suffix == 0)
+				{
+					return null;
+				}
+			}
+			else
+			{
+				start = Long.parseLong(first);
+				end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+			}
+
+			if (start < 0 || start >= length || end < start)
+			{
+				return null;
+			}
+			return new long[]{start, end};
+		}
+		catch (NumberFormatException ex)
+		{
+			return null;
+		}
+	}
+
 	private ArchiveEntry findConfig(ConfigType config)
 	{
 		CacheEntry cache = cacheService.findMostRecent();
@@ -36,12 +36,22 @@ import io.minio.errors.InvalidBucketNameException;
 import io.minio.errors.InvalidEndpointException;
 import io.minio.errors.InvalidPortException;
 import io.minio.errors.NoResponseException;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.fs.ArchiveFiles;
@@ -65,6 +75,17 @@ import org.xmlpull.v1.XmlPullParserException;
 @Slf4j
 public class CacheService
 {
+	/**
+	 * Size of the header preceding each archive in an archive stream
+	 */
+	public static final int ARCHIVE_HEADER_SIZE = 20;
+
+	/**
+	 * Maximum number of archives being read ahead of the one being written
+	 * when streaming archives, which bounds the memory used by a stream
+	 */
+	private static final int STREAM_READ_AHEAD = 16;
+
 	@Autowired
 	@Qualifier("Runelite Cache SQL2O")
 	private Sql2o sql2o;
@@ -73,6 +94,7 @@ public class CacheService
 	private String minioBucket;
 
 	private final MinioClient minioClient;
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
 
 	@Autowired
 	public CacheService(
@@ -90,6 +112,12 @@ public class CacheService
 		return minioClient;
 	}
 
+	@PreDestroy
+	public void shutdown()
+	{
+		executor.shutdownNow();
+	}
+
 	/**
 	 * retrieve archive from storage
 	 *
@@ -98,14 +126,7 @@ public class CacheService
 	 */
 	public byte[] getArchive(ArchiveEntry archiveEntry)
 	{
-		String hashStr = BaseEncoding.base16().encode(archiveEntry.getHash());
-		String path = new StringBuilder()
-			.append(hashStr.substring(0, 2))
-			.append('/')
-			.append(hashStr.substring(2))
-			.toString();
-
-		try (InputStream in = minioClient.getObject(minioBucket, path))
+		try (InputStream in = minioClient.getObject(minioBucket, getArchivePath(archiveEntry)))
 		{
 			return ByteStreams.toByteArray(in);
 		}
@@ -118,6 +139,188 @@ public class CacheService
 		}
 	}
 
+	/**
+	 * retrieve part of an archive from storage
+	 *
+	 * @param archiveEntry
+	 * @param offset offset into the archive
+	 * @param length maximum number of bytes to read
+	 * @return
+	 */
+	public byte[] getArchive(ArchiveEntry archiveEntry, long offset, int length)
+	{
+		try (InputStream in = minioClient.getObject(minioBucket, getArchivePath(archiveEntry), offset, (long) length))
+		{
+			return ByteStreams.toByteArray(ByteStreams.limit(in, length));
+		}
+		catch (InvalidBucketNameException | NoSuchAlgorithmException | InsufficientDataException
+			| IOException | InvalidKeyException | NoResponseException | XmlPullParserException
+			| ErrorResponseException | InternalException | InvalidArgumentException ex)
+		{
+			log.warn(null, ex);
+			return null;
+		}
+	}
+
+	/**
+	 * retrieve the stored sizes of archives, in parallel
+	 *
+	 * @param archives
+	 * @return the size of each archive
+	 * @throws IOException
+	 */
+	public long[] getArchiveSizes(List<ArchiveEntry> archives) throws IOException
+	{
+		List<Future<Long>> futures = new ArrayList<>(archives.size());
+		for (ArchiveEntry archiveEntry : archives)
+		{
+			futures.add(executor.submit(() -> minioClient.statObject(minioBucket, getArchivePath(archiveEntry)).length()));
+		}
+
+		long[] sizes = new long[archives.size()];
+		try
+		{
+			for (int i = 0; i < sizes.length; ++i)
+			{
+				sizes[i] = await(futures.get(i));
+			}
+		}
+		finally
+		{
+			futures.forEach(f -> f.cancel(true));
+		}
+		return sizes;
+	}
+
+	/**
+	 * Write archives to a stream. Each archive is written as its archive
+	 * id, name hash, crc, revision and data length followed by the data as
+	 * stored. Archives are read from storage in parallel, a bounded number
+	 * ahead of the one being written.
+	 * <p>
+	 * Only the bytes of the stream within [start, end) are written, where
+	 * position is the offset in the stream of the first archive given.
+	 *
+	 * @param archives archives to write
+	 * @param position stream offset of the first archive
+	 * @param start offset of the first byte to write
+	 * @param end offset after the last byte to write
+	 * @param out
+	 * @throws IOException
+	 */
+	public void streamArchives(List<ArchiveEntry> archives, long position, long start, long end, OutputStream out) throws IOException
+	{
+		RangeWriter writer = new RangeWriter(out, position, start, end);
+		Deque<Future<byte[]>> pending = new ArrayDeque<>();
+		int next = 0;
+
+		try
+		{
+			for (ArchiveEntry archiveEntry : archives)
+			{
+				while (next < archives.size() && pending.size() <= STREAM_READ_AHEAD)
+				{
+					ArchiveEntry ahead = archives.get(next++);
+					pending.add(executor.submit(() -> getArchive(ahead)));
+				}
+
+				byte[] data = await(pending.poll());
+				if (data == null)
+				{
+					throw new IOException("unable to read archive " + archiveEntry.getArchiveId());
+				}
+
+				writer.writeHeader(archiveEntry, data.length);
+				writer.write(data);
+
+				if (writer.isDone())
+				{
+					break;
+				}
+			}
+		}
+		finally
+		{
+			pending.forEach(f -> f.cancel(true));
+		}
+
+		out.flush();
+	}
+
+	private static <T> T await(Future<T> future) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException(ex);
+		}
+		catch (ExecutionException ex)
+		{
+			throw new IOException(ex.getCause());
+		}
+	}
+
+	/**
+	 * Writes the part of a stream which falls within a byte range
+	 */
+	private static class RangeWriter
+	{
+		private final OutputStream out;
+		private final long start;
+		private final long end;
+		private long position;
+
+		RangeWriter(OutputStream out, long position, long start, long end)
+		{
+			this.out = out;
+			this.position = position;
+			this.start = start;
+			this.end = end;
+		}
+
+		void writeHeader(ArchiveEntry archiveEntry, int length) throws IOException
+		{
+			ByteArrayOutputStream header = new ByteArrayOutputStream(ARCHIVE_HEADER_SIZE);
+			DataOutputStream dos = new DataOutputStream(header);
+			dos.writeInt(archiveEntry.getArchiveId());
+			dos.writeInt(archiveEntry.getNameHash());
+			dos.writeInt(archiveEntry.getCrc());
+			dos.writeInt(archiveEntry.getRevision());
+			dos.writeInt(length);
+			write(header.toByteArray());
+		}
+
+		void write(byte[] b) throws IOException
+		{
+			long from = Math.max(start - position, 0);
+			long to = Math.min(end - position, b.length);
+			if (from < to)
+			{
+				out.write(b, (int) from, (int) (to - from));
+			}
+			position += b.length;
+		}
+
+		boolean isDone()
+		{
+			return position >= end;
+		}
+	}
+
+	private static String getArchivePath(ArchiveEntry archiveEntry)
+	{
+		String hashStr = BaseEncoding.base16().encode(archiveEntry.getHash());
+		return new StringBuilder()
+			.append(hashStr.substring(0, 2))
+			.append('/')
+			.append(hashStr.substring(2))
+			.toString();
+	}
+
 	public ArchiveFiles getArchiveFiles(ArchiveEntry archiveEntry) throws IOException
 	{
 		CacheDAO cacheDao = new CacheDAO();
@@ -26,9 +26,13 @@ package net.runelite.http.service.config;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import net.runelite.http.api.config.ConfigEntry;
+import net.runelite.http.api.config.ConfigPatch;
 import net.runelite.http.api.config.Configuration;
 import net.runelite.http.service.account.AuthFilter;
 import net.runelite.http.service.account.beans.SessionEntry;
@@ -38,9 +42,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import static org.springframework.web.bind.annotation.RequestMethod.DELETE;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.PATCH;
 import static org.springframework.web.bind.annotation.RequestMethod.PUT;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 import org.sql2o.Sql2oException;
 
@@ -55,9 +63,18 @@ public class ConfigService
 		+ "  UNIQUE KEY `user_key` (`user`,`key`(64))\n"
 		+ ") ENGINE=InnoDB;";
 
+	private static final String CREATE_CONFIG_VERSION = "CREATE TABLE IF NOT EXISTS `config_version` (\n"
+		+ "  `user` int(11) NOT NULL,\n"
+		+ "  `version` int(11) NOT NULL,\n"
+		+ "  PRIMARY KEY (`user`)\n"
+		+ ") ENGINE=InnoDB;";
+
 	private static final String CONFIG_FK = "ALTER TABLE `config`\n"
 		+ "  ADD CONSTRAINT `user_fk` FOREIGN KEY (`user`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE CASCADE;";
 
+	private static final String CONFIG_VERSION_FK = "ALTER TABLE `config_version`\n"
+		+ "  ADD CONSTRAINT `config_version_user_fk` FOREIGN KEY (`user`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE CASCADE;";
+
 	private final Sql2o sql2o;
 	private final AuthFilter auth;
 
@@ -75,6 +92,9 @@ public class ConfigService
 			con.createQuery(CREATE_CONFIG)
 				.executeUpdate();
 
+			con.createQuery(CREATE_CONFIG_VERSION)
+				.executeUpdate();
+
 			try
 			{
 				con.createQuery(CONFIG_FK)
@@ -84,10 +104,20 @@ public class ConfigService
 			{
 				// Ignore, happens when index already exists
 			}
+
+			try
+			{
+				con.createQuery(CONFIG_VERSION_FK)
+					.executeUpdate();
+			}
+			catch (Sql2oException ex)
+			{
+				// Ignore, happens when index already exists
+			}
 		}
 	}
 
-	@RequestMapping
+	@RequestMapping(method = GET)
 	public Configuration get(HttpServletRequest request, HttpServletResponse response) throws IOException
 	{
 		SessionEntry session = auth.handle(request, response);
@@ -101,6 +131,17 @@ public class ConfigService
 
 		try (Connection con = sql2o.open())
 		{
+			Integer version = con.createQuery("select version from config_version where user = :user")
+				.addParameter("user", session.getUser())
+				.executeScalar(Integer.class);
+
+			// The version is per user, so include the user in the tag to keep it unique
+			String etag = "\"" + session.getUser() + "-" + (version != null ? version : 0) + "\"";
+			if (new ServletWebRequest(request, response).checkNotModified(etag))
+			{
+				return null;
+			}
+
 			config = con.createQuery("select `key`, value from config where user = :user")
 				.addParameter("user", session.getUser())
 				.executeAndFetch(ConfigEntry.class);
@@ -109,6 +150,64 @@ public class ConfigService
 		return new Configuration(config);
 	}
 
+	@RequestMapping(method = PATCH)
+	public void patch(
+		HttpServletRequest request,
+		HttpServletResponse response,
+		@RequestBody ConfigPatch patch
+	) throws IOException
+	{
+		SessionEntry session = auth.handle(request, response);
+
+		if (session == null)
+		{
+			return;
+		}
+
+		if (patch.isEmpty())
+		{
+			return;
+		}
+
+		// Rows are written in key order, so concurrent patches of the same
+		// user lock them in the same order and do not deadlock
+		try (Connection con = sql2o.beginTransaction())
+		{
+			if (!patch.getEdit().isEmpty())
+			{
+				Query query = con.createQuery("insert into config (user, `key`, value) values (:user, :key, :value) on duplicate key update value = values(value)");
+
+				for (Map.Entry<String, String> entry : new TreeMap<>(patch.getEdit()).entrySet())
+				{
+					String value = entry.getValue();
+					query.addParameter("user", session.getUser())
+						.addParameter("key", entry.getKey())
+						.addParameter("value", value != null ? value : "")
+						.addToBatch();
+				}
+
+				query.executeBatch();
+			}
+
+			if (!patch.getUnset().isEmpty())
+			{
+				Query query = con.createQuery("delete from config where user = :user and `key` = :key");
+
+				for (String key : new TreeSet<>(patch.getUnset()))
+				{
+					query.addParameter("user", session.getUser())
+						.addParameter("key", key)
+						.addToBatch();
+				}
+
+				query.executeBatch();
+			}
+
+			bumpVersion(con, session.getUser());
+			con.commit();
+		}
+	}
+
 	@RequestMapping(path = "/{key:.+}", method = PUT)
 	public void setKey(
 		HttpServletRequest request,
@@ -124,13 +223,16 @@ public class ConfigService
 			return;
 		}
 
-		try (Connection con = sql2o.open())
+		try (Connection con = sql2o.beginTransaction())
 		{
 			con.createQuery("insert into config (user, `key`, value) values (:user, :key, :value) on duplicate key update value = :value")
 				.addParameter("user", session.getUser())
 				.addParameter("key", key)
 				.addParameter("value", value != null ? value : "")
 				.executeUpdate();
+
+			bumpVersion(con, session.getUser());
+			con.commit();
 		}
 	}
 
@@ -148,12 +250,22 @@ public class ConfigService
 			return;
 		}
 
-		try (Connection con = sql2o.open())
+		try (Connection con = sql2o.beginTransaction())
 		{
 			con.createQuery("delete from config where user = :user and `key` = :key")
 				.addParameter("user", session.getUser())
 				.addParameter("key", key)
 				.executeUpdate();
+
+			bumpVersion(con, session.getUser());
+			con.commit();
 		}
 	}
+
+	private static void bumpVersion(Connection con, int user)
+	{
+		con.createQuery("insert into config_version (user, version) values (:user, 1) on duplicate key update version = version + 1")
+			.addParameter("user", user)
+			.executeUpdate();
+	}
 }
@@ -24,22 +24,40 @@
  */
 package net.runelite.http.service.examine;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.Value;
 import static net.runelite.http.service.examine.ExamineType.ITEM;
 import static net.runelite.http.service.examine.ExamineType.NPC;
 import static net.runelite.http.service.examine.ExamineType.OBJECT;
+import net.runelite.http.service.util.exception.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
 import org.springframework.web.bind.annotation.RestController;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
 
 @RestController
 @RequestMapping("/examine")
@@ -48,7 +66,7 @@ public class ExamineService
 	private static final Logger logger = LoggerFactory.getLogger(ExamineService.class);
 
 	private static final String CREATE_EXAMINE = "CREATE TABLE IF NOT EXISTS `examine` (\n"
-		+ "  `type` enum('OBJECT','NPC','ID','') NOT NULL,\n"
+		+ "  `type` enum('OBJECT','NPC','ITEM','ID','') NOT NULL,\n"
 		+ "  `id` int(11) NOT NULL,\n"
 		+ "  `time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,\n"
 		+ "  `count` int(11) NOT NULL,\n"
@@ -56,8 +74,61 @@ public class ExamineService
 		+ "  UNIQUE KEY `type` (`type`,`id`,`text`(64))\n"
 		+ ") ENGINE=InnoDB";
 
+	private static final String ALTER_EXAMINE_TYPE = "ALTER TABLE `examine` "
+		+ "MODIFY `type` enum('OBJECT','NPC','ITEM','ID','') NOT NULL";
+
+	/**
+	 * Maximum length of examine text in bytes, the size of a tinytext
+	 */
+	private static final int MAX_TEXT_LENGTH = 255;
+
+	/**
+	 * Maximum number of distinct submissions waiting to be flushed
+	 */
+	private static final int MAX_PENDING = 65536;
+
+	/**
+	 * Maximum number of rows in a single flush statement
+	 */
+	private static final int MAX_FLUSH_ROWS = 256;
+
+	@Value
+	private static class ExamineKey
+	{
+		private ExamineType type;
+		private int id;
+	}
+
+	@Value
+	private static class SubmissionKey
+	{
+		private ExamineType type;
+		private int id;
+		private String text;
+	}
+
 	private final Sql2o sql2o;
 
+	/**
+	 * The most submitted text for each examined thing
+	 */
+	private final LoadingCache<ExamineKey, Optional<ExamineEntry>> winners = CacheBuilder.newBuilder()
+		.maximumSize(65536)
+		.expireAfterWrite(10, TimeUnit.MINUTES)
+		.build(new CacheLoader<ExamineKey, Optional<ExamineEntry>>()
+		{
+			@Override
+			public Optional<ExamineEntry> load(ExamineKey key)
+			{
+				return Optional.ofNullable(findWinner(key.getType(), key.getId()));
+			}
+		});
+
+	/**
+	 * Submissions which have not yet been flushed to the database
+	 */
+	private final Map<SubmissionKey, Integer> pending = new ConcurrentHashMap<>();
+
 	@Autowired
 	public ExamineService(@Qualifier("Runelite SQL2O") Sql2o sql2o)
 	{
@@ -67,6 +138,10 @@ public class ExamineService
 		{
 			con.createQuery(CREATE_EXAMINE)
 				.executeUpdate();
+
+			// tables created before items could be examined have no ITEM type
+			con.createQuery(ALTER_EXAMINE_TYPE)
+				.executeUpdate();
 		}
 	}
 
@@ -107,36 +182,182 @@ public class ExamineService
 	}
 
 	private String get(ExamineType type, int id)
+	{
+		try
+		{
+			return winners.get(new ExamineKey(type, id))
+				.map(ExamineEntry::getText)
+				.orElse(null);
+		}
+		catch (ExecutionException | UncheckedExecutionException ex)
+		{
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new RuntimeException(ex.getCause());
+		}
+	}
+
+	private ExamineEntry findWinner(ExamineType type, int id)
 	{
 		try (Connection con = sql2o.open())
 		{
-			ExamineEntry entry = con.createQuery("select text from examine where type = :type and id = :id "
+			return con.createQuery("select text, count from examine where type = :type and id = :id "
 				+ "order by count desc limit 1")
 				.addParameter("type", type.toString())
 				.addParameter("id", id)
 				.executeAndFetchFirst(ExamineEntry.class);
+		}
+	}
 
-			if (entry != null)
+	private void insert(ExamineType type, int id, String examine)
+	{
+		if (examine.isEmpty() || examine.getBytes(StandardCharsets.UTF_8).length > MAX_TEXT_LENGTH)
+		{
+			throw new BadRequestException("invalid examine text");
+		}
+
+		SubmissionKey key = new SubmissionKey(type, id, examine);
+		if (pending.size() >= MAX_PENDING && !pending.containsKey(key))
+		{
+			logger.debug("Dropping examine submission, too many pending: {}", key);
+			return;
+		}
+
+		pending.merge(key, 1, Integer::sum);
+	}
+
+	@Scheduled(fixedDelay = 10000)
+	public void flush()
+	{
+		List<SubmissionKey> keys = new ArrayList<>();
+		List<Integer> counts = new ArrayList<>();
+
+		for (SubmissionKey key : pending.keySet())
+		{
+			Integer count = pending.remove(key);
+			if (count != null)
 			{
-				return entry.getText();
+				keys.add(key);
+				counts.add(count);
 			}
 		}
 
-		return null;
+		if (keys.isEmpty())
+		{
+			return;
+		}
+
+		Timestamp now = Timestamp.from(Instant.now());
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			for (int from = 0; from < keys.size(); from += MAX_FLUSH_ROWS)
+			{
+				int to = Math.min(from + MAX_FLUSH_ROWS, keys.size());
+				upsert(con, keys.subList(from, to), counts.subList(from, to), now);
+			}
+
+			con.commit();
+		}
+		catch (Sql2oException ex)
+		{
+			logger.warn("unable to flush examine submissions, retrying them one at a time", ex);
+			flushEach(keys, counts, now);
+		}
+
+		for (int i = 0; i < keys.size(); ++i)
+		{
+			SubmissionKey key = keys.get(i);
+			int count = counts.get(i);
+
+			// counts only grow, so the winner stays the winner when its own count
+			// goes up. Any other text might overtake it, so reload those lazily.
+			// This avoids compute on the cache's map, which in this Guava leaves
+			// an entry which fails to load when the function returns null.
+			ExamineKey examineKey = new ExamineKey(key.getType(), key.getId());
+			Optional<ExamineEntry> winner = winners.getIfPresent(examineKey);
+			if (winner == null)
+			{
+				continue;
+			}
+
+			if (!winner.isPresent() || !winner.get().getText().equals(key.getText()))
+			{
+				winners.invalidate(examineKey);
+				continue;
+			}
+
+			ExamineEntry entry = new ExamineEntry();
+			entry.setText(key.getText());
+			entry.setCount(winner.get().getCount() + count);
+			if (!winners.asMap().replace(examineKey, winner, Optional.of(entry)))
+			{
+				// reloaded since, so the loaded winner may not include this count
+				winners.invalidate(examineKey);
+			}
+		}
+
+		logger.debug("Flushed {} examine submissions", keys.size());
 	}
 
-	private void insert(ExamineType type, int id, String examine)
+	/**
+	 * Write each submission on its own, so that one bad row can't hold back
+	 * the rest of the batch. Rows which fail are dropped rather than retried,
+	 * as a row the database refuses would otherwise fail every later flush.
+	 */
+	private void flushEach(List<SubmissionKey> keys, List<Integer> counts, Timestamp time)
 	{
 		try (Connection con = sql2o.open())
 		{
-			con.createQuery("insert into examine (type, id, time, count, text) values "
-				+ "(:type, :id, :time, :count, :text) on duplicate key update count = count + 1")
-				.addParameter("type", type.toString())
-				.addParameter("id", id)
-				.addParameter("time", Timestamp.from(Instant.now()))
-				.addParameter("count", 1)
-				.addParameter("text", examine)
-				.executeUpdate();
+			for (int i = keys.size() - 1; i >= 0; --i)
+			{
+				try
+				{
+					upsert(con, keys.subList(i, i + 1), counts.subList(i, i + 1), time);
+				}
+				catch (Sql2oException ex)
+				{
+					logger.warn("dropping examine submission {}", keys.get(i), ex);
+					keys.remove(i);
+					counts.remove(i);
+				}
+			}
+		}
+		catch (Sql2oException ex)
+		{
+			logger.warn("dropping {} examine submissions", keys.size(), ex);
+			keys.clear();
+			counts.clear();
+		}
+	}
+
+	private static void upsert(Connection con, List<SubmissionKey> keys, List<Integer> counts, Timestamp time)
+	{
+		StringBuilder sb = new StringBuilder("insert into examine (type, id, time, count, text) values ");
+		for (int i = 0; i < keys.size(); ++i)
+		{
+			if (i > 0)
+			{
+				sb.append(", ");
+			}
+			sb.append("(:type").append(i)
+				.append(", :id").append(i)
+				.append(", :time, :count").append(i)
+				.append(", :text").append(i).append(')');
 		}
+		sb.append(" on duplicate key update count = count + values(count)");
+
+		Query query = con.createQuery(sb.toString())
+			.addParameter("time", time);
+
+		for (int i = 0; i < keys.size(); ++i)
+		{
+			SubmissionKey key = keys.get(i);
+			query.addParameter("type" + i, key.getType().toString())
+				.addParameter("id" + i, key.getId())
+				.addParameter("count" + i, counts.get(i))
+				.addParameter("text" + i, key.getText());
+		}
+
+		query.executeUpdate();
 	}
 }
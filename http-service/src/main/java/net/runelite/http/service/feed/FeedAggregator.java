@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.feed;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.PreDestroy;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.api.feed.FeedItem;
+import net.runelite.http.api.feed.FeedResult;
+import net.runelite.http.service.feed.blog.BlogService;
+import net.runelite.http.service.feed.osrsnews.OSRSNewsService;
+import net.runelite.http.service.feed.twitter.TwitterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Periodically fetches the feed sources in parallel and publishes the
+ * combined feed as a serialized snapshot. A source which fails or times
+ * out contributes its last successful result instead.
+ */
+@Service
+@Slf4j
+public class FeedAggregator
+{
+	private static final long SOURCE_TIMEOUT_MS = 10_000;
+
+	@Value
+	static class FeedSnapshot
+	{
+		private byte[] json;
+		/**
+		 * hash of the json, or null until the sources have been fetched
+		 */
+		private String etag;
+	}
+
+	private final Map<String, Callable<List<FeedItem>>> sources;
+	private final long timeoutMs;
+	private final ExecutorService executor;
+	private final Map<String, List<FeedItem>> lastGood = new ConcurrentHashMap<>();
+	private volatile FeedSnapshot snapshot;
+
+	@Autowired
+	public FeedAggregator(BlogService blogService, TwitterService twitterService, OSRSNewsService osrsNewsService)
+	{
+		this(sources(blogService, twitterService, osrsNewsService), SOURCE_TIMEOUT_MS);
+	}
+
+	FeedAggregator(Map<String, Callable<List<FeedItem>>> sources, long timeoutMs)
+	{
+		this.sources = sources;
+		this.timeoutMs = timeoutMs;
+		this.executor = Executors.newFixedThreadPool(sources.size());
+		this.snapshot = new FeedSnapshot(RuneLiteAPI.GSON.toJson(new FeedResult(new ArrayList<>())).getBytes(StandardCharsets.UTF_8), null);
+	}
+
+	private static Map<String, Callable<List<FeedItem>>> sources(BlogService blogService, TwitterService twitterService, OSRSNewsService osrsNewsService)
+	{
+		Map<String, Callable<List<FeedItem>>> sources = new LinkedHashMap<>();
+		sources.put("blog", blogService::getBlogPosts);
+		sources.put("twitter", twitterService::getTweets);
+		sources.put("osrsnews", osrsNewsService::getNews);
+		return sources;
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		executor.shutdownNow();
+	}
+
+	FeedSnapshot getSnapshot()
+	{
+		return snapshot;
+	}
+
+	@Scheduled(fixedDelay = 600_000)
+	public void refresh()
+	{
+		Map<String, Future<List<FeedItem>>> futures = new LinkedHashMap<>();
+		for (Map.Entry<String, Callable<List<FeedItem>>> source : sources.entrySet())
+		{
+			futures.put(source.getKey(), executor.submit(source.getValue()));
+		}
+
+		// all sources share the same deadline, since they run at the same time
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+		List<FeedItem> items = new ArrayList<>();
+
+		for (Map.Entry<String, Future<List<FeedItem>>> entry : futures.entrySet())
+		{
+			String name = entry.getKey();
+			Future<List<FeedItem>> future = entry.getValue();
+
+			try
+			{
+				List<FeedItem> result = future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+				lastGood.put(name, ImmutableList.copyOf(result));
+			}
+			catch (TimeoutException ex)
+			{
+				log.warn("Timeout fetching feed source {}", name);
+				future.cancel(true);
+			}
+			catch (ExecutionException ex)
+			{
+				log.warn("Error fetching feed source {}", name, ex.getCause());
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			List<FeedItem> sourceItems = lastGood.get(name);
+			if (sourceItems != null)
+			{
+				items.addAll(sourceItems);
+			}
+		}
+
+		FeedSnapshot previous = snapshot;
+		FeedSnapshot next = serialize(previous, new FeedResult(items));
+		if (next != previous)
+		{
+			snapshot = next;
+		}
+	}
+
+	/**
+	 * Serialize a feed, returning the previous snapshot if the feed has not changed
+	 */
+	private static FeedSnapshot serialize(FeedSnapshot previous, FeedResult result)
+	{
+		byte[] json = RuneLiteAPI.GSON.toJson(result).getBytes(StandardCharsets.UTF_8);
+		if (previous.getEtag() != null && Arrays.equals(previous.getJson(), json))
+		{
+			return previous;
+		}
+
+		// The tag depends only on the feed, so it is the same across restarts
+		// and between instances of the service
+		return new FeedSnapshot(json, "\"" + Hashing.sha256().hashBytes(json) + "\"");
+	}
+}
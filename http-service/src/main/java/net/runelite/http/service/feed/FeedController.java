@@ -24,78 +24,41 @@
  */
 package net.runelite.http.service.feed;
 
-import com.google.common.base.Suppliers;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
-import net.runelite.http.api.feed.FeedResult;
-import net.runelite.http.api.feed.FeedItem;
-import net.runelite.http.service.feed.blog.BlogService;
-import net.runelite.http.service.feed.osrsnews.OSRSNewsService;
-import net.runelite.http.service.feed.twitter.TwitterService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @RestController
 @RequestMapping("/feed")
 public class FeedController
 {
-	private static final Logger logger = LoggerFactory.getLogger(FeedController.class);
-
-	private BlogService blogService;
-	private TwitterService twitterService;
-	private OSRSNewsService osrsNewsService;
-
-	private final Supplier<FeedResult> feed = Suppliers.memoizeWithExpiration(() ->
-	{
-		List<FeedItem> items = new ArrayList<>();
-
-		try
-		{
-			items.addAll(blogService.getBlogPosts());
-		}
-		catch (IOException e)
-		{
-			logger.warn(null, e);
-		}
-
-		try
-		{
-			items.addAll(twitterService.getTweets());
-		}
-		catch (IOException e)
-		{
-			logger.warn(null, e);
-		}
-
-		try
-		{
-			items.addAll(osrsNewsService.getNews());
-		}
-		catch (IOException e)
-		{
-			logger.warn(null, e);
-		}
-
-		return new FeedResult(items);
-	}, 10, TimeUnit.MINUTES);
+	private final FeedAggregator feedAggregator;
 
 	@Autowired
-	public FeedController(BlogService blogService, TwitterService twitterService, OSRSNewsService osrsNewsService)
+	public FeedController(FeedAggregator feedAggregator)
 	{
-		this.blogService = blogService;
-		this.twitterService = twitterService;
-		this.osrsNewsService = osrsNewsService;
+		this.feedAggregator = feedAggregator;
 	}
 
 	@RequestMapping
-	public FeedResult getFeed() throws IOException
+	public ResponseEntity<byte[]> getFeed(HttpServletRequest request, HttpServletResponse response)
 	{
-		return feed.get();
+		FeedAggregator.FeedSnapshot snapshot = feedAggregator.getSnapshot();
+
+		// The feed is not tagged until it has been loaded, so the empty feed
+		// is not cached in place of it
+		if (snapshot.getEtag() != null && new ServletWebRequest(request, response).checkNotModified(snapshot.getEtag()))
+		{
+			return null;
+		}
+
+		return ResponseEntity.ok()
+			.contentType(MediaType.APPLICATION_JSON_UTF8)
+			.body(snapshot.getJson());
 	}
 }
@@ -24,7 +24,15 @@
  */
 package net.runelite.http.service.hiscore;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.RuneLiteAPI;
 import net.runelite.http.api.hiscore.HiscoreEndpoint;
@@ -45,9 +53,46 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class HiscoreService
 {
+	/**
+	 * Recent lookups. The cache loads each key at most once at a time, so
+	 * concurrent lookups of the same player share a single request to Jagex.
+	 */
+	private final LoadingCache<HiscoreKey, HiscoreResultBuilder> hiscoreCache = CacheBuilder.newBuilder()
+		.maximumSize(4096)
+		.expireAfterWrite(1, TimeUnit.MINUTES)
+		.build(new CacheLoader<HiscoreKey, HiscoreResultBuilder>()
+		{
+			@Override
+			public HiscoreResultBuilder load(HiscoreKey key) throws IOException
+			{
+				return lookupUsername(key.getUsername(), key.getEndpoint().getHiscoreURL());
+			}
+		});
+
+	@Value
+	private static class HiscoreKey
+	{
+		private String username;
+		private HiscoreEndpoint endpoint;
+	}
+
 	public HiscoreResultBuilder lookupUsername(String username, HiscoreEndpoint endpoint) throws IOException
 	{
-		return lookupUsername(username, endpoint.getHiscoreURL());
+		try
+		{
+			return hiscoreCache.get(new HiscoreKey(username, endpoint));
+		}
+		catch (ExecutionException ex)
+		{
+			Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+			throw new IOException(ex.getCause());
+		}
+		catch (UncheckedExecutionException ex)
+		{
+			// NotFoundException and friends
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw ex;
+		}
 	}
 
 	public HiscoreResultBuilder lookupUsername(String username, HttpUrl hiscoreUrl) throws IOException
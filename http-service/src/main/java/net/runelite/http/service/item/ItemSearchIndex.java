@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of item names, answering ranked and typo tolerant
+ * searches. Names are split into trigrams, each of which has a sorted
+ * posting list of the items containing it. Candidates are scored by how
+ * many of the query's trigrams they contain, with a bonus for prefix
+ * matches.
+ * <p>
+ * The index is an immutable snapshot which is replaced when items are
+ * added, so searches never block.
+ */
+class ItemSearchIndex
+{
+	/**
+	 * Minimum fraction of the query trigrams a name must contain to match
+	 */
+	private static final double MIN_CONTAINMENT = 0.5;
+
+	private static final class Snapshot
+	{
+		private final ItemEntry[] items;
+		private final String[] names;
+		private final int[] gramCounts;
+		private final Map<Integer, int[]> postings;
+		private final Map<Integer, Integer> positions;
+
+		private Snapshot(ItemEntry[] items, String[] names, int[] gramCounts,
+			Map<Integer, int[]> postings, Map<Integer, Integer> positions)
+		{
+			this.items = items;
+			this.names = names;
+			this.gramCounts = gramCounts;
+			this.postings = postings;
+			this.positions = positions;
+		}
+	}
+
+	private volatile Snapshot snapshot = new Snapshot(new ItemEntry[0], new String[0], new int[0],
+		Collections.emptyMap(), Collections.emptyMap());
+
+	int size()
+	{
+		return snapshot.items.length;
+	}
+
+	/**
+	 * Replace the contents of the index
+	 */
+	synchronized void rebuild(Collection<ItemEntry> items)
+	{
+		Map<Integer, ItemEntry> byId = new LinkedHashMap<>();
+		for (ItemEntry item : items)
+		{
+			byId.put(item.getId(), copy(item));
+		}
+
+		ItemEntry[] entries = byId.values().toArray(new ItemEntry[0]);
+		String[] names = new String[entries.length];
+		int[] gramCounts = new int[entries.length];
+		Map<Integer, int[]> postings = new HashMap<>();
+		Map<Integer, Integer> positions = new HashMap<>();
+
+		Map<Integer, IntList> lists = new HashMap<>();
+		for (int i = 0; i < entries.length; ++i)
+		{
+			names[i] = normalize(entries[i].getName());
+			positions.put(entries[i].getId(), i);
+
+			int[] grams = trigrams(names[i]);
+			gramCounts[i] = grams.length;
+			for (int gram : grams)
+			{
+				lists.computeIfAbsent(gram, k -> new IntList()).add(i);
+			}
+		}
+
+		for (Map.Entry<Integer, IntList> entry : lists.entrySet())
+		{
+			postings.put(entry.getKey(), entry.getValue().toArray());
+		}
+
+		snapshot = new Snapshot(entries, names, gramCounts, postings, positions);
+	}
+
+	/**
+	 * Add items to the index, or update them if they are already indexed.
+	 * New items are appended to the existing posting lists; a renamed item
+	 * causes a full rebuild.
+	 */
+	synchronized void add(Collection<ItemEntry> items)
+	{
+		Snapshot current = snapshot;
+		List<ItemEntry> added = new ArrayList<>();
+		ItemEntry[] entries = current.items;
+
+		for (ItemEntry item : items)
+		{
+			Integer position = current.positions.get(item.getId());
+			if (position == null)
+			{
+				added.add(copy(item));
+				continue;
+			}
+
+			if (!current.names[position].equals(normalize(item.getName())))
+			{
+				List<ItemEntry> all = new ArrayList<>(Arrays.asList(current.items));
+				all.addAll(items);
+				rebuild(all);
+				return;
+			}
+
+			// same name, so only the entry changes
+			if (entries == current.items)
+			{
+				entries = entries.clone();
+			}
+			entries[position] = copy(item);
+		}
+
+		if (added.isEmpty())
+		{
+			if (entries != current.items)
+			{
+				snapshot = new Snapshot(entries, current.names, current.gramCounts, current.postings, current.positions);
+			}
+			return;
+		}
+
+		int size = entries.length;
+		entries = Arrays.copyOf(entries, size + added.size());
+		String[] names = Arrays.copyOf(current.names, entries.length);
+		int[] gramCounts = Arrays.copyOf(current.gramCounts, entries.length);
+		Map<Integer, int[]> postings = new HashMap<>(current.postings);
+		Map<Integer, Integer> positions = new HashMap<>(current.positions);
+
+		for (int i = size; i < entries.length; ++i)
+		{
+			ItemEntry item = added.get(i - size);
+			entries[i] = item;
+			names[i] = normalize(item.getName());
+			positions.put(item.getId(), i);
+
+			int[] grams = trigrams(names[i]);
+			gramCounts[i] = grams.length;
+			for (int gram : grams)
+			{
+				// the new position is larger than any before it, so the list stays sorted
+				int[] list = postings.get(gram);
+				if (list == null)
+				{
+					postings.put(gram, new int[]{i});
+				}
+				else
+				{
+					int[] grown = Arrays.copyOf(list, list.length + 1);
+					grown[list.length] = i;
+					postings.put(gram, grown);
+				}
+			}
+		}
+
+		snapshot = new Snapshot(entries, names, gramCounts, postings, positions);
+	}
+
+	/**
+	 * Search for items by name
+	 *
+	 * @param query
+	 * @param limit maximum number of results
+	 * @return matching items, best match first
+	 */
+	List<ItemEntry> search(String query, int limit)
+	{
+		Snapshot s = snapshot;
+		String q = normalize(query);
+		if (q.isEmpty() || limit <= 0)
+		{
+			return Collections.emptyList();
+		}
+
+		int[] best = new int[limit];
+		double[] bestScores = new double[limit];
+		int found = 0;
+
+		if (q.length() < 3)
+		{
+			// too short to have trigrams of its own, so match word prefixes
+			for (int i = 0; i < s.names.length; ++i)
+			{
+				double score = prefixScore(s.names[i], q);
+				if (score > 0)
+				{
+					found = offer(s, best, bestScores, found, i, score);
+				}
+			}
+			return results(s, best, found);
+		}
+
+		int[] grams = trigrams(q);
+		int[] shared = new int[s.items.length];
+		IntList candidates = new IntList();
+
+		for (int gram : grams)
+		{
+			int[] list = s.postings.get(gram);
+			if (list == null)
+			{
+				continue;
+			}
+
+			for (int doc : list)
+			{
+				if (shared[doc]++ == 0)
+				{
+					candidates.add(doc);
+				}
+			}
+		}
+
+		for (int c = 0; c < candidates.size; ++c)
+		{
+			int doc = candidates.values[c];
+			double containment = (double) shared[doc] / grams.length;
+			double prefix = prefixScore(s.names[doc], q);
+
+			if (containment < MIN_CONTAINMENT && prefix == 0)
+			{
+				continue;
+			}
+
+			double jaccard = (double) shared[doc] / (grams.length + s.gramCounts[doc] - shared[doc]);
+			found = offer(s, best, bestScores, found, doc, containment + jaccard + prefix);
+		}
+
+		return results(s, best, found);
+	}
+
+	/**
+	 * Insert a match into the top results, kept ordered by score, then
+	 * shorter name, then item id
+	 */
+	private static int offer(Snapshot s, int[] best, double[] bestScores, int found, int doc, double score)
+	{
+		int pos = found;
+		while (pos > 0 && better(s, doc, score, best[pos - 1], bestScores[pos - 1]))
+		{
+			--pos;
+		}
+
+		if (pos >= best.length)
+		{
+			return found;
+		}
+
+		int end = Math.min(found, best.length - 1);
+		System.arraycopy(best, pos, best, pos + 1, end - pos);
+		System.arraycopy(bestScores, pos, bestScores, pos + 1, end - pos);
+		best[pos] = doc;
+		bestScores[pos] = score;
+		return Math.min(found + 1, best.length);
+	}
+
+	private static boolean better(Snapshot s, int doc, double score, int other, double otherScore)
+	{
+		if (score != otherScore)
+		{
+			return score > otherScore;
+		}
+		int length = s.names[doc].length(), otherLength = s.names[other].length();
+		if (length != otherLength)
+		{
+			return length < otherLength;
+		}
+		return s.items[doc].getId() < s.items[other].getId();
+	}
+
+	private static List<ItemEntry> results(Snapshot s, int[] best, int found)
+	{
+		List<ItemEntry> results = new ArrayList<>(found);
+		for (int i = 0; i < found; ++i)
+		{
+			results.add(s.items[best[i]]);
+		}
+		return results;
+	}
+
+	private static double prefixScore(String name, String query)
+	{
+		if (name.equals(query))
+		{
+			return 3;
+		}
+		if (name.startsWith(query))
+		{
+			return 2;
+		}
+		int idx = name.indexOf(query);
+		if (idx > 0 && name.charAt(idx - 1) == ' ')
+		{
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Lowercase a name, and replace anything but letters and digits with single spaces
+	 */
+	static String normalize(String name)
+	{
+		if (name == null)
+		{
+			return "";
+		}
+
+		StringBuilder sb = new StringBuilder(name.length());
+		boolean space = true;
+		for (int i = 0; i < name.length(); ++i)
+		{
+			char c = Character.toLowerCase(name.charAt(i));
+			if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))
+			{
+				sb.append(c);
+				space = false;
+			}
+			else if (!space)
+			{
+				sb.append(' ');
+				space = true;
+			}
+		}
+
+		int length = sb.length();
+		if (length > 0 && sb.charAt(length - 1) == ' ')
+		{
+			sb.setLength(length - 1);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The distinct trigrams of a normalized name, padded with a space on
+	 * either side so that word boundaries count. Normalized names are
+	 * ascii, so each trigram packs into an int.
+	 */
+	static int[] trigrams(String name)
+	{
+		String padded = " " + name + " ";
+		IntList grams = new IntList();
+		for (int i = 0; i + 3 <= padded.length(); ++i)
+		{
+			int gram = padded.charAt(i) << 14 | padded.charAt(i + 1) << 7 | padded.charAt(i + 2);
+			if (!grams.contains(gram))
+			{
+				grams.add(gram);
+			}
+		}
+		return grams.toArray();
+	}
+
+	private static ItemEntry copy(ItemEntry item)
+	{
+		// icons are not needed for search results
+		ItemEntry entry = new ItemEntry();
+		entry.setId(item.getId());
+		entry.setName(item.getName());
+		entry.setDescription(item.getDescription());
+		entry.setType(item.getType());
+		return entry;
+	}
+
+	private static final class IntList
+	{
+		private int[] values = new int[8];
+		private int size;
+
+		void add(int value)
+		{
+			if (size == values.length)
+			{
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		boolean contains(int value)
+		{
+			for (int i = 0; i < size; ++i)
+			{
+				if (values[i] == value)
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+
+		int[] toArray()
+		{
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
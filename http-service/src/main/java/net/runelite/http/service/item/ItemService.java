@@ -30,6 +30,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -41,6 +42,7 @@ import okhttp3.Request;
 import okhttp3.Response;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
@@ -53,9 +55,6 @@ import org.sql2o.Sql2oException;
 public class ItemService
 {
 	private static final String BASE = "https://services.runescape.com/m=itemdb_oldschool";
-	private static final HttpUrl RS_ITEM_URL = HttpUrl.parse(BASE + "/api/catalogue/detail.json");
-	private static final HttpUrl RS_PRICE_URL = HttpUrl.parse(BASE + "/api/graph");
-	private static final HttpUrl RS_SEARCH_URL = HttpUrl.parse(BASE + "/api/catalogue/items.json?category=1");
 
 	private static final String CREATE_ITEMS = "CREATE TABLE IF NOT EXISTS `items` (\n"
 		+ "  `id` int(11) NOT NULL,\n"
@@ -82,14 +81,25 @@ public class ItemService
 		+ "  ADD CONSTRAINT `item` FOREIGN KEY (`item`) REFERENCES `items` (`id`);";
 
 	private static final int MAX_PENDING = 512;
+	private static final int MAX_SEARCH_RESULTS = 10;
 
 	private final Sql2o sql2o;
+	private final HttpUrl rsItemUrl;
+	private final HttpUrl rsPriceUrl;
+	private final HttpUrl rsSearchUrl;
 	private final ConcurrentLinkedQueue<PendingLookup> pendingLookups = new ConcurrentLinkedQueue<PendingLookup>();
+	private final ItemSearchIndex searchIndex = new ItemSearchIndex();
 
 	@Autowired
-	public ItemService(@Qualifier("Runelite SQL2O") Sql2o sql2o)
+	public ItemService(
+		@Qualifier("Runelite SQL2O") Sql2o sql2o,
+		@Value("${runelite.itemdb.url:" + BASE + "}") String itemDbUrl
+	)
 	{
 		this.sql2o = sql2o;
+		this.rsItemUrl = HttpUrl.parse(itemDbUrl + "/api/catalogue/detail.json");
+		this.rsPriceUrl = HttpUrl.parse(itemDbUrl + "/api/graph");
+		this.rsSearchUrl = HttpUrl.parse(itemDbUrl + "/api/catalogue/items.json?category=1");
 
 		try (Connection con = sql2o.open())
 		{
@@ -109,6 +119,8 @@ public class ItemService
 				// Ignore, happens when index already exists
 			}
 		}
+
+		reloadSearchIndex();
 	}
 
 	public ItemEntry getItem(int itemId)
@@ -145,14 +157,25 @@ public class ItemService
 
 	public List<ItemEntry> search(String search)
 	{
+		return searchIndex.search(search, MAX_SEARCH_RESULTS);
+	}
+
+	/**
+	 * Rebuild the search index from the items table, which picks up items
+	 * inserted by other instances
+	 */
+	@Scheduled(fixedDelay = 600_000, initialDelay = 600_000)
+	public void reloadSearchIndex()
+	{
+		List<ItemEntry> items;
 		try (Connection con = sql2o.open())
 		{
-			return con.createQuery("select id, name, description, type, match (name) against (:search) as score from items "
-				+ "where match (name) against (:search) order by score desc limit 10")
-				.throwOnMappingFailure(false) // otherwise it tries to map 'score'
-				.addParameter("search", search)
+			items = con.createQuery("select id, name, description, type from items")
 				.executeAndFetch(ItemEntry.class);
 		}
+
+		searchIndex.rebuild(items);
+		log.debug("Indexed {} items for search", items.size());
 	}
 
 	public ItemEntry fetchItem(int itemId)
@@ -201,6 +224,8 @@ public class ItemService
 			item.setType(ItemType.of(rsItem.getType()));
 			item.setIcon(icon);
 			item.setIcon_large(iconLarge);
+
+			searchIndex.add(Collections.singletonList(item));
 			return item;
 		}
 		catch (IOException ex)
@@ -257,7 +282,7 @@ public class ItemService
 
 	private RSItem fetchRSItem(int itemId) throws IOException
 	{
-		HttpUrl itemUrl = RS_ITEM_URL
+		HttpUrl itemUrl = rsItemUrl
 			.newBuilder()
 			.addQueryParameter("item", "" + itemId)
 			.build();
@@ -273,7 +298,7 @@ public class ItemService
 
 	private RSPrices fetchRSPrices(int itemId) throws IOException
 	{
-		HttpUrl priceUrl = RS_PRICE_URL
+		HttpUrl priceUrl = rsPriceUrl
 			.newBuilder()
 			.addPathSegment(itemId + ".json")
 			.build();
@@ -290,7 +315,7 @@ public class ItemService
 		// rs api seems to require lowercase
 		query = query.toLowerCase();
 
-		HttpUrl searchUrl = RS_SEARCH_URL
+		HttpUrl searchUrl = rsSearchUrl
 			.newBuilder()
 			.addQueryParameter("alpha", query)
 			.build();
@@ -304,6 +329,8 @@ public class ItemService
 
 	private void batchInsertItems(RSSearch search)
 	{
+		List<ItemEntry> items = new ArrayList<>();
+
 		try (Connection con = sql2o.beginTransaction())
 		{
 			Query q = con.createQuery("insert into items (id, name, description, type) values (:id,"
@@ -317,11 +344,20 @@ public class ItemService
 					.addParameter("description", rsItem.getDescription())
 					.addParameter("type", rsItem.getType())
 					.addToBatch();
+
+				ItemEntry item = new ItemEntry();
+				item.setId(rsItem.getId());
+				item.setName(rsItem.getName());
+				item.setDescription(rsItem.getDescription());
+				item.setType(ItemType.of(rsItem.getType()));
+				items.add(item);
 			}
 
 			q.executeBatch();
 			con.commit();
 		}
+
+		searchIndex.add(items);
 	}
 
 	private <T> T fetchJson(Request request, Class<T> clazz) throws IOException
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects statement timings, connection pool waits and per request query
+ * counts from data sources wrapped with {@link #wrap(String, DataSource)}.
+ * Requests are tracked between {@link #beginRequest()} and
+ * {@link #endRequest(String)}, which are called on the request thread.
+ */
+@Component
+@Slf4j
+public class QueryMetrics
+{
+	/**
+	 * Number of times a statement can run in one request before it is
+	 * reported as repeated, which is usually a query in a loop
+	 */
+	static final int REPEATED_STATEMENT_THRESHOLD = 5;
+
+	/**
+	 * Statements with generated sql, such as multi row inserts, are each
+	 * distinct, so past this many statements new ones are grouped together
+	 */
+	private static final int MAX_STATEMENTS = 1024;
+	private static final String OTHER_STATEMENTS = "(other)";
+
+	private final ThreadLocal<RequestStats> currentRequest = new ThreadLocal<>();
+	private final Map<String, Histogram> poolWait = new ConcurrentHashMap<>();
+	private final Map<String, Map<String, Histogram>> statements = new ConcurrentHashMap<>();
+	private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+	private volatile Instant since = Instant.now();
+
+	private static class RequestStats
+	{
+		private int queries;
+		private int connections;
+		private long queryNanos;
+		private final Map<String, Integer> executions = new HashMap<>();
+	}
+
+	private static class EndpointStats
+	{
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder queries = new LongAdder();
+		private final LongAccumulator maxQueries = new LongAccumulator(Math::max, 0L);
+		private final LongAdder connections = new LongAdder();
+		private final LongAccumulator maxConnections = new LongAccumulator(Math::max, 0L);
+		private final Histogram queryTime = new Histogram();
+		private final Map<String, LongAdder> repeated = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Wrap a data source so that its connections and statements are measured
+	 *
+	 * @param database name the statements are reported under
+	 * @param dataSource
+	 * @return
+	 */
+	public DataSource wrap(String database, DataSource dataSource)
+	{
+		poolWait.putIfAbsent(database, new Histogram());
+		return proxy(DataSource.class, dataSource, (method, args, invocation) ->
+		{
+			if (!method.getName().equals("getConnection"))
+			{
+				return invocation.invoke();
+			}
+
+			long start = System.nanoTime();
+			Connection connection = (Connection) invocation.invoke();
+			poolWait.get(database).record(System.nanoTime() - start);
+
+			RequestStats request = currentRequest.get();
+			if (request != null)
+			{
+				++request.connections;
+			}
+
+			return wrap(database, connection);
+		});
+	}
+
+	private Connection wrap(String database, Connection connection)
+	{
+		return proxy(Connection.class, connection, (method, args, invocation) ->
+		{
+			Object result = invocation.invoke();
+			switch (method.getName())
+			{
+				case "prepareStatement":
+				case "prepareCall":
+					return wrap(database, method.getReturnType(), (Statement) result, (String) args[0]);
+				case "createStatement":
+					return wrap(database, Statement.class, (Statement) result, null);
+				default:
+					return result;
+			}
+		});
+	}
+
+	private <T> T wrap(String database, Class<T> type, Statement statement, String preparedSql)
+	{
+		return proxy(type, type.cast(statement), (method, args, invocation) ->
+		{
+			if (!method.getName().startsWith("execute"))
+			{
+				return invocation.invoke();
+			}
+
+			String sql = preparedSql;
+			if (sql == null && args != null && args.length > 0 && args[0] instanceof String)
+			{
+				sql = (String) args[0];
+			}
+
+			long start = System.nanoTime();
+			try
+			{
+				return invocation.invoke();
+			}
+			finally
+			{
+				record(database, sql != null ? sql : OTHER_STATEMENTS, System.nanoTime() - start);
+			}
+		});
+	}
+
+	private void record(String database, String sql, long nanos)
+	{
+		Map<String, Histogram> byStatement = statements.computeIfAbsent(database, k -> new ConcurrentHashMap<>());
+		Histogram histogram = byStatement.get(sql);
+		if (histogram == null)
+		{
+			if (byStatement.size() >= MAX_STATEMENTS)
+			{
+				sql = OTHER_STATEMENTS;
+			}
+			histogram = byStatement.computeIfAbsent(sql, k -> new Histogram());
+		}
+		histogram.record(nanos);
+
+		RequestStats request = currentRequest.get();
+		if (request != null)
+		{
+			++request.queries;
+			request.queryNanos += nanos;
+			request.executions.merge(sql, 1, Integer::sum);
+		}
+	}
+
+	/**
+	 * Start counting queries made by this thread
+	 */
+	public void beginRequest()
+	{
+		currentRequest.set(new RequestStats());
+	}
+
+	/**
+	 * Stop counting queries made by this thread, and add them to the
+	 * totals for the endpoint
+	 *
+	 * @param endpoint
+	 */
+	public void endRequest(String endpoint)
+	{
+		RequestStats request = currentRequest.get();
+		if (request == null)
+		{
+			return;
+		}
+
+		currentRequest.remove();
+
+		EndpointStats stats = endpoints.computeIfAbsent(endpoint, k -> new EndpointStats());
+		stats.requests.increment();
+		stats.queries.add(request.queries);
+		stats.maxQueries.accumulate(request.queries);
+		stats.connections.add(request.connections);
+		stats.maxConnections.accumulate(request.connections);
+		if (request.queries > 0)
+		{
+			stats.queryTime.record(request.queryNanos);
+		}
+
+		for (Map.Entry<String, Integer> entry : request.executions.entrySet())
+		{
+			if (entry.getValue() >= REPEATED_STATEMENT_THRESHOLD)
+			{
+				log.debug("{} ran the same statement {} times: {}", endpoint, entry.getValue(), entry.getKey());
+				stats.repeated.computeIfAbsent(entry.getKey(), k -> new LongAdder()).increment();
+			}
+		}
+	}
+
+	public QueryMetricsSummary summarize()
+	{
+		QueryMetricsSummary summary = new QueryMetricsSummary();
+		summary.setUptimeSeconds(Duration.between(since, Instant.now()).getSeconds());
+
+		summary.setPoolWait(poolWait.entrySet().stream()
+			.collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().summarize())));
+
+		summary.setStatements(statements.entrySet().stream()
+			.flatMap(db -> db.getValue().entrySet().stream()
+				.map(e ->
+				{
+					StatementSummary statement = new StatementSummary();
+					statement.setDatabase(db.getKey());
+					statement.setSql(e.getKey());
+					statement.setTiming(e.getValue().summarize());
+					return statement;
+				}))
+			.sorted(Comparator.comparingLong((StatementSummary s) -> s.getTiming().getTotalMillis()).reversed())
+			.collect(Collectors.toList()));
+
+		summary.setEndpoints(endpoints.entrySet().stream()
+			.map(e ->
+			{
+				EndpointStats stats = e.getValue();
+				EndpointSummary endpoint = new EndpointSummary();
+				endpoint.setEndpoint(e.getKey());
+				endpoint.setRequests(stats.requests.sum());
+				endpoint.setQueries(stats.queries.sum());
+				endpoint.setMaxQueries(stats.maxQueries.get());
+				endpoint.setConnections(stats.connections.sum());
+				endpoint.setMaxConnections(stats.maxConnections.get());
+				endpoint.setQueryTime(stats.queryTime.summarize());
+				endpoint.setRepeatedStatements(stats.repeated.entrySet().stream()
+					.collect(Collectors.toMap(Map.Entry::getKey, r -> r.getValue().sum())));
+				return endpoint;
+			})
+			.sorted(Comparator.comparingLong(EndpointSummary::getQueries).reversed())
+			.collect(Collectors.toList()));
+
+		return summary;
+	}
+
+	/**
+	 * Clear the collected statistics. Pool wait histograms are kept per
+	 * data source, so they are replaced rather than removed.
+	 */
+	public void reset()
+	{
+		poolWait.replaceAll((k, v) -> new Histogram());
+		statements.clear();
+		endpoints.clear();
+		since = Instant.now();
+	}
+
+	@FunctionalInterface
+	private interface Invocation
+	{
+		Object invoke() throws Throwable;
+	}
+
+	@FunctionalInterface
+	private interface Interceptor
+	{
+		Object intercept(Method method, Object[] args, Invocation invocation) throws Throwable;
+	}
+
+	private static <T> T proxy(Class<T> type, T target, Interceptor interceptor)
+	{
+		InvocationHandler handler = (proxy, method, args) -> interceptor.intercept(method, args, () ->
+		{
+			try
+			{
+				return method.invoke(target, args);
+			}
+			catch (InvocationTargetException ex)
+			{
+				throw ex.getCause();
+			}
+		});
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+	}
+}
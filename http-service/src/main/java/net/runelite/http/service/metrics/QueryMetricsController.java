@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.metrics;
+
+import net.runelite.http.service.util.exception.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import static org.springframework.web.bind.annotation.RequestMethod.DELETE;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes the collected query metrics. The endpoint is only available
+ * when an admin token is configured, and requests must present it.
+ */
+@RestController
+@RequestMapping("/admin/queries")
+public class QueryMetricsController
+{
+	private static final String ADMIN_TOKEN_HEADER = "RUNELITE-ADMIN";
+
+	private final QueryMetrics queryMetrics;
+	private final String adminToken;
+
+	@Autowired
+	public QueryMetricsController(
+		QueryMetrics queryMetrics,
+		@Value("${runelite.admin.token:}") String adminToken
+	)
+	{
+		this.queryMetrics = queryMetrics;
+		this.adminToken = adminToken;
+	}
+
+	@RequestMapping(method = GET)
+	public QueryMetricsSummary get(@RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token)
+	{
+		checkToken(token);
+		return queryMetrics.summarize();
+	}
+
+	@RequestMapping(method = DELETE)
+	public void reset(@RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token)
+	{
+		checkToken(token);
+		queryMetrics.reset();
+	}
+
+	private void checkToken(String token)
+	{
+		if (adminToken.isEmpty() || !adminToken.equals(token))
+		{
+			throw new NotFoundException();
+		}
+	}
+}
@@ -24,19 +24,32 @@
  */
 package net.runelite.http.service.session;
 
-import java.time.Instant;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
 
+/**
+ * Live sessions are tracked in memory. The session table is only written
+ * to periodically, in batches, so that the session count survives restarts.
+ */
 @Service
+@Slf4j
 public class SessionService
 {
+	private static final Duration SESSION_TIMEOUT = Duration.ofMinutes(2);
+
 	private final Sql2o sql2o;
+	private final SessionTracker tracker = new SessionTracker(Clock.systemUTC(), SESSION_TIMEOUT);
 
 	@Autowired
 	public SessionService(
@@ -44,75 +57,128 @@ public class SessionService
 	)
 	{
 		this.sql2o = sql2o;
+
+		loadSessions();
 	}
 
-	public void createSession(SessionEntry session)
+	private void loadSessions()
 	{
 		try (Connection con = sql2o.open())
 		{
-			con.createQuery("insert into session (uuid, ip, start, last) "
-				+ "values (:uuid, :ip, :start, :last)")
-				.addParameter("uuid", session.getUuid().toString())
-				.addParameter("ip", session.getIp())
-				.addParameter("start", session.getStart())
-				.addParameter("last", session.getLast())
+			con.createQuery("delete from session where last + interval 2 minute < current_timestamp()")
 				.executeUpdate();
+
+			List<SessionEntry> sessions = con.createQuery("select uuid, ip, start, last from session")
+				.executeAndFetch(SessionEntry.class);
+
+			for (SessionEntry session : sessions)
+			{
+				tracker.add(session);
+			}
+
+			// these are already stored
+			tracker.drainDirty();
+
+			log.debug("Loaded {} sessions", sessions.size());
 		}
 	}
 
+	public void createSession(SessionEntry session)
+	{
+		tracker.add(session);
+	}
+
 	public SessionEntry findSessionByUUID(UUID id)
 	{
-		try (Connection con = sql2o.open())
-		{
-			return con.createQuery("select uuid, ip, start, last from session where uuid = :uuid")
-				.addParameter("uuid", id.toString())
-				.executeAndFetchFirst(SessionEntry.class);
-		}
+		return tracker.get(id);
 	}
 
 	public void deleteSession(SessionEntry session)
 	{
-		try (Connection con = sql2o.open())
-		{
-			con.createQuery("delete from session where uuid = :uuid")
-				.addParameter("uuid", session.getUuid().toString())
-				.executeUpdate();
-		}
+		tracker.remove(session.getUuid());
 	}
 
-	public void updateLast(UUID session)
+	/**
+	 * Update the last ping time of a session
+	 *
+	 * @param session
+	 * @return false if the session does not exist
+	 */
+	public boolean updateLast(UUID session)
 	{
-		try (Connection con = sql2o.open())
-		{
-			Instant last = Instant.now();
-			con.createQuery("update session set last = :last where uuid = :uuid")
-				.addParameter("last", last)
-				.addParameter("uuid", session.toString())
-				.executeUpdate();
-		}
+		return tracker.ping(session);
 	}
 
-	private void deleteExpired()
+	public int getCount()
 	{
-		try (Connection con = sql2o.open())
-		{
-			con.createQuery("delete from session where last + interval 2 minute < current_timestamp()")
-				.executeUpdate();
-		}
+		return tracker.getCount();
 	}
 
-	public int getCount()
+	@Scheduled(fixedRate = 1000)
+	public void expire()
 	{
-		try (Connection con = sql2o.open())
+		int expired = tracker.expire();
+		if (expired > 0)
 		{
-			return con.createQuery("select count(*) from session")
-				.executeScalar(Integer.class);
+			log.debug("Expired {} sessions", expired);
 		}
 	}
 
 	@Scheduled(fixedDelay = 60000)
-	public void expire()
+	public void persist()
 	{
-		deleteExpired();
+		List<SessionEntry> dirty = tracker.drainDirty();
+		List<UUID> removed = tracker.drainRemoved();
+
+		if (dirty.isEmpty() && removed.isEmpty())
+		{
+			return;
+		}
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			if (!dirty.isEmpty())
+			{
+				Query query = con.createQuery("insert into session (uuid, ip, start, last) "
+					+ "values (:uuid, :ip, :start, :last) on duplicate key update last = values(last)");
+
+				for (SessionEntry session : dirty)
+				{
+					query.addParameter("uuid", session.getUuid().toString())
+						.addParameter("ip", session.getIp())
+						.addParameter("start", session.getStart())
+						.addParameter("last", session.getLast())
+						.addToBatch();
+				}
+
+				query.executeBatch();
+			}
+
+			if (!removed.isEmpty())
+			{
+				Query query = con.createQuery("delete from session where uuid = :uuid");
+
+				for (UUID uuid : removed)
+				{
+					query.addParameter("uuid", uuid.toString())
+						.addToBatch();
+				}
+
+				query.executeBatch();
+			}
+
+			con.commit();
+		}
+		catch (Sql2oException ex)
+		{
+			log.warn("Unable to persist sessions", ex);
+
+			// retry them on the next persist
+			tracker.markDirty(dirty);
+			tracker.markRemoved(removed);
+			return;
+		}
+
+		log.debug("Persisted {} sessions, removed {}", dirty.size(), removed.size());
 	}
 }
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.session;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks live client sessions in memory. Sessions are expired with a hashed
+ * timing wheel of one second ticks. Pings only update the last ping time of a
+ * session; a session is moved to a later slot of the wheel when its slot comes
+ * up, so pinging never touches the wheel.
+ */
+class SessionTracker
+{
+	/**
+	 * Number of slots in the wheel, which must be a power of two larger than
+	 * the timeout in ticks so that deadlines are always within one rotation
+	 */
+	private static final int WHEEL_SIZE = 256;
+	private static final long TICK_MILLIS = 1000;
+
+	static class Session
+	{
+		private final UUID uuid;
+		private final String ip;
+		private final Instant start;
+		private volatile long last;
+		private volatile boolean dirty = true;
+
+		private Session(UUID uuid, String ip, Instant start, long last)
+		{
+			this.uuid = uuid;
+			this.ip = ip;
+			this.start = start;
+			this.last = last;
+		}
+
+		SessionEntry toEntry()
+		{
+			SessionEntry sessionEntry = new SessionEntry();
+			sessionEntry.setUuid(uuid);
+			sessionEntry.setIp(ip);
+			sessionEntry.setStart(start);
+			sessionEntry.setLast(Instant.ofEpochMilli(last));
+			return sessionEntry;
+		}
+	}
+
+	private final Clock clock;
+	private final long timeoutMillis;
+	private final ConcurrentMap<UUID, Session> sessions = new ConcurrentHashMap<>();
+	private final AtomicInteger count = new AtomicInteger();
+	private final Queue<Session>[] wheel;
+	private final Queue<UUID> removed = new ConcurrentLinkedQueue<>();
+	private volatile long currentTick;
+
+	SessionTracker(Clock clock, Duration timeout)
+	{
+		if (timeout.toMillis() / TICK_MILLIS >= WHEEL_SIZE)
+		{
+			throw new IllegalArgumentException("timeout too long for wheel");
+		}
+
+		this.clock = clock;
+		this.timeoutMillis = timeout.toMillis();
+		this.currentTick = clock.millis() / TICK_MILLIS;
+
+		@SuppressWarnings("unchecked")
+		Queue<Session>[] slots = new Queue[WHEEL_SIZE];
+		for (int i = 0; i < WHEEL_SIZE; ++i)
+		{
+			slots[i] = new ConcurrentLinkedQueue<>();
+		}
+		this.wheel = slots;
+	}
+
+	/**
+	 * Start tracking a session
+	 *
+	 * @param entry
+	 * @return false if the session is already tracked
+	 */
+	boolean add(SessionEntry entry)
+	{
+		long last = entry.getLast() != null ? entry.getLast().toEpochMilli() : clock.millis();
+		Session session = new Session(entry.getUuid(), entry.getIp(), entry.getStart(), last);
+
+		if (sessions.putIfAbsent(session.uuid, session) != null)
+		{
+			return false;
+		}
+
+		count.incrementAndGet();
+		schedule(session);
+		return true;
+	}
+
+	SessionEntry get(UUID uuid)
+	{
+		Session session = sessions.get(uuid);
+		return session != null ? session.toEntry() : null;
+	}
+
+	/**
+	 * Record a ping from a session
+	 *
+	 * @param uuid
+	 * @return false if the session is not tracked
+	 */
+	boolean ping(UUID uuid)
+	{
+		Session session = sessions.get(uuid);
+		if (session == null)
+		{
+			return false;
+		}
+
+		session.last = clock.millis();
+		session.dirty = true;
+		return true;
+	}
+
+	boolean remove(UUID uuid)
+	{
+		if (sessions.remove(uuid) == null)
+		{
+			return false;
+		}
+
+		count.decrementAndGet();
+		removed.add(uuid);
+		return true;
+	}
+
+	int getCount()
+	{
+		return count.get();
+	}
+
+	/**
+	 * Expire sessions whose deadline has passed. Must not be called concurrently.
+	 *
+	 * @return number of expired sessions
+	 */
+	int expire()
+	{
+		long now = clock.millis();
+		long nowTick = now / TICK_MILLIS;
+		int expired = 0;
+
+		// if the wheel has fallen more than a rotation behind, every slot is due
+		long ticks = Math.min(nowTick - currentTick, WHEEL_SIZE);
+		for (long tick = nowTick - ticks + 1; tick <= nowTick; ++tick)
+		{
+			Queue<Session> slot = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+			currentTick = tick;
+
+			Session session;
+			while ((session = slot.poll()) != null)
+			{
+				if (sessions.get(session.uuid) != session)
+				{
+					// removed
+					continue;
+				}
+
+				if (session.last + timeoutMillis <= now)
+				{
+					if (sessions.remove(session.uuid, session))
+					{
+						count.decrementAndGet();
+						removed.add(session.uuid);
+						++expired;
+					}
+				}
+				else
+				{
+					schedule(session);
+				}
+			}
+		}
+
+		currentTick = nowTick;
+		return expired;
+	}
+
+	/**
+	 * Get the sessions which have been created or pinged since the last call, for persisting
+	 */
+	List<SessionEntry> drainDirty()
+	{
+		List<SessionEntry> dirty = new ArrayList<>();
+		for (Session session : sessions.values())
+		{
+			if (session.dirty)
+			{
+				session.dirty = false;
+				dirty.add(session.toEntry());
+			}
+		}
+		return dirty;
+	}
+
+	/**
+	 * Get the sessions which have been removed or expired since the last call, for persisting
+	 */
+	List<UUID> drainRemoved()
+	{
+		List<UUID> uuids = new ArrayList<>();
+		UUID uuid;
+		while ((uuid = removed.poll()) != null)
+		{
+			uuids.add(uuid);
+		}
+		return uuids;
+	}
+
+	/**
+	 * Mark drained sessions dirty again, after they failed to persist
+	 */
+	void markDirty(Collection<SessionEntry> entries)
+	{
+		for (SessionEntry entry : entries)
+		{
+			Session session = sessions.get(entry.getUuid());
+			if (session != null)
+			{
+				session.dirty = true;
+			}
+		}
+	}
+
+	/**
+	 * Mark drained removals removed again, after they failed to persist.
+	 * Sessions which have been added again since are skipped.
+	 */
+	void markRemoved(Collection<UUID> uuids)
+	{
+		for (UUID uuid : uuids)
+		{
+			if (!sessions.containsKey(uuid))
+			{
+				removed.add(uuid);
+			}
+		}
+	}
+
+	Collection<Session> getSessions()
+	{
+		return sessions.values();
+	}
+
+	private void schedule(Session session)
+	{
+		// never schedule into the slot being swept, or one already swept
+		long deadlineTick = Math.max((session.last + timeoutMillis) / TICK_MILLIS, currentTick + 1);
+		wheel[(int) (deadlineTick & (WHEEL_SIZE - 1))].add(session);
+	}
+}
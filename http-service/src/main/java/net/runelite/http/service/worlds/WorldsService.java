@@ -24,31 +24,169 @@
  */
 package net.runelite.http.service.worlds;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.RuneLiteAPI;
 import net.runelite.http.api.worlds.World;
+import net.runelite.http.api.worlds.WorldDelta;
 import net.runelite.http.api.worlds.WorldResult;
 import net.runelite.http.api.worlds.WorldType;
+import net.runelite.http.service.util.exception.InternalServerErrorException;
 import okhttp3.HttpUrl;
 import okhttp3.Request;
 import okhttp3.Response;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @RestController
 @RequestMapping("/worlds")
+@Slf4j
 public class WorldsService
 {
 	private static final HttpUrl WORLD_URL = HttpUrl.parse("http://www.runescape.com/g=oldscape/slr.ws?order=LPWM");
 
+	/**
+	 * Number of previous snapshots kept to compute deltas against
+	 */
+	private static final int HISTORY_SIZE = 30;
+
 	private HttpUrl url = WORLD_URL;
 
+	private final Map<Integer, EnumSet<WorldType>> typesCache = new HashMap<>();
+	private final Deque<WorldSnapshot> history = new ArrayDeque<>();
+
+	private volatile WorldSnapshot snapshot;
+
+	@Value
+	private static class WorldSnapshot
+	{
+		private int version;
+		private byte[] data;
+		private WorldResult result;
+		private byte[] json;
+		private String etag;
+	}
+
 	@RequestMapping
-	public WorldResult listWorlds() throws IOException
+	public ResponseEntity<byte[]> listWorlds(HttpServletRequest request, HttpServletResponse response) throws IOException
+	{
+		WorldSnapshot worldSnapshot = getSnapshot();
+
+		if (new ServletWebRequest(request, response).checkNotModified(worldSnapshot.getEtag()))
+		{
+			return null;
+		}
+
+		return ResponseEntity.ok()
+			.contentType(MediaType.APPLICATION_JSON_UTF8)
+			.body(worldSnapshot.getJson());
+	}
+
+	@RequestMapping("/delta")
+	public WorldDelta delta(@RequestParam int since) throws IOException
+	{
+		WorldSnapshot current = getSnapshot();
+		WorldSnapshot base = null;
+
+		synchronized (history)
+		{
+			// newest first, as the list may return to an earlier version
+			for (Iterator<WorldSnapshot> it = history.descendingIterator(); it.hasNext();)
+			{
+				WorldSnapshot s = it.next();
+				if (s.getVersion() == since)
+				{
+					base = s;
+					break;
+				}
+			}
+		}
+
+		if (base == null)
+		{
+			// too old, or from before a restart
+			return new WorldDelta(current.getVersion(), null, current.getResult().getWorlds());
+		}
+
+		Map<Integer, Integer> players = diffPlayers(base.getResult().getWorlds(), current.getResult().getWorlds());
+		if (players == null)
+		{
+			return new WorldDelta(current.getVersion(), null, current.getResult().getWorlds());
+		}
+
+		return new WorldDelta(current.getVersion(), players, null);
+	}
+
+	/**
+	 * Get the current world list
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public WorldResult getWorlds() throws IOException
+	{
+		return getSnapshot().getResult();
+	}
+
+	private WorldSnapshot getSnapshot() throws IOException
+	{
+		WorldSnapshot worldSnapshot = snapshot;
+		if (worldSnapshot == null)
+		{
+			// The refresher has not run yet
+			refresh();
+			worldSnapshot = snapshot;
+
+			if (worldSnapshot == null)
+			{
+				throw new InternalServerErrorException("Unable to fetch world list");
+			}
+		}
+		return worldSnapshot;
+	}
+
+	@Scheduled(fixedDelay = 10000)
+	public void scheduledRefresh()
+	{
+		try
+		{
+			refresh();
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to refresh world list", ex);
+		}
+	}
+
+	/**
+	 * Fetch the world list and publish a new snapshot if it has changed
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void refresh() throws IOException
 	{
 		Request okrequest = new Request.Builder()
 			.url(url)
@@ -58,9 +196,46 @@ public class WorldsService
 
 		try (Response okresponse = RuneLiteAPI.CLIENT.newCall(okrequest).execute())
 		{
+			if (!okresponse.isSuccessful())
+			{
+				throw new IOException("Unsuccessful http response: " + okresponse.message());
+			}
+
 			b = okresponse.body().bytes();
 		}
 
+		WorldSnapshot previous = snapshot;
+		if (previous != null && Arrays.equals(previous.getData(), b))
+		{
+			return;
+		}
+
+		// The version and tag depend only on the world list, so they stay the
+		// same across restarts and between instances of the service
+		HashCode hash = Hashing.sha256().hashBytes(b);
+		int version = hash.asInt();
+
+		WorldResult result = new WorldResult();
+		result.setVersion(version);
+		result.setWorlds(parseWorlds(b));
+
+		byte[] json = RuneLiteAPI.GSON.toJson(result).getBytes(StandardCharsets.UTF_8);
+		WorldSnapshot worldSnapshot = new WorldSnapshot(version, b, result, json, "\"" + hash + "\"");
+
+		synchronized (history)
+		{
+			history.addLast(worldSnapshot);
+			if (history.size() > HISTORY_SIZE)
+			{
+				history.removeFirst();
+			}
+		}
+
+		snapshot = worldSnapshot;
+	}
+
+	private List<World> parseWorlds(byte[] b)
+	{
 		List<World> worlds = new ArrayList<>();
 		ByteBuffer buf = ByteBuffer.wrap(b);
 
@@ -82,12 +257,56 @@ public class WorldsService
 			worlds.add(worldBuilder.build());
 		}
 
-		WorldResult result = new WorldResult();
-		result.setWorlds(worlds);
-		return result;
+		return worlds;
+	}
+
+	/**
+	 * Compute the player count changes between two world lists
+	 *
+	 * @return world id to player count, or null if anything other than
+	 * the player counts differ
+	 */
+	private static Map<Integer, Integer> diffPlayers(List<World> from, List<World> to)
+	{
+		if (from.size() != to.size())
+		{
+			return null;
+		}
+
+		Map<Integer, Integer> players = new LinkedHashMap<>();
+
+		for (int i = 0; i < from.size(); ++i)
+		{
+			World a = from.get(i);
+			World b = to.get(i);
+
+			if (a.getId() != b.getId()
+				|| a.getLocation() != b.getLocation()
+				|| !Objects.equals(a.getTypes(), b.getTypes())
+				|| !Objects.equals(a.getAddress(), b.getAddress())
+				|| !Objects.equals(a.getActivity(), b.getActivity()))
+			{
+				return null;
+			}
+
+			if (a.getPlayers() != b.getPlayers())
+			{
+				players.put(b.getId(), b.getPlayers());
+			}
+		}
+
+		return players;
+	}
+
+	/**
+	 * Worlds share type sets, so they must not be modified
+	 */
+	private EnumSet<WorldType> getTypes(int mask)
+	{
+		return typesCache.computeIfAbsent(mask, WorldsService::createTypes);
 	}
 
-	private static EnumSet<WorldType> getTypes(int mask)
+	private static EnumSet<WorldType> createTypes(int mask)
 	{
 		EnumSet<WorldType> types = EnumSet.noneOf(WorldType.class);
 
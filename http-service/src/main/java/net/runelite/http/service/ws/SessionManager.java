@@ -24,49 +24,163 @@
  */
 package net.runelite.http.service.ws;
 
-import com.google.common.base.Objects;
+import com.google.gson.Gson;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.websocket.Session;
+import net.runelite.http.api.ws.WebsocketGsonFactory;
+import net.runelite.http.api.ws.WebsocketMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Registry of connected websocket sessions. Sessions are indexed by their
+ * websocket session, by the client session uuid sent in the handshake, and
+ * by account once the client has logged in.
+ */
 public class SessionManager
 {
 	private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
 
-	private static final Set<WSSession> sessions = Collections.synchronizedSet(new HashSet<>());
+	private static final Gson gson = WebsocketGsonFactory.build();
+
+	private static final ConcurrentMap<Session, WSSession> sessions = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<UUID, WSSession> sessionsByUuid = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, Set<WSSession>> sessionsByAccount = new ConcurrentHashMap<>();
 
-	public static void add(WSService service, Session session)
+	public static WSSession add(WSService service, Session session)
 	{
 		WSSession wssession = new WSSession(service, session);
 
-		logger.info("Adding service {} session {}", service, session);
+		logger.debug("Adding service {} session {}", service, session);
 
-		sessions.add(wssession);
+		sessions.put(session, wssession);
+		return wssession;
 	}
 
 	public static void remove(Session session)
 	{
-		WSSession wssession = new WSSession(null, session);
-		sessions.remove(wssession);
+		WSSession wssession = sessions.remove(session);
+		if (wssession == null)
+		{
+			return;
+		}
+
+		UUID uuid = wssession.getUuid();
+		if (uuid != null)
+		{
+			sessionsByUuid.remove(uuid, wssession);
+		}
+
+		String account = wssession.getAccount();
+		if (account != null)
+		{
+			removeAccount(account, wssession);
+		}
+	}
+
+	/**
+	 * Associate a websocket session with the client session uuid from its handshake
+	 */
+	public static void setUuid(WSSession wssession, UUID uuid)
+	{
+		UUID previous = wssession.getUuid();
+		if (previous != null)
+		{
+			sessionsByUuid.remove(previous, wssession);
+		}
+
+		wssession.setUuid(uuid);
+		sessionsByUuid.put(uuid, wssession);
+	}
+
+	/**
+	 * Associate a websocket session with the account it has logged in to
+	 */
+	public static void setAccount(WSSession wssession, String account)
+	{
+		String previous = wssession.getAccount();
+		if (previous != null)
+		{
+			removeAccount(previous, wssession);
+		}
+
+		wssession.setAccount(account);
+		sessionsByAccount.computeIfAbsent(account, k -> ConcurrentHashMap.newKeySet())
+			.add(wssession);
+	}
+
+	private static void removeAccount(String account, WSSession wssession)
+	{
+		sessionsByAccount.computeIfPresent(account, (k, set) ->
+		{
+			set.remove(wssession);
+			return set.isEmpty() ? null : set;
+		});
 	}
 
 	public static WSSession findSession(UUID uuid)
 	{
-		synchronized (sessions)
+		return sessionsByUuid.get(uuid);
+	}
+
+	public static Collection<WSSession> findSessions(String account)
+	{
+		Set<WSSession> set = sessionsByAccount.get(account);
+		return set != null ? Collections.unmodifiableSet(set) : Collections.emptySet();
+	}
+
+	public static int getCount()
+	{
+		return sessions.size();
+	}
+
+	/**
+	 * Send a message to every connected session
+	 *
+	 * @param message
+	 * @return number of sessions the message was queued to
+	 */
+	public static int broadcast(WebsocketMessage message)
+	{
+		return send(sessions.values(), message);
+	}
+
+	/**
+	 * Send a message to every session logged in to an account
+	 *
+	 * @param account
+	 * @param message
+	 * @return number of sessions the message was queued to
+	 */
+	public static int broadcast(String account, WebsocketMessage message)
+	{
+		return send(findSessions(account), message);
+	}
+
+	private static int send(Collection<WSSession> recipients, WebsocketMessage message)
+	{
+		if (recipients.isEmpty())
+		{
+			return 0;
+		}
+
+		String json = gson.toJson(message, WebsocketMessage.class);
+		int sent = 0;
+
+		for (WSSession wssession : recipients)
 		{
-			for (WSSession session : sessions)
+			if (wssession.send(json))
 			{
-				if (Objects.equal(session.getServlet().getUuid(), uuid))
-				{
-					return session;
-				}
+				++sent;
 			}
 		}
 
-		return null;
+		logger.debug("Sent {} to {}/{} sessions", json, sent, recipients.size());
+		return sent;
 	}
 }
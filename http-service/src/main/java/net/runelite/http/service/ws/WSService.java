@@ -47,12 +47,11 @@ public class WSService
 
 	private static final Gson gson = WebsocketGsonFactory.build();
 
-	private Session session;
-	private UUID uuid;
+	private WSSession wssession;
 
 	public UUID getUuid()
 	{
-		return uuid;
+		return wssession.getUuid();
 	}
 
 	public void send(WebsocketMessage message)
@@ -61,20 +60,20 @@ public class WSService
 
 		logger.debug("Sending {}", json);
 
-		session.getAsyncRemote().sendText(json);
+		wssession.send(json);
 	}
 
 	@OnOpen
 	public void onOpen(Session session, EndpointConfig config)
 	{
-		this.session = session;
-		SessionManager.add(this, session);
+		wssession = SessionManager.add(this, session);
 		logger.info("New session {}", session);
 	}
 
 	@OnClose
 	public void onClose(Session session, CloseReason resaon)
 	{
+		SessionManager.remove(session);
 		logger.info("Close session {}", session);
 	}
 
@@ -93,7 +92,10 @@ public class WSService
 		if (message instanceof Handshake)
 		{
 			Handshake hs = (Handshake) message;
-			uuid = hs.getSession();
+			if (hs.getSession() != null)
+			{
+				SessionManager.setUuid(wssession, hs.getSession());
+			}
 		}
 	}
 }
@@ -24,14 +24,37 @@
  */
 package net.runelite.http.service.ws;
 
+import java.util.ArrayDeque;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.UUID;
+import javax.websocket.SendResult;
 import javax.websocket.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class WSSession
 {
+	private static final Logger logger = LoggerFactory.getLogger(WSSession.class);
+
+	/**
+	 * Maximum number of messages queued to a session, including the one
+	 * being sent, before further messages to it are dropped
+	 */
+	static final int MAX_PENDING_SENDS = 32;
+
 	private final WSService servlet;
 	private final Session session;
 
+	/**
+	 * Messages waiting for the one being sent to complete. The container
+	 * allows only one asynchronous send at a time per session.
+	 */
+	private final Queue<String> queue = new ArrayDeque<>();
+	private int pendingSends;
+	private volatile UUID uuid;
+	private volatile String account;
+
 	public WSSession(WSService servlet, Session session)
 	{
 		this.servlet = servlet;
@@ -48,6 +71,92 @@ public class WSSession
 		return session;
 	}
 
+	public UUID getUuid()
+	{
+		return uuid;
+	}
+
+	void setUuid(UUID uuid)
+	{
+		this.uuid = uuid;
+	}
+
+	public String getAccount()
+	{
+		return account;
+	}
+
+	void setAccount(String account)
+	{
+		this.account = account;
+	}
+
+	/**
+	 * Send an already serialized message without blocking
+	 *
+	 * @param json
+	 * @return false if the message was dropped because the session is
+	 * not keeping up or is closed
+	 */
+	public boolean send(String json)
+	{
+		synchronized (queue)
+		{
+			if (pendingSends >= MAX_PENDING_SENDS)
+			{
+				logger.debug("Dropping message to slow session {}", session);
+				return false;
+			}
+
+			if (pendingSends++ > 0)
+			{
+				queue.add(json);
+				return true;
+			}
+		}
+
+		return sendText(json);
+	}
+
+	private boolean sendText(String json)
+	{
+		try
+		{
+			session.getAsyncRemote().sendText(json, this::sent);
+			return true;
+		}
+		catch (IllegalStateException ex)
+		{
+			// session closed
+			synchronized (queue)
+			{
+				queue.clear();
+				pendingSends = 0;
+			}
+			return false;
+		}
+	}
+
+	private void sent(SendResult result)
+	{
+		if (!result.isOK())
+		{
+			logger.debug("Unable to send to session {}", session, result.getException());
+		}
+
+		String next;
+		synchronized (queue)
+		{
+			--pendingSends;
+			next = queue.poll();
+		}
+
+		if (next != null)
+		{
+			sendText(next);
+		}
+	}
+
 	@Override
 	public int hashCode()
 	{
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.xp;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket sizes of the xp gain rollups
+ */
+public enum XpResolution
+{
+	HOUR(ChronoUnit.HOURS, "xp_hourly", Duration.ofDays(31)),
+	DAY(ChronoUnit.DAYS, "xp_daily", Duration.ofDays(3660));
+
+	private final ChronoUnit unit;
+	private final String table;
+	private final Duration maxRange;
+
+	XpResolution(ChronoUnit unit, String table, Duration maxRange)
+	{
+		this.unit = unit;
+		this.table = table;
+		this.maxRange = maxRange;
+	}
+
+	Instant truncate(Instant time)
+	{
+		return time.truncatedTo(unit);
+	}
+
+	String getTable()
+	{
+		return table;
+	}
+
+	/**
+	 * Longest range which may be queried at this resolution
+	 */
+	Duration getMaxRange()
+	{
+		return maxRange;
+	}
+
+	/**
+	 * Pick the finest resolution which keeps the number of points for a range reasonable
+	 */
+	static XpResolution forRange(Instant start, Instant end)
+	{
+		return Duration.between(start, end).compareTo(Duration.ofDays(2)) <= 0 ? HOUR : DAY;
+	}
+}
@@ -25,9 +25,13 @@
 package net.runelite.http.service.xp;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import net.runelite.http.api.xp.XpData;
+import net.runelite.http.api.xp.XpGains;
 import net.runelite.http.service.xp.beans.XpEntity;
+import net.runelite.http.service.util.exception.BadRequestException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -56,4 +60,23 @@ public class XpTrackerController
 		XpEntity xpEntity = xpTrackerService.findXpAtTime(username, time);
 		return XpMapper.INSTANCE.xpEntityToXpData(xpEntity);
 	}
+
+	@RequestMapping("/range")
+	public List<XpGains> range(@RequestParam String username, @RequestParam Instant start,
+		@RequestParam(required = false) Instant end, @RequestParam(required = false) XpResolution resolution)
+	{
+		if (end == null)
+		{
+			end = Instant.now();
+		}
+		if (resolution == null)
+		{
+			resolution = XpResolution.forRange(start, end);
+		}
+		if (Duration.between(start, end).compareTo(resolution.getMaxRange()) > 0)
+		{
+			throw new BadRequestException("range too long for resolution");
+		}
+		return xpTrackerService.findXpGains(username, start, end, resolution);
+	}
 }
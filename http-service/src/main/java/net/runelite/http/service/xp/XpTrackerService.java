@@ -24,32 +24,133 @@
  */
 package net.runelite.http.service.xp;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.annotation.PreDestroy;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.hiscore.HiscoreEndpoint;
 import net.runelite.http.api.hiscore.HiscoreResult;
 import net.runelite.http.api.xp.XpData;
+import net.runelite.http.api.xp.XpGains;
 import net.runelite.http.service.hiscore.HiscoreResultBuilder;
 import net.runelite.http.service.hiscore.HiscoreService;
 import net.runelite.http.service.xp.beans.PlayerEntity;
 import net.runelite.http.service.xp.beans.XpEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
 
 @Service
 @Slf4j
 public class XpTrackerService
 {
-	@Autowired
-	@Qualifier("Runelite XP Tracker SQL2O")
-	private Sql2o sql2o;
+	private static final String INSERT_XP = "insert into xp (player,attack_xp,defence_xp,strength_xp,hitpoints_xp,ranged_xp,prayer_xp,magic_xp,cooking_xp,woodcutting_xp,"
+		+ "fletching_xp,fishing_xp,firemaking_xp,crafting_xp,smithing_xp,mining_xp,herblore_xp,agility_xp,thieving_xp,slayer_xp,farming_xp,"
+		+ "runecraft_xp,hunter_xp,construction_xp,attack_rank,defence_rank,strength_rank,hitpoints_rank,ranged_rank,prayer_rank,magic_rank,"
+		+ "cooking_rank,woodcutting_rank,fletching_rank,fishing_rank,firemaking_rank,crafting_rank,smithing_rank,mining_rank,herblore_rank,"
+		+ "agility_rank,thieving_rank,slayer_rank,farming_rank,runecraft_rank,hunter_rank,construction_rank,overall_rank) values (:player,:attack_xp,:defence_xp,"
+		+ ":strength_xp,:hitpoints_xp,:ranged_xp,:prayer_xp,:magic_xp,:cooking_xp,:woodcutting_xp,:fletching_xp,:fishing_xp,:firemaking_xp,"
+		+ ":crafting_xp,:smithing_xp,:mining_xp,:herblore_xp,:agility_xp,:thieving_xp,:slayer_xp,:farming_xp,:runecraft_xp,:hunter_xp,"
+		+ ":construction_xp,:attack_rank,:defence_rank,:strength_rank,:hitpoints_rank,:ranged_rank,:prayer_rank,:magic_rank,:cooking_rank,"
+		+ ":woodcutting_rank,:fletching_rank,:fishing_rank,:firemaking_rank,:crafting_rank,:smithing_rank,:mining_rank,:herblore_rank,"
+		+ ":agility_rank,:thieving_rank,:slayer_rank,:farming_rank,:runecraft_rank,:hunter_rank,:construction_rank,:overall_rank)";
+
+	/**
+	 * Skills in the order of the xp columns
+	 */
+	private static final String[] SKILLS =
+	{
+		"attack", "defence", "strength", "hitpoints", "ranged", "prayer", "magic", "cooking", "woodcutting",
+		"fletching", "fishing", "firemaking", "crafting", "smithing", "mining", "herblore", "agility", "thieving",
+		"slayer", "farming", "runecraft", "hunter", "construction"
+	};
+
+	private static final String CREATE_XP_HOURLY = createRollupTable(XpResolution.HOUR);
+	private static final String CREATE_XP_DAILY = createRollupTable(XpResolution.DAY);
+
+	private static final String INSERT_XP_HOURLY = createRollupInsert(XpResolution.HOUR);
+	private static final String INSERT_XP_DAILY = createRollupInsert(XpResolution.DAY);
+
+	private static final int MAX_PENDING = 4096;
+	private static final int MAX_BATCH = 512;
+
+	/**
+	 * Number of flushes a failed batch is attempted by before it is dropped
+	 */
+	private static final int MAX_ATTEMPTS = 5;
+
+	private final Sql2o sql2o;
+	private final HiscoreService hiscoreService;
+
+	private final BlockingQueue<PendingUpdate> pendingUpdates = new ArrayBlockingQueue<>(MAX_PENDING);
+
+	/**
+	 * Updates of the last flush, if it failed, to be retried by the next
+	 */
+	private List<PendingUpdate> failedUpdates = Collections.emptyList();
+	private int failedAttempts;
+
+	/**
+	 * lowercase player name to player id
+	 */
+	private final Cache<String, Integer> playerIds = CacheBuilder.newBuilder()
+		.maximumSize(65536)
+		.build();
+
+	/**
+	 * player id to the latest stored xp of the player
+	 */
+	private final Cache<Integer, XpData> latestXp = CacheBuilder.newBuilder()
+		.maximumSize(65536)
+		.build();
+
+	@Value
+	private static class PendingUpdate
+	{
+		private String username;
+		private HiscoreResult hiscoreResult;
+	}
+
+	@Value
+	private static class Rollup
+	{
+		private int playerId;
+		private int[] gains;
+	}
 
 	@Autowired
-	private HiscoreService hiscoreService;
+	public XpTrackerService(
+		@Qualifier("Runelite XP Tracker SQL2O") Sql2o sql2o,
+		HiscoreService hiscoreService
+	)
+	{
+		this.sql2o = sql2o;
+		this.hiscoreService = hiscoreService;
+
+		try (Connection con = sql2o.open())
+		{
+			con.createQuery(CREATE_XP_HOURLY)
+				.executeUpdate();
+			con.createQuery(CREATE_XP_DAILY)
+				.executeUpdate();
+		}
+	}
 
 	public void update(String username) throws IOException
 	{
@@ -58,113 +159,264 @@ public class XpTrackerService
 		update(username, hiscoreResult);
 	}
 
+	/**
+	 * Queue a hiscore result to be stored by the xp tracker
+	 *
+	 * @param username
+	 * @param hiscoreResult
+	 */
 	public void update(String username, HiscoreResult hiscoreResult)
 	{
-		try (Connection con = sql2o.open())
+		if (!pendingUpdates.offer(new PendingUpdate(username, hiscoreResult)))
 		{
-			PlayerEntity playerEntity = findOrCreatePlayer(username);
+			log.warn("Dropping pending xp update for {}", username);
+		}
+	}
+
+	@Scheduled(fixedDelay = 1000)
+	public void flush()
+	{
+		flushBatch();
+	}
 
-			XpEntity currentXp = findXpAtTime(username, Instant.now());
-			if (currentXp != null)
+	@PreDestroy
+	public void shutdown()
+	{
+		// write out everything still queued, unless the database is failing
+		boolean flushed;
+		do
+		{
+			flushed = flushBatch();
+		}
+		while (flushed && !pendingUpdates.isEmpty());
+	}
+
+	/**
+	 * Store a batch of pending updates
+	 *
+	 * @return false if the batch failed to store
+	 */
+	private synchronized boolean flushBatch()
+	{
+		// retried updates go first, so newer updates of the same player replace them
+		List<PendingUpdate> updates = new ArrayList<>(failedUpdates);
+		pendingUpdates.drainTo(updates, MAX_BATCH - updates.size());
+		failedUpdates = Collections.emptyList();
+
+		if (updates.isEmpty())
+		{
+			return true;
+		}
+
+		// Only the most recent result for each player needs to be stored. Names are
+		// case insensitive in the player table, so they are here too.
+		Map<String, PendingUpdate> latest = new LinkedHashMap<>();
+		for (PendingUpdate update : updates)
+		{
+			latest.put(update.getUsername().toLowerCase(), update);
+		}
+
+		Map<String, Integer> createdPlayers = new HashMap<>();
+		Map<Integer, XpData> inserted = new HashMap<>();
+		List<Rollup> rollups = new ArrayList<>();
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery(INSERT_XP);
+
+			for (PendingUpdate update : latest.values())
 			{
+				String username = update.getUsername();
+				HiscoreResult hiscoreResult = update.getHiscoreResult();
+				int playerId = findOrCreatePlayer(con, username, createdPlayers);
+
 				XpData hiscoreData = XpMapper.INSTANCE.hiscoreResultToXpData(hiscoreResult);
-				XpData existingData = XpMapper.INSTANCE.xpEntityToXpData(currentXp);
+				XpData existingData = findLatestXp(con, playerId);
 
 				if (hiscoreData.equals(existingData))
 				{
 					log.debug("Hiscore for {} already up to date", username);
-					return;
+					continue;
+				}
+
+				query.addParameter("player", playerId)
+					.addParameter("attack_xp", hiscoreResult.getAttack().getExperience())
+					.addParameter("defence_xp", hiscoreResult.getDefence().getExperience())
+					.addParameter("strength_xp", hiscoreResult.getStrength().getExperience())
+					.addParameter("hitpoints_xp", hiscoreResult.getHitpoints().getExperience())
+					.addParameter("ranged_xp", hiscoreResult.getRanged().getExperience())
+					.addParameter("prayer_xp", hiscoreResult.getPrayer().getExperience())
+					.addParameter("magic_xp", hiscoreResult.getMagic().getExperience())
+					.addParameter("cooking_xp", hiscoreResult.getCooking().getExperience())
+					.addParameter("woodcutting_xp", hiscoreResult.getWoodcutting().getExperience())
+					.addParameter("fletching_xp", hiscoreResult.getFletching().getExperience())
+					.addParameter("fishing_xp", hiscoreResult.getFishing().getExperience())
+					.addParameter("firemaking_xp", hiscoreResult.getFiremaking().getExperience())
+					.addParameter("crafting_xp", hiscoreResult.getCrafting().getExperience())
+					.addParameter("smithing_xp", hiscoreResult.getSmithing().getExperience())
+					.addParameter("mining_xp", hiscoreResult.getMining().getExperience())
+					.addParameter("herblore_xp", hiscoreResult.getHerblore().getExperience())
+					.addParameter("agility_xp", hiscoreResult.getAgility().getExperience())
+					.addParameter("thieving_xp", hiscoreResult.getThieving().getExperience())
+					.addParameter("slayer_xp", hiscoreResult.getSlayer().getExperience())
+					.addParameter("farming_xp", hiscoreResult.getFarming().getExperience())
+					.addParameter("runecraft_xp", hiscoreResult.getRunecraft().getExperience())
+					.addParameter("hunter_xp", hiscoreResult.getHunter().getExperience())
+					.addParameter("construction_xp", hiscoreResult.getConstruction().getExperience())
+					.addParameter("attack_rank", hiscoreResult.getAttack().getRank())
+					.addParameter("defence_rank", hiscoreResult.getDefence().getRank())
+					.addParameter("strength_rank", hiscoreResult.getStrength().getRank())
+					.addParameter("hitpoints_rank", hiscoreResult.getHitpoints().getRank())
+					.addParameter("ranged_rank", hiscoreResult.getRanged().getRank())
+					.addParameter("prayer_rank", hiscoreResult.getPrayer().getRank())
+					.addParameter("magic_rank", hiscoreResult.getMagic().getRank())
+					.addParameter("cooking_rank", hiscoreResult.getCooking().getRank())
+					.addParameter("woodcutting_rank", hiscoreResult.getWoodcutting().getRank())
+					.addParameter("fletching_rank", hiscoreResult.getFletching().getRank())
+					.addParameter("fishing_rank", hiscoreResult.getFishing().getRank())
+					.addParameter("firemaking_rank", hiscoreResult.getFiremaking().getRank())
+					.addParameter("crafting_rank", hiscoreResult.getCrafting().getRank())
+					.addParameter("smithing_rank", hiscoreResult.getSmithing().getRank())
+					.addParameter("mining_rank", hiscoreResult.getMining().getRank())
+					.addParameter("herblore_rank", hiscoreResult.getHerblore().getRank())
+					.addParameter("agility_rank", hiscoreResult.getAgility().getRank())
+					.addParameter("thieving_rank", hiscoreResult.getThieving().getRank())
+					.addParameter("slayer_rank", hiscoreResult.getSlayer().getRank())
+					.addParameter("farming_rank", hiscoreResult.getFarming().getRank())
+					.addParameter("runecraft_rank", hiscoreResult.getRunecraft().getRank())
+					.addParameter("hunter_rank", hiscoreResult.getHunter().getRank())
+					.addParameter("construction_rank", hiscoreResult.getConstruction().getRank())
+					.addParameter("overall_rank", hiscoreResult.getOverall().getRank())
+					.addToBatch();
+
+				inserted.put(playerId, hiscoreData);
+
+				// the first snapshot of a player has nothing to be gained from
+				if (existingData != null)
+				{
+					rollups.add(new Rollup(playerId, gains(existingData, hiscoreData)));
 				}
 			}
 
-			con.createQuery("insert into xp (player,attack_xp,defence_xp,strength_xp,hitpoints_xp,ranged_xp,prayer_xp,magic_xp,cooking_xp,woodcutting_xp,"
-				+ "fletching_xp,fishing_xp,firemaking_xp,crafting_xp,smithing_xp,mining_xp,herblore_xp,agility_xp,thieving_xp,slayer_xp,farming_xp,"
-				+ "runecraft_xp,hunter_xp,construction_xp,attack_rank,defence_rank,strength_rank,hitpoints_rank,ranged_rank,prayer_rank,magic_rank,"
-				+ "cooking_rank,woodcutting_rank,fletching_rank,fishing_rank,firemaking_rank,crafting_rank,smithing_rank,mining_rank,herblore_rank,"
-				+ "agility_rank,thieving_rank,slayer_rank,farming_rank,runecraft_rank,hunter_rank,construction_rank,overall_rank) values (:player,:attack_xp,:defence_xp,"
-				+ ":strength_xp,:hitpoints_xp,:ranged_xp,:prayer_xp,:magic_xp,:cooking_xp,:woodcutting_xp,:fletching_xp,:fishing_xp,:firemaking_xp,"
-				+ ":crafting_xp,:smithing_xp,:mining_xp,:herblore_xp,:agility_xp,:thieving_xp,:slayer_xp,:farming_xp,:runecraft_xp,:hunter_xp,"
-				+ ":construction_xp,:attack_rank,:defence_rank,:strength_rank,:hitpoints_rank,:ranged_rank,:prayer_rank,:magic_rank,:cooking_rank,"
-				+ ":woodcutting_rank,:fletching_rank,:fishing_rank,:firemaking_rank,:crafting_rank,:smithing_rank,:mining_rank,:herblore_rank,"
-				+ ":agility_rank,:thieving_rank,:slayer_rank,:farming_rank,:runecraft_rank,:hunter_rank,:construction_rank,:overall_rank)")
-				.addParameter("player", playerEntity.getId())
-				.addParameter("attack_xp", hiscoreResult.getAttack().getExperience())
-				.addParameter("defence_xp", hiscoreResult.getDefence().getExperience())
-				.addParameter("strength_xp", hiscoreResult.getStrength().getExperience())
-				.addParameter("hitpoints_xp", hiscoreResult.getHitpoints().getExperience())
-				.addParameter("ranged_xp", hiscoreResult.getRanged().getExperience())
-				.addParameter("prayer_xp", hiscoreResult.getPrayer().getExperience())
-				.addParameter("magic_xp", hiscoreResult.getMagic().getExperience())
-				.addParameter("cooking_xp", hiscoreResult.getCooking().getExperience())
-				.addParameter("woodcutting_xp", hiscoreResult.getWoodcutting().getExperience())
-				.addParameter("fletching_xp", hiscoreResult.getFletching().getExperience())
-				.addParameter("fishing_xp", hiscoreResult.getFishing().getExperience())
-				.addParameter("firemaking_xp", hiscoreResult.getFiremaking().getExperience())
-				.addParameter("crafting_xp", hiscoreResult.getCrafting().getExperience())
-				.addParameter("smithing_xp", hiscoreResult.getSmithing().getExperience())
-				.addParameter("mining_xp", hiscoreResult.getMining().getExperience())
-				.addParameter("herblore_xp", hiscoreResult.getHerblore().getExperience())
-				.addParameter("agility_xp", hiscoreResult.getAgility().getExperience())
-				.addParameter("thieving_xp", hiscoreResult.getThieving().getExperience())
-				.addParameter("slayer_xp", hiscoreResult.getSlayer().getExperience())
-				.addParameter("farming_xp", hiscoreResult.getFarming().getExperience())
-				.addParameter("runecraft_xp", hiscoreResult.getRunecraft().getExperience())
-				.addParameter("hunter_xp", hiscoreResult.getHunter().getExperience())
-				.addParameter("construction_xp", hiscoreResult.getConstruction().getExperience())
-				.addParameter("attack_rank", hiscoreResult.getAttack().getRank())
-				.addParameter("defence_rank", hiscoreResult.getDefence().getRank())
-				.addParameter("strength_rank", hiscoreResult.getStrength().getRank())
-				.addParameter("hitpoints_rank", hiscoreResult.getHitpoints().getRank())
-				.addParameter("ranged_rank", hiscoreResult.getRanged().getRank())
-				.addParameter("prayer_rank", hiscoreResult.getPrayer().getRank())
-				.addParameter("magic_rank", hiscoreResult.getMagic().getRank())
-				.addParameter("cooking_rank", hiscoreResult.getCooking().getRank())
-				.addParameter("woodcutting_rank", hiscoreResult.getWoodcutting().getRank())
-				.addParameter("fletching_rank", hiscoreResult.getFletching().getRank())
-				.addParameter("fishing_rank", hiscoreResult.getFishing().getRank())
-				.addParameter("firemaking_rank", hiscoreResult.getFiremaking().getRank())
-				.addParameter("crafting_rank", hiscoreResult.getCrafting().getRank())
-				.addParameter("smithing_rank", hiscoreResult.getSmithing().getRank())
-				.addParameter("mining_rank", hiscoreResult.getMining().getRank())
-				.addParameter("herblore_rank", hiscoreResult.getHerblore().getRank())
-				.addParameter("agility_rank", hiscoreResult.getAgility().getRank())
-				.addParameter("thieving_rank", hiscoreResult.getThieving().getRank())
-				.addParameter("slayer_rank", hiscoreResult.getSlayer().getRank())
-				.addParameter("farming_rank", hiscoreResult.getFarming().getRank())
-				.addParameter("runecraft_rank", hiscoreResult.getRunecraft().getRank())
-				.addParameter("hunter_rank", hiscoreResult.getHunter().getRank())
-				.addParameter("construction_rank", hiscoreResult.getConstruction().getRank())
-				.addParameter("overall_rank", hiscoreResult.getOverall().getRank())
-				.executeUpdate();
+			if (!inserted.isEmpty())
+			{
+				query.executeBatch();
+			}
+
+			con.commit();
+		}
+		catch (Sql2oException ex)
+		{
+			if (++failedAttempts < MAX_ATTEMPTS)
+			{
+				log.warn("Unable to flush {} xp updates, retrying", latest.size(), ex);
+				failedUpdates = new ArrayList<>(latest.values());
+			}
+			else
+			{
+				log.warn("Dropping {} xp updates after {} attempts", latest.size(), failedAttempts, ex);
+				failedAttempts = 0;
+			}
+			return false;
+		}
+
+		failedAttempts = 0;
+		playerIds.putAll(createdPlayers);
+		latestXp.putAll(inserted);
+
+		if (!rollups.isEmpty())
+		{
+			rollup(rollups);
 		}
+
+		log.debug("Flushed {} xp updates, {} changed", updates.size(), inserted.size());
+		return true;
 	}
 
-	private synchronized PlayerEntity findOrCreatePlayer(String username)
+	/**
+	 * Add the gains of flushed snapshots to the rollups. This is separate from
+	 * the snapshot transaction so that a failed rollup doesn't lose the snapshots.
+	 */
+	private void rollup(List<Rollup> rollups)
 	{
-		try (Connection con = sql2o.open())
+		Instant now = Instant.now();
+		Instant hour = XpResolution.HOUR.truncate(now);
+		Instant day = XpResolution.DAY.truncate(now);
+
+		try (Connection con = sql2o.beginTransaction())
 		{
-			PlayerEntity playerEntity = con.createQuery("select * from player where name = :name")
-				.addParameter("name", username)
-				.executeAndFetchFirst(PlayerEntity.class);
-			if (playerEntity != null)
+			Query hourlyQuery = con.createQuery(INSERT_XP_HOURLY);
+			Query dailyQuery = con.createQuery(INSERT_XP_DAILY);
+
+			for (Rollup rollup : rollups)
 			{
-				return playerEntity;
+				addRollup(hourlyQuery, rollup.getPlayerId(), hour, rollup.getGains());
+				addRollup(dailyQuery, rollup.getPlayerId(), day, rollup.getGains());
 			}
 
-			Instant now = Instant.now();
+			hourlyQuery.executeBatch();
+			dailyQuery.executeBatch();
+			con.commit();
+		}
+		catch (Sql2oException ex)
+		{
+			log.warn("Unable to roll up {} xp updates", rollups.size(), ex);
+		}
+	}
+
+	/**
+	 * Find the id of a player, creating the player if they are not yet tracked.
+	 * Only called from the flush, so this does not need to be synchronized.
+	 * Created players are added to created rather than the id cache, as they
+	 * only exist once the flush is committed.
+	 */
+	private int findOrCreatePlayer(Connection con, String username, Map<String, Integer> created)
+	{
+		String key = username.toLowerCase();
+		Integer id = playerIds.getIfPresent(key);
+		if (id != null)
+		{
+			return id;
+		}
+
+		PlayerEntity playerEntity = con.createQuery("select * from player where name = :name")
+			.addParameter("name", username)
+			.executeAndFetchFirst(PlayerEntity.class);
+		if (playerEntity != null)
+		{
+			playerIds.put(key, playerEntity.getId());
+			return playerEntity.getId();
+		}
+
+		id = con.createQuery("insert into player (name, tracked_since) values (:name, :tracked_since)")
+			.addParameter("name", username)
+			.addParameter("tracked_since", Instant.now())
+			.executeUpdate()
+			.getKey(int.class);
+		created.put(key, id);
+		return id;
+	}
 
-			int id = con.createQuery("insert into player (name, tracked_since) values (:name, :tracked_since)")
-				.addParameter("name", username)
-				.addParameter("tracked_since", now)
-				.executeUpdate()
-				.getKey(int.class);
+	private XpData findLatestXp(Connection con, int playerId)
+	{
+		XpData xpData = latestXp.getIfPresent(playerId);
+		if (xpData != null)
+		{
+			return xpData;
+		}
 
-			playerEntity = new PlayerEntity();
-			playerEntity.setId(id);
-			playerEntity.setName(username);
-			playerEntity.setTracked_since(now);
-			return playerEntity;
+		XpEntity xpEntity = con.createQuery("select * from xp where player = :player order by time desc limit 1")
+			.throwOnMappingFailure(false)
+			.addParameter("player", playerId)
+			.executeAndFetchFirst(XpEntity.class);
+		if (xpEntity == null)
+		{
+			return null;
 		}
+
+		xpData = XpMapper.INSTANCE.xpEntityToXpData(xpEntity);
+		latestXp.put(playerId, xpData);
+		return xpData;
 	}
 
 	public XpEntity findXpAtTime(String username, Instant time)
@@ -178,4 +430,136 @@ public class XpTrackerService
 				.executeAndFetchFirst(XpEntity.class);
 		}
 	}
+
+	/**
+	 * Find the xp gained by a player in each bucket of a time range
+	 *
+	 * @param username
+	 * @param start inclusive start of the range
+	 * @param end exclusive end of the range
+	 * @param resolution
+	 * @return xp gained per bucket, with time being the start of the bucket.
+	 * Buckets with no gains are omitted.
+	 */
+	public List<XpGains> findXpGains(String username, Instant start, Instant end, XpResolution resolution)
+	{
+		if (!start.isBefore(end))
+		{
+			return Collections.emptyList();
+		}
+
+		try (Connection con = sql2o.open())
+		{
+			return con.createQuery("select r.* from " + resolution.getTable() + " r join player on player.id = r.player "
+				+ "where player.name = :username and r.time >= :start and r.time < :end order by r.time")
+				.throwOnMappingFailure(false)
+				.addParameter("username", username)
+				.addParameter("start", resolution.truncate(start))
+				.addParameter("end", end)
+				.executeAndFetch(XpGains.class);
+		}
+	}
+
+	private static String createRollupTable(XpResolution resolution)
+	{
+		String table = resolution.getTable();
+		StringBuilder sb = new StringBuilder("CREATE TABLE IF NOT EXISTS `").append(table).append("` (\n")
+			.append("  `player` int(11) NOT NULL,\n")
+			.append("  `time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,\n");
+		for (String skill : SKILLS)
+		{
+			sb.append("  `").append(skill).append("_xp` int(11) NOT NULL DEFAULT 0,\n");
+		}
+		return sb.append("  PRIMARY KEY (`player`,`time`),\n")
+			.append("  CONSTRAINT `fk_").append(table).append("_player` FOREIGN KEY (`player`) REFERENCES `player` (`id`)\n")
+			.append(") ENGINE=InnoDB")
+			.toString();
+	}
+
+	private static String createRollupInsert(XpResolution resolution)
+	{
+		StringBuilder columns = new StringBuilder("player,time");
+		StringBuilder values = new StringBuilder(":player,:time");
+		StringBuilder update = new StringBuilder();
+
+		for (String skill : SKILLS)
+		{
+			String column = skill + "_xp";
+			columns.append(',').append(column);
+			values.append(",:").append(column);
+			if (update.length() > 0)
+			{
+				update.append(',');
+			}
+			update.append(column).append(" = ").append(column).append(" + values(").append(column).append(')');
+		}
+
+		return "insert into " + resolution.getTable() + " (" + columns + ") values (" + values + ") "
+			+ "on duplicate key update " + update;
+	}
+
+	private static void addRollup(Query query, int playerId, Instant time, int[] gains)
+	{
+		query.addParameter("player", playerId)
+			.addParameter("time", time);
+		for (int i = 0; i < SKILLS.length; ++i)
+		{
+			query.addParameter(SKILLS[i] + "_xp", gains[i]);
+		}
+		query.addToBatch();
+	}
+
+	/**
+	 * Compute the xp gained in each skill between two snapshots. Skills which
+	 * are unranked on the hiscores have -1 xp. The xp of a skill which was
+	 * unranked is unknown, so becoming ranked is not counted as a gain.
+	 */
+	static int[] gains(XpData previous, XpData current)
+	{
+		int[] before = skillXp(previous);
+		int[] after = skillXp(current);
+		int[] gains = new int[SKILLS.length];
+
+		for (int i = 0; i < gains.length; ++i)
+		{
+			if (before[i] < 0)
+			{
+				continue;
+			}
+
+			gains[i] = Math.max(0, after[i] - before[i]);
+		}
+
+		return gains;
+	}
+
+	private static int[] skillXp(XpData xpData)
+	{
+		return new int[]
+		{
+			xpData.getAttack_xp(),
+			xpData.getDefence_xp(),
+			xpData.getStrength_xp(),
+			xpData.getHitpoints_xp(),
+			xpData.getRanged_xp(),
+			xpData.getPrayer_xp(),
+			xpData.getMagic_xp(),
+			xpData.getCooking_xp(),
+			xpData.getWoodcutting_xp(),
+			xpData.getFletching_xp(),
+			xpData.getFishing_xp(),
+			xpData.getFiremaking_xp(),
+			xpData.getCrafting_xp(),
+			xpData.getSmithing_xp(),
+			xpData.getMining_xp(),
+			xpData.getHerblore_xp(),
+			xpData.getAgility_xp(),
+			xpData.getThieving_xp(),
+			xpData.getSlayer_xp(),
+			xpData.getFarming_xp(),
+			xpData.getRunecraft_xp(),
+			xpData.getHunter_xp(),
+			xpData.getConstruction_xp()
+		};
+	}
 }
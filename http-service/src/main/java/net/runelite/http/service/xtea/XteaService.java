@@ -24,12 +24,29 @@
  */
 package net.runelite.http.service.xtea;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import lombok.Value;
 import net.runelite.cache.IndexType;
-import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.jagex.CompressionType;
 import net.runelite.cache.util.Djb2;
+import net.runelite.cache.util.Xtea;
+import net.runelite.http.api.RuneLiteAPI;
 import net.runelite.http.api.xtea.XteaKey;
 import net.runelite.http.api.xtea.XteaRequest;
 import net.runelite.http.service.cache.CacheService;
@@ -41,6 +58,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -69,9 +90,66 @@ public class XteaService
 		+ "  KEY `region` (`region`,`time`)\n"
 		+ ") ENGINE=InnoDB";
 
+	private static final int REGIONS = 1 << 16;
+
+	/**
+	 * Submissions with more keys than this are validated in parallel
+	 */
+	private static final int PARALLEL_THRESHOLD = 4;
+
+	/**
+	 * compression type + compressed length + first xtea block
+	 */
+	private static final int HEADER_LENGTH = 5 + 8;
+
+	/**
+	 * The bzip2 block magic. Jagex strips the stream header from
+	 * bzip2 compressed containers, so this immediately follows the length.
+	 */
+	private static final byte[] BZIP2_BLOCK_MAGIC = new byte[]
+	{
+		0x31, 0x41, 0x59, 0x26
+	};
+
+	/**
+	 * The gzip magic and deflate compression method
+	 */
+	private static final byte[] GZIP_MAGIC = new byte[]
+	{
+		0x1f, (byte) 0x8b, 0x08
+	};
+
 	private final Sql2o sql2o;
 	private final CacheService cacheService;
 
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	/**
+	 * Map archives do not change for a given cache, so remember which
+	 * archive each region is in.
+	 */
+	private final Cache<Long, ArchiveEntry> regionArchives = CacheBuilder.newBuilder()
+		.maximumSize(REGIONS)
+		.build();
+
+	/**
+	 * Latest known keys, 4 per region, indexed by region id
+	 */
+	private final int[] keyTable = new int[REGIONS * 4];
+	private final BitSet knownRegions = new BitSet(REGIONS);
+
+	/**
+	 * Serialized response for get(), rebuilt after the keys change
+	 */
+	private volatile KeysResponse keysResponse;
+
+	@Value
+	private static class KeysResponse
+	{
+		private byte[] json;
+		private byte[] gzip;
+	}
+
 	@Autowired
 	public XteaService(
 		@Qualifier("Runelite SQL2O") Sql2o sql2o,
@@ -86,61 +164,101 @@ public class XteaService
 			con.createQuery(CREATE_SQL)
 				.executeUpdate();
 		}
+
+		loadKeys();
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		executor.shutdown();
 	}
 
-	private XteaEntry findLatestXtea(Connection con, int region)
+	/**
+	 * Reload the key table from the database, which picks up keys
+	 * submitted to other instances of the service.
+	 */
+	@Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+	public void loadKeys()
 	{
-		return con.createQuery("select region, time, key1, key2, key3, key4 from xtea "
-			+ "where region = :region "
-			+ "order by time desc "
-			+ "limit 1")
-			.addParameter("region", region)
-			.executeAndFetchFirst(XteaEntry.class);
+		List<XteaEntry> entries;
+
+		try (Connection con = sql2o.open())
+		{
+			entries = con.createQuery(
+				"select t1.region, t1.time, t2.rev, t2.key1, t2.key2, t2.key3, t2.key4 from " +
+					"(select region,max(time) as time from xtea group by region) t1 " +
+					"join xtea t2 on t1.region = t2.region and t1.time = t2.time")
+				.executeAndFetch(XteaEntry.class);
+		}
+
+		synchronized (keyTable)
+		{
+			for (XteaEntry entry : entries)
+			{
+				setKeys(entry.getRegion(), new int[]
+				{
+					entry.getKey1(), entry.getKey2(), entry.getKey3(), entry.getKey4()
+				});
+			}
+
+			keysResponse = null;
+		}
+
+		logger.debug("Loaded xtea keys for {} regions", entries.size());
 	}
 
 	@RequestMapping(method = POST)
 	public void submit(@RequestBody XteaRequest xteaRequest)
 	{
-		try (Connection con = sql2o.beginTransaction())
+		CacheEntry cache = cacheService.findMostRecent();
+
+		if (cache == null)
+		{
+			throw new InternalServerErrorException("No most recent cache");
+		}
+
+		List<XteaKey> newKeys = new ArrayList<>();
+
+		for (XteaKey key : xteaRequest.getKeys())
 		{
-			CacheEntry cache = cacheService.findMostRecent();
+			int region = key.getRegion();
+			int[] keys = key.getKeys();
 
-			if (cache == null)
+			if (keys.length != 4)
 			{
-				throw new InternalServerErrorException("No most recent cache");
+				throw new IllegalArgumentException("Key length must be 4");
 			}
 
-			Query query = con.createQuery("insert into xtea (region, rev, key1, key2, key3, key4) "
-				+ "values (:region, :rev, :key1, :key2, :key3, :key4)");
+			if (region < 0 || region >= REGIONS)
+			{
+				throw new IllegalArgumentException("Invalid region");
+			}
 
-			for (XteaKey key : xteaRequest.getKeys())
+			// already have these?
+			if (!hasKeys(region, keys))
 			{
-				int region = key.getRegion();
-				int[] keys = key.getKeys();
+				newKeys.add(key);
+			}
+		}
 
-				XteaEntry xteaEntry = findLatestXtea(con, region);
+		List<XteaKey> validKeys = checkKeys(cache, newKeys);
 
-				if (keys.length != 4)
-				{
-					throw new IllegalArgumentException("Key length must be 4");
-				}
+		if (validKeys.isEmpty())
+		{
+			return;
+		}
 
-				// already have these?
-				if (xteaEntry != null
-					&& xteaEntry.getKey1() == keys[0]
-					&& xteaEntry.getKey2() == keys[1]
-					&& xteaEntry.getKey3() == keys[2]
-					&& xteaEntry.getKey4() == keys[3])
-				{
-					continue;
-				}
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("insert into xtea (region, rev, key1, key2, key3, key4) "
+				+ "values (:region, :rev, :key1, :key2, :key3, :key4)");
 
-				if (!checkKeys(cache, region, keys))
-				{
-					continue;
-				}
+			for (XteaKey key : validKeys)
+			{
+				int[] keys = key.getKeys();
 
-				query.addParameter("region", region)
+				query.addParameter("region", key.getRegion())
 					.addParameter("rev", xteaRequest.getRevision())
 					.addParameter("key1", keys[0])
 					.addParameter("key2", keys[1])
@@ -152,48 +270,191 @@ public class XteaService
 			query.executeBatch();
 			con.commit();
 		}
+
+		synchronized (keyTable)
+		{
+			for (XteaKey key : validKeys)
+			{
+				setKeys(key.getRegion(), key.getKeys());
+			}
+
+			keysResponse = null;
+		}
 	}
 
 	@RequestMapping
-	public List<XteaKey> get()
+	public ResponseEntity<byte[]> get(HttpServletRequest request) throws IOException
 	{
-		try (Connection con = sql2o.open())
+		KeysResponse response = keysResponse;
+
+		if (response == null)
 		{
-			List<XteaEntry> entries = con.createQuery(
-				"select t1.region, t1.time, t2.rev, t2.key1, t2.key2, t2.key3, t2.key4 from " +
-					"(select region,max(time) as time from xtea group by region) t1 " +
-					"join xtea t2 on t1.region = t2.region and t1.time = t2.time")
-				.executeAndFetch(XteaEntry.class);
+			synchronized (keyTable)
+			{
+				if (keysResponse == null)
+				{
+					byte[] json = RuneLiteAPI.GSON.toJson(getKeys()).getBytes(StandardCharsets.UTF_8);
+					keysResponse = new KeysResponse(json, gzip(json));
+				}
+
+				response = keysResponse;
+			}
+		}
 
-			return entries.stream()
-				.map(XteaService::entryToKey)
-				.collect(Collectors.toList());
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		if (acceptEncoding != null && acceptEncoding.contains("gzip"))
+		{
+			return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON_UTF8)
+				.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+				.body(response.getGzip());
 		}
+
+		return ResponseEntity.ok()
+			.contentType(MediaType.APPLICATION_JSON_UTF8)
+			.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+			.body(response.getJson());
 	}
 
 	@RequestMapping("/{region}")
 	public XteaKey getRegion(@PathVariable int region)
 	{
-		XteaEntry entry;
+		if (region < 0 || region >= REGIONS)
+		{
+			throw new NotFoundException();
+		}
+
+		synchronized (keyTable)
+		{
+			if (!knownRegions.get(region))
+			{
+				throw new NotFoundException();
+			}
+
+			return createKey(region);
+		}
+	}
+
+	private List<XteaKey> getKeys()
+	{
+		List<XteaKey> keys = new ArrayList<>(knownRegions.cardinality());
+		for (int region = knownRegions.nextSetBit(0); region >= 0; region = knownRegions.nextSetBit(region + 1))
+		{
+			keys.add(createKey(region));
+		}
+		return keys;
+	}
 
-		try (Connection con = sql2o.open())
+	private boolean hasKeys(int region, int[] keys)
+	{
+		synchronized (keyTable)
+		{
+			int idx = region * 4;
+			return knownRegions.get(region)
+				&& keyTable[idx] == keys[0]
+				&& keyTable[idx + 1] == keys[1]
+				&& keyTable[idx + 2] == keys[2]
+				&& keyTable[idx + 3] == keys[3];
+		}
+	}
+
+	private void setKeys(int region, int[] keys)
+	{
+		System.arraycopy(keys, 0, keyTable, region * 4, 4);
+		knownRegions.set(region);
+	}
+
+	private XteaKey createKey(int region)
+	{
+		int idx = region * 4;
+		XteaKey xteaKey = new XteaKey();
+		xteaKey.setRegion(region);
+		xteaKey.setKeys(new int[]
 		{
-			entry = con.createQuery("select region, time, rev, key1, key2, key3, key4 from xtea "
-				+ "where region = :region order by time desc limit 1")
-				.addParameter("region", region)
-				.executeAndFetchFirst(XteaEntry.class);
+			keyTable[idx],
+			keyTable[idx + 1],
+			keyTable[idx + 2],
+			keyTable[idx + 3]
+		});
+		return xteaKey;
+	}
+
+	private List<XteaKey> checkKeys(CacheEntry cache, List<XteaKey> keys)
+	{
+		List<XteaKey> valid = new ArrayList<>();
+
+		if (keys.size() <= PARALLEL_THRESHOLD)
+		{
+			for (XteaKey key : keys)
+			{
+				if (checkKeys(cache, key.getRegion(), key.getKeys()))
+				{
+					valid.add(key);
+				}
+			}
+			return valid;
 		}
 
-		if (entry == null)
+		List<Future<Boolean>> results = new ArrayList<>(keys.size());
+		for (XteaKey key : keys)
 		{
-			throw new NotFoundException();
+			results.add(executor.submit(() -> checkKeys(cache, key.getRegion(), key.getKeys())));
+		}
+
+		for (int i = 0; i < keys.size(); ++i)
+		{
+			try
+			{
+				if (results.get(i).get())
+				{
+					valid.add(keys.get(i));
+				}
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				throw new InternalServerErrorException("Interrupted while checking keys");
+			}
+			catch (ExecutionException ex)
+			{
+				if (ex.getCause() instanceof RuntimeException)
+				{
+					throw (RuntimeException) ex.getCause();
+				}
+				throw new InternalServerErrorException("Unable to check keys");
+			}
 		}
 
-		return entryToKey(entry);
+		return valid;
 	}
 
 	private boolean checkKeys(CacheEntry cache, int regionId, int[] keys)
 	{
+		ArchiveEntry archiveEntry = findRegionArchive(cache, regionId);
+		if (archiveEntry == null)
+		{
+			throw new InternalServerErrorException("Unable to find archive for region");
+		}
+
+		byte[] header = cacheService.getArchive(archiveEntry, 0, HEADER_LENGTH);
+		if (header == null)
+		{
+			throw new InternalServerErrorException("Unable to get archive data");
+		}
+
+		return checkKeys(header, keys);
+	}
+
+	private ArchiveEntry findRegionArchive(CacheEntry cache, int regionId)
+	{
+		long key = (long) cache.getId() << 32 | regionId;
+		ArchiveEntry archiveEntry = regionArchives.getIfPresent(key);
+		if (archiveEntry != null)
+		{
+			return archiveEntry;
+		}
+
 		int x = regionId >>> 8;
 		int y = regionId & 0xFF;
 
@@ -205,40 +466,73 @@ public class XteaService
 			.toString();
 		int archiveNameHash = Djb2.hash(archiveName);
 
-		ArchiveEntry archiveEntry = cacheService.findArchiveForTypeAndName(cache, IndexType.MAPS, archiveNameHash);
-		if (archiveEntry == null)
+		archiveEntry = cacheService.findArchiveForTypeAndName(cache, IndexType.MAPS, archiveNameHash);
+		if (archiveEntry != null)
 		{
-			throw new InternalServerErrorException("Unable to find archive for region");
+			regionArchives.put(key, archiveEntry);
 		}
+		return archiveEntry;
+	}
 
-		byte[] data = cacheService.getArchive(archiveEntry);
-		if (data == null)
+	/**
+	 * Check keys against the start of an encrypted container. Only the
+	 * first block is decrypted, which for compressed containers holds the
+	 * decompressed length followed by the magic of the compressed stream.
+	 *
+	 * @param header at least the first 13 bytes of the container
+	 * @param keys
+	 * @return
+	 */
+	static boolean checkKeys(byte[] header, int[] keys)
+	{
+		if (header.length < HEADER_LENGTH)
 		{
-			throw new InternalServerErrorException("Unable to get archive data");
+			return false;
 		}
 
-		try
+		int compression = header[0] & 0xFF;
+
+		byte[] magic;
+		switch (compression)
 		{
-			Container.decompress(data, keys);
-			return true;
+			case CompressionType.BZ2:
+				magic = BZIP2_BLOCK_MAGIC;
+				break;
+			case CompressionType.GZ:
+				magic = GZIP_MAGIC;
+				break;
+			default:
+				// uncompressed data has nothing to check the decryption against
+				return true;
 		}
-		catch (IOException ex)
+
+		byte[] block = new Xtea(keys).decrypt(Arrays.copyOfRange(header, 5, HEADER_LENGTH), 8);
+		ByteBuffer buffer = ByteBuffer.wrap(block);
+
+		int decompressedLength = buffer.getInt();
+		if (decompressedLength < 0)
 		{
 			return false;
 		}
+
+		for (byte b : magic)
+		{
+			if (buffer.get() != b)
+			{
+				return false;
+			}
+		}
+
+		return true;
 	}
 
-	private static XteaKey entryToKey(XteaEntry xe)
+	private static byte[] gzip(byte[] data) throws IOException
 	{
-		XteaKey xteaKey = new XteaKey();
-		xteaKey.setRegion(xe.getRegion());
-		xteaKey.setKeys(new int[]
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(bout))
 		{
-			xe.getKey1(),
-			xe.getKey2(),
-			xe.getKey3(),
-			xe.getKey4()
-		});
-		return xteaKey;
+			out.write(data);
+		}
+		return bout.toByteArray();
 	}
 }
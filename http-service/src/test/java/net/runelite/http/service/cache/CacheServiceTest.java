@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.http.service.cache.beans.ArchiveEntry;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+public class CacheServiceTest
+{
+	private CacheService cacheService;
+	private List<ArchiveEntry> archives;
+
+	@Before
+	public void before() throws Exception
+	{
+		cacheService = spy(new CacheService("http://localhost:9000", "access", "secret"));
+		doAnswer(i -> data((ArchiveEntry) i.getArguments()[0]))
+			.when(cacheService).getArchive(any(ArchiveEntry.class));
+
+		archives = new ArrayList<>();
+		for (int i = 0; i < 100; ++i)
+		{
+			ArchiveEntry archive = new ArchiveEntry();
+			archive.setArchiveId(i);
+			archive.setNameHash(i * 31);
+			archive.setCrc(i * 17);
+			archive.setRevision(1);
+			archives.add(archive);
+		}
+	}
+
+	@After
+	public void after()
+	{
+		cacheService.shutdown();
+	}
+
+	@Test
+	public void testStream() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cacheService.streamArchives(archives, 0, 0, Long.MAX_VALUE, out);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+		for (ArchiveEntry archive : archives)
+		{
+			assertEquals(archive.getArchiveId(), in.readInt());
+			assertEquals(archive.getNameHash(), in.readInt());
+			assertEquals(archive.getCrc(), in.readInt());
+			assertEquals(archive.getRevision(), in.readInt());
+
+			byte[] data = new byte[in.readInt()];
+			in.readFully(data);
+			assertArrayEquals(data(archive), data);
+		}
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testStreamRange() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cacheService.streamArchives(archives, 0, 0, Long.MAX_VALUE, out);
+		byte[] full = out.toByteArray();
+
+		// resume from the middle of the 11th archive, as the controller would
+		int first = 10;
+		long position = 0;
+		for (int i = 0; i < first; ++i)
+		{
+			position += CacheService.ARCHIVE_HEADER_SIZE + data(archives.get(i)).length;
+		}
+		long start = position + 7, end = start + 500;
+
+		out = new ByteArrayOutputStream();
+		cacheService.streamArchives(archives.subList(first, archives.size()), position, start, end, out);
+		assertArrayEquals(Arrays.copyOfRange(full, (int) start, (int) end), out.toByteArray());
+	}
+
+	@Test
+	public void testParseRange()
+	{
+		assertArrayEquals(new long[]{100, 999}, CacheController.parseRange("100-", 1000));
+		assertArrayEquals(new long[]{100, 199}, CacheController.parseRange("100-199", 1000));
+		assertArrayEquals(new long[]{100, 999}, CacheController.parseRange("100-5000", 1000));
+		assertArrayEquals(new long[]{900, 999}, CacheController.parseRange("-100", 1000));
+		assertNull(CacheController.parseRange("1000-", 1000));
+		assertNull(CacheController.parseRange("200-100", 1000));
+		assertNull(CacheController.parseRange("abc", 1000));
+	}
+
+	private static byte[] data(ArchiveEntry archive)
+	{
+		byte[] data = new byte[archive.getArchiveId() * 13 % 97 + 1];
+		Arrays.fill(data, (byte) archive.getArchiveId());
+		return data;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.api.config.ConfigEntry;
+import net.runelite.http.api.config.ConfigPatch;
+import net.runelite.http.api.config.Configuration;
+import net.runelite.http.service.account.AuthFilter;
+import net.runelite.http.service.account.beans.SessionEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import org.mockito.InOrder;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.stubbing.Answer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+
+public class ConfigServiceTest
+{
+	private static final int USER = 7;
+
+	private static final String SELECT_VERSION = "select version from config_version where user = :user";
+	private static final String SELECT_CONFIG = "select `key`, value from config where user = :user";
+	private static final String INSERT_CONFIG = "insert into config (user, `key`, value) values (:user, :key, :value) on duplicate key update value = values(value)";
+	private static final String DELETE_CONFIG = "delete from config where user = :user and `key` = :key";
+	private static final String BUMP_VERSION = "insert into config_version (user, version) values (:user, 1) on duplicate key update version = version + 1";
+
+	private static final Answer<Object> RETURNS_SELF = i ->
+		i.getMethod().getReturnType() == Query.class ? i.getMock() : RETURNS_DEFAULTS.answer(i);
+
+	private final Map<String, Query> queries = new HashMap<>();
+	private Connection con;
+	private ConfigService configService;
+
+	@Before
+	public void before() throws Exception
+	{
+		con = mock(Connection.class);
+		when(con.createQuery(anyString())).thenAnswer(i -> query((String) i.getArguments()[0]));
+
+		Sql2o sql2o = mock(Sql2o.class);
+		when(sql2o.open()).thenReturn(con);
+		when(sql2o.beginTransaction()).thenReturn(con);
+
+		SessionEntry session = new SessionEntry();
+		session.setUser(USER);
+		AuthFilter auth = mock(AuthFilter.class);
+		when(auth.handle(any(HttpServletRequest.class), any(HttpServletResponse.class))).thenReturn(session);
+
+		configService = new ConfigService(sql2o, auth);
+	}
+
+	@Test
+	public void testPatch() throws Exception
+	{
+		ConfigPatch patch = new ConfigPatch();
+		patch.getEdit().put("test.a", "1");
+		patch.getEdit().put("test.b", null);
+		patch.getUnset().add("test.c");
+
+		configService.patch(new MockHttpServletRequest("PATCH", "/config"), new MockHttpServletResponse(), patch);
+
+		// All edits are sent as one batch in key order, and the unsets as another
+		Query insert = query(INSERT_CONFIG);
+		InOrder inOrder = inOrder(insert);
+		inOrder.verify(insert).addParameter("key", "test.a");
+		inOrder.verify(insert).addParameter("key", "test.b");
+		verify(insert).addParameter("value", "1");
+		verify(insert).addParameter("value", "");
+		verify(insert, times(2)).addToBatch();
+		verify(insert, times(1)).executeBatch();
+
+		Query delete = query(DELETE_CONFIG);
+		verify(delete).addParameter("key", "test.c");
+		verify(delete, times(1)).addToBatch();
+		verify(delete, times(1)).executeBatch();
+
+		verify(query(BUMP_VERSION)).addParameter("user", USER);
+		verify(query(BUMP_VERSION), times(1)).executeUpdate();
+		verify(con).commit();
+	}
+
+	@Test
+	public void testPatchEmpty() throws Exception
+	{
+		configService.patch(new MockHttpServletRequest("PATCH", "/config"), new MockHttpServletResponse(), new ConfigPatch());
+
+		verify(query(BUMP_VERSION), never()).executeUpdate();
+		verify(con, never()).commit();
+	}
+
+	@Test
+	public void testGet() throws Exception
+	{
+		ConfigEntry entry = new ConfigEntry();
+		entry.setKey("test.key");
+		entry.setValue("value");
+		when(query(SELECT_VERSION).executeScalar(Integer.class)).thenReturn(3);
+		when(query(SELECT_CONFIG).executeAndFetch(ConfigEntry.class)).thenReturn(Collections.singletonList(entry));
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/config");
+		request.addHeader(RuneLiteAPI.RUNELITE_AUTH, "session");
+		request.addHeader("If-None-Match", "\"" + USER + "-2\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		Configuration configuration = configService.get(request, response);
+		assertEquals(200, response.getStatus());
+		assertEquals("\"" + USER + "-3\"", response.getHeader("ETag"));
+		assertEquals("value", configuration.getConfig().get(0).getValue());
+	}
+
+	@Test
+	public void testGetNotModified() throws Exception
+	{
+		when(query(SELECT_VERSION).executeScalar(Integer.class)).thenReturn(3);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/config");
+		request.addHeader(RuneLiteAPI.RUNELITE_AUTH, "session");
+		request.addHeader("If-None-Match", "\"" + USER + "-3\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		assertNull(configService.get(request, response));
+		assertEquals(304, response.getStatus());
+		verify(query(SELECT_CONFIG), never()).executeAndFetch(ConfigEntry.class);
+	}
+
+	/**
+	 * Get the query created for the given statement. Its builder methods
+	 * return the query itself, as in sql2o.
+	 */
+	private Query query(String sql)
+	{
+		return queries.computeIfAbsent(sql, k -> mock(Query.class, RETURNS_SELF));
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.examine;
+
+import com.google.common.base.Strings;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.http.service.util.exception.BadRequestException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.stubbing.Answer;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
+
+public class ExamineServiceTest
+{
+	private static final String FIND_WINNER = "select text, count from examine where type = :type and id = :id order by count desc limit 1";
+
+	private static final Answer<Object> RETURNS_SELF = i ->
+		i.getMethod().getReturnType() == Query.class ? i.getMock() : RETURNS_DEFAULTS.answer(i);
+
+	/**
+	 * parameters of each flush statement executed
+	 */
+	private final List<Map<String, Object>> upserts = new ArrayList<>();
+	private final Query findWinner = mock(Query.class, RETURNS_SELF);
+	/**
+	 * text which the database refuses to store
+	 */
+	private String badText;
+	private Connection con;
+	private ExamineService examineService;
+
+	@Before
+	public void before()
+	{
+		con = mock(Connection.class);
+		when(con.createQuery(anyString())).thenAnswer(i ->
+		{
+			String sql = (String) i.getArguments()[0];
+			if (sql.equals(FIND_WINNER))
+			{
+				return findWinner;
+			}
+			if (sql.startsWith("insert into examine"))
+			{
+				return upsert();
+			}
+			return mock(Query.class, RETURNS_SELF);
+		});
+
+		Sql2o sql2o = mock(Sql2o.class);
+		when(sql2o.open()).thenReturn(con);
+		when(sql2o.beginTransaction()).thenReturn(con);
+
+		examineService = new ExamineService(sql2o);
+	}
+
+	@Test
+	public void testFlush()
+	{
+		examineService.submitItem(4151, "A whip.");
+		examineService.submitItem(4151, "A whip.");
+		examineService.submitItem(4151, "A whip!");
+		examineService.submitNpc(4151, "A whip.");
+		examineService.flush();
+
+		// identical submissions are merged into one row
+		assertEquals(1, upserts.size());
+		Map<String, Integer> counts = counts(upserts.get(0));
+		assertEquals(3, counts.size());
+		assertEquals(2, (int) counts.get("ITEM 4151 A whip."));
+		assertEquals(1, (int) counts.get("ITEM 4151 A whip!"));
+		assertEquals(1, (int) counts.get("NPC 4151 A whip."));
+		verify(con).commit();
+
+		// nothing is left to flush
+		examineService.flush();
+		assertEquals(1, upserts.size());
+	}
+
+	@Test
+	public void testFlushBatches()
+	{
+		for (int id = 0; id < 600; ++id)
+		{
+			examineService.submitObject(id, "A rock.");
+		}
+		examineService.flush();
+
+		assertEquals(3, upserts.size());
+		assertEquals(600, upserts.stream().mapToInt(params -> counts(params).size()).sum());
+		verify(con, times(1)).commit();
+	}
+
+	@Test
+	public void testFailedFlushWrittenEach()
+	{
+		badText = "A whip?";
+		examineService.submitItem(4151, "A whip.");
+		examineService.submitItem(4151, "A whip?");
+		examineService.flush();
+
+		// the batch fails, then each row is written on its own
+		assertEquals(3, upserts.size());
+		assertEquals(2, counts(upserts.get(0)).size());
+		assertEquals(1, counts(upserts.get(1)).size());
+		assertEquals(1, counts(upserts.get(2)).size());
+
+		// the refused row is dropped rather than retried
+		examineService.submitItem(4151, "A whip.");
+		examineService.flush();
+		assertEquals(4, upserts.size());
+		assertEquals(Collections.singletonMap("ITEM 4151 A whip.", 1), counts(upserts.get(3)));
+	}
+
+	@Test(expected = BadRequestException.class)
+	public void testTextTooLong()
+	{
+		examineService.submitItem(4151, Strings.repeat("a", 256));
+	}
+
+	@Test
+	public void testWinnerCached()
+	{
+		when(findWinner.executeAndFetchFirst(ExamineEntry.class)).thenReturn(entry("A whip.", 5));
+
+		assertEquals("A whip.", examineService.getItem(4151));
+		assertEquals("A whip.", examineService.getItem(4151));
+		verify(findWinner, times(1)).executeAndFetchFirst(ExamineEntry.class);
+
+		// more of the winning text keeps the cached winner
+		examineService.submitItem(4151, "A whip.");
+		examineService.flush();
+		assertEquals("A whip.", examineService.getItem(4151));
+		verify(findWinner, times(1)).executeAndFetchFirst(ExamineEntry.class);
+
+		// any other text might overtake it, so the winner is looked up again
+		when(findWinner.executeAndFetchFirst(ExamineEntry.class)).thenReturn(entry("A whip!", 7));
+		examineService.submitItem(4151, "A whip!");
+		examineService.flush();
+		assertEquals("A whip!", examineService.getItem(4151));
+		verify(findWinner, times(2)).executeAndFetchFirst(ExamineEntry.class);
+	}
+
+	@Test
+	public void testNoWinnerCached()
+	{
+		assertEquals(null, examineService.getNpc(1));
+		assertEquals(null, examineService.getNpc(1));
+		verify(findWinner, times(1)).executeAndFetchFirst(ExamineEntry.class);
+
+		examineService.submitNpc(1, "A man.");
+		examineService.flush();
+
+		when(findWinner.executeAndFetchFirst(ExamineEntry.class)).thenReturn(entry("A man.", 1));
+		assertEquals("A man.", examineService.getNpc(1));
+	}
+
+	private Query upsert()
+	{
+		Map<String, Object> params = new HashMap<>();
+		upserts.add(params);
+
+		Answer<Object> recording = i ->
+		{
+			String method = i.getMethod().getName();
+			if (method.equals("addParameter"))
+			{
+				params.put((String) i.getArguments()[0], i.getArguments()[1]);
+			}
+			else if (method.equals("executeUpdate") && params.containsValue(badText))
+			{
+				throw new Sql2oException("Data truncated for column 'text'");
+			}
+			return RETURNS_SELF.answer(i);
+		};
+		return mock(Query.class, recording);
+	}
+
+	/**
+	 * Get the count of each row of a flush statement, keyed by type, id and text
+	 */
+	private static Map<String, Integer> counts(Map<String, Object> params)
+	{
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; params.containsKey("text" + i); ++i)
+		{
+			Integer previous = counts.put(params.get("type" + i) + " " + params.get("id" + i) + " " + params.get("text" + i),
+				(Integer) params.get("count" + i));
+			assertTrue(previous == null);
+		}
+		return counts;
+	}
+
+	private static ExamineEntry entry(String text, int count)
+	{
+		ExamineEntry entry = new ExamineEntry();
+		entry.setText(text);
+		entry.setCount(count);
+		return entry;
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.feed;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.api.feed.FeedItem;
+import net.runelite.http.api.feed.FeedItemType;
+import net.runelite.http.api.feed.FeedResult;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class FeedAggregatorTest
+{
+	private static final FeedItem BLOG_POST = new FeedItem(FeedItemType.BLOG_POST, "Blog", "Post", "https://runelite.net/", 1);
+	private static final FeedItem TWEET = new FeedItem(FeedItemType.TWEET, "RuneLite", "Tweet", "https://twitter.com/", 2);
+
+	private final AtomicReference<Callable<List<FeedItem>>> blog = new AtomicReference<>();
+	private final AtomicReference<Callable<List<FeedItem>>> twitter = new AtomicReference<>();
+	private FeedAggregator feedAggregator;
+
+	@Before
+	public void before()
+	{
+		Map<String, Callable<List<FeedItem>>> sources = new LinkedHashMap<>();
+		sources.put("blog", () -> blog.get().call());
+		sources.put("twitter", () -> twitter.get().call());
+		feedAggregator = new FeedAggregator(sources, 200);
+	}
+
+	@After
+	public void after()
+	{
+		feedAggregator.shutdown();
+	}
+
+	@Test
+	public void testRefresh()
+	{
+		assertTrue(parse(feedAggregator.getSnapshot()).getItems().isEmpty());
+		assertNull(feedAggregator.getSnapshot().getEtag());
+
+		blog.set(() -> Collections.singletonList(BLOG_POST));
+		twitter.set(() -> Collections.singletonList(TWEET));
+		feedAggregator.refresh();
+
+		FeedAggregator.FeedSnapshot snapshot = feedAggregator.getSnapshot();
+		List<FeedItem> items = parse(snapshot).getItems();
+		assertEquals(2, items.size());
+		assertEquals(BLOG_POST, items.get(0));
+		assertEquals(TWEET, items.get(1));
+
+		// an unchanged feed keeps the snapshot, and so its etag
+		feedAggregator.refresh();
+		assertSame(snapshot, feedAggregator.getSnapshot());
+	}
+
+	@Test
+	public void testEtag()
+	{
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new FeedController(feedAggregator).getFeed(new MockHttpServletRequest("GET", "/feed"), response);
+		assertNull(response.getHeader("ETag"));
+
+		blog.set(() -> Collections.singletonList(BLOG_POST));
+		twitter.set(() -> Collections.emptyList());
+		feedAggregator.refresh();
+
+		response = new MockHttpServletResponse();
+		new FeedController(feedAggregator).getFeed(new MockHttpServletRequest("GET", "/feed"), response);
+		String etag = response.getHeader("ETag");
+		assertEquals(feedAggregator.getSnapshot().getEtag(), etag);
+
+		// a restarted service tags the same feed the same way
+		FeedAggregator restarted = new FeedAggregator(Collections.singletonMap("blog", () -> Collections.singletonList(BLOG_POST)), 200);
+		restarted.refresh();
+		restarted.shutdown();
+		assertEquals(etag, restarted.getSnapshot().getEtag());
+
+		twitter.set(() -> Collections.singletonList(TWEET));
+		feedAggregator.refresh();
+		assertNotEquals(etag, feedAggregator.getSnapshot().getEtag());
+	}
+
+	@Test
+	public void testFailedSourceKeepsLastResult()
+	{
+		blog.set(() -> Collections.singletonList(BLOG_POST));
+		twitter.set(() -> Collections.singletonList(TWEET));
+		feedAggregator.refresh();
+
+		twitter.set(() ->
+		{
+			throw new IOException("rate limited");
+		});
+		feedAggregator.refresh();
+
+		assertEquals(2, parse(feedAggregator.getSnapshot()).getItems().size());
+	}
+
+	@Test
+	public void testSlowSource()
+	{
+		blog.set(() ->
+		{
+			Thread.sleep(10_000);
+			return Collections.singletonList(BLOG_POST);
+		});
+		twitter.set(() -> Collections.singletonList(TWEET));
+
+		long start = System.currentTimeMillis();
+		feedAggregator.refresh();
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue("refresh took " + elapsed + "ms", elapsed < 5_000);
+		assertEquals(Collections.singletonList(TWEET), parse(feedAggregator.getSnapshot()).getItems());
+	}
+
+	private static FeedResult parse(FeedAggregator.FeedSnapshot snapshot)
+	{
+		return RuneLiteAPI.GSON.fromJson(new String(snapshot.getJson(), StandardCharsets.UTF_8), FeedResult.class);
+	}
+}
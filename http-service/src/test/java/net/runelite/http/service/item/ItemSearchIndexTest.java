@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ItemSearchIndexTest
+{
+	private ItemSearchIndex index;
+
+	@Before
+	public void before()
+	{
+		index = new ItemSearchIndex();
+		index.rebuild(Arrays.asList(
+			item(1, "Dragon scimitar"),
+			item(2, "Dragon dagger"),
+			item(3, "Dragon dagger(p++)"),
+			item(4, "Rune scimitar"),
+			item(5, "Abyssal whip"),
+			item(6, "Dragon bones"),
+			item(7, "Bones")
+		));
+	}
+
+	@Test
+	public void testPrefix()
+	{
+		List<ItemEntry> result = index.search("drag", 10);
+		assertEquals(4, result.size());
+		// equal scores are ordered by the shortest name
+		assertEquals("Dragon bones", result.get(0).getName());
+		assertEquals("Dragon dagger", result.get(1).getName());
+
+		result = index.search("wh", 10);
+		assertEquals(1, result.size());
+		assertEquals(5, result.get(0).getId());
+	}
+
+	@Test
+	public void testExactFirst()
+	{
+		List<ItemEntry> result = index.search("bones", 10);
+		assertEquals(7, result.get(0).getId());
+		assertEquals(6, result.get(1).getId());
+	}
+
+	@Test
+	public void testTypo()
+	{
+		List<ItemEntry> result = index.search("dragn scimtar", 10);
+		assertEquals(1, result.get(0).getId());
+
+		result = index.search("abysal whip", 10);
+		assertEquals(5, result.get(0).getId());
+	}
+
+	@Test
+	public void testPunctuation()
+	{
+		List<ItemEntry> result = index.search("dragon dagger p", 10);
+		assertEquals(3, result.get(0).getId());
+	}
+
+	@Test
+	public void testLimit()
+	{
+		assertEquals(2, index.search("dragon", 2).size());
+		assertTrue(index.search("zzzz", 10).isEmpty());
+		assertTrue(index.search("  ", 10).isEmpty());
+	}
+
+	@Test
+	public void testAdd()
+	{
+		index.add(Collections.singletonList(item(8, "Dragon claws")));
+		assertEquals(8, index.size());
+		assertEquals(8, index.search("dragon claws", 10).get(0).getId());
+
+		// renaming an item rebuilds the index
+		index.add(Collections.singletonList(item(8, "Granite maul")));
+		assertEquals(8, index.size());
+		assertTrue(index.search("dragon claws", 10).stream().noneMatch(i -> i.getId() == 8));
+		assertEquals(8, index.search("granite", 10).get(0).getId());
+	}
+
+	@Test
+	public void testLargeIndex()
+	{
+		String[] materials = {"Bronze", "Iron", "Steel", "Black", "Mithril", "Adamant", "Rune", "Dragon", "Granite", "Crystal"};
+		String[] kinds = {"dagger", "sword", "longsword", "scimitar", "mace", "warhammer", "battleaxe", "2h sword",
+			"full helm", "med helm", "platebody", "chainbody", "platelegs", "plateskirt", "kiteshield", "sq shield",
+			"boots", "gloves", "arrow", "bolts", "dart", "knife", "javelin", "axe", "pickaxe"};
+		String[] suffixes = {"", "(p)", "(p+)", "(p++)", "(t)", "(g)", "(h1)", "(h2)", "(h3)", "(h4)"};
+
+		List<ItemEntry> items = new ArrayList<>();
+		int id = 0;
+		for (int n = 0; n < 10; ++n)
+		{
+			for (String material : materials)
+			{
+				for (String kind : kinds)
+				{
+					for (String suffix : suffixes)
+					{
+						items.add(item(id++, material + " " + kind + suffix + (n > 0 ? " " + n : "")));
+					}
+				}
+			}
+		}
+
+		index.rebuild(items);
+		assertEquals(items.size(), index.size());
+
+		Random random = new Random(42);
+		String[] queries = new String[1000];
+		for (int i = 0; i < queries.length; ++i)
+		{
+			String name = items.get(random.nextInt(items.size())).getName().toLowerCase();
+			// autocomplete style queries, some with a typo
+			String query = name.substring(0, 2 + random.nextInt(name.length() - 1));
+			if (query.length() > 4 && random.nextBoolean())
+			{
+				int pos = 1 + random.nextInt(query.length() - 2);
+				query = query.substring(0, pos) + query.substring(pos + 1);
+			}
+			queries[i] = query;
+		}
+
+		int found = 0;
+		for (String query : queries)
+		{
+			found += index.search(query, 10).size();
+		}
+		assertTrue(found > 0);
+	}
+
+	private static ItemEntry item(int id, String name)
+	{
+		ItemEntry item = new ItemEntry();
+		item.setId(id);
+		item.setName(name);
+		return item;
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.metrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class QueryMetricsTest
+{
+	private static final String SELECT = "select name from items where id = ?";
+
+	private QueryMetrics queryMetrics;
+	private DataSource dataSource;
+
+	@Before
+	public void before() throws SQLException
+	{
+		Connection connection = mock(Connection.class);
+		when(connection.prepareStatement(anyString())).thenAnswer(i -> mock(PreparedStatement.class));
+		when(connection.createStatement()).thenAnswer(i -> mock(Statement.class));
+
+		DataSource mockDataSource = mock(DataSource.class);
+		when(mockDataSource.getConnection()).thenReturn(connection);
+
+		queryMetrics = new QueryMetrics();
+		dataSource = queryMetrics.wrap("runelite", mockDataSource);
+	}
+
+	@Test
+	public void testRequest() throws SQLException
+	{
+		queryMetrics.beginRequest();
+		try (Connection con = dataSource.getConnection())
+		{
+			con.prepareStatement(SELECT).executeQuery();
+			con.createStatement().execute("delete from items");
+		}
+		queryMetrics.endRequest("GET /item/{itemId}");
+
+		// queries outside of a request only count towards statement timings
+		try (Connection con = dataSource.getConnection())
+		{
+			con.prepareStatement(SELECT).executeQuery();
+		}
+
+		QueryMetricsSummary summary = queryMetrics.summarize();
+		assertEquals(2, summary.getPoolWait().get("runelite").getCount());
+		assertEquals(2, summary.getStatements().size());
+		assertEquals(2, summary.getStatements().stream()
+			.filter(s -> s.getSql().equals(SELECT))
+			.findFirst().get()
+			.getTiming().getCount());
+
+		assertEquals(1, summary.getEndpoints().size());
+		EndpointSummary endpoint = summary.getEndpoints().get(0);
+		assertEquals("GET /item/{itemId}", endpoint.getEndpoint());
+		assertEquals(1, endpoint.getRequests());
+		assertEquals(2, endpoint.getQueries());
+		assertEquals(1, endpoint.getConnections());
+		assertTrue(endpoint.getRepeatedStatements().isEmpty());
+	}
+
+	@Test
+	public void testRepeatedStatements() throws SQLException
+	{
+		for (int request = 0; request < 3; ++request)
+		{
+			queryMetrics.beginRequest();
+			for (int i = 0; i < QueryMetrics.REPEATED_STATEMENT_THRESHOLD; ++i)
+			{
+				// a connection per lookup, like a service method called in a loop
+				try (Connection con = dataSource.getConnection())
+				{
+					con.prepareStatement(SELECT).executeQuery();
+				}
+			}
+			queryMetrics.endRequest("GET /item/price");
+		}
+
+		EndpointSummary endpoint = queryMetrics.summarize().getEndpoints().get(0);
+		assertEquals(3, endpoint.getRequests());
+		assertEquals(QueryMetrics.REPEATED_STATEMENT_THRESHOLD, endpoint.getMaxQueries());
+		assertEquals(QueryMetrics.REPEATED_STATEMENT_THRESHOLD, endpoint.getMaxConnections());
+		assertEquals(Long.valueOf(3), endpoint.getRepeatedStatements().get(SELECT));
+
+		queryMetrics.reset();
+		QueryMetricsSummary summary = queryMetrics.summarize();
+		assertTrue(summary.getEndpoints().isEmpty());
+		assertTrue(summary.getStatements().isEmpty());
+		assertEquals(0, summary.getPoolWait().get("runelite").getCount());
+	}
+}
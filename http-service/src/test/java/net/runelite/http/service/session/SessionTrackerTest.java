@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.session;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionTrackerTest
+{
+	private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+	private MutableClock clock;
+	private SessionTracker tracker;
+
+	@Before
+	public void before()
+	{
+		clock = new MutableClock(1_500_000_000_000L);
+		tracker = new SessionTracker(clock, TIMEOUT);
+	}
+
+	@Test
+	public void testExpire()
+	{
+		UUID uuid = add();
+		assertEquals(1, tracker.getCount());
+
+		clock.advance(TIMEOUT.toMillis() - 1000);
+		assertEquals(0, tracker.expire());
+		assertNotNull(tracker.get(uuid));
+
+		clock.advance(1000);
+		assertEquals(1, tracker.expire());
+		assertNull(tracker.get(uuid));
+		assertEquals(0, tracker.getCount());
+		assertEquals(1, tracker.drainRemoved().size());
+	}
+
+	@Test
+	public void testPingDelaysExpiry()
+	{
+		UUID uuid = add();
+
+		for (int i = 0; i < 10; ++i)
+		{
+			clock.advance(60_000);
+			assertTrue(tracker.ping(uuid));
+			tracker.expire();
+		}
+
+		assertNotNull(tracker.get(uuid));
+
+		clock.advance(TIMEOUT.toMillis());
+		tracker.expire();
+		assertNull(tracker.get(uuid));
+		assertFalse(tracker.ping(uuid));
+	}
+
+	@Test
+	public void testExpireAfterLongPause()
+	{
+		// more than a full rotation of the wheel without a sweep
+		add();
+		clock.advance(TimeUnit.MINUTES.toMillis(30));
+		assertEquals(1, tracker.expire());
+		assertEquals(0, tracker.getCount());
+	}
+
+	@Test
+	public void testRemove()
+	{
+		UUID uuid = add();
+		assertTrue(tracker.remove(uuid));
+		assertFalse(tracker.remove(uuid));
+		assertEquals(0, tracker.getCount());
+
+		clock.advance(TIMEOUT.toMillis());
+		assertEquals(0, tracker.expire());
+		assertEquals(1, tracker.drainRemoved().size());
+	}
+
+	@Test
+	public void testDrainDirty()
+	{
+		UUID uuid = add();
+		add();
+		assertEquals(2, tracker.drainDirty().size());
+		assertEquals(0, tracker.drainDirty().size());
+
+		tracker.ping(uuid);
+		List<SessionEntry> dirty = tracker.drainDirty();
+		assertEquals(1, dirty.size());
+		assertEquals(uuid, dirty.get(0).getUuid());
+	}
+
+	@Test
+	public void testMarkDirty()
+	{
+		UUID uuid = add();
+		List<SessionEntry> dirty = tracker.drainDirty();
+		assertEquals(1, dirty.size());
+
+		// a failed persist puts them back
+		tracker.markDirty(dirty);
+		dirty = tracker.drainDirty();
+		assertEquals(1, dirty.size());
+		assertEquals(uuid, dirty.get(0).getUuid());
+
+		// unless they have been removed since
+		tracker.remove(uuid);
+		tracker.markDirty(dirty);
+		assertEquals(0, tracker.drainDirty().size());
+	}
+
+	@Test
+	public void testMarkRemoved()
+	{
+		UUID uuid = add();
+		UUID readded = add();
+		tracker.remove(uuid);
+		tracker.remove(readded);
+		List<UUID> removed = tracker.drainRemoved();
+		assertEquals(2, removed.size());
+
+		// a session added again since is not removed again
+		SessionEntry sessionEntry = new SessionEntry();
+		sessionEntry.setUuid(readded);
+		assertTrue(tracker.add(sessionEntry));
+
+		tracker.markRemoved(removed);
+		removed = tracker.drainRemoved();
+		assertEquals(1, removed.size());
+		assertEquals(uuid, removed.get(0));
+	}
+
+	@Test
+	public void testConcurrentPings() throws Exception
+	{
+		final int sessions = 100_000;
+		final int threads = 8;
+		final int rounds = 5;
+
+		UUID[] uuids = new UUID[sessions];
+		for (int i = 0; i < sessions; ++i)
+		{
+			uuids[i] = add();
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			for (int round = 0; round < rounds; ++round)
+			{
+				clock.advance(60_000);
+
+				// the first half of the sessions stop pinging after the first round
+				int from = round == 0 ? 0 : sessions / 2;
+				List<Future<?>> futures = new ArrayList<>();
+				for (int t = 0; t < threads; ++t)
+				{
+					final int thread = t;
+					futures.add(executor.submit(() ->
+					{
+						for (int i = from + thread; i < sessions; i += threads)
+						{
+							assertTrue(tracker.ping(uuids[i]));
+						}
+					}));
+				}
+
+				// sweep while pings are in flight
+				tracker.expire();
+
+				for (Future<?> future : futures)
+				{
+					future.get();
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		tracker.expire();
+
+		assertEquals(sessions / 2, tracker.getCount());
+		assertNull(tracker.get(uuids[0]));
+		assertNotNull(tracker.get(uuids[sessions - 1]));
+		assertEquals(sessions / 2, tracker.drainRemoved().size());
+	}
+
+	private UUID add()
+	{
+		UUID uuid = UUID.randomUUID();
+		Instant now = clock.instant();
+		SessionEntry sessionEntry = new SessionEntry();
+		sessionEntry.setUuid(uuid);
+		sessionEntry.setIp("127.0.0.1");
+		sessionEntry.setStart(now);
+		sessionEntry.setLast(now);
+		assertTrue(tracker.add(sessionEntry));
+		return uuid;
+	}
+
+	private static class MutableClock extends Clock
+	{
+		private final AtomicLong millis;
+
+		MutableClock(long millis)
+		{
+			this.millis = new AtomicLong(millis);
+		}
+
+		void advance(long delta)
+		{
+			millis.addAndGet(delta);
+		}
+
+		@Override
+		public ZoneId getZone()
+		{
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant()
+		{
+			return Instant.ofEpochMilli(millis.get());
+		}
+
+		@Override
+		public long millis()
+		{
+			return millis.get();
+		}
+	}
+}
@@ -26,7 +26,9 @@ package net.runelite.http.service.worlds;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import net.runelite.http.api.worlds.World;
+import net.runelite.http.api.worlds.WorldDelta;
 import net.runelite.http.api.worlds.WorldResult;
 import net.runelite.http.api.worlds.WorldType;
 import okhttp3.mockwebserver.MockResponse;
@@ -34,10 +36,14 @@ import okhttp3.mockwebserver.MockWebServer;
 import okio.Buffer;
 import org.junit.After;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.sql2o.tools.IOUtils;
 
 public class WorldsServiceTest
@@ -45,11 +51,13 @@ public class WorldsServiceTest
 
 	private final MockWebServer server = new MockWebServer();
 
+	private byte[] worldData;
+
 	@Before
 	public void before() throws IOException
 	{
 		InputStream in = WorldsServiceTest.class.getResourceAsStream("worldlist");
-		byte[] worldData = IOUtils.toByteArray(in);
+		worldData = IOUtils.toByteArray(in);
 
 		Buffer buffer = new Buffer();
 		buffer.write(worldData);
@@ -71,7 +79,7 @@ public class WorldsServiceTest
 		WorldsService worlds = new WorldsService();
 		worlds.setUrl(server.url("/"));
 
-		WorldResult worldResult = worlds.listWorlds();
+		WorldResult worldResult = worlds.getWorlds();
 		assertEquals(82, worldResult.getWorlds().size());
 
 		World world = worldResult.findWorld(385);
@@ -79,4 +87,82 @@ public class WorldsServiceTest
 		assertTrue(world.getTypes().contains(WorldType.SKILL_TOTAL));
 	}
 
+	@Test
+	public void testDelta() throws Exception
+	{
+		WorldsService worlds = new WorldsService();
+		worlds.setUrl(server.url("/"));
+
+		WorldResult worldResult = worlds.getWorlds();
+		World first = worldResult.getWorlds().get(0);
+
+		// change the player count of the first world
+		byte[] changed = worldData.clone();
+		int offset = 4 + 2 + 2 + 4; // length, count, id, types
+		offset = skipString(changed, offset); // address
+		offset = skipString(changed, offset); // activity
+		offset++; // location
+		ByteBuffer.wrap(changed, offset, 2).putShort((short) (first.getPlayers() + 1));
+
+		Buffer buffer = new Buffer();
+		buffer.write(changed);
+		server.enqueue(new MockResponse().setBody(buffer));
+
+		worlds.refresh();
+
+		WorldDelta delta = worlds.delta(worldResult.getVersion());
+		assertEquals(worlds.getWorlds().getVersion(), delta.getVersion());
+		assertNotEquals(worldResult.getVersion(), delta.getVersion());
+		assertNull(delta.getWorlds());
+		assertEquals(1, delta.getPlayers().size());
+		assertEquals(first.getPlayers() + 1, (int) delta.getPlayers().get(first.getId()));
+
+		assertTrue(worlds.delta(delta.getVersion()).getPlayers().isEmpty());
+	}
+
+	@Test
+	public void testDeltaUnknownVersion() throws Exception
+	{
+		WorldsService worlds = new WorldsService();
+		worlds.setUrl(server.url("/"));
+
+		WorldResult worldResult = worlds.getWorlds();
+		WorldDelta delta = worlds.delta(worldResult.getVersion() + 1);
+		assertEquals(worldResult.getVersion(), delta.getVersion());
+		assertNull(delta.getPlayers());
+		assertEquals(worldResult.getWorlds(), delta.getWorlds());
+	}
+
+	@Test
+	public void testVersionFromContent() throws Exception
+	{
+		Buffer buffer = new Buffer();
+		buffer.write(worldData);
+		server.enqueue(new MockResponse().setBody(buffer));
+
+		// a restarted service gives the same world list the same version and tag
+		WorldsService worlds = new WorldsService();
+		worlds.setUrl(server.url("/"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		worlds.listWorlds(new MockHttpServletRequest("GET", "/worlds"), response);
+
+		WorldsService restarted = new WorldsService();
+		restarted.setUrl(server.url("/"));
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/worlds");
+		request.addHeader("If-None-Match", response.getHeader("ETag"));
+		MockHttpServletResponse notModified = new MockHttpServletResponse();
+		restarted.listWorlds(request, notModified);
+
+		assertEquals(worlds.getWorlds().getVersion(), restarted.getWorlds().getVersion());
+		assertEquals(304, notModified.getStatus());
+	}
+
+	private static int skipString(byte[] b, int offset)
+	{
+		while (b[offset] != 0)
+		{
+			++offset;
+		}
+		return offset + 1;
+	}
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.ws;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import net.runelite.http.api.ws.messages.LoginResponse;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SessionManagerTest
+{
+	private final List<Session> sessions = new ArrayList<>();
+	private final AtomicInteger sent = new AtomicInteger();
+
+	/**
+	 * handlers of sends which have not completed
+	 */
+	private final List<SendHandler> incomplete = new ArrayList<>();
+
+	@After
+	public void after()
+	{
+		for (Session session : sessions)
+		{
+			SessionManager.remove(session);
+		}
+		assertEquals(0, SessionManager.getCount());
+	}
+
+	@Test
+	public void testIndexes()
+	{
+		UUID uuid = UUID.randomUUID();
+		Session session = createSession(true);
+		WSSession wssession = SessionManager.add(null, session);
+
+		SessionManager.setUuid(wssession, uuid);
+		SessionManager.setAccount(wssession, "user@example.com");
+
+		assertSame(wssession, SessionManager.findSession(uuid));
+		assertTrue(SessionManager.findSessions("user@example.com").contains(wssession));
+
+		SessionManager.remove(session);
+
+		assertNull(SessionManager.findSession(uuid));
+		assertTrue(SessionManager.findSessions("user@example.com").isEmpty());
+	}
+
+	@Test
+	public void testSlowConsumer()
+	{
+		Session slow = createSession(false);
+		Session fast = createSession(true);
+		SessionManager.add(null, slow);
+		SessionManager.add(null, fast);
+
+		int total = 0;
+		for (int i = 0; i < WSSession.MAX_PENDING_SENDS * 2; ++i)
+		{
+			total += SessionManager.broadcast(new LoginResponse());
+		}
+
+		// the slow session stops receiving once its queue is full
+		assertEquals(WSSession.MAX_PENDING_SENDS * 3, total);
+		// and only ever has one send in flight
+		assertEquals(WSSession.MAX_PENDING_SENDS * 2 + 1, sent.get());
+	}
+
+	@Test
+	public void testQueueDrained()
+	{
+		Session session = createSession(false);
+		WSSession wssession = SessionManager.add(null, session);
+
+		assertTrue(wssession.send("1"));
+		assertTrue(wssession.send("2"));
+		assertTrue(wssession.send("3"));
+		assertEquals(1, sent.get());
+
+		// each completed send starts the next
+		incomplete.remove(0).onResult(new SendResult());
+		assertEquals(2, sent.get());
+		incomplete.remove(0).onResult(new SendResult());
+		incomplete.remove(0).onResult(new SendResult());
+		assertEquals(3, sent.get());
+		assertTrue(incomplete.isEmpty());
+
+		// with nothing in flight the next message is sent straight away
+		assertTrue(wssession.send("4"));
+		assertEquals(4, sent.get());
+	}
+
+	@Test
+	public void testLoad() throws Exception
+	{
+		final int count = 20_000;
+		final int threads = 8;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			Session[] socks = new Session[count];
+			UUID[] uuids = new UUID[count];
+			for (int i = 0; i < count; ++i)
+			{
+				socks[i] = createSession(true);
+				uuids[i] = UUID.randomUUID();
+			}
+
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; ++t)
+			{
+				final int thread = t;
+				futures.add(executor.submit(() ->
+				{
+					for (int i = thread; i < count; i += threads)
+					{
+						WSSession wssession = SessionManager.add(null, socks[i]);
+						SessionManager.setUuid(wssession, uuids[i]);
+						SessionManager.setAccount(wssession, "account" + (i % 1000));
+					}
+				}));
+			}
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+
+			futures.clear();
+			for (int t = 0; t < threads; ++t)
+			{
+				final int thread = t;
+				futures.add(executor.submit(() ->
+				{
+					for (int i = thread; i < count; i += threads)
+					{
+						assertSame(socks[i], SessionManager.findSession(uuids[i]).getSession());
+					}
+				}));
+			}
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+
+			assertEquals(count, SessionManager.broadcast(new LoginResponse()));
+			assertEquals(count / 1000, SessionManager.broadcast("account0", new LoginResponse()));
+			assertEquals(count + count / 1000, sent.get());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private Session createSession(boolean complete)
+	{
+		// like the container, refuse a send while the previous one is in flight
+		AtomicBoolean sending = new AtomicBoolean();
+		RemoteEndpoint.Async async = mock(RemoteEndpoint.Async.class);
+		doAnswer(invocation ->
+		{
+			if (!sending.compareAndSet(false, true))
+			{
+				throw new IllegalStateException("The remote endpoint was in state [TEXT_FULL_WRITING]");
+			}
+
+			sent.incrementAndGet();
+			SendHandler handler = (SendHandler) invocation.getArguments()[1];
+			SendHandler completion = result ->
+			{
+				sending.set(false);
+				handler.onResult(result);
+			};
+
+			if (complete)
+			{
+				completion.onResult(new SendResult());
+			}
+			else
+			{
+				incomplete.add(completion);
+			}
+			return null;
+		}).when(async).sendText(anyString(), any(SendHandler.class));
+
+		Session session = mock(Session.class);
+		when(session.getAsyncRemote()).thenReturn(async);
+		sessions.add(session);
+		return session;
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.xp;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import net.runelite.http.api.hiscore.HiscoreResult;
+import net.runelite.http.api.hiscore.Skill;
+import net.runelite.http.api.xp.XpData;
+import net.runelite.http.service.hiscore.HiscoreResultBuilder;
+import net.runelite.http.service.xp.beans.PlayerEntity;
+import net.runelite.http.service.xp.beans.XpEntity;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.stubbing.Answer;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
+
+public class XpTrackerServiceTest
+{
+	private static final Answer<Object> RETURNS_SELF = i ->
+		i.getMethod().getReturnType() == Query.class ? i.getMock() : RETURNS_DEFAULTS.answer(i);
+
+	private final Query insertXp = mock(Query.class, RETURNS_SELF);
+	private final Query insertRollup = mock(Query.class, RETURNS_SELF);
+	private Connection con;
+	private XpTrackerService xpTrackerService;
+
+	@Before
+	public void before()
+	{
+		PlayerEntity player = new PlayerEntity();
+		player.setId(1);
+		Query findPlayer = mock(Query.class, RETURNS_SELF);
+		when(findPlayer.executeAndFetchFirst(PlayerEntity.class)).thenReturn(player);
+
+		// a previous snapshot, so each update is rolled up
+		Query findXp = mock(Query.class, RETURNS_SELF);
+		when(findXp.executeAndFetchFirst(XpEntity.class)).thenReturn(new XpEntity());
+
+		con = mock(Connection.class);
+		when(con.createQuery(anyString())).thenAnswer(i ->
+		{
+			String sql = (String) i.getArguments()[0];
+			if (sql.startsWith("select * from player"))
+			{
+				return findPlayer;
+			}
+			if (sql.startsWith("select * from xp"))
+			{
+				return findXp;
+			}
+			if (sql.startsWith("insert into xp ("))
+			{
+				return insertXp;
+			}
+			if (sql.startsWith("insert into xp_"))
+			{
+				return insertRollup;
+			}
+			return mock(Query.class, RETURNS_SELF);
+		});
+
+		Sql2o sql2o = mock(Sql2o.class);
+		when(sql2o.open()).thenReturn(con);
+		when(sql2o.beginTransaction()).thenReturn(con);
+
+		xpTrackerService = new XpTrackerService(sql2o, null);
+	}
+
+	@Test
+	public void testFailedRollupKeepsSnapshots()
+	{
+		when(insertRollup.executeBatch()).thenThrow(new Sql2oException("Table 'xp_hourly' doesn't exist"));
+
+		xpTrackerService.update("player", hiscoreResult(1000));
+		xpTrackerService.flush();
+
+		// the snapshot is committed before the rollup is attempted
+		verify(insertXp, times(1)).executeBatch();
+		verify(insertRollup, times(1)).executeBatch();
+		verify(con, times(1)).commit();
+	}
+	@Test
+	public void testGains()
+	{
+		XpData previous = new XpData();
+		previous.setAttack_xp(1000);
+		previous.setAgility_xp(-1);
+		previous.setConstruction_xp(500);
+		previous.setHunter_xp(800);
+
+		XpData current = new XpData();
+		current.setAttack_xp(1500);
+		current.setAgility_xp(2000);
+		current.setConstruction_xp(500);
+		current.setHunter_xp(-1);
+
+		int[] gains = XpTrackerService.gains(previous, current);
+		assertEquals(500, gains[0]); // attack
+		assertEquals(0, gains[16]); // agility, unranked before
+		assertEquals(0, gains[22]); // construction
+		assertEquals(0, gains[21]); // hunter, unranked now
+	}
+
+	@Test
+	public void testResolutionForRange()
+	{
+		Instant end = Instant.parse("2018-03-10T12:34:56Z");
+
+		assertEquals(XpResolution.HOUR, XpResolution.forRange(end.minus(1, ChronoUnit.DAYS), end));
+		assertEquals(XpResolution.DAY, XpResolution.forRange(end.minus(7, ChronoUnit.DAYS), end));
+		assertEquals(Instant.parse("2018-03-10T12:00:00Z"), XpResolution.HOUR.truncate(end));
+		assertEquals(Instant.parse("2018-03-10T00:00:00Z"), XpResolution.DAY.truncate(end));
+	}
+
+	@Test
+	public void testFailedFlushRetried()
+	{
+		when(insertXp.executeBatch())
+			.thenThrow(new Sql2oException("Lock wait timeout exceeded"))
+			.thenReturn(con);
+
+		xpTrackerService.update("player", hiscoreResult(1000));
+		xpTrackerService.flush();
+		verify(con, times(0)).commit();
+
+		// the failed batch is written by the next flush
+		xpTrackerService.flush();
+		verify(insertXp, times(2)).executeBatch();
+		verify(con, times(2)).commit();
+	}
+
+	@Test
+	public void testFailedFlushDropped()
+	{
+		when(insertXp.executeBatch()).thenThrow(new Sql2oException("Data too long for column 'name'"));
+
+		xpTrackerService.update("player", hiscoreResult(1000));
+		for (int i = 0; i < 10; ++i)
+		{
+			xpTrackerService.flush();
+		}
+
+		// the batch is given up on rather than retried forever
+		verify(insertXp, times(5)).executeBatch();
+	}
+
+	@Test
+	public void testShutdownFlushes()
+	{
+		for (int i = 0; i < 1000; ++i)
+		{
+			xpTrackerService.update("player" + i, hiscoreResult(1000 + i));
+		}
+		xpTrackerService.shutdown();
+
+		// more than a batch is queued, so it takes more than one flush
+		verify(insertXp, times(2)).executeBatch();
+	}
+
+	private static HiscoreResult hiscoreResult(int xp)
+	{
+		HiscoreResultBuilder builder = new HiscoreResultBuilder();
+		for (int i = 0; i < 33; ++i)
+		{
+			builder.setNextSkill(new Skill(1, 1, xp));
+		}
+		return builder.build();
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.xtea;
+
+import java.util.Random;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.jagex.CompressionType;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class XteaServiceTest
+{
+	private static final int[] KEYS = new int[]
+	{
+		0x4a2b9c11, 0x7f3e0d22, 0x1c5a8e33, 0x6d9f2a44
+	};
+
+	private static final int[] WRONG_KEYS = new int[]
+	{
+		0x4a2b9c11, 0x7f3e0d22, 0x1c5a8e33, 0x6d9f2a45
+	};
+
+	@Test
+	public void testCheckKeysGzip() throws Exception
+	{
+		byte[] container = createContainer(CompressionType.GZ);
+
+		assertTrue(XteaService.checkKeys(container, KEYS));
+		assertFalse(XteaService.checkKeys(container, WRONG_KEYS));
+	}
+
+	@Test
+	public void testCheckKeysBzip2() throws Exception
+	{
+		byte[] container = createContainer(CompressionType.BZ2);
+
+		assertTrue(XteaService.checkKeys(container, KEYS));
+		assertFalse(XteaService.checkKeys(container, WRONG_KEYS));
+	}
+
+	@Test
+	public void testCheckKeysHeaderOnly() throws Exception
+	{
+		byte[] container = createContainer(CompressionType.GZ);
+		byte[] header = new byte[13];
+		System.arraycopy(container, 0, header, 0, header.length);
+
+		assertTrue(XteaService.checkKeys(header, KEYS));
+		assertFalse(XteaService.checkKeys(header, WRONG_KEYS));
+	}
+
+	private static byte[] createContainer(int compression) throws Exception
+	{
+		byte[] data = new byte[1024];
+		new Random(42).nextBytes(data);
+
+		Container container = new Container(compression, -1);
+		container.compress(data, KEYS);
+		return container.data;
+	}
+}
@@ -28,6 +28,7 @@ public enum InventoryID
 {
 	INVENTORY(93),
 	EQUIPMENT(94),
+	BANK(95),
 	PUZZLE_BOX(140);
 
 	private final int id;
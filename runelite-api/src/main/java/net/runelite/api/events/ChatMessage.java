@@ -26,10 +26,12 @@ package net.runelite.api.events;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import net.runelite.api.ChatMessageType;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class ChatMessage
 {
 	private ChatMessageType type;
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.callback;
+
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.client.eventbus.EventDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares posting a freshly allocated menu entry event with reusing one.
+ * The gc profiler shows the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReusableEventBenchmark
+{
+	private final EventDispatcher eventBus = new EventDispatcher();
+	private final ReusableEvent<MenuEntryAdded> menuEntryAdded = new ReusableEvent<>(MenuEntryAdded::new, null);
+
+	public static class Subscriber
+	{
+		private final Blackhole blackhole;
+
+		Subscriber(Blackhole blackhole)
+		{
+			this.blackhole = blackhole;
+		}
+
+		@com.google.common.eventbus.Subscribe
+		public void onMenuEntryAdded(MenuEntryAdded event)
+		{
+			blackhole.consume(event.getIdentifier());
+		}
+	}
+
+	@Setup
+	public void setup(Blackhole blackhole)
+	{
+		for (int i = 0; i < 20; ++i)
+		{
+			eventBus.register(new Subscriber(blackhole));
+		}
+	}
+
+	@Benchmark
+	public void allocate()
+	{
+		MenuEntryAdded event = new MenuEntryAdded();
+		event.setOption("Attack");
+		event.setIdentifier(1);
+		eventBus.post(event);
+	}
+
+	@Benchmark
+	public void reuse()
+	{
+		MenuEntryAdded event = menuEntryAdded.acquire(eventBus);
+		event.setOption("Attack");
+		event.setIdentifier(1);
+		menuEntryAdded.post(eventBus, event);
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.chat;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.Setter;
+import net.runelite.api.ChatLineBuffer;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.MessageNode;
+import net.runelite.api.Varbits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Recolors a full chat history, 100 lines in each of the public, private,
+ * clan chat and game buffers, after the chatbox transparency changes and
+ * when nothing changed. The legacy benchmark is the previous stream and
+ * replaceAll implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMessageManagerBenchmark
+{
+	private static final int LINES = 100;
+	private static final ChatMessageType[] TYPES =
+	{
+		ChatMessageType.PUBLIC, ChatMessageType.PRIVATE_MESSAGE_RECEIVED, ChatMessageType.PRIVATE_MESSAGE_SENT,
+		ChatMessageType.CLANCHAT, ChatMessageType.GAME
+	};
+
+	@Getter
+	@Setter
+	static class Line implements MessageNode
+	{
+		private ChatMessageType type;
+		private String name;
+		private String sender;
+		private String value;
+		private String runeLiteFormatMessage;
+	}
+
+	private final Map<Integer, ChatLineBuffer> chatLineMap = new HashMap<>();
+	private final Map<ChatMessageType, Set<ChatColor>> legacyColors = new HashMap<>();
+	private ChatMessageManager chatMessageManager;
+	private boolean transparent;
+
+	@Setup
+	public void setup()
+	{
+		for (ChatMessageType type : TYPES)
+		{
+			MessageNode[] lines = new MessageNode[LINES];
+			for (int i = 0; i < LINES; ++i)
+			{
+				Line line = new Line();
+				line.setType(type);
+				line.setRuneLiteFormatMessage(new ChatMessageBuilder()
+					.append(ChatColorType.NORMAL)
+					.append("Message ")
+					.append(ChatColorType.HIGHLIGHT)
+					.append(String.valueOf(i % 40))
+					.append(ChatColorType.NORMAL)
+					.append(" of the chat history")
+					.build());
+				lines[i] = line;
+			}
+
+			ChatLineBuffer buffer = mock(ChatLineBuffer.class);
+			when(buffer.getLines()).thenReturn(lines);
+			chatLineMap.put(type.getType(), buffer);
+		}
+
+		Client client = mock(Client.class);
+		when(client.getChatLineMap()).thenReturn(chatLineMap);
+		when(client.isResized()).thenReturn(true);
+		when(client.getSetting(Varbits.TRANSPARANT_CHATBOX)).thenAnswer(invocation -> transparent ? 1 : 0);
+
+		chatMessageManager = new ChatMessageManager(() -> client, mock(ScheduledExecutorService.class));
+
+		for (ChatMessageType[] types : Arrays.asList(
+			new ChatMessageType[]
+			{
+				ChatMessageType.PUBLIC
+			},
+			new ChatMessageType[]
+			{
+				ChatMessageType.PRIVATE_MESSAGE_SENT, ChatMessageType.PRIVATE_MESSAGE_RECEIVED
+			},
+			new ChatMessageType[]
+			{
+				ChatMessageType.CLANCHAT
+			}))
+		{
+			for (ChatColor chatColor : Arrays.asList(
+				new ChatColor(ChatColorType.NORMAL, Color.BLACK, false),
+				new ChatColor(ChatColorType.HIGHLIGHT, Color.RED, false),
+				new ChatColor(ChatColorType.NORMAL, Color.WHITE, true),
+				new ChatColor(ChatColorType.HIGHLIGHT, Color.ORANGE, true)))
+			{
+				chatMessageManager.cacheColor(chatColor, types);
+				for (ChatMessageType type : types)
+				{
+					legacyColors.computeIfAbsent(type, k -> new HashSet<>()).add(chatColor);
+				}
+			}
+		}
+
+		chatMessageManager.refresh();
+	}
+
+	@Benchmark
+	public void refreshTransparencyChange()
+	{
+		transparent = !transparent;
+		chatMessageManager.refresh();
+	}
+
+	@Benchmark
+	public void refreshUnchanged()
+	{
+		chatMessageManager.refresh();
+	}
+
+	@Benchmark
+	public void legacyRefreshTransparencyChange()
+	{
+		transparent = !transparent;
+
+		chatLineMap.values().stream()
+			.flatMap(clb -> Arrays.stream(clb.getLines()))
+			.forEach(line ->
+			{
+				Set<ChatColor> chatColors = legacyColors.get(line.getType());
+				if (chatColors == null || chatColors.isEmpty())
+				{
+					line.setValue(line.getRuneLiteFormatMessage());
+					return;
+				}
+
+				AtomicReference<String> resultMessage = new AtomicReference<>(line.getRuneLiteFormatMessage());
+				chatColors.stream()
+					.filter(chatColor -> chatColor.isTransparent() == transparent)
+					.collect(Collectors.toList())
+					.forEach(chatColor ->
+						resultMessage.getAndUpdate(oldMessage -> oldMessage.replaceAll(
+							"<col" + chatColor.getType().name() + ">",
+							"<col=" + Integer.toHexString(chatColor.getColor().getRGB() & 0xFFFFFF) + ">")));
+				line.setValue(resultMessage.get());
+			});
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.config;
+
+import com.google.common.eventbus.EventBus;
+import java.awt.Color;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import static org.mockito.Mockito.mock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures config getter latency. The lookup benchmarks repeat what every
+ * getter call did before values were cached: a properties lookup and
+ * conversion, or a call to the default method.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigBenchmark
+{
+	@ConfigGroup(
+		keyName = "benchmark",
+		name = "Benchmark",
+		description = "Benchmark"
+	)
+	public interface BenchmarkConfig
+	{
+		@ConfigItem(
+			keyName = "color",
+			name = "Color",
+			description = ""
+		)
+		default Color color()
+		{
+			return Color.RED;
+		}
+
+		@ConfigItem(
+			keyName = "width",
+			name = "Width",
+			description = ""
+		)
+		default int width()
+		{
+			return 4;
+		}
+	}
+
+	private ConfigManager manager;
+	private BenchmarkConfig config;
+
+	@Setup
+	public void setup()
+	{
+		manager = new ConfigManager();
+		manager.eventBus = new EventBus();
+		manager.executor = mock(ScheduledExecutorService.class);
+		manager.setConfiguration("benchmark", "color", "#00ff00");
+
+		config = manager.getConfig(BenchmarkConfig.class);
+	}
+
+	@Benchmark
+	public Color cachedColor()
+	{
+		return config.color();
+	}
+
+	@Benchmark
+	public int cachedDefault()
+	{
+		return config.width();
+	}
+
+	@Benchmark
+	public Object lookupColor()
+	{
+		return ConfigManager.stringToObject(manager.getConfiguration("benchmark", "color"), Color.class);
+	}
+
+	@Benchmark
+	public Object lookupDefault() throws Throwable
+	{
+		if (manager.getConfiguration("benchmark", "width") == null)
+		{
+			return ConfigInvocationHandler.callDefaultMethod(config, BenchmarkConfig.class.getMethod("width"), null);
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.config;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.reflect.ClassPath;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import net.runelite.http.api.config.ConfigClient;
+import static org.mockito.Mockito.mock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sets the defaults of every plugin config, as happens at startup, and
+ * then saves. With saveEach the settings are saved and sent after every
+ * config item, as they were before changes were collected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigDefaultingBenchmark
+{
+	@Param({"false", "true"})
+	private boolean saveEach;
+
+	private ConfigManager manager;
+	private List<Object> configs;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		final File directory = Files.createTempDirectory("config").toFile();
+
+		manager = new ConfigManager();
+		manager.eventBus = new EventBus();
+		manager.executor = mock(ScheduledExecutorService.class);
+		manager.client = mock(ConfigClient.class);
+		manager.propertiesFile = new File(directory, "settings.properties");
+
+		configs = ClassPath.from(getClass().getClassLoader())
+			.getTopLevelClassesRecursive("net.runelite.client.plugins")
+			.stream()
+			.map(ClassPath.ClassInfo::load)
+			.filter(clazz -> clazz.isInterface() && clazz.isAnnotationPresent(ConfigGroup.class))
+			.map(manager::getConfig)
+			.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public void setDefaults() throws Throwable
+	{
+		for (Object config : configs)
+		{
+			if (!saveEach)
+			{
+				manager.setDefaultConfiguration(config, true);
+				continue;
+			}
+
+			final Class<?> clazz = config.getClass().getInterfaces()[0];
+			final ConfigGroup group = clazz.getAnnotation(ConfigGroup.class);
+
+			for (java.lang.reflect.Method method : clazz.getDeclaredMethods())
+			{
+				final ConfigItem item = method.getAnnotation(ConfigItem.class);
+
+				if (item != null && method.isDefault())
+				{
+					final Object value = ConfigInvocationHandler.callDefaultMethod(config, method, null);
+					manager.setConfiguration(group.keyName(), item.keyName(), ConfigManager.objectToString(value));
+					manager.sendConfig();
+				}
+			}
+		}
+
+		manager.sendConfig();
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import com.google.common.eventbus.EventBus;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.api.events.VarbitChanged;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares posting through Guava's event bus with the event dispatcher,
+ * with a mix of subscribers similar to the plugins. Run with the gc
+ * profiler, which the benchmark profile enables, to compare allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBenchmark
+{
+	@Param({"guava", "dispatcher"})
+	private String implementation;
+
+	private EventBus eventBus;
+	private final GameTick gameTick = new GameTick();
+	private final MenuEntryAdded menuEntryAdded = new MenuEntryAdded("Walk here", "", 0, 0, 0, 0);
+	private final VarbitChanged varbitChanged = new VarbitChanged();
+
+	public static class TickSubscriber
+	{
+		private final Blackhole blackhole;
+
+		TickSubscriber(Blackhole blackhole)
+		{
+			this.blackhole = blackhole;
+		}
+
+		@com.google.common.eventbus.Subscribe
+		public void onGameTick(GameTick event)
+		{
+			blackhole.consume(event);
+		}
+
+		@com.google.common.eventbus.Subscribe
+		public void onMenuEntryAdded(MenuEntryAdded event)
+		{
+			blackhole.consume(event);
+		}
+	}
+
+	public static class VarbitSubscriber
+	{
+		private final Blackhole blackhole;
+
+		VarbitSubscriber(Blackhole blackhole)
+		{
+			this.blackhole = blackhole;
+		}
+
+		@com.google.common.eventbus.Subscribe
+		public void onVarbitChanged(VarbitChanged event)
+		{
+			blackhole.consume(event);
+		}
+	}
+
+	@Setup
+	public void setup(Blackhole blackhole)
+	{
+		eventBus = implementation.equals("guava") ? new EventBus() : new EventDispatcher();
+
+		for (int i = 0; i < 20; ++i)
+		{
+			eventBus.register(new TickSubscriber(blackhole));
+		}
+		for (int i = 0; i < 40; ++i)
+		{
+			eventBus.register(new VarbitSubscriber(blackhole));
+		}
+	}
+
+	@Benchmark
+	public void postGameTick()
+	{
+		eventBus.post(gameTick);
+	}
+
+	@Benchmark
+	public void postMenuEntryAdded()
+	{
+		eventBus.post(menuEntryAdded);
+	}
+
+	@Benchmark
+	public void postMixed()
+	{
+		eventBus.post(gameTick);
+		eventBus.post(menuEntryAdded);
+		eventBus.post(varbitChanged);
+	}
+}
@@ -0,0 +1,693 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.grounditems;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.geom.Area;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.Value;
+import net.runelite.api.Client;
+import net.runelite.api.DecorativeObject;
+import net.runelite.api.GameObject;
+import net.runelite.api.GroundObject;
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.ItemID;
+import net.runelite.api.ItemLayer;
+import net.runelite.api.Model;
+import net.runelite.api.Node;
+import net.runelite.api.Player;
+import net.runelite.api.Point;
+import net.runelite.api.Region;
+import net.runelite.api.Renderable;
+import net.runelite.api.SceneTileModel;
+import net.runelite.api.SceneTilePaint;
+import net.runelite.api.Tile;
+import net.runelite.api.WallObject;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ConfigChanged;
+import net.runelite.api.events.ItemLayerSpawned;
+import net.runelite.api.widgets.Widget;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.util.StackFormatter;
+import net.runelite.http.api.item.ItemPrice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Renders a frame of a loot pile heavy scene: a pile of six items on every
+ * third tile around the player, with a few of the item names hidden and
+ * the piles behind the camera offscreen. The
+ * legacy benchmark is the previous implementation, which walked the tiles
+ * around the player and built the text of every pile each frame.
+ * renderConfigChanged rebuilds the text of every pile each frame, which
+ * is the worst case for the cached text.
+ * <p>
+ * The tiles, item layers, items and the item manager are plain stubs so
+ * that the legacy walk isn't dominated by mock overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroundItemsOverlayBenchmark
+{
+	private static final int REGION_SIZE = 104;
+	private static final int PLAYER_X = 52;
+	private static final int PLAYER_Y = 52;
+	private static final int RANGE = 18;
+	private static final String HIDDEN_ITEMS = "Bones, Big bones, Ashes";
+
+	private static final Object[][] ITEMS =
+	{
+		// id, name, note, linked note id, store price, ge price
+		{ItemID.BONES, "Bones", -1, 0, 1, 100},
+		{ItemID.BIG_BONES, "Big bones", -1, 0, 1, 300},
+		{ItemID.ASHES, "Ashes", -1, 0, 2, 80},
+		{ItemID.COINS_995, "Coins", -1, 0, 1, 1},
+		{ItemID.RUNE_SCIMITAR, "Rune scimitar", -1, 0, 25600, 15000},
+		{ItemID.LOBSTER, "Lobster", -1, 0, 268, 150},
+		{ItemID.LOBSTER + 1, "Lobster", 799, ItemID.LOBSTER, 268, 150},
+		{ItemID.NATURE_RUNE, "Nature rune", -1, 0, 372, 220},
+	};
+
+	@Value
+	static class StubItemComposition implements ItemComposition
+	{
+		private final int id;
+		private final String name;
+		private final int note;
+		private final int linkedNoteId;
+		private final int price;
+		private final boolean members = false;
+		private final boolean stackable = false;
+	}
+
+	static class StubItemManager extends ItemManager
+	{
+		private final Map<Integer, ItemComposition> compositions = new HashMap<>();
+		private final Map<Integer, ItemPrice> prices = new HashMap<>();
+
+		StubItemManager()
+		{
+			super(null, null);
+		}
+
+		@Override
+		public ItemComposition getItemComposition(int itemId)
+		{
+			return compositions.get(itemId);
+		}
+
+		@Override
+		public ItemPrice getItemPriceAsync(int itemId)
+		{
+			return prices.get(itemId);
+		}
+	}
+
+	static class StubItem implements Item
+	{
+		private final int id;
+		private final int quantity;
+		private Item next;
+
+		StubItem(int id, int quantity)
+		{
+			this.id = id;
+			this.quantity = quantity;
+		}
+
+		@Override
+		public int getId()
+		{
+			return id;
+		}
+
+		@Override
+		public int getQuantity()
+		{
+			return quantity;
+		}
+
+		@Override
+		public Node getNext()
+		{
+			return next;
+		}
+
+		@Override
+		public Node getPrevious()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long getHash()
+		{
+			return 0;
+		}
+
+		@Override
+		public Model getModel()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	static class StubItemLayer implements ItemLayer
+	{
+		private final Renderable bottom;
+		private final Point canvasLocation;
+
+		StubItemLayer(Renderable bottom, Point canvasLocation)
+		{
+			this.bottom = bottom;
+			this.canvasLocation = canvasLocation;
+		}
+
+		@Override
+		public int getHeight()
+		{
+			return 0;
+		}
+
+		@Override
+		public Renderable getBottom()
+		{
+			return bottom;
+		}
+
+		@Override
+		public Renderable getMiddle()
+		{
+			return null;
+		}
+
+		@Override
+		public Renderable getTop()
+		{
+			return null;
+		}
+
+		@Override
+		public Point getCanvasLocation(int zOffset)
+		{
+			return canvasLocation;
+		}
+
+		@Override
+		public Point getCanvasLocation()
+		{
+			return canvasLocation;
+		}
+
+		@Override
+		public int getHash()
+		{
+			return 0;
+		}
+
+		@Override
+		public int getX()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getY()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getPlane()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getId()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public WorldPoint getWorldLocation()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LocalPoint getLocalLocation()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Polygon getCanvasTilePoly()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Point getCanvasTextLocation(Graphics2D graphics, String text, int zOffset)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Point getMinimapLocation()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Polygon getConvexHull(Model model, int orientation)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Area getClickbox()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	static class StubTile implements Tile
+	{
+		private final int x;
+		private final int y;
+		private ItemLayer itemLayer;
+
+		StubTile(int x, int y)
+		{
+			this.x = x;
+			this.y = y;
+		}
+
+		@Override
+		public ItemLayer getItemLayer()
+		{
+			return itemLayer;
+		}
+
+		@Override
+		public Point getRegionLocation()
+		{
+			return new Point(x, y);
+		}
+
+		@Override
+		public int getPlane()
+		{
+			return 0;
+		}
+
+		@Override
+		public DecorativeObject getDecorativeObject()
+		{
+			return null;
+		}
+
+		@Override
+		public GameObject[] getGameObjects()
+		{
+			return null;
+		}
+
+		@Override
+		public GroundObject getGroundObject()
+		{
+			return null;
+		}
+
+		@Override
+		public WallObject getWallObject()
+		{
+			return null;
+		}
+
+		@Override
+		public SceneTilePaint getSceneTilePaint()
+		{
+			return null;
+		}
+
+		@Override
+		public SceneTileModel getSceneTileModel()
+		{
+			return null;
+		}
+
+		@Override
+		public WorldPoint getWorldLocation()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public LocalPoint getLocalLocation()
+		{
+			return LocalPoint.fromRegion(x, y);
+		}
+	}
+
+	private final GroundItemsConfig config = new GroundItemsConfig()
+	{
+		@Override
+		public String getHiddenItems()
+		{
+			return HIDDEN_ITEMS;
+		}
+	};
+
+	private Client client;
+	private final StubItemManager itemManager = new StubItemManager();
+	private GroundItemsPlugin plugin;
+	private GroundItemsOverlay overlay;
+	private ConfigChanged configChanged;
+	private BufferedImage image;
+	private Graphics2D graphics;
+
+	@Setup
+	public void setup() throws Exception
+	{
+		Tile[][][] tiles = new Tile[4][REGION_SIZE][REGION_SIZE];
+		for (int x = 0; x < REGION_SIZE; ++x)
+		{
+			for (int y = 0; y < REGION_SIZE; ++y)
+			{
+				tiles[0][x][y] = new StubTile(x, y);
+			}
+		}
+
+		Region region = mock(Region.class, withSettings().stubOnly());
+		when(region.getTiles()).thenReturn(tiles);
+
+		Player player = mock(Player.class, withSettings().stubOnly());
+		when(player.getLocalLocation()).thenReturn(LocalPoint.fromRegion(PLAYER_X, PLAYER_Y));
+
+		client = mock(Client.class, withSettings().stubOnly());
+		when(client.getRegion()).thenReturn(region);
+		when(client.getLocalPlayer()).thenReturn(player);
+		when(client.getViewportWidget()).thenReturn(mock(Widget.class));
+		when(client.getPlane()).thenReturn(0);
+
+		for (Object[] item : ITEMS)
+		{
+			int itemId = (int) item[0];
+			ItemComposition composition = new StubItemComposition(itemId, (String) item[1], (int) item[2], (int) item[3], (int) item[4]);
+			itemManager.compositions.put(itemId, composition);
+
+			ItemPrice itemPrice = new ItemPrice();
+			itemPrice.setPrice((int) item[5]);
+			itemManager.prices.put(itemId, itemPrice);
+		}
+
+		Injector injector = Guice.createInjector(binder ->
+		{
+			binder.bind(Client.class).toInstance(client);
+			binder.bind(GroundItemsConfig.class).toInstance(config);
+			binder.bind(ItemManager.class).toInstance(itemManager);
+		});
+		plugin = injector.getInstance(GroundItemsPlugin.class);
+		overlay = new GroundItemsOverlay(client, config, plugin);
+		injector.injectMembers(overlay);
+		plugin.startUp();
+
+		int pile = 0;
+		for (int x = PLAYER_X - RANGE; x <= PLAYER_X + RANGE; ++x)
+		{
+			for (int y = PLAYER_Y - RANGE; y <= PLAYER_Y + RANGE; ++y)
+			{
+				if ((x + y) % 3 != 0)
+				{
+					continue;
+				}
+
+				StubItem bottom = null;
+				StubItem top = null;
+				for (int i = 0; i < 6; ++i)
+				{
+					Object[] item = ITEMS[(pile + i) % ITEMS.length];
+					StubItem stub = new StubItem((int) item[0], 1 + (pile * 7 + i) % 20);
+					if (top == null)
+					{
+						bottom = stub;
+					}
+					else
+					{
+						top.next = stub;
+					}
+					top = stub;
+				}
+				++pile;
+
+				StubTile tile = (StubTile) tiles[0][x][y];
+				// the piles behind the camera are offscreen
+				Point point = y < PLAYER_Y ? null : new Point((x - PLAYER_X + RANGE) * 20, 30 + (y - PLAYER_Y) * 24);
+				tile.itemLayer = new StubItemLayer(bottom, point);
+
+				ItemLayerSpawned spawned = new ItemLayerSpawned();
+				spawned.setTile(tile);
+				spawned.setItemLayer(tile.itemLayer);
+				plugin.onItemLayerSpawned(spawned);
+			}
+		}
+
+		configChanged = new ConfigChanged();
+		configChanged.setGroup("grounditems");
+		configChanged.setKey("hiddenItems");
+
+		image = new BufferedImage(765, 503, BufferedImage.TYPE_INT_RGB);
+		graphics = image.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		graphics.dispose();
+	}
+
+	@Benchmark
+	public void render()
+	{
+		overlay.render(graphics, null);
+	}
+
+	@Benchmark
+	public void renderConfigChanged()
+	{
+		plugin.onConfigChanged(configChanged);
+		overlay.render(graphics, null);
+	}
+
+	@Benchmark
+	public void legacyRender()
+	{
+		String configItems = config.getHiddenItems().toLowerCase();
+		List<String> hiddenItems = Arrays.asList(configItems.split("\\s*,\\s*"));
+		configItems = config.getHighlightItems().toLowerCase();
+		List<String> highlightedItems = Arrays.asList(configItems.split("\\s*,\\s*"));
+
+		Tile[][][] tiles = client.getRegion().getTiles();
+		FontMetrics fm = graphics.getFontMetrics();
+
+		Player player = client.getLocalPlayer();
+		if (player == null || client.getViewportWidget() == null)
+		{
+			return;
+		}
+
+		graphics.setFont(FontManager.getRunescapeSmallFont());
+
+		int z = client.getPlane();
+		LocalPoint from = player.getLocalLocation();
+
+		int lowerX = Math.max(0, from.getRegionX() - RANGE);
+		int lowerY = Math.max(0, from.getRegionY() - RANGE);
+		int upperX = Math.min(from.getRegionX() + RANGE, REGION_SIZE - 1);
+		int upperY = Math.min(from.getRegionY() + RANGE, REGION_SIZE - 1);
+
+		StringBuilder itemStringBuilder = new StringBuilder();
+
+		for (int x = lowerX; x <= upperX; ++x)
+		{
+			for (int y = lowerY; y <= upperY; ++y)
+			{
+				Tile tile = tiles[z][x][y];
+				if (tile == null)
+				{
+					continue;
+				}
+
+				ItemLayer itemLayer = tile.getItemLayer();
+				if (itemLayer == null)
+				{
+					continue;
+				}
+
+				Node current = itemLayer.getBottom();
+				Map<Integer, Integer> items = new LinkedHashMap<>();
+				while (current instanceof Item)
+				{
+					Item item = (Item) current;
+					int itemId = item.getId();
+					int itemQuantity = item.getQuantity();
+					ItemComposition itemDefinition = itemManager.getItemComposition(itemId);
+
+					Integer currentQuantity = items.get(itemId);
+
+					String itemName = itemDefinition.getName().toLowerCase();
+					if (config.showHighlightedOnly() ? highlightedItems.contains(itemName) : !hiddenItems.contains(itemName))
+					{
+						if (itemDefinition.getNote() != -1)
+						{
+							itemId = itemDefinition.getLinkedNoteId();
+						}
+
+						int quantity = currentQuantity == null
+							? itemQuantity
+							: currentQuantity + itemQuantity;
+
+						ItemPrice itemPrice = itemManager.getItemPriceAsync(itemId);
+
+						int gePrice, alchPrice;
+						if (itemId == ItemID.COINS_995)
+						{
+							gePrice = quantity;
+							alchPrice = quantity;
+						}
+						else
+						{
+							gePrice = itemPrice == null ? 0 : itemPrice.getPrice() * quantity;
+							alchPrice = Math.round(itemDefinition.getPrice() * 0.6f) * quantity;
+						}
+						if (highlightedItems.contains(itemDefinition.getName().toLowerCase()) ||
+							gePrice == 0 || ((gePrice >= config.getHideUnderGeValue()) &&
+							(alchPrice >= config.getHideUnderHAValue())))
+						{
+							items.put(itemId, quantity);
+						}
+					}
+
+					current = current.getNext();
+				}
+
+				List<Integer> itemIds = new ArrayList<>(items.keySet());
+				Collections.reverse(itemIds);
+
+				for (int i = 0; i < itemIds.size(); ++i)
+				{
+					Point point = itemLayer.getCanvasLocation(itemLayer.getHeight() + 20);
+					if (point == null)
+					{
+						continue;
+					}
+
+					int itemId = itemIds.get(i);
+					int quantity = items.get(itemId);
+					ItemComposition item = itemManager.getItemComposition(itemId);
+					if (item == null)
+					{
+						continue;
+					}
+
+					itemStringBuilder.append(item.getName());
+					if (quantity > 1)
+					{
+						itemStringBuilder.append(" (").append(quantity).append(")");
+					}
+
+					if (item.getNote() != -1)
+					{
+						itemId = item.getLinkedNoteId();
+					}
+
+					Color textColor = config.defaultColor();
+					ItemPrice itemPrice = itemManager.getItemPriceAsync(itemId);
+					if (itemPrice != null && config.showGEPrice())
+					{
+						int cost = itemPrice.getPrice() * quantity;
+						if (cost >= 20_000)
+						{
+							textColor = config.lowValueColor();
+						}
+
+						itemStringBuilder.append(" (EX: ")
+							.append(StackFormatter.quantityToStackSize(cost))
+							.append(" gp)");
+					}
+
+					if (highlightedItems.contains(item.getName().toLowerCase()))
+					{
+						textColor = config.highlightedColor();
+					}
+
+					String itemString = itemStringBuilder.toString();
+					itemStringBuilder.setLength(0);
+
+					int screenX = point.getX() + 2 - (fm.stringWidth(itemString) / 2);
+
+					graphics.setColor(Color.BLACK);
+					graphics.drawString(itemString, screenX + 1, point.getY() - (15 * i) + 1);
+					graphics.setColor(textColor);
+					graphics.drawString(itemString, screenX, point.getY() - (15 * i));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.client.plugins.Plugin;
+import net.runelite.client.plugins.PluginManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Renders a busy frame, 40 overlays spread over every layer and a mix of
+ * scene and positioned overlays, one layer at a time as the client does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverlayRendererBenchmark
+{
+	private static final int OVERLAYS = 40;
+
+	static class FillOverlay extends Overlay
+	{
+		FillOverlay(OverlayLayer layer, OverlayPosition position)
+		{
+			setLayer(layer);
+			setPosition(position);
+		}
+
+		@Override
+		public Dimension render(Graphics2D graphics, Point parent)
+		{
+			graphics.setColor(Color.RED);
+			graphics.fillRect(0, 0, 8, 8);
+			return getPosition() == OverlayPosition.DYNAMIC ? null : new Dimension(8, 8);
+		}
+	}
+
+	private OverlayRenderer renderer;
+	private Graphics2D graphics;
+
+	@Setup
+	public void setup()
+	{
+		OverlayPosition[] positions =
+		{
+			OverlayPosition.DYNAMIC, OverlayPosition.TOP_LEFT, OverlayPosition.TOP_RIGHT, OverlayPosition.BOTTOM_RIGHT
+		};
+
+		List<Overlay> overlays = new ArrayList<>();
+		for (int i = 0; i < OVERLAYS; ++i)
+		{
+			OverlayLayer layer = OverlayLayer.values()[i % OverlayLayer.values().length];
+			overlays.add(new FillOverlay(layer, positions[i % positions.length]));
+		}
+
+		Canvas canvas = mock(Canvas.class);
+		when(canvas.getSize()).thenReturn(new Dimension(765, 503));
+
+		Client client = mock(Client.class);
+		when(client.getCanvas()).thenReturn(canvas);
+		when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
+
+		Plugin plugin = new Plugin()
+		{
+			@Override
+			public Collection<Overlay> getOverlays()
+			{
+				return overlays;
+			}
+		};
+
+		PluginManager pluginManager = mock(PluginManager.class);
+		when(pluginManager.getPlugins()).thenReturn(Arrays.asList(plugin));
+		when(pluginManager.isPluginEnabled(any(Plugin.class))).thenReturn(true);
+
+		renderer = new OverlayRenderer();
+		renderer.pluginManager = pluginManager;
+		renderer.clientProvider = () -> client;
+		renderer.onPluginChanged(null);
+		renderer.onResizableChanged(null);
+
+		graphics = new BufferedImage(765, 503, BufferedImage.TYPE_INT_ARGB).createGraphics();
+	}
+
+	@Benchmark
+	public void renderFrame()
+	{
+		for (OverlayLayer layer : OverlayLayer.values())
+		{
+			renderer.render(graphics, layer);
+		}
+	}
+}
@@ -46,6 +46,7 @@ import net.runelite.client.config.ConfigManager;
 import net.runelite.client.config.RuneLiteConfig;
 import net.runelite.client.discord.DiscordService;
 import net.runelite.client.events.ClientUILoaded;
+import net.runelite.client.game.ItemManager;
 import net.runelite.client.menus.MenuManager;
 import net.runelite.client.plugins.PluginManager;
 import net.runelite.client.ui.ClientUI;
@@ -99,6 +100,9 @@ public class RuneLite
 	@Inject
 	private ClientSessionManager clientSessionManager;
 
+	@Inject
+	private ItemManager itemManager;
+
 	Client client;
 	ClientUI gui;
 
@@ -162,6 +166,7 @@ public class RuneLite
 		eventBus.register(chatMessageManager);
 		eventBus.register(gui);
 		eventBus.register(pluginManager);
+		eventBus.register(itemManager);
 
 		// Tell the plugin manager if client is outdated or not
 		pluginManager.setOutdated(isOutdated);
@@ -209,6 +214,7 @@ public class RuneLite
 
 	public void shutdown()
 	{
+		configManager.sendConfig();
 		clientSessionManager.shutdown();
 		discordService.close();
 	}
@@ -25,7 +25,6 @@
 package net.runelite.client;
 
 import com.google.common.eventbus.EventBus;
-import com.google.common.eventbus.SubscriberExceptionContext;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import java.util.concurrent.Executors;
@@ -37,6 +36,7 @@ import net.runelite.client.account.SessionManager;
 import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.config.RuneLiteConfig;
+import net.runelite.client.eventbus.EventDispatcher;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.menus.MenuManager;
 import net.runelite.client.plugins.PluginManager;
@@ -84,10 +84,10 @@ public class RuneLiteModule extends AbstractModule
 	@Singleton
 	EventBus provideEventBus()
 	{
-		return new EventBus(RuneLiteModule::eventExceptionHandler);
+		return new EventDispatcher(RuneLiteModule::eventExceptionHandler);
 	}
 
-	private static void eventExceptionHandler(Throwable exception, SubscriberExceptionContext context)
+	private static void eventExceptionHandler(Throwable exception, Object event, EventDispatcher.Subscriber subscriber)
 	{
 		log.warn("uncaught exception in event subscriber", exception);
 	}
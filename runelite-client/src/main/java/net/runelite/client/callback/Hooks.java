@@ -34,8 +34,13 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.image.BufferedImage;
+import net.runelite.api.Actor;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
+import net.runelite.api.DecorativeObject;
+import net.runelite.api.GameObject;
+import net.runelite.api.GroundObject;
+import net.runelite.api.ItemLayer;
 import net.runelite.api.MainBufferProvider;
 import net.runelite.api.MenuAction;
 import net.runelite.api.MessageNode;
@@ -44,14 +49,28 @@ import net.runelite.api.Projectile;
 import net.runelite.api.Region;
 import net.runelite.api.RenderOverview;
 import net.runelite.api.TextureProvider;
+import net.runelite.api.Tile;
+import net.runelite.api.WallObject;
 import net.runelite.api.WorldMapManager;
 import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.events.AnimationChanged;
 import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.DecorativeObjectDespawned;
+import net.runelite.api.events.DecorativeObjectSpawned;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameObjectSpawned;
 import net.runelite.api.events.GameTick;
+import net.runelite.api.events.GraphicChanged;
+import net.runelite.api.events.GroundObjectDespawned;
+import net.runelite.api.events.GroundObjectSpawned;
+import net.runelite.api.events.ItemLayerDespawned;
+import net.runelite.api.events.ItemLayerSpawned;
 import net.runelite.api.events.MenuEntryAdded;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.events.ProjectileMoved;
 import net.runelite.api.events.SetMessage;
+import net.runelite.api.events.WallObjectDespawned;
+import net.runelite.api.events.WallObjectSpawned;
 import net.runelite.api.widgets.Widget;
 import static net.runelite.api.widgets.WidgetID.WORLD_MAP;
 import net.runelite.client.RuneLite;
@@ -85,6 +104,26 @@ public class Hooks
 	private static final DeathChecker death = new DeathChecker(client, eventBus);
 	private static final GameTick tick = new GameTick();
 
+	// in developer mode every post gets a new event, to find subscribers keeping them
+	private static final RetentionChecker retentionChecker = RuneLite.getOptions() != null && RuneLite.getOptions().has("developer-mode")
+		? new RetentionChecker()
+		: null;
+	private static final ReusableEvent<MenuEntryAdded> menuEntryAdded = new ReusableEvent<>(MenuEntryAdded::new, retentionChecker);
+	private static final ReusableEvent<ChatMessage> chatMessage = new ReusableEvent<>(ChatMessage::new, retentionChecker);
+	private static final ReusableEvent<ProjectileMoved> projectileMoved = new ReusableEvent<>(ProjectileMoved::new, retentionChecker);
+	private static final ReusableEvent<AnimationChanged> animationChanged = new ReusableEvent<>(AnimationChanged::new, retentionChecker);
+	private static final ReusableEvent<GraphicChanged> graphicChanged = new ReusableEvent<>(GraphicChanged::new, retentionChecker);
+	private static final ReusableEvent<GameObjectSpawned> gameObjectSpawned = new ReusableEvent<>(GameObjectSpawned::new, retentionChecker);
+	private static final ReusableEvent<GameObjectDespawned> gameObjectDespawned = new ReusableEvent<>(GameObjectDespawned::new, retentionChecker);
+	private static final ReusableEvent<GroundObjectSpawned> groundObjectSpawned = new ReusableEvent<>(GroundObjectSpawned::new, retentionChecker);
+	private static final ReusableEvent<GroundObjectDespawned> groundObjectDespawned = new ReusableEvent<>(GroundObjectDespawned::new, retentionChecker);
+	private static final ReusableEvent<WallObjectSpawned> wallObjectSpawned = new ReusableEvent<>(WallObjectSpawned::new, retentionChecker);
+	private static final ReusableEvent<WallObjectDespawned> wallObjectDespawned = new ReusableEvent<>(WallObjectDespawned::new, retentionChecker);
+	private static final ReusableEvent<DecorativeObjectSpawned> decorativeObjectSpawned = new ReusableEvent<>(DecorativeObjectSpawned::new, retentionChecker);
+	private static final ReusableEvent<DecorativeObjectDespawned> decorativeObjectDespawned = new ReusableEvent<>(DecorativeObjectDespawned::new, retentionChecker);
+	private static final ReusableEvent<ItemLayerSpawned> itemLayerSpawned = new ReusableEvent<>(ItemLayerSpawned::new, retentionChecker);
+	private static final ReusableEvent<ItemLayerDespawned> itemLayerDespawned = new ReusableEvent<>(ItemLayerDespawned::new, retentionChecker);
+
 	private static Dimension lastStretchedDimensions;
 	private static BufferedImage stretchedImage;
 	private static Graphics2D stretchedGraphics;
@@ -115,6 +154,11 @@ public class Hooks
 			chatMessageManager.process();
 
 			checkWorldMap();
+
+			if (retentionChecker != null)
+			{
+				retentionChecker.check();
+			}
 		}
 		catch (Exception ex)
 		{
@@ -341,9 +385,15 @@ public class Hooks
 			log.trace("Menu entry added {} {}", option, target);
 		}
 
-		MenuEntryAdded menuEntry = new MenuEntryAdded(option, target, type, identifier, param0, param1);
+		MenuEntryAdded menuEntry = menuEntryAdded.acquire(eventBus);
+		menuEntry.setOption(option);
+		menuEntry.setTarget(target);
+		menuEntry.setType(type);
+		menuEntry.setIdentifier(identifier);
+		menuEntry.setActionParam0(param0);
+		menuEntry.setActionParam1(param1);
 
-		eventBus.post(menuEntry);
+		menuEntryAdded.post(eventBus, menuEntry);
 	}
 
 	public static void addChatMessage(int type, String name, String message, String sender)
@@ -353,10 +403,13 @@ public class Hooks
 			log.debug("Chat message type {}: {}", ChatMessageType.of(type), message);
 		}
 
-		ChatMessageType chatMessageType = ChatMessageType.of(type);
-		ChatMessage chatMessage = new ChatMessage(chatMessageType, name, message, sender);
+		ChatMessage chat = chatMessage.acquire(eventBus);
+		chat.setType(ChatMessageType.of(type));
+		chat.setName(name);
+		chat.setMessage(message);
+		chat.setSender(sender);
 
-		eventBus.post(chatMessage);
+		chatMessage.post(eventBus, chat);
 	}
 
 	/**
@@ -373,11 +426,105 @@ public class Hooks
 	public static void projectileMoved(Projectile projectile, int targetX, int targetY, int targetZ, int cycle)
 	{
 		LocalPoint position = new LocalPoint(targetX, targetY);
-		ProjectileMoved projectileMoved = new ProjectileMoved();
-		projectileMoved.setProjectile(projectile);
-		projectileMoved.setPosition(position);
-		projectileMoved.setZ(targetZ);
-		eventBus.post(projectileMoved);
+		ProjectileMoved event = projectileMoved.acquire(eventBus);
+		event.setProjectile(projectile);
+		event.setPosition(position);
+		event.setZ(targetZ);
+		projectileMoved.post(eventBus, event);
+	}
+
+	public static void animationChanged(Actor actor)
+	{
+		AnimationChanged event = animationChanged.acquire(eventBus);
+		event.setActor(actor);
+		animationChanged.post(eventBus, event);
+	}
+
+	public static void graphicChanged(Actor actor)
+	{
+		GraphicChanged event = graphicChanged.acquire(eventBus);
+		event.setActor(actor);
+		graphicChanged.post(eventBus, event);
+	}
+
+	public static void gameObjectSpawned(Tile tile, GameObject gameObject)
+	{
+		GameObjectSpawned event = gameObjectSpawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setGameObject(gameObject);
+		gameObjectSpawned.post(eventBus, event);
+	}
+
+	public static void gameObjectDespawned(Tile tile, GameObject gameObject)
+	{
+		GameObjectDespawned event = gameObjectDespawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setGameObject(gameObject);
+		gameObjectDespawned.post(eventBus, event);
+	}
+
+	public static void groundObjectSpawned(Tile tile, GroundObject groundObject)
+	{
+		GroundObjectSpawned event = groundObjectSpawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setGroundObject(groundObject);
+		groundObjectSpawned.post(eventBus, event);
+	}
+
+	public static void groundObjectDespawned(Tile tile, GroundObject groundObject)
+	{
+		GroundObjectDespawned event = groundObjectDespawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setGroundObject(groundObject);
+		groundObjectDespawned.post(eventBus, event);
+	}
+
+	public static void wallObjectSpawned(Tile tile, WallObject wallObject)
+	{
+		WallObjectSpawned event = wallObjectSpawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setWallObject(wallObject);
+		wallObjectSpawned.post(eventBus, event);
+	}
+
+	public static void wallObjectDespawned(Tile tile, WallObject wallObject)
+	{
+		WallObjectDespawned event = wallObjectDespawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setWallObject(wallObject);
+		wallObjectDespawned.post(eventBus, event);
+	}
+
+	public static void decorativeObjectSpawned(Tile tile, DecorativeObject decorativeObject)
+	{
+		DecorativeObjectSpawned event = decorativeObjectSpawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setDecorativeObject(decorativeObject);
+		decorativeObjectSpawned.post(eventBus, event);
+	}
+
+	public static void decorativeObjectDespawned(Tile tile, DecorativeObject decorativeObject)
+	{
+		DecorativeObjectDespawned event = decorativeObjectDespawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setDecorativeObject(decorativeObject);
+		decorativeObjectDespawned.post(eventBus, event);
+	}
+
+	public static void itemLayerSpawned(Tile tile, ItemLayer itemLayer)
+	{
+		ItemLayerSpawned event = itemLayerSpawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setItemLayer(itemLayer);
+		itemLayerSpawned.post(eventBus, event);
+	}
+
+	public static void itemLayerDespawned(Tile tile, ItemLayer itemLayer)
+	{
+		ItemLayerDespawned event = itemLayerDespawned.acquire(eventBus);
+		event.setTile(tile);
+		event.setItemLayer(itemLayer);
+		itemLayerDespawned.post(eventBus, event);
 	}
 
 	public static void setMessage(MessageNode messageNode, int type, String name, String sender, String value)
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.callback;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Finds events which are still referenced after they have been
+ * dispatched, which would be overwritten if the event were reused.
+ * <p>
+ * Events are watched once dispatched. An event which is no longer
+ * referenced is collected by the next garbage collection, so one which
+ * has survived collections since is being kept by a subscriber. Two
+ * collections are required, as the first may happen before the poster
+ * has dropped its own reference.
+ */
+@Slf4j
+class RetentionChecker
+{
+	/**
+	 * Maximum number of events watched at once, so that the checker does
+	 * not grow without bound if collections are rare
+	 */
+	private static final int MAX_WATCHED = 16384;
+
+	private static final class Watched
+	{
+		private final WeakReference<Object> event;
+		private final Class<?> eventClass;
+		private final long collections;
+
+		private Watched(Object event, long collections)
+		{
+			this.event = new WeakReference<>(event);
+			this.eventClass = event.getClass();
+			this.collections = collections;
+		}
+	}
+
+	private final List<Watched> watched = new ArrayList<>();
+	private final Set<Class<?>> reported = new HashSet<>();
+
+	synchronized void watch(Object event)
+	{
+		if (watched.size() < MAX_WATCHED)
+		{
+			watched.add(new Watched(event, collections()));
+		}
+	}
+
+	/**
+	 * Check the watched events, reporting the classes of those still
+	 * referenced after a garbage collection
+	 *
+	 * @return the classes of events newly found to be retained
+	 */
+	synchronized Set<Class<?>> check()
+	{
+		long collections = collections();
+		Set<Class<?>> retained = new HashSet<>();
+
+		for (Iterator<Watched> it = watched.iterator(); it.hasNext(); )
+		{
+			Watched w = it.next();
+			if (w.event.get() == null)
+			{
+				it.remove();
+			}
+			else if (collections > w.collections + 1)
+			{
+				it.remove();
+				if (reported.add(w.eventClass))
+				{
+					retained.add(w.eventClass);
+					log.warn("A subscriber keeps {} events after they are dispatched. These events are reused,"
+						+ " so the subscriber must copy what it needs instead.", w.eventClass.getSimpleName());
+				}
+			}
+		}
+
+		return retained;
+	}
+
+	private static long collections()
+	{
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			count += Math.max(gc.getCollectionCount(), 0);
+		}
+		return count;
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.callback;
+
+import com.google.common.eventbus.EventBus;
+import java.util.function.Supplier;
+import net.runelite.client.eventbus.EventDispatcher;
+
+/**
+ * An event which is posted often from the game thread, reusing one
+ * instance instead of allocating a new event for each post. Subscribers
+ * must not keep a reference to the event once they return, as the next
+ * post overwrites it.
+ * <p>
+ * A new instance is used when the shared one is still being dispatched,
+ * or when the post would be queued behind the event currently being
+ * dispatched. When a {@link RetentionChecker} is given, every post uses a
+ * new instance which the checker watches for subscribers keeping it.
+ */
+class ReusableEvent<T>
+{
+	private final Supplier<T> factory;
+	private final RetentionChecker retentionChecker;
+	private final T instance;
+	private boolean inUse;
+
+	ReusableEvent(Supplier<T> factory, RetentionChecker retentionChecker)
+	{
+		this.factory = factory;
+		this.retentionChecker = retentionChecker;
+		this.instance = factory.get();
+	}
+
+	/**
+	 * Get an event to fill in and pass to {@link #post(EventBus, Object)}
+	 */
+	T acquire(EventBus eventBus)
+	{
+		if (inUse || retentionChecker != null
+			|| (eventBus instanceof EventDispatcher && ((EventDispatcher) eventBus).isDispatching()))
+		{
+			return factory.get();
+		}
+
+		inUse = true;
+		return instance;
+	}
+
+	void post(EventBus eventBus, T event)
+	{
+		try
+		{
+			eventBus.post(event);
+		}
+		finally
+		{
+			if (event == instance)
+			{
+				inUse = false;
+			}
+			else if (retentionChecker != null)
+			{
+				retentionChecker.watch(event);
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.chat;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the colour tags written by {@link ChatMessageBuilder} with the
+ * colours configured for a message type, in a single pass over the message.
+ * Rewritten messages are remembered, since refreshing the chatbox rewrites
+ * the same messages again.
+ */
+class ChatColorRewriter
+{
+	private static final String TAG_START = "<col";
+	private static final ChatColorType[] TYPES = ChatColorType.values();
+	private static final int MEMO_SIZE = 512;
+
+	/**
+	 * replacement tag by color type ordinal, or null to leave the tag as is
+	 */
+	private final String[] replacements = new String[TYPES.length];
+
+	// guarded by itself
+	private final Map<String, String> memo = new LinkedHashMap<String, String>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+		{
+			return size() > MEMO_SIZE;
+		}
+	};
+
+	ChatColorRewriter(Collection<ChatColor> chatColors, boolean transparent)
+	{
+		for (ChatColor chatColor : chatColors)
+		{
+			if (chatColor.isTransparent() == transparent)
+			{
+				replacements[chatColor.getType().ordinal()] =
+					"<col=" + Integer.toHexString(chatColor.getColor().getRGB() & 0xFFFFFF) + ">";
+			}
+		}
+	}
+
+	String rewrite(String message)
+	{
+		synchronized (memo)
+		{
+			String rewritten = memo.get(message);
+			if (rewritten != null)
+			{
+				return rewritten;
+			}
+		}
+
+		String rewritten = replaceTags(message);
+
+		synchronized (memo)
+		{
+			memo.put(message, rewritten);
+		}
+
+		return rewritten;
+	}
+
+	private String replaceTags(String message)
+	{
+		StringBuilder builder = null;
+		int copied = 0;
+		int tag = message.indexOf(TAG_START);
+
+		while (tag != -1)
+		{
+			int name = tag + TAG_START.length();
+			String replacement = null;
+			int end = -1;
+
+			for (ChatColorType type : TYPES)
+			{
+				String typeName = type.name();
+				if (message.startsWith(typeName, name) && message.startsWith(">", name + typeName.length()))
+				{
+					replacement = replacements[type.ordinal()];
+					end = name + typeName.length() + 1;
+					break;
+				}
+			}
+
+			if (replacement == null)
+			{
+				tag = message.indexOf(TAG_START, name);
+				continue;
+			}
+
+			if (builder == null)
+			{
+				builder = new StringBuilder(message.length() + 16);
+			}
+
+			builder.append(message, copied, tag).append(replacement);
+			copied = end;
+			tag = message.indexOf(TAG_START, end);
+		}
+
+		if (builder == null)
+		{
+			return message;
+		}
+
+		return builder.append(message, copied, message.length()).toString();
+	}
+}
@@ -27,16 +27,18 @@ package net.runelite.client.chat;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
 import com.google.common.eventbus.Subscribe;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.atomic.AtomicReference;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
@@ -54,6 +56,14 @@ import net.runelite.api.events.VarbitChanged;
 public class ChatMessageManager
 {
 	private final Map<ChatMessageType, Set<ChatColor>> colorCache = new HashMap<>();
+	/**
+	 * compiled colors of each message type, for opaque and transparent chatboxes
+	 */
+	private final Map<ChatMessageType, ChatColorRewriter[]> rewriters = new ConcurrentHashMap<>();
+	/**
+	 * the rewriter last applied to all stored messages of each type
+	 */
+	private final Map<ChatMessageType, ChatColorRewriter> applied = new ConcurrentHashMap<>();
 	private final Provider<Client> clientProvider;
 	private final ScheduledExecutorService executor;
 	private int transparancyVarbit = -1;
@@ -90,8 +100,19 @@ public class ChatMessageManager
 		{
 			colorCache.putIfAbsent(chatMessageType, new HashSet<>());
 			final Set<ChatColor> chatColors = colorCache.get(chatMessageType);
+			final ChatColor previous = chatColors.stream()
+				.filter(chatColor::equals)
+				.findAny()
+				.orElse(null);
+
+			if (previous != null && Objects.equals(previous.getColor(), chatColor.getColor()))
+			{
+				continue;
+			}
+
 			chatColors.remove(chatColor);
 			chatColors.add(chatColor);
+			rewriters.remove(chatMessageType);
 		}
 
 		return this;
@@ -139,49 +160,106 @@ public class ChatMessageManager
 			return;
 		}
 
-		final Client client = clientProvider.get();
-		final boolean transparent = client.isResized() && client.getSetting(Varbits.TRANSPARANT_CHATBOX) != 0;
-		final Set<ChatColor> chatColors = colorCache.get(target.getType());
+		update(target, getRewriter(target.getType(), isTransparent(clientProvider.get())));
+	}
 
-		// If we do not have any colors cached, simply set clean message
-		if (chatColors == null || chatColors.isEmpty())
+	private static void update(final MessageNode target, final ChatColorRewriter rewriter)
+	{
+		final String message = target.getRuneLiteFormatMessage();
+
+		if (Strings.isNullOrEmpty(message))
 		{
-			target.setValue(target.getRuneLiteFormatMessage());
 			return;
 		}
 
-		target.setValue(recolorMessage(transparent, target.getRuneLiteFormatMessage(), target.getType()));
+		target.setValue(rewriter.rewrite(message));
 	}
 
-	private String recolorMessage(boolean transparent, String message, ChatMessageType messageType)
+	private static boolean isTransparent(final Client client)
 	{
-		final Set<ChatColor> chatColors = colorCache.get(messageType);
-		final AtomicReference<String> resultMessage = new AtomicReference<>(message);
-
-		// Replace custom formatting with actual colors
-		chatColors.stream()
-			.filter(chatColor -> chatColor.isTransparent() == transparent)
-			.forEach(chatColor ->
-				resultMessage.getAndUpdate(oldMessage -> oldMessage.replaceAll(
-					"<col" + chatColor.getType().name() + ">",
-					"<col=" + Integer.toHexString(chatColor.getColor().getRGB() & 0xFFFFFF) + ">")));
-
-		return resultMessage.get();
+		return client.isResized() && client.getSetting(Varbits.TRANSPARANT_CHATBOX) != 0;
+	}
+
+	private ChatColorRewriter getRewriter(final ChatMessageType type, final boolean transparent)
+	{
+		ChatColorRewriter[] compiled = rewriters.get(type);
+
+		if (compiled == null)
+		{
+			final Set<ChatColor> chatColors = colorCache.get(type);
+
+			if (chatColors == null || chatColors.isEmpty())
+			{
+				// transparency makes no difference
+				final ChatColorRewriter rewriter = new ChatColorRewriter(Collections.emptyList(), false);
+				compiled = new ChatColorRewriter[]
+				{
+					rewriter, rewriter
+				};
+			}
+			else
+			{
+				final List<ChatColor> colors = new ArrayList<>(chatColors);
+				compiled = new ChatColorRewriter[]
+				{
+					new ChatColorRewriter(colors, false),
+					new ChatColorRewriter(colors, true)
+				};
+			}
+
+			rewriters.put(type, compiled);
+		}
+
+		return compiled[transparent ? 1 : 0];
 	}
 
 	public void refreshAll()
+	{
+		executor.submit(this::refresh);
+	}
+
+	/**
+	 * Recolor the stored messages of the types whose colors changed since
+	 * they were last recolored, either because new colors were cached or
+	 * the chatbox transparency changed.
+	 */
+	void refresh()
 	{
 		final Client client = clientProvider.get();
+		final Map<Integer, ChatLineBuffer> chatLineMap = client.getChatLineMap();
+		final boolean transparent = isTransparent(client);
+		boolean changed = false;
 
-		executor.submit(() ->
+		for (ChatMessageType type : ChatMessageType.values())
 		{
-			client.getChatLineMap().values().stream()
-				.filter(Objects::nonNull)
-				.flatMap(clb -> Arrays.stream(clb.getLines()))
-				.filter(Objects::nonNull)
-				.forEach(this::update);
+			final ChatColorRewriter rewriter = getRewriter(type, transparent);
+
+			if (applied.get(type) == rewriter)
+			{
+				continue;
+			}
 
+			applied.put(type, rewriter);
+
+			final ChatLineBuffer chatLineBuffer = chatLineMap.get(type.getType());
+			if (chatLineBuffer == null)
+			{
+				continue;
+			}
+
+			for (MessageNode line : chatLineBuffer.getLines())
+			{
+				if (line != null)
+				{
+					update(line, rewriter);
+					changed = true;
+				}
+			}
+		}
+
+		if (changed)
+		{
 			client.refreshChat();
-		});
+		}
 	}
 }
@@ -25,69 +25,129 @@
 package net.runelite.client.config;
 
 import com.google.common.base.Objects;
+import java.awt.Dimension;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.events.ConfigChanged;
 
 @Slf4j
 class ConfigInvocationHandler implements InvocationHandler
 {
+	private static final Constructor<MethodHandles.Lookup> LOOKUP_CONSTRUCTOR;
+
+	/**
+	 * Cached in place of null, so a cached null can be told from no value
+	 */
+	private static final Object NULL = new Object();
+
+	static
+	{
+		try
+		{
+			LOOKUP_CONSTRUCTOR = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+			LOOKUP_CONSTRUCTOR.setAccessible(true);
+		}
+		catch (NoSuchMethodException ex)
+		{
+			throw new ExceptionInInitializerError(ex);
+		}
+	}
+
 	private final ConfigManager manager;
+	private final Map<Method, Accessor> accessors = new ConcurrentHashMap<>();
 
 	public ConfigInvocationHandler(ConfigManager manager)
 	{
 		this.manager = manager;
 	}
 
-	@Override
-	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+	/**
+	 * A config method with its annotations resolved, and for getters the
+	 * value last read
+	 */
+	private static class Accessor
 	{
-		Class<?> iface = proxy.getClass().getInterfaces()[0];
+		private final Method method;
+		private final ConfigGroup group;
+		private final ConfigItem item;
+		private volatile MethodHandle defaultMethod;
+		private volatile Object defaultValue;
 
-		ConfigGroup group = iface.getAnnotation(ConfigGroup.class);
-		ConfigItem item = method.getAnnotation(ConfigItem.class);
+		/**
+		 * The converted value, or an unloaded token. Invalidating replaces
+		 * the token, so a value read before then is not cached.
+		 */
+		private final AtomicReference<Object> value = new AtomicReference<>(new Unloaded());
 
-		if (group == null)
+		Accessor(Method method, ConfigGroup group, ConfigItem item)
 		{
-			log.warn("Configuration proxy class {} has no @ConfigGroup!", proxy.getClass());
-			return null;
+			this.method = method;
+			this.group = group;
+			this.item = item;
 		}
 
-		if (item == null)
+		boolean matches(String groupName, String key)
 		{
-			log.warn("Configuration method {} has no @ConfigItem!", method);
-			return null;
+			return group.keyName().equals(groupName) && item.keyName().equals(key);
 		}
 
-		if (args == null)
+		void invalidate()
 		{
-			// Getting configuration item
-			String value = manager.getConfiguration(group.keyName(), item.keyName());
+			value.set(new Unloaded());
+		}
+	}
 
-			if (value == null)
+	private static class Unloaded
+	{
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		Accessor accessor = accessors.get(method);
+
+		if (accessor == null)
+		{
+			Class<?> iface = proxy.getClass().getInterfaces()[0];
+
+			ConfigGroup group = iface.getAnnotation(ConfigGroup.class);
+			ConfigItem item = method.getAnnotation(ConfigItem.class);
+
+			if (group == null)
 			{
-				if (method.isDefault())
-				{
-					return callDefaultMethod(proxy, method, args);
-				}
+				log.warn("Configuration proxy class {} has no @ConfigGroup!", proxy.getClass());
+				return null;
+			}
 
+			if (item == null)
+			{
+				log.warn("Configuration method {} has no @ConfigItem!", method);
 				return null;
 			}
 
-			// Convert value to return type
-			Class<?> returnType = method.getReturnType();
-			Object objectValue = ConfigManager.stringToObject(value, returnType);
+			accessor = accessors.computeIfAbsent(method, m -> new Accessor(m, group, item));
+		}
 
-			// objectValue automatically gets unboxed
-//			if (!objectValue.getClass().equals(returnType))
-//			{
-//				log.warn("Unable to convert return type for configuration item {}.{}: {}", group.keyName(), item.keyName(), returnType);
-//				return null;
-//			}
+		if (args == null)
+		{
+			// Getting configuration item
+			final Object cached = accessor.value.get();
+
+			if (!(cached instanceof Unloaded))
+			{
+				return copy(cached == NULL ? null : cached);
+			}
 
-			return objectValue;
+			final Object objectValue = load(proxy, accessor);
+			accessor.value.compareAndSet(cached, objectValue == null ? NULL : objectValue);
+			return copy(objectValue);
 		}
 		else
 		{
@@ -102,30 +162,116 @@ class ConfigInvocationHandler implements InvocationHandler
 
 			if (method.isDefault())
 			{
-				Object defaultValue = callDefaultMethod(proxy, method, args);
+				Object defaultValue = getDefault(proxy, accessor, args);
 
 				if (Objects.equal(newValue, defaultValue))
 				{
 					// Just unset if it goes back to the default
-					manager.unsetConfiguration(group.keyName(), item.keyName());
+					manager.unsetConfiguration(accessor.group.keyName(), accessor.item.keyName());
 					return null;
 				}
 			}
 
-			manager.setConfiguration(group.keyName(), item.keyName(), args[0].toString());
+			manager.setConfiguration(accessor.group.keyName(), accessor.item.keyName(), args[0].toString());
 			return null;
 		}
 	}
 
-	static Object callDefaultMethod(Object proxy, Method method, Object[] args) throws Throwable
+	private Object load(Object proxy, Accessor accessor) throws Throwable
 	{
-		// Call the default method implementation - https://rmannibucau.wordpress.com/2014/03/27/java-8-default-interface-methods-and-jdk-dynamic-proxies/
-		Constructor<MethodHandles.Lookup> constructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
-		constructor.setAccessible(true);
+		String value = manager.getConfiguration(accessor.group.keyName(), accessor.item.keyName());
+
+		if (value == null)
+		{
+			if (accessor.method.isDefault())
+			{
+				return getDefault(proxy, accessor, null);
+			}
+
+			return null;
+		}
+
+		// Convert value to return type
+		Class<?> returnType = accessor.method.getReturnType();
+		Object objectValue = ConfigManager.stringToObject(value, returnType);
+
+		// objectValue automatically gets unboxed
+//		if (!objectValue.getClass().equals(returnType))
+//		{
+//			log.warn("Unable to convert return type for configuration item {}.{}: {}", group.keyName(), item.keyName(), returnType);
+//			return null;
+//		}
+
+		return objectValue;
+	}
+
+	private static Object getDefault(Object proxy, Accessor accessor, Object[] args) throws Throwable
+	{
+		if (accessor.defaultMethod == null)
+		{
+			accessor.defaultMethod = unreflectDefault(accessor.method);
+		}
+
+		if (args != null)
+		{
+			// Setters with a default body are called with their argument every time
+			return accessor.defaultMethod.bindTo(proxy).invokeWithArguments(args);
+		}
 
+		if (accessor.defaultValue == null)
+		{
+			accessor.defaultValue = accessor.defaultMethod.invoke(proxy);
+		}
+
+		return accessor.defaultValue;
+	}
+
+	/**
+	 * Mutable values are copied so callers can't change the cached value
+	 */
+	private static Object copy(Object value)
+	{
+		if (value instanceof Dimension)
+		{
+			return new Dimension((Dimension) value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Drops the cached values for the changed item
+	 */
+	void onConfigChanged(ConfigChanged configChanged)
+	{
+		for (Accessor accessor : accessors.values())
+		{
+			if (accessor.matches(configChanged.getGroup(), configChanged.getKey()))
+			{
+				accessor.invalidate();
+			}
+		}
+	}
+
+	/**
+	 * Drops all cached values, for when the whole configuration is replaced
+	 */
+	void invalidateAll()
+	{
+		accessors.values().forEach(Accessor::invalidate);
+	}
+
+	private static MethodHandle unreflectDefault(Method method) throws ReflectiveOperationException
+	{
+		// Call the default method implementation - https://rmannibucau.wordpress.com/2014/03/27/java-8-default-interface-methods-and-jdk-dynamic-proxies/
 		Class<?> declaringClass = method.getDeclaringClass();
-		return constructor.newInstance(declaringClass, MethodHandles.Lookup.PUBLIC | MethodHandles.Lookup.PRIVATE)
-			.unreflectSpecial(method, declaringClass)
+		return LOOKUP_CONSTRUCTOR.newInstance(declaringClass, MethodHandles.Lookup.PUBLIC | MethodHandles.Lookup.PRIVATE)
+			.unreflectSpecial(method, declaringClass);
+	}
+
+	static Object callDefaultMethod(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		return unreflectDefault(method)
 			.bindTo(proxy)
 			.invokeWithArguments(args);
 	}
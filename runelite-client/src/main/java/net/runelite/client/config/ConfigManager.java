@@ -32,14 +32,22 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -49,6 +57,7 @@ import net.runelite.client.RuneLite;
 import net.runelite.client.account.AccountSession;
 import net.runelite.http.api.config.ConfigClient;
 import net.runelite.http.api.config.ConfigEntry;
+import net.runelite.http.api.config.ConfigPatch;
 import net.runelite.http.api.config.Configuration;
 
 @Singleton
@@ -56,6 +65,12 @@ import net.runelite.http.api.config.Configuration;
 public class ConfigManager
 {
 	private static final String SETTINGS_FILE_NAME = "settings.properties";
+	private static final String ETAG_FILE_NAME = "settings.etag";
+
+	/**
+	 * How long changes are collected before they are saved and sent together
+	 */
+	static final long SAVE_DELAY_MS = 500;
 
 	@Inject
 	EventBus eventBus;
@@ -63,13 +78,22 @@ public class ConfigManager
 	@Inject
 	ScheduledExecutorService executor;
 
-	private AccountSession session;
-	private ConfigClient client;
-	private File propertiesFile;
+	AccountSession session;
+	ConfigClient client;
+	File propertiesFile;
 
 	private final ConfigInvocationHandler handler = new ConfigInvocationHandler(this);
 	private final Properties properties = new Properties();
 
+	/**
+	 * Changes not yet sent to the config service, in order, with null values
+	 * for unset keys
+	 */
+	private final Map<String, String> pendingChanges = new LinkedHashMap<>();
+	private boolean saveScheduled;
+	private boolean dirty;
+	private final Object saveLock = new Object();
+
 	public ConfigManager()
 	{
 		this.propertiesFile = getPropertiesFile();
@@ -77,18 +101,36 @@ public class ConfigManager
 
 	public final void switchSession(AccountSession session)
 	{
-		if (session == null)
+		synchronized (saveLock)
 		{
-			this.session = null;
-			this.client = null;
-		}
-		else
-		{
-			this.session = session;
-			this.client = new ConfigClient(session.getUuid());
-		}
+			// Pending changes belong to the session they were made in. Those
+			// which can not be sent now are dropped, rather than being sent
+			// to the next account's configuration; they remain in the
+			// previous profile's settings file.
+			sendConfig();
 
-		this.propertiesFile = getPropertiesFile();
+			synchronized (pendingChanges)
+			{
+				if (!pendingChanges.isEmpty())
+				{
+					log.warn("Dropping {} configuration changes which could not be sent", pendingChanges.size());
+					pendingChanges.clear();
+				}
+			}
+
+			if (session == null)
+			{
+				this.session = null;
+				this.client = null;
+			}
+			else
+			{
+				this.session = session;
+				this.client = new ConfigClient(session.getUuid());
+			}
+
+			this.propertiesFile = getPropertiesFile();
+		}
 
 		load(); // load profile specific config
 	}
@@ -117,9 +159,11 @@ public class ConfigManager
 
 		Configuration configuration;
 
+		final String profile = session.getUsername();
+
 		try
 		{
-			configuration = client.get();
+			configuration = client.get(profile != null ? loadEtag() : null);
 		}
 		catch (IOException ex)
 		{
@@ -128,6 +172,13 @@ public class ConfigManager
 			return;
 		}
 
+		if (configuration == null)
+		{
+			log.debug("Configuration is unchanged, using saved configuration on disk");
+			loadFromFile();
+			return;
+		}
+
 		if (configuration.getConfig().isEmpty())
 		{
 			log.debug("No configuration from client, using saved configuration on disk");
@@ -136,6 +187,7 @@ public class ConfigManager
 		}
 
 		properties.clear();
+		handler.invalidateAll();
 
 		for (ConfigEntry entry : configuration.getConfig())
 		{
@@ -151,6 +203,7 @@ public class ConfigManager
 			configChanged.setKey(key);
 			configChanged.setOldValue(oldValue);
 			configChanged.setNewValue(value);
+			handler.onConfigChanged(configChanged);
 			eventBus.post(configChanged);
 		}
 
@@ -158,6 +211,11 @@ public class ConfigManager
 		{
 			saveToFile();
 
+			if (profile != null)
+			{
+				saveEtag(configuration.getEtag());
+			}
+
 			log.debug("Updated configuration on disk with the latest version");
 		}
 		catch (IOException ex)
@@ -182,15 +240,184 @@ public class ConfigManager
 		{
 			log.warn("Unable to load settings", ex);
 		}
+
+		handler.invalidateAll();
+	}
+
+	private File getEtagFile()
+	{
+		return new File(propertiesFile.getParentFile(), ETAG_FILE_NAME);
+	}
+
+	/**
+	 * Reads the entity tag of the downloaded configuration the settings file
+	 * holds, which is kept next to it so a restart does not download an
+	 * unchanged configuration again
+	 *
+	 * @return the entity tag, or null if the settings file has changed since
+	 */
+	private String loadEtag()
+	{
+		try
+		{
+			return new String(Files.readAllBytes(getEtagFile().toPath()), StandardCharsets.UTF_8);
+		}
+		catch (NoSuchFileException ex)
+		{
+			return null;
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to load settings entity tag", ex);
+			return null;
+		}
+	}
+
+	private void saveEtag(String etag) throws IOException
+	{
+		final File file = getEtagFile();
+
+		if (etag == null)
+		{
+			Files.deleteIfExists(file.toPath());
+		}
+		else
+		{
+			Files.write(file.toPath(), etag.getBytes(StandardCharsets.UTF_8));
+		}
 	}
 
+	/**
+	 * Writes the settings to a temporary file which then replaces the
+	 * settings file, so a crash leaves either the old or the new file
+	 */
 	private void saveToFile() throws IOException
 	{
-		propertiesFile.getParentFile().mkdirs();
+		synchronized (saveLock)
+		{
+			final File file = propertiesFile;
+			file.getParentFile().mkdirs();
+
+			final File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+			try (FileOutputStream out = new FileOutputStream(tempFile))
+			{
+				properties.store(out, "RuneLite configuration");
+				out.getFD().sync();
+			}
 
-		try (FileOutputStream out = new FileOutputStream(propertiesFile))
+			try
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				log.debug("atomic move not supported, replacing settings file", ex);
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	/**
+	 * Records a change to be saved and sent with the others made shortly
+	 * after it
+	 */
+	private void queueChange(String key, String value)
+	{
+		synchronized (pendingChanges)
 		{
-			properties.store(out, "RuneLite configuration");
+			if (client != null)
+			{
+				// Remove first so the key moves to the end, after the changes before it
+				pendingChanges.remove(key);
+				pendingChanges.put(key, value);
+			}
+
+			dirty = true;
+
+			if (saveScheduled)
+			{
+				return;
+			}
+
+			saveScheduled = true;
+		}
+
+		executor.schedule(this::sendConfig, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Saves the settings file and sends the changes made since the last
+	 * call to the config service as one patch. Changes which fail to send
+	 * are kept for the next call, unless they have been changed again.
+	 */
+	public void sendConfig()
+	{
+		synchronized (saveLock)
+		{
+			final ConfigPatch patch = new ConfigPatch();
+			final boolean save;
+
+			synchronized (pendingChanges)
+			{
+				for (Map.Entry<String, String> entry : pendingChanges.entrySet())
+				{
+					if (entry.getValue() != null)
+					{
+						patch.getEdit().put(entry.getKey(), entry.getValue());
+					}
+					else
+					{
+						patch.getUnset().add(entry.getKey());
+					}
+				}
+
+				pendingChanges.clear();
+				save = dirty;
+				dirty = false;
+				saveScheduled = false;
+			}
+
+			if (client != null && !patch.isEmpty())
+			{
+				try
+				{
+					client.patch(patch);
+				}
+				catch (IOException ex)
+				{
+					log.warn("unable to send configuration changes", ex);
+					requeue(patch);
+				}
+			}
+
+			if (save)
+			{
+				try
+				{
+					// The file no longer matches a downloaded configuration
+					saveEtag(null);
+					saveToFile();
+				}
+				catch (IOException ex)
+				{
+					log.warn("unable to save configuration file", ex);
+				}
+			}
+		}
+	}
+
+	private void requeue(ConfigPatch patch)
+	{
+		synchronized (pendingChanges)
+		{
+			final Map<String, String> newer = new LinkedHashMap<>(pendingChanges);
+			pendingChanges.clear();
+
+			patch.getEdit().forEach(pendingChanges::put);
+			patch.getUnset().forEach(key -> pendingChanges.put(key, null));
+			pendingChanges.keySet().removeAll(newer.keySet());
+			pendingChanges.putAll(newer);
 		}
 	}
 
@@ -220,35 +447,7 @@ public class ConfigManager
 
 		String oldValue = (String) properties.setProperty(groupName + "." + key, value);
 
-		if (client != null)
-		{
-			Runnable task = () ->
-			{
-				try
-				{
-					client.set(groupName + "." + key, value);
-				}
-				catch (IOException ex)
-				{
-					log.warn("unable to set configuration item", ex);
-				}
-			};
-			executor.execute(task);
-
-		}
-
-		Runnable task = () ->
-		{
-			try
-			{
-				saveToFile();
-			}
-			catch (IOException ex)
-			{
-				log.warn("unable to save configuration file", ex);
-			}
-		};
-		executor.execute(task);
+		queueChange(groupName + "." + key, value);
 
 		ConfigChanged configChanged = new ConfigChanged();
 		configChanged.setGroup(groupName);
@@ -256,6 +455,7 @@ public class ConfigManager
 		configChanged.setOldValue(oldValue);
 		configChanged.setNewValue(value);
 
+		handler.onConfigChanged(configChanged);
 		eventBus.post(configChanged);
 	}
 
@@ -265,36 +465,14 @@ public class ConfigManager
 
 		String oldValue = (String) properties.remove(groupName + "." + key);
 
-		if (client != null)
-		{
-			try
-			{
-				client.unset(groupName + "." + key);
-			}
-			catch (IOException ex)
-			{
-				log.warn("unable to set configuration item", ex);
-			}
-		}
-
-		Runnable task = () ->
-		{
-			try
-			{
-				saveToFile();
-			}
-			catch (IOException ex)
-			{
-				log.warn("unable to save configuration file", ex);
-			}
-		};
-		executor.execute(task);
+		queueChange(groupName + "." + key, null);
 
 		ConfigChanged configChanged = new ConfigChanged();
 		configChanged.setGroup(groupName);
 		configChanged.setKey(key);
 		configChanged.setOldValue(oldValue);
 
+		handler.onConfigChanged(configChanged);
 		eventBus.post(configChanged);
 	}
 
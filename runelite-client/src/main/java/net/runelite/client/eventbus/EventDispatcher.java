@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.EventBus;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An event bus which resolves the subscribers of each event class once,
+ * and calls them through generated lambdas instead of reflection.
+ * <p>
+ * It extends Guava's {@link EventBus} so it can be used wherever one is,
+ * and behaves the same way: subscribers of an event's superclasses and
+ * interfaces receive it too, events posted from within a subscriber
+ * are queued until the current event has been dispatched, a subscriber
+ * is not called by two threads at once unless it is annotated with
+ * {@link AllowConcurrentEvents}, and events nothing subscribes to are
+ * reposted as a {@link DeadEvent}. In addition
+ * subscribers are called in order of their {@link Subscribe#priority()},
+ * and an exception thrown by one subscriber does not prevent the others
+ * from receiving the event.
+ */
+@Slf4j
+public class EventDispatcher extends EventBus
+{
+	private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+	private static final Comparator<Subscriber> SUBSCRIBER_ORDER = Comparator
+		.comparingDouble((Subscriber s) -> -s.priority)
+		.thenComparingLong(s -> s.order);
+
+	@FunctionalInterface
+	public interface ExceptionHandler
+	{
+		void handleException(Throwable exception, Object event, Subscriber subscriber);
+	}
+
+	@FunctionalInterface
+	interface Invoker
+	{
+		void invoke(Object target, Object event) throws Throwable;
+	}
+
+	@Getter
+	public static final class Subscriber
+	{
+		private final Object target;
+		private final Method method;
+		private final float priority;
+		private final Class<?> eventType;
+		private final long order;
+		private final Invoker invoker;
+		private final boolean concurrent;
+
+		private Subscriber(Object target, Method method, float priority, long order, Invoker invoker)
+		{
+			this.target = target;
+			this.method = method;
+			this.priority = priority;
+			this.eventType = method.getParameterTypes()[0];
+			this.order = order;
+			this.invoker = invoker;
+			this.concurrent = method.isAnnotationPresent(AllowConcurrentEvents.class);
+		}
+
+		private void invoke(Object event) throws Throwable
+		{
+			if (concurrent)
+			{
+				invoker.invoke(target, event);
+				return;
+			}
+
+			synchronized (this)
+			{
+				invoker.invoke(target, event);
+			}
+		}
+	}
+
+	private static final class DispatchQueue
+	{
+		private final ArrayDeque<Object> events = new ArrayDeque<>();
+		private boolean dispatching;
+	}
+
+	private final ExceptionHandler exceptionHandler;
+	private final Map<Object, List<Subscriber>> registrations = new IdentityHashMap<>();
+	private final ThreadLocal<DispatchQueue> queue = ThreadLocal.withInitial(DispatchQueue::new);
+	private long registered;
+
+	/**
+	 * Subscribers of each posted event class, in the order they are called.
+	 * This is replaced rather than modified, so posting does not lock.
+	 */
+	private volatile Map<Class<?>, Subscriber[]> dispatch = new HashMap<>();
+
+	public EventDispatcher()
+	{
+		this((exception, event, subscriber) ->
+			log.warn("uncaught exception in event subscriber {}", subscriber.getMethod(), exception));
+	}
+
+	public EventDispatcher(ExceptionHandler exceptionHandler)
+	{
+		this.exceptionHandler = exceptionHandler;
+	}
+
+	@Override
+	public void register(Object object)
+	{
+		List<Method> methods = findSubscriberMethods(object.getClass());
+		List<Invoker> invokers = new ArrayList<>(methods.size());
+		for (Method method : methods)
+		{
+			invokers.add(createInvoker(method));
+		}
+
+		synchronized (this)
+		{
+			if (registrations.containsKey(object))
+			{
+				// registering twice does not add the subscribers again
+				return;
+			}
+
+			List<Subscriber> subscribers = new ArrayList<>(methods.size());
+			for (int i = 0; i < methods.size(); ++i)
+			{
+				Method method = methods.get(i);
+				Subscribe subscribe = method.getAnnotation(Subscribe.class);
+				float priority = subscribe != null ? subscribe.priority() : 0;
+				subscribers.add(new Subscriber(object, method, priority, registered++, invokers.get(i)));
+			}
+
+			registrations.put(object, subscribers);
+			rebuild();
+		}
+	}
+
+	@Override
+	public void unregister(Object object)
+	{
+		synchronized (this)
+		{
+			List<Subscriber> subscribers = registrations.remove(object);
+			if (subscribers == null)
+			{
+				if (!findSubscriberMethods(object.getClass()).isEmpty())
+				{
+					throw new IllegalArgumentException("missing event subscriber for an annotated method. Is " + object + " registered?");
+				}
+				return;
+			}
+
+			rebuild();
+		}
+	}
+
+	@Override
+	public void post(Object event)
+	{
+		Subscriber[] subscribers = getSubscribers(event.getClass());
+		if (subscribers.length == 0)
+		{
+			if (!(event instanceof DeadEvent) && getSubscribers(DeadEvent.class).length > 0)
+			{
+				post(new DeadEvent(this, event));
+			}
+			return;
+		}
+
+		DispatchQueue queue = this.queue.get();
+		if (queue.dispatching)
+		{
+			queue.events.add(event);
+			return;
+		}
+
+		queue.dispatching = true;
+		try
+		{
+			dispatch(event, subscribers);
+
+			Object next;
+			while ((next = queue.events.poll()) != null)
+			{
+				dispatch(next, getSubscribers(next.getClass()));
+			}
+		}
+		finally
+		{
+			queue.events.clear();
+			queue.dispatching = false;
+		}
+	}
+
+	/**
+	 * Whether this thread is dispatching an event, in which case events
+	 * it posts are queued until that event has been dispatched
+	 */
+	public boolean isDispatching()
+	{
+		return queue.get().dispatching;
+	}
+
+	private Subscriber[] getSubscribers(Class<?> eventClass)
+	{
+		Subscriber[] subscribers = dispatch.get(eventClass);
+		return subscribers != null ? subscribers : resolve(eventClass);
+	}
+
+	private void dispatch(Object event, Subscriber[] subscribers)
+	{
+		for (Subscriber subscriber : subscribers)
+		{
+			try
+			{
+				subscriber.invoke(event);
+			}
+			catch (Error error)
+			{
+				throw error;
+			}
+			catch (Throwable ex)
+			{
+				exceptionHandler.handleException(ex, event, subscriber);
+			}
+		}
+	}
+
+	/**
+	 * Find the subscribers of an event class which has not been posted
+	 * since the subscribers last changed
+	 */
+	private synchronized Subscriber[] resolve(Class<?> eventClass)
+	{
+		Subscriber[] subscribers = dispatch.get(eventClass);
+		if (subscribers != null)
+		{
+			return subscribers;
+		}
+
+		subscribers = collect(eventClass);
+		Map<Class<?>, Subscriber[]> next = new HashMap<>(dispatch);
+		next.put(eventClass, subscribers);
+		dispatch = next;
+		return subscribers;
+	}
+
+	/**
+	 * Recompute the subscribers of every event class seen so far
+	 */
+	private void rebuild()
+	{
+		Map<Class<?>, Subscriber[]> next = new HashMap<>();
+		for (Class<?> eventClass : dispatch.keySet())
+		{
+			next.put(eventClass, collect(eventClass));
+		}
+		dispatch = next;
+	}
+
+	private Subscriber[] collect(Class<?> eventClass)
+	{
+		List<Subscriber> subscribers = new ArrayList<>();
+		for (List<Subscriber> registration : registrations.values())
+		{
+			for (Subscriber subscriber : registration)
+			{
+				if (subscriber.eventType.isAssignableFrom(eventClass))
+				{
+					subscribers.add(subscriber);
+				}
+			}
+		}
+
+		if (subscribers.isEmpty())
+		{
+			return NO_SUBSCRIBERS;
+		}
+
+		Subscriber[] array = subscribers.toArray(new Subscriber[0]);
+		Arrays.sort(array, SUBSCRIBER_ORDER);
+		return array;
+	}
+
+	/**
+	 * Find the annotated methods of a class and its supertypes. A method
+	 * overridden in a subclass is only included once.
+	 */
+	private static List<Method> findSubscriberMethods(Class<?> clazz)
+	{
+		List<Method> methods = new ArrayList<>();
+		Set<String> seen = new HashSet<>();
+		List<Class<?>> types = new ArrayList<>();
+
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass())
+		{
+			types.add(c);
+		}
+		for (int i = 0; i < types.size(); ++i)
+		{
+			for (Class<?> iface : types.get(i).getInterfaces())
+			{
+				if (!types.contains(iface))
+				{
+					types.add(iface);
+				}
+			}
+		}
+
+		for (Class<?> type : types)
+		{
+			for (Method method : type.getDeclaredMethods())
+			{
+				if (!method.isAnnotationPresent(Subscribe.class)
+					&& !method.isAnnotationPresent(com.google.common.eventbus.Subscribe.class))
+				{
+					continue;
+				}
+
+				if (method.isSynthetic())
+				{
+					continue;
+				}
+
+				Class<?>[] parameterTypes = method.getParameterTypes();
+				if (parameterTypes.length != 1)
+				{
+					throw new IllegalArgumentException("Method " + method + " has @Subscribe annotation but has "
+						+ parameterTypes.length + " parameters. Subscriber methods must have exactly 1 parameter.");
+				}
+
+				if (seen.add(method.getName() + Arrays.toString(parameterTypes)))
+				{
+					methods.add(method);
+				}
+			}
+		}
+
+		return methods;
+	}
+
+	/**
+	 * Create a lambda calling a subscriber method. Methods which can not
+	 * be linked to directly, such as private methods, are called through
+	 * a method handle instead.
+	 */
+	static Invoker createInvoker(Method method)
+	{
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers()))
+		{
+			try
+			{
+				MethodHandle handle = lookup.unreflect(method);
+				CallSite site = LambdaMetafactory.metafactory(
+					lookup,
+					"invoke",
+					MethodType.methodType(Invoker.class),
+					MethodType.methodType(void.class, Object.class, Object.class),
+					handle,
+					MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0])
+				);
+				return (Invoker) site.getTarget().invokeExact();
+			}
+			catch (Throwable ex)
+			{
+				log.debug("Unable to create lambda for subscriber {}", method, ex);
+			}
+		}
+
+		try
+		{
+			method.setAccessible(true);
+			MethodHandle handle = lookup.unreflect(method)
+				.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			return (target, event) ->
+			{
+				// a statement, so the call site has a void return type
+				handle.invokeExact(target, event);
+			};
+		}
+		catch (IllegalAccessException ex)
+		{
+			throw new IllegalArgumentException("Unable to access subscriber " + method, ex);
+		}
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import javax.imageio.ImageIO;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.game.ItemManager.ImageKey;
+
+/**
+ * Disk cache of rendered item images. Images are kept as PNG data in a
+ * single append-only file, which is discarded when the game revision
+ * changes, and the whole file is read into memory at startup so that
+ * images are available before they could be rendered.
+ */
+@Slf4j
+class ItemImageStore
+{
+	private static final int MAGIC = 0x52_4c_49_49;
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_HEADER_SIZE = 4 + 4 + 1 + 4;
+
+	/**
+	 * images are no longer added once the file reaches this size
+	 */
+	static final long MAX_SIZE = 4 << 20;
+
+	private final File file;
+	private final int revision;
+	private final Executor executor;
+	private final Map<ImageKey, byte[]> images = new ConcurrentHashMap<>();
+
+	// guarded by this
+	private long size;
+
+	ItemImageStore(File file, int revision, Executor executor)
+	{
+		this.file = file;
+		this.revision = revision;
+		this.executor = executor;
+		load();
+	}
+
+	/**
+	 * Get a stored image
+	 *
+	 * @param key image key
+	 * @return the image, or null if it is not stored
+	 */
+	BufferedImage get(ImageKey key)
+	{
+		byte[] data = images.get(key);
+		if (data == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			BufferedImage png;
+			synchronized (ImageIO.class)
+			{
+				png = ImageIO.read(new ByteArrayInputStream(data));
+			}
+
+			// rendered sprites are INT_ARGB, keep handing out the same type
+			BufferedImage image = new BufferedImage(png.getWidth(), png.getHeight(), BufferedImage.TYPE_INT_ARGB);
+			int[] pixels = png.getRGB(0, 0, png.getWidth(), png.getHeight(), null, 0, png.getWidth());
+			image.setRGB(0, 0, png.getWidth(), png.getHeight(), pixels, 0, png.getWidth());
+			return image;
+		}
+		catch (IOException ex)
+		{
+			log.debug("Unable to read stored image {}", key, ex);
+			images.remove(key);
+			return null;
+		}
+	}
+
+	/**
+	 * Store an image in the background
+	 *
+	 * @param key image key
+	 * @param image rendered image
+	 */
+	void put(ImageKey key, BufferedImage image)
+	{
+		if (!images.containsKey(key))
+		{
+			executor.execute(() -> append(key, image));
+		}
+	}
+
+	private synchronized void append(ImageKey key, BufferedImage image)
+	{
+		if (images.containsKey(key) || size >= MAX_SIZE)
+		{
+			return;
+		}
+
+		try
+		{
+			ByteArrayOutputStream png = new ByteArrayOutputStream();
+			synchronized (ImageIO.class)
+			{
+				ImageIO.write(image, "PNG", png);
+			}
+			byte[] data = png.toByteArray();
+
+			file.getParentFile().mkdirs();
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, size > 0))))
+			{
+				if (size == 0)
+				{
+					out.writeInt(MAGIC);
+					out.writeInt(revision);
+					size = HEADER_SIZE;
+				}
+
+				out.writeInt(key.getItemId());
+				out.writeInt(key.getItemQuantity());
+				out.writeBoolean(key.isStackable());
+				out.writeInt(data.length);
+				out.write(data);
+			}
+
+			size += RECORD_HEADER_SIZE + data.length;
+			images.put(key, data);
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to store item image", ex);
+		}
+	}
+
+	private synchronized void load()
+	{
+		if (!file.exists())
+		{
+			return;
+		}
+
+		long valid = 0;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != revision)
+			{
+				log.debug("Discarding item images of another revision");
+				file.delete();
+				return;
+			}
+
+			valid = HEADER_SIZE;
+
+			for (;;)
+			{
+				int itemId;
+				try
+				{
+					itemId = in.readInt();
+				}
+				catch (EOFException ex)
+				{
+					break;
+				}
+
+				int quantity = in.readInt();
+				boolean stackable = in.readBoolean();
+				int length = in.readInt();
+				if (length < 0 || length > MAX_SIZE)
+				{
+					throw new IOException("corrupt image record of length " + length);
+				}
+
+				byte[] data = new byte[length];
+				in.readFully(data);
+
+				images.put(new ImageKey(itemId, quantity, stackable), data);
+				valid += RECORD_HEADER_SIZE + data.length;
+			}
+		}
+		catch (IOException ex)
+		{
+			log.debug("Item image cache is truncated, keeping {} images", images.size(), ex);
+		}
+
+		size = valid;
+
+		if (valid == 0)
+		{
+			file.delete();
+		}
+		else if (file.length() != valid)
+		{
+			// drop a partially written record so new images append after the last complete one
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+			{
+				raf.setLength(valid);
+			}
+			catch (IOException ex)
+			{
+				log.warn("Unable to truncate item image cache", ex);
+				images.clear();
+				size = MAX_SIZE;
+			}
+		}
+
+		log.debug("Loaded {} item images", images.size());
+	}
+}
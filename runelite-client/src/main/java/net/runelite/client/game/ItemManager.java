@@ -24,61 +24,115 @@
  */
 package net.runelite.client.game;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.eventbus.Subscribe;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
 import net.runelite.api.ItemComposition;
+import net.runelite.api.ItemContainer;
 import net.runelite.api.SpritePixels;
+import net.runelite.api.events.GameTick;
+import net.runelite.client.RuneLite;
+import net.runelite.http.api.RuneLiteAPI;
 import net.runelite.http.api.item.ItemClient;
 import net.runelite.http.api.item.ItemPrice;
 import net.runelite.http.api.item.SearchResult;
 
 @Singleton
+@Slf4j
 public class ItemManager
 {
 	@Value
-	private static class ImageKey
+	static class ImageKey
 	{
 		private final int itemId;
 		private final int itemQuantity;
 		private final boolean stackable;
 	}
 
-	/**
-	 * not yet looked up
-	 */
+	@Value
+	static class PriceEntry
+	{
+		private final ItemPrice itemPrice;
+		/**
+		 * when the price was fetched, in epoch millis
+		 */
+		private final long fetched;
+	}
 
-	static final ItemPrice EMPTY = new ItemPrice();
 	/**
 	 * has no price
 	 */
 	static final ItemPrice NONE = new ItemPrice();
 
+	/**
+	 * prices fetched longer ago than this are refreshed, but still returned
+	 * until the refreshed price arrives
+	 */
+	static final long PRICE_REFRESH_MS = TimeUnit.HOURS.toMillis(1);
+
+	/**
+	 * prices whose lookup failed are retried after this long
+	 */
+	static final long PRICE_RETRY_MS = TimeUnit.MINUTES.toMillis(1);
+
+	private static final File ITEMS_DIR = new File(RuneLite.RUNELITE_DIR, "items");
+
+	/**
+	 * containers whose item prices are fetched before they are asked for
+	 */
+	private static final InventoryID[] PREFETCH_CONTAINERS =
+	{
+		InventoryID.INVENTORY, InventoryID.EQUIPMENT, InventoryID.BANK
+	};
+
 	private final Client client;
-	private final ItemClient itemClient = new ItemClient();
+	private final ItemPriceLoader itemPriceLoader;
+	private final File priceSnapshotFile;
+	private final ItemImageStore itemImageStore;
+	private final Map<Integer, PriceEntry> itemPrices = new ConcurrentHashMap<>();
 	private final LoadingCache<String, SearchResult> itemSearches;
-	private final LoadingCache<Integer, ItemPrice> itemPrices;
 	private final LoadingCache<ImageKey, BufferedImage> itemImages;
 	private final LoadingCache<Integer, ItemComposition> itemCompositions;
+	private final AtomicInteger pricesRevision = new AtomicInteger();
 
 	@Inject
 	public ItemManager(@Nullable Client client, ScheduledExecutorService executor)
+	{
+		this(client, executor, new ItemClient(), ITEMS_DIR);
+	}
+
+	ItemManager(Client client, ScheduledExecutorService executor, ItemClient itemClient, File itemsDir)
 	{
 		this.client = client;
-		itemPrices = CacheBuilder.newBuilder()
-			.maximumSize(512L)
-			.expireAfterAccess(1, TimeUnit.HOURS)
-			.build(new ItemPriceLoader(executor, itemClient));
+		this.itemPriceLoader = new ItemPriceLoader(executor, itemClient, this::pricesLoaded);
+		this.priceSnapshotFile = new File(itemsDir, "prices.dat");
+		this.itemImageStore = new ItemImageStore(new File(itemsDir, "images.dat"), RuneLiteAPI.getRsVersion(), executor);
+
+		itemPrices.putAll(ItemPriceSnapshot.load(priceSnapshotFile));
 
 		itemSearches = CacheBuilder.newBuilder()
 			.maximumSize(512L)
@@ -100,7 +154,13 @@ public class ItemManager
 				@Override
 				public BufferedImage load(ImageKey key) throws Exception
 				{
-					return loadImage(key.itemId, key.itemQuantity, key.stackable);
+					BufferedImage image = itemImageStore.get(key);
+					if (image == null)
+					{
+						image = loadImage(key.itemId, key.itemQuantity, key.stackable);
+						itemImageStore.put(key, image);
+					}
+					return image;
 				}
 			});
 
@@ -117,6 +177,55 @@ public class ItemManager
 			});
 	}
 
+	@Subscribe
+	public void onGameTick(GameTick event)
+	{
+		prefetchContainers();
+	}
+
+	/**
+	 * Queue price lookups for the items of the inventory, equipment and
+	 * bank, which go out together in one request.
+	 */
+	void prefetchContainers()
+	{
+		if (client == null)
+		{
+			return;
+		}
+
+		for (InventoryID inventoryID : PREFETCH_CONTAINERS)
+		{
+			ItemContainer container = client.getItemContainer(inventoryID);
+			if (container == null)
+			{
+				continue;
+			}
+
+			for (Item item : container.getItems())
+			{
+				if (item != null && item.getId() >= 0)
+				{
+					prefetchPrice(item.getId());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queue a price lookup for an item if its price is unknown or stale
+	 *
+	 * @param itemId item id
+	 */
+	public void prefetchPrice(int itemId)
+	{
+		PriceEntry entry = itemPrices.get(itemId);
+		if (entry == null || isStale(entry))
+		{
+			itemPriceLoader.request(itemId);
+		}
+	}
+
 	/**
 	 * Look up an item's price asynchronously.
 	 *
@@ -125,14 +234,17 @@ public class ItemManager
 	 */
 	public ItemPrice getItemPriceAsync(int itemId)
 	{
-		ItemPrice itemPrice = itemPrices.getIfPresent(itemId);
-		if (itemPrice != null && itemPrice != EMPTY)
+		PriceEntry entry = itemPrices.get(itemId);
+		if (entry == null || isStale(entry))
 		{
-			return itemPrice == NONE ? null : itemPrice;
+			itemPriceLoader.request(itemId);
 		}
 
-		itemPrices.refresh(itemId);
-		return null;
+		if (entry == null || entry.itemPrice == NONE)
+		{
+			return null;
+		}
+		return entry.itemPrice;
 	}
 
 	/**
@@ -144,21 +256,117 @@ public class ItemManager
 	 */
 	public ItemPrice getItemPrice(int itemId) throws IOException
 	{
-		ItemPrice itemPrice = itemPrices.getIfPresent(itemId);
-		if (itemPrice != null && itemPrice != EMPTY)
+		return getItemPrices(Collections.singleton(itemId)).get(itemId);
+	}
+
+	/**
+	 * Look up the prices of several items synchronously, fetching the
+	 * unknown and stale ones in one request
+	 *
+	 * @param itemIds item ids
+	 * @return item prices by item id, without items which have no price
+	 * @throws IOException
+	 */
+	public Map<Integer, ItemPrice> getItemPrices(Collection<Integer> itemIds) throws IOException
+	{
+		Set<Integer> missing = new LinkedHashSet<>();
+		for (int itemId : itemIds)
 		{
-			return itemPrice == NONE ? null : itemPrice;
+			PriceEntry entry = itemPrices.get(itemId);
+			if (entry == null || isStale(entry))
+			{
+				missing.add(itemId);
+			}
 		}
 
-		itemPrice = itemClient.lookupItemPrice(itemId);
-		if (itemPrice == null)
+		if (!missing.isEmpty())
 		{
-			itemPrices.put(itemId, NONE);
-			return null;
+			int[] lookup = ItemPriceLoader.toArray(missing);
+			pricesLoaded(lookup, itemPriceLoader.lookup(lookup));
+		}
+
+		Map<Integer, ItemPrice> prices = new HashMap<>();
+		for (int itemId : itemIds)
+		{
+			PriceEntry entry = itemPrices.get(itemId);
+			if (entry != null && entry.itemPrice != NONE)
+			{
+				prices.put(itemId, entry.itemPrice);
+			}
+		}
+		return prices;
+	}
+
+	private void pricesLoaded(int[] itemIds, ItemPrice[] prices)
+	{
+		long now = System.currentTimeMillis();
+
+		if (prices == null)
+		{
+			// keep serving what we have, and mark the entries as fetched just
+			// long enough ago that they go stale after the retry period
+			long retry = now - PRICE_REFRESH_MS + PRICE_RETRY_MS;
+			for (int itemId : itemIds)
+			{
+				PriceEntry entry = itemPrices.get(itemId);
+				if (entry == null || entry.fetched < retry)
+				{
+					itemPrices.put(itemId, new PriceEntry(entry != null ? entry.itemPrice : NONE, retry));
+				}
+			}
+			return;
+		}
+
+		Map<Integer, PriceEntry> loaded = new HashMap<>(itemIds.length);
+		for (int itemId : itemIds)
+		{
+			loaded.put(itemId, new PriceEntry(NONE, now));
 		}
+		for (ItemPrice itemPrice : prices)
+		{
+			if (itemPrice != null && itemPrice.getItem() != null)
+			{
+				loaded.put(itemPrice.getItem().getId(), new PriceEntry(itemPrice, now));
+			}
+		}
+		itemPrices.putAll(loaded);
+		pricesRevision.incrementAndGet();
+
+		savePriceSnapshot();
+	}
 
-		itemPrices.put(itemId, itemPrice);
-		return itemPrice;
+	private synchronized void savePriceSnapshot()
+	{
+		try
+		{
+			ItemPriceSnapshot.save(priceSnapshotFile, itemPrices);
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to save price snapshot", ex);
+		}
+	}
+
+	/**
+	 * Get a number which changes whenever prices are loaded, so values
+	 * derived from prices can be cached until it changes
+	 *
+	 * @return prices revision
+	 */
+	public int getPricesRevision()
+	{
+		return pricesRevision.get();
+	}
+
+	@VisibleForTesting
+	PriceEntry getPriceEntry(int itemId)
+	{
+		return itemPrices.get(itemId);
+	}
+
+	private static boolean isStale(PriceEntry entry)
+	{
+		return System.currentTimeMillis() - entry.fetched > PRICE_REFRESH_MS;
 	}
 
 	/**
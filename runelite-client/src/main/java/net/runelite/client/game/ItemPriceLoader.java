@@ -24,60 +24,150 @@
  */
 package net.runelite.client.game;
 
-import com.google.common.cache.CacheLoader;
-import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
-import static net.runelite.client.game.ItemManager.EMPTY;
-import static net.runelite.client.game.ItemManager.NONE;
 import net.runelite.http.api.item.ItemClient;
 import net.runelite.http.api.item.ItemPrice;
 
+/**
+ * Collects price lookups and fetches them together. Ids requested within
+ * {@link #BATCH_DELAY_MS} of each other, such as every item of a container
+ * or every ground item in view, go out in the same request.
+ */
 @Slf4j
-class ItemPriceLoader extends CacheLoader<Integer, ItemPrice>
+class ItemPriceLoader
 {
-	private final ListeningExecutorService executorService;
+	/**
+	 * Receives the result of a lookup
+	 */
+	interface Callback
+	{
+		/**
+		 * @param itemIds the ids which were looked up
+		 * @param itemPrices the known prices, or null if the lookup failed
+		 */
+		void pricesLoaded(int[] itemIds, ItemPrice[] itemPrices);
+	}
+
+	static final long BATCH_DELAY_MS = 50;
+
+	private final ScheduledExecutorService executor;
 	private final ItemClient client;
+	private final Callback callback;
 
-	ItemPriceLoader(ScheduledExecutorService executor, ItemClient client)
+	// guarded by this
+	private final Set<Integer> pending = new LinkedHashSet<>();
+	private final Set<Integer> inFlight = new HashSet<>();
+	private boolean scheduled;
+
+	ItemPriceLoader(ScheduledExecutorService executor, ItemClient client, Callback callback)
 	{
-		this.executorService = MoreExecutors.listeningDecorator(executor);
+		this.executor = executor;
 		this.client = client;
+		this.callback = callback;
 	}
 
-	@Override
-	public ItemPrice load(Integer key) throws Exception
+	/**
+	 * Queue a lookup of an item's price. Does nothing if the item is
+	 * already queued or being looked up.
+	 *
+	 * @param itemId item id
+	 */
+	synchronized void request(int itemId)
 	{
-		// guava's Cache doesn't support null values
-		return EMPTY;
+		if (inFlight.contains(itemId) || !pending.add(itemId))
+		{
+			return;
+		}
+
+		if (!scheduled)
+		{
+			scheduled = true;
+			executor.schedule(this::fetchPending, BATCH_DELAY_MS, TimeUnit.MILLISECONDS);
+		}
 	}
 
-	@Override
-	public ListenableFuture<ItemPrice> reload(Integer key, ItemPrice oldValue)
+	/**
+	 * Look up prices synchronously, split into as few requests as the
+	 * service allows.
+	 *
+	 * @param itemIds item ids
+	 * @return the known prices
+	 * @throws IOException
+	 */
+	ItemPrice[] lookup(int[] itemIds) throws IOException
 	{
-		log.debug("Submitting lookup for item {}", key);
+		if (itemIds.length <= ItemClient.MAX_BATCH_LOOKUP)
+		{
+			return client.lookupItemPrices(itemIds);
+		}
 
-		return executorService.submit(() -> fetch(key));
+		List<ItemPrice> itemPrices = new ArrayList<>(itemIds.length);
+		for (int i = 0; i < itemIds.length; i += ItemClient.MAX_BATCH_LOOKUP)
+		{
+			int[] batch = Arrays.copyOfRange(itemIds, i, Math.min(itemIds.length, i + ItemClient.MAX_BATCH_LOOKUP));
+			itemPrices.addAll(Arrays.asList(client.lookupItemPrices(batch)));
+		}
+		return itemPrices.toArray(new ItemPrice[itemPrices.size()]);
 	}
 
-	private ItemPrice fetch(Integer key)
+	private void fetchPending()
 	{
+		int[] itemIds;
+
+		synchronized (this)
+		{
+			scheduled = false;
+			itemIds = toArray(pending);
+			inFlight.addAll(pending);
+			pending.clear();
+		}
+
+		log.debug("Looking up prices of {} items", itemIds.length);
+
+		ItemPrice[] itemPrices = null;
+		try
+		{
+			itemPrices = lookup(itemIds);
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to look up item prices!", ex);
+		}
+
 		try
 		{
-			ItemPrice itemPrice = client.lookupItemPrice(key);
-			if (itemPrice == null)
+			callback.pricesLoaded(itemIds, itemPrices);
+		}
+		finally
+		{
+			synchronized (this)
 			{
-				return NONE;
+				for (int itemId : itemIds)
+				{
+					inFlight.remove(itemId);
+				}
 			}
-			return itemPrice;
 		}
-		catch (IOException ex)
+	}
+
+	static int[] toArray(Collection<Integer> itemIds)
+	{
+		int[] array = new int[itemIds.size()];
+		int i = 0;
+		for (int itemId : itemIds)
 		{
-			log.warn("unable to look up item!", ex);
-			return NONE;
+			array[i++] = itemId;
 		}
+		return array;
 	}
-};
+}
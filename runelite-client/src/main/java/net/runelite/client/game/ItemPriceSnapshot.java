@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import static net.runelite.client.game.ItemManager.NONE;
+import net.runelite.client.game.ItemManager.PriceEntry;
+import net.runelite.http.api.item.Item;
+import net.runelite.http.api.item.ItemPrice;
+
+/**
+ * Reads and writes the on-disk copy of the known item prices. Each price is
+ * stored as its item id, the price, the time of the price and the time it
+ * was fetched.
+ */
+@Slf4j
+class ItemPriceSnapshot
+{
+	private static final int MAGIC = 0x52_4c_50_53;
+	private static final int VERSION = 1;
+
+	static Map<Integer, PriceEntry> load(File file)
+	{
+		Map<Integer, PriceEntry> prices = new HashMap<>();
+
+		if (!file.exists())
+		{
+			return prices;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+			{
+				log.debug("Ignoring price snapshot {} with unknown format", file);
+				return prices;
+			}
+
+			int count = in.readInt();
+			for (int i = 0; i < count; ++i)
+			{
+				int itemId = in.readInt();
+				int price = in.readInt();
+				long time = in.readLong();
+				long fetched = in.readLong();
+
+				Item item = new Item();
+				item.setId(itemId);
+
+				ItemPrice itemPrice = new ItemPrice();
+				itemPrice.setItem(item);
+				itemPrice.setPrice(price);
+				itemPrice.setTime(time != -1L ? Instant.ofEpochSecond(time) : null);
+
+				prices.put(itemId, new PriceEntry(itemPrice, fetched));
+			}
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to load price snapshot", ex);
+			prices.clear();
+		}
+
+		log.debug("Loaded {} prices from snapshot", prices.size());
+		return prices;
+	}
+
+	static void save(File file, Map<Integer, PriceEntry> prices) throws IOException
+	{
+		File parent = file.getParentFile();
+		parent.mkdirs();
+
+		File tempFile = new File(parent, file.getName() + ".tmp");
+
+		try (FileOutputStream fout = new FileOutputStream(tempFile))
+		{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fout));
+			Map<Integer, PriceEntry> known = new HashMap<>(prices);
+			known.values().removeIf(entry -> entry.getItemPrice() == NONE);
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(known.size());
+
+			for (Map.Entry<Integer, PriceEntry> entry : known.entrySet())
+			{
+				ItemPrice itemPrice = entry.getValue().getItemPrice();
+				Instant time = itemPrice.getTime();
+
+				out.writeInt(entry.getKey());
+				out.writeInt(itemPrice.getPrice());
+				out.writeLong(time != null ? time.getEpochSecond() : -1L);
+				out.writeLong(entry.getValue().getFetched());
+			}
+
+			out.flush();
+			fout.getFD().sync();
+		}
+
+		try
+		{
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException ex)
+		{
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
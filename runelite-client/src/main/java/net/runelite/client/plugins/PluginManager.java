@@ -24,6 +24,7 @@
  */
 package net.runelite.client.plugins;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.eventbus.EventBus;
@@ -34,23 +35,39 @@ import com.google.common.graph.Graphs;
 import com.google.common.graph.MutableGraph;
 import com.google.common.reflect.ClassPath;
 import com.google.common.reflect.ClassPath.ClassInfo;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Binder;
 import com.google.inject.CreationException;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.inject.Singleton;
 import javax.swing.SwingUtilities;
@@ -78,6 +95,11 @@ public class PluginManager
 	 */
 	private static final String PLUGIN_PACKAGE = "net.runelite.client.plugins";
 
+	/**
+	 * Class path resource listing the plugin classes, written by the plugin index processor
+	 */
+	private static final String PLUGIN_INDEX = "META-INF/runelite/plugins";
+
 	@Inject
 	EventBus eventBus;
 
@@ -98,6 +120,7 @@ public class PluginManager
 
 	private final List<Plugin> plugins = new CopyOnWriteArrayList<>();
 	private final List<Plugin> activePlugins = new CopyOnWriteArrayList<>();
+	private final StartupTrace startupTrace = new StartupTrace();
 	private final String runeliteGroupName = RuneLiteConfig.class
 			.getAnnotation(ConfigGroup.class).keyName();
 
@@ -195,24 +218,50 @@ public class PluginManager
 
 	public void loadCorePlugins() throws IOException
 	{
+		long start = System.nanoTime();
 		plugins.addAll(scanAndInstantiate(getClass().getClassLoader(), PLUGIN_PACKAGE));
+		log.info("Loaded {} plugins in {}ms", plugins.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 	}
 
-	public void startCorePlugins()
+	/**
+	 * Start all enabled plugins. Their startUp methods run in one pass on
+	 * the event thread, in dependency order.
+	 */
+	public synchronized void startCorePlugins()
 	{
-		List<Plugin> scannedPlugins = new ArrayList<>(plugins);
-		for (Plugin plugin : scannedPlugins)
+		long start = System.nanoTime();
+
+		List<Plugin> toStart = plugins.stream()
+			.filter(plugin -> !activePlugins.contains(plugin) && isPluginEnabled(plugin))
+			.collect(Collectors.toList());
+
+		Map<Plugin, Throwable> failures;
+		try
 		{
-			try
-			{
-				startPlugin(plugin);
-			}
-			catch (PluginInstantiationException ex)
+			failures = startUp(toStart);
+		}
+		catch (InterruptedException | InvocationTargetException ex)
+		{
+			log.warn("Unable to start plugins", ex);
+			return;
+		}
+
+		for (Plugin plugin : toStart)
+		{
+			Throwable failure = failures.get(plugin);
+			if (failure != null)
 			{
-				log.warn("Unable to start plugin {}. {}", plugin.getClass().getSimpleName(), ex);
+				log.warn("Unable to start plugin {}. {}", plugin.getClass().getSimpleName(), failure);
 				plugins.remove(plugin);
+				continue;
 			}
+
+			activePlugins.add(plugin);
+			started(plugin);
 		}
+
+		log.info("Started {} plugins in {}ms", toStart.size() - failures.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		startupTrace.log();
 	}
 
 	List<Plugin> scanAndInstantiate(ClassLoader classLoader, String packageName) throws IOException
@@ -223,14 +272,8 @@ public class PluginManager
 			.directed()
 			.build();
 
-		List<Plugin> scannedPlugins = new ArrayList<>();
-		ClassPath classPath = ClassPath.from(classLoader);
-
-		ImmutableSet<ClassInfo> classes = packageName == null ? classPath.getAllClasses()
-			: classPath.getTopLevelClassesRecursive(packageName);
-		for (ClassInfo classInfo : classes)
+		for (Class<?> clazz : findPluginClasses(classLoader, packageName))
 		{
-			Class<?> clazz = classInfo.load();
 			PluginDescriptor pluginDescriptor = clazz.getAnnotation(PluginDescriptor.class);
 
 			if (pluginDescriptor == null)
@@ -283,23 +326,146 @@ public class PluginManager
 		List<Class<? extends Plugin>> sortedPlugins = topologicalSort(graph);
 		sortedPlugins = Lists.reverse(sortedPlugins);
 
-		for (Class<? extends Plugin> pluginClazz : sortedPlugins)
+		return instantiatePlugins(graph, sortedPlugins);
+	}
+
+	/**
+	 * Find the plugin classes listed in the plugin index, falling back to
+	 * scanning the class path when there is no index, which is the case
+	 * when the client was compiled without the index processor.
+	 */
+	private Collection<Class<?>> findPluginClasses(ClassLoader classLoader, String packageName) throws IOException
+	{
+		Set<Class<?>> classes = new LinkedHashSet<>();
+		Enumeration<URL> indexes = classLoader.getResources(PLUGIN_INDEX);
+
+		if (!indexes.hasMoreElements())
 		{
-			Plugin plugin;
-			try
+			log.warn("No plugin index found, scanning the class path for plugins");
+
+			ClassPath classPath = ClassPath.from(classLoader);
+			ImmutableSet<ClassInfo> classInfos = packageName == null ? classPath.getAllClasses()
+				: classPath.getTopLevelClassesRecursive(packageName);
+			for (ClassInfo classInfo : classInfos)
 			{
-				plugin = instantiate(scannedPlugins, (Class<Plugin>) pluginClazz);
+				Class<?> clazz = classInfo.load();
+				if (clazz.getAnnotation(PluginDescriptor.class) != null || clazz.getSuperclass() == Plugin.class)
+				{
+					classes.add(clazz);
+				}
 			}
-			catch (PluginInstantiationException ex)
+			return classes;
+		}
+
+		while (indexes.hasMoreElements())
+		{
+			URL index = indexes.nextElement();
+			try (BufferedReader in = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8)))
 			{
-				log.warn("Error instantiating plugin!", ex);
-				continue;
-			}
+				String className;
+				while ((className = in.readLine()) != null)
+				{
+					if (className.isEmpty() || (packageName != null && !className.startsWith(packageName + ".")))
+					{
+						continue;
+					}
 
-			scannedPlugins.add(plugin);
+					try
+					{
+						classes.add(classLoader.loadClass(className));
+					}
+					catch (ClassNotFoundException ex)
+					{
+						log.warn("Plugin {} from {} not found", className, index);
+					}
+				}
+			}
 		}
 
-		return scannedPlugins;
+		return classes;
+	}
+
+	/**
+	 * Instantiate plugins in parallel. Each plugin is created once the
+	 * plugins it depends on have been created, so independent branches of
+	 * the dependency graph don't wait for each other.
+	 *
+	 * @param graph plugin dependency graph, with edges from a plugin to its dependencies
+	 * @param sortedPlugins plugins ordered so dependencies come first
+	 * @return the plugins which could be instantiated, in the same order
+	 */
+	private List<Plugin> instantiatePlugins(Graph<Class<? extends Plugin>> graph, List<Class<? extends Plugin>> sortedPlugins)
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+			new ThreadFactoryBuilder()
+				.setNameFormat("plugin-loader-%d")
+				.setDaemon(true)
+				.build());
+
+		try
+		{
+			Map<Class<? extends Plugin>, CompletableFuture<Plugin>> futures = new HashMap<>();
+
+			for (Class<? extends Plugin> pluginClazz : sortedPlugins)
+			{
+				List<CompletableFuture<Plugin>> dependencies = graph.successors(pluginClazz).stream()
+					.map(futures::get)
+					.collect(Collectors.toList());
+
+				CompletableFuture<Plugin> future = CompletableFuture
+					.allOf(dependencies.toArray(new CompletableFuture[dependencies.size()]))
+					.thenApplyAsync(v ->
+					{
+						List<Plugin> loaded = dependencies.stream()
+							.map(CompletableFuture::join)
+							.filter(Objects::nonNull)
+							.collect(Collectors.toList());
+
+						long start = System.nanoTime();
+						try
+						{
+							return instantiate(loaded, (Class<Plugin>) pluginClazz);
+						}
+						catch (PluginInstantiationException ex)
+						{
+							log.warn("Error instantiating plugin!", ex);
+							return null;
+						}
+						finally
+						{
+							startupTrace.record(pluginClazz, StartupTrace.Phase.INSTANTIATE, System.nanoTime() - start);
+						}
+					}, pool);
+
+				futures.put(pluginClazz, future);
+			}
+
+			List<Plugin> scannedPlugins = new ArrayList<>();
+			for (Class<? extends Plugin> pluginClazz : sortedPlugins)
+			{
+				Plugin plugin;
+				try
+				{
+					plugin = futures.get(pluginClazz).join();
+				}
+				catch (CompletionException ex)
+				{
+					Throwables.throwIfUnchecked(ex.getCause());
+					throw ex;
+				}
+
+				if (plugin != null)
+				{
+					scannedPlugins.add(plugin);
+				}
+			}
+
+			return scannedPlugins;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
 	}
 
 	public synchronized boolean startPlugin(Plugin plugin) throws PluginInstantiationException
@@ -313,31 +479,73 @@ public class PluginManager
 
 		try
 		{
-			// plugins always start in the event thread
-			SwingUtilities.invokeAndWait(() ->
+			Throwable failure = startUp(Collections.singletonList(plugin)).get(plugin);
+			if (failure != null)
 			{
+				throw new PluginInstantiationException(failure);
+			}
+		}
+		catch (InterruptedException | InvocationTargetException ex)
+		{
+			throw new PluginInstantiationException(ex);
+		}
+
+		started(plugin);
+		return true;
+	}
+
+	/**
+	 * Run the startUp method of each plugin, all in one pass on the event thread
+	 *
+	 * @param plugins plugins to start, in order
+	 * @return the exceptions thrown by plugins which failed to start
+	 */
+	private Map<Plugin, Throwable> startUp(List<Plugin> plugins) throws InterruptedException, InvocationTargetException
+	{
+		Map<Plugin, Throwable> failures = new HashMap<>();
+		Runnable startUp = () ->
+		{
+			for (Plugin plugin : plugins)
+			{
+				long start = System.nanoTime();
 				try
 				{
 					plugin.startUp();
 				}
-				catch (Exception ex)
+				catch (Throwable ex)
 				{
-					throw new RuntimeException(ex);
+					// one plugin failing, even with an Error, must not leave the ones
+					// already started in this pass unregistered
+					failures.put(plugin, ex);
 				}
-			});
+				startupTrace.record(plugin.getClass(), StartupTrace.Phase.START_UP, System.nanoTime() - start);
+			}
+		};
 
-			log.debug("Plugin {} is now running", plugin.getClass().getSimpleName());
-			regionTileManager.simulateObjectSpawns(plugin);
-			eventBus.register(plugin);
-			schedule(plugin);
-			eventBus.post(new PluginChanged(plugin, true));
+		// plugins always start in the event thread
+		if (SwingUtilities.isEventDispatchThread())
+		{
+			startUp.run();
 		}
-		catch (InterruptedException | InvocationTargetException ex)
+		else
 		{
-			throw new PluginInstantiationException(ex);
+			SwingUtilities.invokeAndWait(startUp);
 		}
 
-		return true;
+		return failures;
+	}
+
+	private void started(Plugin plugin)
+	{
+		long start = System.nanoTime();
+
+		log.debug("Plugin {} is now running", plugin.getClass().getSimpleName());
+		regionTileManager.simulateObjectSpawns(plugin);
+		eventBus.register(plugin);
+		schedule(plugin);
+		eventBus.post(new PluginChanged(plugin, true));
+
+		startupTrace.record(plugin.getClass(), StartupTrace.Phase.REGISTER, System.nanoTime() - start);
 	}
 
 	public synchronized boolean stopPlugin(Plugin plugin) throws PluginInstantiationException
@@ -445,6 +653,11 @@ public class PluginManager
 		return plugin;
 	}
 
+	StartupTrace getStartupTrace()
+	{
+		return startupTrace;
+	}
+
 	void add(Plugin plugin)
 	{
 		plugins.add(plugin);
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Time spent on each plugin while the client starts
+ */
+@Slf4j
+class StartupTrace
+{
+	enum Phase
+	{
+		/**
+		 * creating the plugin and its injector
+		 */
+		INSTANTIATE,
+		/**
+		 * {@link Plugin#startUp()} on the event thread
+		 */
+		START_UP,
+		/**
+		 * registering the plugin's subscribers and scheduled methods
+		 */
+		REGISTER
+	}
+
+	private final Map<Class<?>, long[]> timings = new ConcurrentHashMap<>();
+
+	void record(Class<?> pluginClass, Phase phase, long nanos)
+	{
+		long[] phases = timings.computeIfAbsent(pluginClass, k -> new long[Phase.values().length]);
+		synchronized (phases)
+		{
+			phases[phase.ordinal()] += nanos;
+		}
+	}
+
+	/**
+	 * @return nanoseconds spent on a plugin in a phase
+	 */
+	long getNanos(Class<?> pluginClass, Phase phase)
+	{
+		long[] phases = timings.get(pluginClass);
+		if (phases == null)
+		{
+			return 0;
+		}
+
+		synchronized (phases)
+		{
+			return phases[phase.ordinal()];
+		}
+	}
+
+	private long getTotalNanos(Class<?> pluginClass)
+	{
+		long total = 0;
+		for (Phase phase : Phase.values())
+		{
+			total += getNanos(pluginClass, phase);
+		}
+		return total;
+	}
+
+	/**
+	 * Log the time spent on each plugin, slowest first
+	 */
+	void log()
+	{
+		if (!log.isDebugEnabled())
+		{
+			return;
+		}
+
+		timings.keySet().stream()
+			.sorted(Comparator.comparingLong(this::getTotalNanos).reversed())
+			.forEach(pluginClass -> log.debug("{}: instantiate {}ms, startUp {}ms, register {}ms",
+				pluginClass.getSimpleName(),
+				TimeUnit.NANOSECONDS.toMillis(getNanos(pluginClass, Phase.INSTANTIATE)),
+				TimeUnit.NANOSECONDS.toMillis(getNanos(pluginClass, Phase.START_UP)),
+				TimeUnit.NANOSECONDS.toMillis(getNanos(pluginClass, Phase.REGISTER))));
+	}
+}
@@ -56,7 +56,7 @@ class BoostsOverlay extends Overlay
 	@Inject
 	private SkillIconManager iconManager;
 
-	private PanelComponent panelComponent;
+	private final PanelComponent panelComponent = new PanelComponent();
 
 	@Inject
 	BoostsOverlay(Client client, BoostsConfig config, InfoBoxManager infoBoxManager)
@@ -66,12 +66,13 @@ class BoostsOverlay extends Overlay
 		this.client = client;
 		this.config = config;
 		this.infoBoxManager = infoBoxManager;
+		panelComponent.setRetained(true);
 	}
 
 	@Override
 	public Dimension render(Graphics2D graphics, Point parent)
 	{
-		panelComponent = new PanelComponent();
+		panelComponent.getLines().clear();
 
 		for (Skill skill : plugin.getShownSkills())
 		{
@@ -155,6 +155,14 @@ public class DevToolsPanel extends PluginPanel
 		});
 		container.add(renderLocationBtn);
 
+		final JButton overlayTimingBtn = new JButton("Overlay Timing");
+		overlayTimingBtn.addActionListener(e ->
+		{
+			highlightButton(overlayTimingBtn);
+			plugin.toggleOverlayTiming();
+		});
+		container.add(overlayTimingBtn);
+
 		final JButton widgetInspectorBtn = new JButton("Inspector");
 		widgetInspectorBtn.addActionListener(e ->
 		{
@@ -39,6 +39,7 @@ import net.runelite.client.ui.ClientUI;
 import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayRenderer;
 
 @PluginDescriptor(
 	name = "Developer Tools",
@@ -55,6 +56,12 @@ public class DevToolsPlugin extends Plugin
 	@Inject
 	private LocationOverlay locationOverlay;
 
+	@Inject
+	private OverlayTimingOverlay overlayTimingOverlay;
+
+	@Inject
+	private OverlayRenderer overlayRenderer;
+
 	private boolean togglePlayers;
 	private boolean toggleNpcs;
 	private boolean toggleGroundItems;
@@ -65,6 +72,7 @@ public class DevToolsPlugin extends Plugin
 	private boolean toggleInventory;
 	private boolean toggleProjectiles;
 	private boolean toggleLocation;
+	private boolean toggleOverlayTiming;
 
 	Widget currentWidget;
 	int itemIndex = -1;
@@ -104,12 +112,15 @@ public class DevToolsPlugin extends Plugin
 	protected void shutDown() throws Exception
 	{
 		ui.getPluginToolbar().removeNavigation(navButton);
+
+		toggleOverlayTiming = false;
+		overlayRenderer.setProfiling(false);
 	}
 
 	@Override
 	public Collection<Overlay> getOverlays()
 	{
-		return Arrays.asList(overlay, locationOverlay);
+		return Arrays.asList(overlay, locationOverlay, overlayTimingOverlay);
 	}
 
 	Font getFont()
@@ -167,6 +178,12 @@ public class DevToolsPlugin extends Plugin
 		toggleLocation = !toggleLocation;
 	}
 
+	void toggleOverlayTiming()
+	{
+		toggleOverlayTiming = !toggleOverlayTiming;
+		overlayRenderer.setProfiling(toggleOverlayTiming);
+	}
+
 	boolean isTogglePlayers()
 	{
 		return togglePlayers;
@@ -216,4 +233,9 @@ public class DevToolsPlugin extends Plugin
 	{
 		return toggleLocation;
 	}
+
+	boolean isToggleOverlayTiming()
+	{
+		return toggleOverlayTiming;
+	}
 }
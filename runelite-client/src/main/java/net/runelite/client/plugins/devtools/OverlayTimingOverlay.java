@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.devtools;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayRenderer;
+import net.runelite.client.ui.overlay.OverlayStats;
+import net.runelite.client.ui.overlay.components.PanelComponent;
+
+/**
+ * Lists the overlays which take the longest to render
+ */
+public class OverlayTimingOverlay extends Overlay
+{
+	private static final int MAX_OVERLAYS = 10;
+	private static final double SLOW_NANOS = 1_000_000;
+
+	private final DevToolsPlugin plugin;
+	private final OverlayRenderer overlayRenderer;
+
+	@Inject
+	OverlayTimingOverlay(DevToolsPlugin plugin, OverlayRenderer overlayRenderer)
+	{
+		setPosition(OverlayPosition.TOP_RIGHT);
+		this.plugin = plugin;
+		this.overlayRenderer = overlayRenderer;
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics, java.awt.Point parent)
+	{
+		if (!plugin.isToggleOverlayTiming())
+		{
+			return null;
+		}
+
+		final List<OverlayStats> stats = overlayRenderer.getOverlayStats().stream()
+			.filter(s -> s.getRenders() > 0)
+			.sorted(Comparator.comparingDouble(OverlayStats::getAverageNanos).reversed())
+			.limit(MAX_OVERLAYS)
+			.collect(Collectors.toList());
+
+		final PanelComponent panelComponent = new PanelComponent();
+		panelComponent.setTitle("Overlay time / alloc");
+		panelComponent.setWidth(220);
+
+		for (OverlayStats overlay : stats)
+		{
+			panelComponent.getLines().add(new PanelComponent.Line(
+				overlay.getName(),
+				Color.WHITE,
+				String.format("%.0fus %.1fKB", overlay.getAverageNanos() / 1000, overlay.getAverageBytes() / 1024),
+				overlay.getAverageNanos() > SLOW_NANOS ? Color.RED : Color.WHITE
+			));
+		}
+
+		return panelComponent.render(graphics, parent);
+	}
+}
@@ -232,7 +232,10 @@ public class ExaminePlugin extends Plugin
 		}
 
 		cache.put(key, Boolean.TRUE);
-		executor.submit(() -> submitExamine(pendingExamine, event.getMessage()));
+
+		// the event is reused once dispatched, so take the message now
+		String message = event.getMessage();
+		executor.submit(() -> submitExamine(pendingExamine, message));
 	}
 
 	private void findExamineItem(PendingExamine pendingExamine)
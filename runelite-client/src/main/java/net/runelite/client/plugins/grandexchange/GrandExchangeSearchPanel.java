@@ -31,9 +31,12 @@ import java.awt.GridLayout;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
@@ -154,6 +157,19 @@ class GrandExchangeSearchPanel extends JPanel
 		{
 			itemClient = new ItemClient();
 
+			// look up every result's price in one request
+			Map<Integer, ItemPrice> itemPrices = Collections.emptyMap();
+			try
+			{
+				itemPrices = itemManager.getItemPrices(result.getItems().stream()
+					.map(Item::getId)
+					.collect(Collectors.toList()));
+			}
+			catch (IOException ex)
+			{
+				log.warn("Unable to fetch item prices for {}", lookup, ex);
+			}
+
 			for (Item item : result.getItems())
 			{
 				int itemId = item.getId();
@@ -164,15 +180,7 @@ class GrandExchangeSearchPanel extends JPanel
 					continue;
 				}
 
-				ItemPrice itemPrice = null;
-				try
-				{
-					itemPrice = itemManager.getItemPrice(itemId);
-				}
-				catch (IOException ex)
-				{
-					log.warn("Unable to fetch item price for {}", itemId, ex);
-				}
+				ItemPrice itemPrice = itemPrices.get(itemId);
 
 				BufferedImage itemImage = null;
 				try
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.grounditems;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import lombok.Getter;
+import net.runelite.api.ItemLayer;
+import net.runelite.api.Point;
+import net.runelite.api.Tile;
+
+/**
+ * The items on a tile, along with the text drawn for them. The text is
+ * kept until the items, the config or the prices change.
+ */
+class GroundItemPile
+{
+	@Getter
+	private final Tile tile;
+
+	@Getter
+	private final int plane;
+
+	@Getter
+	private final int regionX;
+
+	@Getter
+	private final int regionY;
+
+	@Getter
+	private ItemLayer itemLayer;
+
+	// the config and prices revisions the text was built with
+	private int configRevision;
+	private int pricesRevision;
+	private boolean built;
+
+	@Getter
+	private String[] texts;
+
+	@Getter
+	private Color[] colors;
+
+	// widths of the texts in the font they were last measured with
+	private Font font;
+	private int[] widths;
+
+	GroundItemPile(Tile tile, ItemLayer itemLayer)
+	{
+		Point location = tile.getRegionLocation();
+		this.tile = tile;
+		this.plane = tile.getPlane();
+		this.regionX = location.getX();
+		this.regionY = location.getY();
+		this.itemLayer = itemLayer;
+	}
+
+	void setItemLayer(ItemLayer itemLayer)
+	{
+		this.itemLayer = itemLayer;
+		built = false;
+	}
+
+	/**
+	 * Check if the text needs to be built again
+	 *
+	 * @param configRevision current config revision
+	 * @param pricesRevision current prices revision
+	 * @return true if the text is missing or out of date
+	 */
+	boolean isStale(int configRevision, int pricesRevision)
+	{
+		return !built || this.configRevision != configRevision || this.pricesRevision != pricesRevision;
+	}
+
+	void setText(String[] texts, Color[] colors, int configRevision, int pricesRevision)
+	{
+		this.texts = texts;
+		this.colors = colors;
+		this.configRevision = configRevision;
+		this.pricesRevision = pricesRevision;
+		this.widths = null;
+		built = true;
+	}
+
+	int[] getWidths(FontMetrics fm)
+	{
+		if (widths == null || !fm.getFont().equals(font))
+		{
+			widths = new int[texts.length];
+			for (int i = 0; i < texts.length; ++i)
+			{
+				widths[i] = fm.stringWidth(texts[i]);
+			}
+			font = fm.getFont();
+		}
+		return widths;
+	}
+}
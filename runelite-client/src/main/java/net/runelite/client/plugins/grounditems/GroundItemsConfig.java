@@ -96,7 +96,7 @@ public interface GroundItemsConfig extends Config
 	@ConfigItem(
 		keyName = "highlightedItems",
 		name = "Highlighted Items",
-		description = "Configures specifically highlighted ground items. Format: (item), (item)",
+		description = "Configures specifically highlighted ground items, * matches any text. Format: (item), (item)",
 		position = 6
 	)
 	default String getHighlightItems()
@@ -107,7 +107,7 @@ public interface GroundItemsConfig extends Config
 	@ConfigItem(
 		keyName = "hiddenItems",
 		name = "Hidden Items",
-		description = "Configures hidden ground items. Format: (item), (item)",
+		description = "Configures hidden ground items, * matches any text. Format: (item), (item)",
 		position = 7
 	)
 	default String getHiddenItems()
@@ -24,14 +24,11 @@
  */
 package net.runelite.client.plugins.grounditems;
 
-import static java.lang.Math.max;
-import static java.lang.Math.min;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -45,8 +42,6 @@ import net.runelite.api.ItemLayer;
 import net.runelite.api.Node;
 import net.runelite.api.Player;
 import net.runelite.api.Point;
-import net.runelite.api.Region;
-import net.runelite.api.Tile;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.FontManager;
@@ -58,7 +53,6 @@ import net.runelite.http.api.item.ItemPrice;
 
 public class GroundItemsOverlay extends Overlay
 {
-	private static final int REGION_SIZE = 104;
 	// We must offset the text on the z-axis such that
 	// it doesn't obscure the ground items below it.
 	private static final int OFFSET_Z = 20;
@@ -79,41 +73,30 @@ public class GroundItemsOverlay extends Overlay
 	private static final int INSANE_VALUE = 10_000_000;
 	// Used when getting High Alchemy value - multiplied by general store price.
 	private static final float HIGH_ALCHEMY_CONSTANT = 0.6f;
-	// Regex for splitting the hidden items in the config.
-	private static final String DELIMITER_REGEX = "\\s*,\\s*";
 	// ItemID for coins
 	private static final int COINS = ItemID.COINS_995;
 
 	private final Client client;
 	private final GroundItemsConfig config;
+	private final GroundItemsPlugin plugin;
 	private final StringBuilder itemStringBuilder = new StringBuilder();
 
 	@Inject
 	private ItemManager itemManager;
 
 	@Inject
-	public GroundItemsOverlay(Client client, GroundItemsConfig config)
+	public GroundItemsOverlay(Client client, GroundItemsConfig config, GroundItemsPlugin plugin)
 	{
 		setPosition(OverlayPosition.DYNAMIC);
 		setLayer(OverlayLayer.ABOVE_SCENE);
 		this.client = client;
 		this.config = config;
+		this.plugin = plugin;
 	}
 
 	@Override
 	public Dimension render(Graphics2D graphics, java.awt.Point parent)
 	{
-		// gets the hidden/highlighted items from the text box in the config
-		String configItems = config.getHiddenItems().toLowerCase();
-		List<String> hiddenItems = Arrays.asList(configItems.split(DELIMITER_REGEX));
-		// note: both of these lists are immutable
-		configItems = config.getHighlightItems().toLowerCase();
-		List<String> highlightedItems = Arrays.asList(configItems.split(DELIMITER_REGEX));
-
-		Region region = client.getRegion();
-		Tile[][][] tiles = region.getTiles();
-		FontMetrics fm = graphics.getFontMetrics();
-
 		Player player = client.getLocalPlayer();
 		if (player == null || client.getViewportWidget() == null)
 		{
@@ -121,177 +104,189 @@ public class GroundItemsOverlay extends Overlay
 		}
 
 		graphics.setFont(FontManager.getRunescapeSmallFont());
+		FontMetrics fm = graphics.getFontMetrics();
 
 		int z = client.getPlane();
 		LocalPoint from = player.getLocalLocation();
+		int fromX = from.getRegionX();
+		int fromY = from.getRegionY();
 
-		int lowerX = max(0, from.getRegionX() - MAX_RANGE);
-		int lowerY = max(0, from.getRegionY() - MAX_RANGE);
+		int configRevision = plugin.getConfigRevision();
+		int pricesRevision = itemManager.getPricesRevision();
 
-		int upperX = min(from.getRegionX() + MAX_RANGE, REGION_SIZE - 1);
-		int upperY = min(from.getRegionY() + MAX_RANGE, REGION_SIZE - 1);
+		for (GroundItemPile pile : plugin.getPiles())
+		{
+			if (pile.getPlane() != z
+				|| Math.abs(pile.getRegionX() - fromX) > MAX_RANGE
+				|| Math.abs(pile.getRegionY() - fromY) > MAX_RANGE)
+			{
+				continue;
+			}
+
+			ItemLayer itemLayer = pile.getItemLayer();
+			Point point = itemLayer.getCanvasLocation(itemLayer.getHeight() + OFFSET_Z);
+			// if the item is offscreen, don't bother drawing it
+			if (point == null)
+			{
+				continue;
+			}
 
-		for (int x = lowerX; x <= upperX; ++x)
+			if (pile.isStale(configRevision, pricesRevision))
+			{
+				buildText(pile, configRevision, pricesRevision);
+			}
+
+			String[] texts = pile.getTexts();
+
+			Color[] colors = pile.getColors();
+			int[] widths = pile.getWidths(fm);
+
+			for (int i = 0; i < texts.length; ++i)
+			{
+				String itemString = texts[i];
+				int screenX = point.getX() + 2 - (widths[i] / 2);
+				int screenY = point.getY() - (STRING_GAP * i);
+
+				// Drawing the shadow for the text, 1px on both x and y
+				graphics.setColor(Color.BLACK);
+				graphics.drawString(itemString, screenX + 1, screenY + 1);
+				// Drawing the text itself
+				graphics.setColor(colors[i]);
+				graphics.drawString(itemString, screenX, screenY);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Build the text drawn for the items of a pile, which is kept until the
+	 * pile, the config or the prices change
+	 */
+	void buildText(GroundItemPile pile, int configRevision, int pricesRevision)
+	{
+		ItemMatcher hiddenItems = plugin.getHiddenItems();
+		ItemMatcher highlightedItems = plugin.getHighlightedItems();
+
+		// quantities of the unnoted items, in the order they are on the pile
+		Map<Integer, Integer> items = new LinkedHashMap<>();
+		Node current = pile.getItemLayer().getBottom();
+		while (current instanceof Item)
 		{
-			for (int y = lowerY; y <= upperY; ++y)
+			Item item = (Item) current;
+			int itemId = item.getId();
+			ItemComposition itemDefinition = itemManager.getItemComposition(itemId);
+
+			if (config.showHighlightedOnly() ? highlightedItems.matches(itemDefinition.getName()) : !hiddenItems.matches(itemDefinition.getName()))
 			{
-				Tile tile = tiles[z][x][y];
-				if (tile == null)
+				if (itemDefinition.getNote() != -1)
 				{
-					continue;
+					itemId = itemDefinition.getLinkedNoteId();
 				}
 
-				ItemLayer itemLayer = tile.getItemLayer();
-				if (itemLayer == null)
+				items.merge(itemId, item.getQuantity(), Integer::sum);
+			}
+
+			current = current.getNext();
+		}
+
+		List<String> texts = new ArrayList<>(items.size());
+		List<Color> colors = new ArrayList<>(items.size());
+
+		for (Map.Entry<Integer, Integer> entry : items.entrySet())
+		{
+			int itemId = entry.getKey();
+			int quantity = entry.getValue();
+			ItemComposition item = itemManager.getItemComposition(itemId);
+
+			if (item == null)
+			{
+				continue;
+			}
+
+			boolean highlighted = highlightedItems.matches(item.getName());
+			ItemPrice itemPrice = itemManager.getItemPriceAsync(itemId);
+
+			int gePrice, alchPrice;
+
+			if (itemId == COINS)
+			{
+				gePrice = quantity;
+				alchPrice = quantity;
+			}
+			else
+			{
+				gePrice = itemPrice == null ? 0 : itemPrice.getPrice() * quantity;
+				alchPrice = Math.round(item.getPrice() * HIGH_ALCHEMY_CONSTANT) * quantity;
+			}
+
+			if (!highlighted && gePrice != 0
+				&& (gePrice < config.getHideUnderGeValue() || alchPrice < config.getHideUnderHAValue()))
+			{
+				continue;
+			}
+
+			itemStringBuilder.append(item.getName());
+			if (quantity > 1)
+			{
+				if (quantity >= MAX_QUANTITY)
 				{
-					continue;
+					itemStringBuilder.append(" (Lots!)");
 				}
-
-				Node current = itemLayer.getBottom();
-				Map<Integer, Integer> items = new LinkedHashMap<>();
-				// adds the items on the ground to the ArrayList to be drawn
-				while (current instanceof Item)
+				else
 				{
-					Item item = (Item) current;
-					int itemId = item.getId();
-					int itemQuantity = item.getQuantity();
-					ItemComposition itemDefinition = itemManager.getItemComposition(itemId);
-
-					Integer currentQuantity = items.get(itemId);
-
-					String itemName = itemDefinition.getName().toLowerCase();
-					if (config.showHighlightedOnly() ? highlightedItems.contains(itemName) : !hiddenItems.contains(itemName))
-					{
-						if (itemDefinition.getNote() != -1)
-						{
-							itemId = itemDefinition.getLinkedNoteId();
-						}
-
-						int quantity = currentQuantity == null
-							? itemQuantity
-							: currentQuantity + itemQuantity;
-
-						ItemPrice itemPrice = itemManager.getItemPriceAsync(itemId);
-
-						int gePrice, alchPrice;
-
-						if (itemId == COINS)
-						{
-							gePrice = quantity;
-							alchPrice = quantity;
-						}
-						else
-						{
-							gePrice = itemPrice == null ? 0 : itemPrice.getPrice() * quantity;
-							alchPrice = Math.round(itemDefinition.getPrice() * HIGH_ALCHEMY_CONSTANT) * quantity;
-						}
-						if (highlightedItems.contains(itemDefinition.getName().toLowerCase()) ||
-							gePrice == 0 || ((gePrice >= config.getHideUnderGeValue()) &&
-							(alchPrice >= config.getHideUnderHAValue())))
-						{
-							items.put(itemId, quantity);
-						}
-					}
-
-					current = current.getNext();
+					itemStringBuilder.append(" (").append(quantity).append(")");
 				}
+			}
 
-				// The bottom item is drawn first
-				List<Integer> itemIds = new ArrayList<>(items.keySet());
-				Collections.reverse(itemIds);
-
-				for (int i = 0; i < itemIds.size(); ++i)
+			Color textColor = config.defaultColor(); // Color to use when drawing the ground item
+			if (itemPrice != null && config.showGEPrice())
+			{
+				int cost = itemPrice.getPrice() * quantity;
+				// set the color according to rarity, if possible
+				if (cost >= INSANE_VALUE) // 10,000,000 gp
 				{
-					Point point = itemLayer.getCanvasLocation(itemLayer.getHeight() + OFFSET_Z);
-					// if the item is offscreen, don't bother drawing it
-					if (point == null)
-					{
-						continue;
-					}
-
-					int itemId = itemIds.get(i);
-					int quantity = items.get(itemId);
-					ItemComposition item = itemManager.getItemComposition(itemId);
-
-					if (item == null)
-					{
-						continue;
-					}
-
-					itemStringBuilder.append(item.getName());
-					if (quantity > 1)
-					{
-						if (quantity >= MAX_QUANTITY)
-						{
-							itemStringBuilder.append(" (Lots!)");
-						}
-						else
-						{
-							itemStringBuilder.append(" (").append(quantity).append(")");
-						}
-					}
-
-					// sets item ID to unnoted version, if noted
-					if (item.getNote() != -1)
-					{
-						itemId = item.getLinkedNoteId();
-					}
-
-					Color textColor = config.defaultColor(); // Color to use when drawing the ground item
-					ItemPrice itemPrice = itemManager.getItemPriceAsync(itemId);
-					if (itemPrice != null && config.showGEPrice())
-					{
-						int cost = itemPrice.getPrice() * quantity;
-						// set the color according to rarity, if possible
-						if (cost >= INSANE_VALUE) // 10,000,000 gp
-						{
-							textColor = config.insaneValueColor();
-						}
-						else if (cost >= HIGH_VALUE) // 1,000,000 gp
-						{
-							textColor = config.highValueColor();
-						}
-						else if (cost >= MEDIUM_VALUE) // 100,000 gp
-						{
-							textColor = config.mediumValueColor();
-						}
-						else if (cost >= LOW_VALUE) // 20,000 gp
-						{
-							textColor = config.lowValueColor();
-						}
-
-						itemStringBuilder.append(" (EX: ")
-							.append(StackFormatter.quantityToStackSize(cost))
-							.append(" gp)");
-					}
-
-					if (config.showHAValue())
-					{
-						itemStringBuilder.append(" (HA: ")
-							.append(Math.round(item.getPrice() * HIGH_ALCHEMY_CONSTANT) * quantity)
-							.append(" gp)");
-					}
-
-					if (highlightedItems.contains(item.getName().toLowerCase()))
-					{
-						textColor = config.highlightedColor();
-					}
-
-					String itemString = itemStringBuilder.toString();
-					itemStringBuilder.setLength(0);
-
-					int screenX = point.getX() + 2 - (fm.stringWidth(itemString) / 2);
-
-					// Drawing the shadow for the text, 1px on both x and y
-					graphics.setColor(Color.BLACK);
-					graphics.drawString(itemString, screenX + 1, point.getY() - (STRING_GAP * i) + 1);
-					// Drawing the text itself
-					graphics.setColor(textColor);
-					graphics.drawString(itemString, screenX, point.getY() - (STRING_GAP * i));
+					textColor = config.insaneValueColor();
 				}
+				else if (cost >= HIGH_VALUE) // 1,000,000 gp
+				{
+					textColor = config.highValueColor();
+				}
+				else if (cost >= MEDIUM_VALUE) // 100,000 gp
+				{
+					textColor = config.mediumValueColor();
+				}
+				else if (cost >= LOW_VALUE) // 20,000 gp
+				{
+					textColor = config.lowValueColor();
+				}
+
+				itemStringBuilder.append(" (EX: ")
+					.append(StackFormatter.quantityToStackSize(cost))
+					.append(" gp)");
+			}
+
+			if (config.showHAValue())
+			{
+				itemStringBuilder.append(" (HA: ")
+					.append(Math.round(item.getPrice() * HIGH_ALCHEMY_CONSTANT) * quantity)
+					.append(" gp)");
+			}
+
+			if (highlighted)
+			{
+				textColor = config.highlightedColor();
 			}
+
+			texts.add(itemStringBuilder.toString());
+			colors.add(textColor);
+			itemStringBuilder.setLength(0);
 		}
 
-		return null;
+		// The bottom item is drawn first
+		Collections.reverse(texts);
+		Collections.reverse(colors);
+
+		pile.setText(texts.toArray(new String[texts.size()]), colors.toArray(new Color[colors.size()]), configRevision, pricesRevision);
 	}
 }
@@ -24,8 +24,25 @@
  */
 package net.runelite.client.plugins.grounditems;
 
+import com.google.common.eventbus.Subscribe;
 import com.google.inject.Provides;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import javax.inject.Inject;
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.ItemLayer;
+import net.runelite.api.Region;
+import net.runelite.api.Tile;
+import net.runelite.api.events.ConfigChanged;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemLayerChanged;
+import net.runelite.api.events.ItemLayerDespawned;
+import net.runelite.api.events.ItemLayerSpawned;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
@@ -37,11 +54,32 @@ import net.runelite.client.ui.overlay.Overlay;
 public class GroundItemsPlugin extends Plugin
 {
 	@Inject
-	private ConfigManager configManager;
+	private Client client;
+
+	@Inject
+	private GroundItemsConfig config;
 
 	@Inject
 	private GroundItemsOverlay overlay;
 
+	// item piles by tile, kept up to date from the item layer events
+	private final Map<Tile, GroundItemPile> piles = new HashMap<>();
+
+	// set when the piles may be missing items, eg. after a region load
+	private boolean rescan = true;
+
+	@Getter(AccessLevel.PACKAGE)
+	private volatile ItemMatcher hiddenItems;
+
+	@Getter(AccessLevel.PACKAGE)
+	private volatile ItemMatcher highlightedItems;
+
+	/**
+	 * bumped on every config change, to invalidate the text of the piles
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private volatile int configRevision;
+
 	@Provides
 	GroundItemsConfig provideConfig(ConfigManager configManager)
 	{
@@ -54,4 +92,129 @@ public class GroundItemsPlugin extends Plugin
 		return overlay;
 	}
 
+	@Override
+	protected void startUp() throws Exception
+	{
+		compileFilters();
+		rescan = true;
+	}
+
+	@Override
+	protected void shutDown() throws Exception
+	{
+		piles.clear();
+	}
+
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (event.getGroup().equals("grounditems"))
+		{
+			compileFilters();
+		}
+	}
+
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event)
+	{
+		if (event.getGameState() == GameState.LOADING)
+		{
+			piles.clear();
+			rescan = true;
+		}
+	}
+
+	@Subscribe
+	public void onGameTick(GameTick event)
+	{
+		if (rescan)
+		{
+			rescan = false;
+			scanRegion();
+		}
+	}
+
+	@Subscribe
+	public void onItemLayerSpawned(ItemLayerSpawned event)
+	{
+		itemLayerChanged(event.getTile(), event.getItemLayer());
+	}
+
+	@Subscribe
+	public void onItemLayerChanged(ItemLayerChanged event)
+	{
+		itemLayerChanged(event.getTile(), event.getItemLayer());
+	}
+
+	@Subscribe
+	public void onItemLayerDespawned(ItemLayerDespawned event)
+	{
+		piles.remove(event.getTile());
+	}
+
+	Collection<GroundItemPile> getPiles()
+	{
+		return piles.values();
+	}
+
+	private void compileFilters()
+	{
+		hiddenItems = ItemMatcher.compile(config.getHiddenItems());
+		highlightedItems = ItemMatcher.compile(config.getHighlightItems());
+		++configRevision;
+	}
+
+	private void itemLayerChanged(Tile tile, ItemLayer itemLayer)
+	{
+		GroundItemPile pile = piles.get(tile);
+		if (pile == null)
+		{
+			piles.put(tile, new GroundItemPile(tile, itemLayer));
+		}
+		else
+		{
+			pile.setItemLayer(itemLayer);
+		}
+	}
+
+	/**
+	 * Pick up the piles already in the region, which spawned before the
+	 * plugin was started or while the region was loading
+	 */
+	private void scanRegion()
+	{
+		Region region = client.getRegion();
+		if (region == null)
+		{
+			return;
+		}
+
+		for (Tile[][] plane : region.getTiles())
+		{
+			for (Tile[] row : plane)
+			{
+				for (Tile tile : row)
+				{
+					if (tile == null)
+					{
+						continue;
+					}
+
+					ItemLayer itemLayer = tile.getItemLayer();
+					if (itemLayer == null)
+					{
+						piles.remove(tile);
+					}
+					else
+					{
+						GroundItemPile pile = piles.get(tile);
+						if (pile == null || pile.getItemLayer() != itemLayer)
+						{
+							itemLayerChanged(tile, itemLayer);
+						}
+					}
+				}
+			}
+		}
+	}
 }
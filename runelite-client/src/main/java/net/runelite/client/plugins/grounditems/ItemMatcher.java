@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.grounditems;
+
+import com.google.common.base.Splitter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Matches item names against a comma separated list from the config, in
+ * which '*' stands for any sequence of characters. Names are compared
+ * ignoring case. Plain names are hashed, and all wildcard names are joined
+ * into a single pattern, so matching costs the same however long the list is.
+ */
+class ItemMatcher
+{
+	private static final Splitter SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+	private final Set<String> names;
+	private final Pattern wildcards;
+
+	private ItemMatcher(Set<String> names, Pattern wildcards)
+	{
+		this.names = names;
+		this.wildcards = wildcards;
+	}
+
+	/**
+	 * Compile a list of item names
+	 *
+	 * @param list comma separated item names, possibly with wildcards
+	 * @return the matcher
+	 */
+	static ItemMatcher compile(String list)
+	{
+		Set<String> names = new HashSet<>();
+		List<String> wildcards = new ArrayList<>();
+
+		for (String name : SPLITTER.split(list.toLowerCase()))
+		{
+			if (name.indexOf('*') == -1)
+			{
+				names.add(name);
+			}
+			else
+			{
+				wildcards.add("(?:" + toRegex(name) + ")");
+			}
+		}
+
+		Pattern pattern = wildcards.isEmpty() ? null : Pattern.compile(String.join("|", wildcards));
+		return new ItemMatcher(names, pattern);
+	}
+
+	private static String toRegex(String wildcard)
+	{
+		StringBuilder sb = new StringBuilder();
+		int start = 0;
+		int idx;
+		while ((idx = wildcard.indexOf('*', start)) != -1)
+		{
+			if (idx > start)
+			{
+				sb.append(Pattern.quote(wildcard.substring(start, idx)));
+			}
+			sb.append(".*");
+			start = idx + 1;
+		}
+		if (start < wildcard.length())
+		{
+			sb.append(Pattern.quote(wildcard.substring(start)));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Check if an item name is in the list
+	 *
+	 * @param name item name
+	 * @return true if the name matches
+	 */
+	boolean matches(String name)
+	{
+		String lower = name.toLowerCase();
+		return names.contains(lower) || (wildcards != null && wildcards.matcher(lower).matches());
+	}
+}
@@ -0,0 +1,713 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.instancemap;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.BitSet;
+import lombok.Getter;
+import net.runelite.api.Client;
+import net.runelite.api.GameObject;
+import net.runelite.api.GroundObject;
+import net.runelite.api.IndexedSprite;
+import net.runelite.api.ObjectComposition;
+import net.runelite.api.Point;
+import net.runelite.api.Region;
+import net.runelite.api.SceneTileModel;
+import net.runelite.api.SceneTilePaint;
+import net.runelite.api.SpritePixels;
+import net.runelite.api.Tile;
+import net.runelite.api.WallObject;
+import static net.runelite.client.plugins.instancemap.InstanceMapOverlay.TILE_SIZE;
+import static net.runelite.client.plugins.instancemap.PixelMaps.ALL;
+import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM;
+import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_LEFT_CORNER;
+import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_LEFT_DOT;
+import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_LEFT_TO_TOP_RIGHT;
+import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_RIGHT_CORNER;
+import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_RIGHT_DOT;
+import static net.runelite.client.plugins.instancemap.PixelMaps.LEFT;
+import static net.runelite.client.plugins.instancemap.PixelMaps.RIGHT;
+import static net.runelite.client.plugins.instancemap.PixelMaps.TOP;
+import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_LEFT_CORNER;
+import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_LEFT_DOT;
+import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_LEFT_TO_BOTTOM_RIGHT;
+import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_RIGHT_CORNER;
+import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_RIGHT_DOT;
+import static net.runelite.client.plugins.instancemap.WallOffset.BOTTOM_LEFT;
+import static net.runelite.client.plugins.instancemap.WallOffset.BOTTOM_RIGHT;
+import static net.runelite.client.plugins.instancemap.WallOffset.NONE;
+import static net.runelite.client.plugins.instancemap.WallOffset.TOP_LEFT;
+import static net.runelite.client.plugins.instancemap.WallOffset.TOP_RIGHT;
+
+/**
+ * The map of one plane of the region, drawn straight into the pixels of
+ * its image. The area each tile drew is remembered, so a tile whose
+ * objects changed is redrawn by redrawing just that area.
+ */
+class InstanceMapImage
+{
+	private static final int BACKGROUND = 0x000000;
+	private static final int OUTLINE = 0xFFFFFF;
+	private static final int WALL = 0xFFFFFF;
+	private static final int DOOR = 0xFF0000;
+
+	/**
+	 * The pixels of each wall shape, as x and y pairs relative to the top
+	 * left of the tile, indexed by the wall's config
+	 */
+	private static final int[][] WALL_MASKS = new int[256][];
+
+	// The layers, drawn one after another for every tile so that they
+	// overlap the way they do in the client
+	private static final int LAYER_COLOR = 0;
+	private static final int LAYER_ENVIRONMENT = 1;
+	private static final int LAYER_WALLS = 2;
+	private static final int LAYER_ICONS = 3;
+	private static final int LAYERS = 4;
+
+	static
+	{
+		for (int config = 0; config < WALL_MASKS.length; ++config)
+		{
+			WallShape wallShape = getWallShape(config);
+			int[][] shape = wallShape.getPixels();
+
+			int[] mask = new int[TILE_SIZE * TILE_SIZE * 2];
+			int length = 0;
+			for (int i = 0; i < shape.length; i++)
+			{
+				for (int j = 0; j < shape.length; j++)
+				{
+					if (shape[i][j] == 1)
+					{
+						mask[length++] = wallShape.getOffset().xOffset + j;
+						mask[length++] = wallShape.getOffset().yOffset + i;
+					}
+				}
+			}
+			WALL_MASKS[config] = Arrays.copyOf(mask, length);
+		}
+	}
+
+	private final Client client;
+	private final int plane;
+	private final int size;
+
+	@Getter
+	private final BufferedImage image;
+	private final int width;
+	private final int height;
+	private final int[] pixels;
+
+	// The area each tile drew, indexed by tile x * size + the tile's row
+	// on the map, with the max exclusive. A tile which drew nothing has
+	// min >= max.
+	private final int[] minX;
+	private final int[] minY;
+	private final int[] maxX;
+	private final int[] maxY;
+
+	// how far in pixels any tile drew outside of its own square
+	private int reach;
+
+	// tiles which need to be redrawn
+	private final BitSet changed = new BitSet();
+
+	// the area being drawn to, with the max exclusive
+	private int clipMinX;
+	private int clipMinY;
+	private int clipMaxX;
+	private int clipMaxY;
+
+	// the tile being drawn, whose area grows with everything it draws
+	private int current;
+
+	InstanceMapImage(Client client, int plane)
+	{
+		this.client = client;
+		this.plane = plane;
+		this.size = client.getRegion().getTiles()[plane].length;
+		this.width = size * TILE_SIZE;
+		this.height = size * TILE_SIZE;
+		this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		this.minX = new int[size * size];
+		this.minY = new int[size * size];
+		this.maxX = new int[size * size];
+		this.maxY = new int[size * size];
+	}
+
+	/**
+	 * Draw all tiles of the plane
+	 */
+	void drawAll()
+	{
+		Arrays.fill(minX, Integer.MAX_VALUE);
+		Arrays.fill(minY, Integer.MAX_VALUE);
+		Arrays.fill(maxX, Integer.MIN_VALUE);
+		Arrays.fill(maxY, Integer.MIN_VALUE);
+		reach = 0;
+		changed.clear();
+
+		drawArea(0, 0, width, height, true);
+	}
+
+	/**
+	 * Mark a tile to be redrawn by the next {@link #drawChanged()}
+	 *
+	 * @param x the tile's region x
+	 * @param y the tile's region y
+	 */
+	void tileChanged(int x, int y)
+	{
+		changed.set(x * size + (size - 1) - y);
+	}
+
+	/**
+	 * Redraw the tiles which changed since the last draw
+	 */
+	void drawChanged()
+	{
+		Tile[][] tiles = client.getRegion().getTiles()[plane];
+		Region region = client.getRegion();
+
+		for (int index = changed.nextSetBit(0); index >= 0; index = changed.nextSetBit(index + 1))
+		{
+			int x = index / size;
+			int row = index % size;
+
+			int oldMinX = minX[index];
+			int oldMinY = minY[index];
+			int oldMaxX = maxX[index];
+			int oldMaxY = maxY[index];
+
+			// find what the tile draws now, without drawing anything
+			minX[index] = minY[index] = Integer.MAX_VALUE;
+			maxX[index] = maxY[index] = Integer.MIN_VALUE;
+			clipMinX = clipMinY = clipMaxX = clipMaxY = 0;
+			current = index;
+			for (int layer = 0; layer < LAYERS; ++layer)
+			{
+				drawTile(layer, tiles, region, x, row);
+			}
+
+			// and redraw both what it drew before and what it draws now
+			drawArea(Math.min(oldMinX, minX[index]), Math.min(oldMinY, minY[index]),
+				Math.max(oldMaxX, maxX[index]), Math.max(oldMaxY, maxY[index]), false);
+		}
+
+		changed.clear();
+	}
+
+	/**
+	 * Draw an area of the map from scratch
+	 *
+	 * @param allTiles whether to draw every tile, or only the tiles which
+	 * drew into the area before
+	 */
+	private void drawArea(int areaMinX, int areaMinY, int areaMaxX, int areaMaxY, boolean allTiles)
+	{
+		clipMinX = Math.max(areaMinX, 0);
+		clipMinY = Math.max(areaMinY, 0);
+		clipMaxX = Math.min(areaMaxX, width);
+		clipMaxY = Math.min(areaMaxY, height);
+
+		if (clipMinX >= clipMaxX || clipMinY >= clipMaxY)
+		{
+			return;
+		}
+
+		for (int py = clipMinY; py < clipMaxY; ++py)
+		{
+			Arrays.fill(pixels, py * width + clipMinX, py * width + clipMaxX, BACKGROUND);
+		}
+		drawOutline();
+
+		Tile[][] tiles = client.getRegion().getTiles()[plane];
+		Region region = client.getRegion();
+
+		// tiles further away than this can't have drawn into the area
+		int firstX = Math.max(0, (clipMinX - reach) / TILE_SIZE - 1);
+		int lastX = Math.min(size - 1, (clipMaxX + reach) / TILE_SIZE);
+		int firstRow = Math.max(0, (clipMinY - reach) / TILE_SIZE - 1);
+		int lastRow = Math.min(size - 1, (clipMaxY + reach) / TILE_SIZE);
+
+		//These loops are seperated on purpose to prevent layering issues. This is how it's written in the client
+		for (int layer = 0; layer < LAYERS; ++layer)
+		{
+			for (int x = firstX; x <= lastX; x++)
+			{
+				for (int row = lastRow; row >= firstRow; row--)
+				{
+					int index = x * size + row;
+					if (!allTiles && (minX[index] >= clipMaxX || maxX[index] <= clipMinX
+						|| minY[index] >= clipMaxY || maxY[index] <= clipMinY))
+					{
+						continue;
+					}
+
+					current = index;
+					drawTile(layer, tiles, region, x, row);
+				}
+			}
+		}
+	}
+
+	private void drawOutline()
+	{
+		for (int px = clipMinX; px < clipMaxX; ++px)
+		{
+			if (clipMinY == 0)
+			{
+				pixels[px] = OUTLINE;
+			}
+			if (clipMaxY == height)
+			{
+				pixels[(height - 1) * width + px] = OUTLINE;
+			}
+		}
+		for (int py = clipMinY; py < clipMaxY; ++py)
+		{
+			if (clipMinX == 0)
+			{
+				pixels[py * width] = OUTLINE;
+			}
+			if (clipMaxX == width)
+			{
+				pixels[py * width + width - 1] = OUTLINE;
+			}
+		}
+	}
+
+	private void drawTile(int layer, Tile[][] tiles, Region region, int x, int row)
+	{
+		Tile tile = tiles[x][(size - 1) - row]; // flip the y value
+		if (tile == null)
+		{
+			return;
+		}
+
+		int startX = x * TILE_SIZE;
+		int startY = row * TILE_SIZE;
+
+		switch (layer)
+		{
+			case LAYER_COLOR:
+				drawTileColor(tile, region, startX, startY);
+				break;
+			case LAYER_ENVIRONMENT:
+				drawEnvironment(tile, x, (size - 1) - row, startX, startY);
+				break;
+			case LAYER_WALLS:
+				drawWallObject(tile.getWallObject(), startX, startY);
+				break;
+			case LAYER_ICONS:
+				drawMapIcon(tile.getGroundObject(), startX, startY);
+				break;
+		}
+	}
+
+	private void drawTileColor(Tile tile, Region region, int startX, int startY)
+	{
+		SceneTilePaint sceneTilePaint = tile.getSceneTilePaint();
+		if (sceneTilePaint != null)
+		{
+			//Normal map pixels have only 1 solid color
+			fillTile(startX, startY, sceneTilePaint.getRBG());
+			return;
+		}
+
+		SceneTileModel sceneTileModel = tile.getSceneTileModel();
+		if (sceneTileModel != null)
+		{
+			drawComplexMapPixel(sceneTileModel, region, startX, startY);
+		}
+	}
+
+	/**
+	 * Draws tiles which have more than one color to them. For example a
+	 * tile that falls on the edge of a river will have one part that is
+	 * grass, and the other part will be water. To draw these tiles we need
+	 * to use two colors.
+	 */
+	private void drawComplexMapPixel(SceneTileModel sceneTileModel, Region region, int startX, int startY)
+	{
+		//Most of this code is directly from the client from minimap rendering
+		int[] shapes = region.getTileMask2d()[sceneTileModel.getShape()];
+		int[] rotations = region.getTileRotation2d()[sceneTileModel.getRotation()];
+
+		//SceneTileModels have only two colors, and overlay and underlay.
+		int overlay = sceneTileModel.getModelOverlay() & 0xFFFFFF;
+		int underlay = sceneTileModel.getModelUnderlay() & 0xFFFFFF;
+
+		grow(startX, startY, startX + TILE_SIZE, startY + TILE_SIZE);
+
+		int rotationIndex = 0;
+		for (int i = 0; i < TILE_SIZE; i++)
+		{
+			for (int j = 0; j < TILE_SIZE; j++)
+			{
+				int color = shapes[rotations[rotationIndex++]] == 0 ? underlay : overlay;
+				setPixel(startX + j, startY + i, color);
+			}
+		}
+	}
+
+	private void drawEnvironment(Tile tile, int tileX, int tileY, int startX, int startY)
+	{
+		GameObject[] gameObjects = tile.getGameObjects();
+		if (gameObjects == null)
+		{
+			return;
+		}
+
+		for (GameObject gameObject : gameObjects)
+		{
+			if (gameObject == null || gameObject.getHash() == 0)
+			{
+				continue;
+			}
+
+			ObjectComposition objectComposition = client.getObjectDefinition(gameObject.getId());
+			if (objectComposition.getMapSceneId() == -1)
+			{
+				continue;
+			}
+
+			// objects larger than one tile are drawn once, on their south west tile
+			Point gameObjectLocation = gameObject.getRegionMinLocation();
+			if (gameObjectLocation.getX() != tileX || gameObjectLocation.getY() != tileY)
+			{
+				continue;
+			}
+
+			IndexedSprite objectMapSprite = client.getMapScene()[objectComposition.getMapSceneId()];
+			if (objectMapSprite != null)
+			{
+				drawIndexedSprite(objectMapSprite, startX, startY);
+			}
+		}
+	}
+
+	private void drawIndexedSprite(IndexedSprite indexedSprite, int startX, int startY)
+	{
+		byte[] spritePixels = indexedSprite.getPixels();
+		int spriteWidth = indexedSprite.getWidth();
+		int spriteHeight = indexedSprite.getHeight();
+
+		//For some reason some sprites don't have a byte array that is the same size as the width*height
+		if (spritePixels.length != spriteHeight * spriteWidth)
+		{
+			return;
+		}
+
+		int[] palette = indexedSprite.getPalette();
+		int left = startX + indexedSprite.getOffsetX();
+		int top = startY + indexedSprite.getOffsetY() + spriteHeight / 2 - spriteHeight;
+
+		grow(left, top, left + spriteWidth, top + spriteHeight);
+
+		int firstX = Math.max(left, clipMinX);
+		int lastX = Math.min(left + spriteWidth, clipMaxX);
+		int firstY = Math.max(top, clipMinY);
+		int lastY = Math.min(top + spriteHeight, clipMaxY);
+
+		for (int py = firstY; py < lastY; ++py)
+		{
+			int sourceOffset = (py - top) * spriteWidth - left;
+			int destOffset = py * width;
+			for (int px = firstX; px < lastX; ++px)
+			{
+				int index = spritePixels[sourceOffset + px] & 0xff;
+				if (index != 0)
+				{
+					pixels[destOffset + px] = palette[index] & 0xFFFFFF; //Get color from the pallete
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws a wall on the map using a tiles WallObject
+	 */
+	private void drawWallObject(WallObject wallObject, int startX, int startY)
+	{
+		if (wallObject == null || wallObject.getHash() == 0)
+		{
+			return;
+		}
+
+		ObjectComposition objectComposition = client.getObjectDefinition(wallObject.getId());
+		if (objectComposition.getMapSceneId() != -1)
+		{
+			return;
+		}
+
+		int color = wallObject.getHash() > 0 ? DOOR : WALL;
+		int[] mask = WALL_MASKS[wallObject.getConfig() & 255];
+		for (int i = 0; i < mask.length; i += 2)
+		{
+			int px = startX + mask[i];
+			int py = startY + mask[i + 1];
+			grow(px, py, px + 1, py + 1);
+			setPixel(px, py, color);
+		}
+	}
+
+	private void drawMapIcon(GroundObject groundObject, int startX, int startY)
+	{
+		if (groundObject == null || groundObject.getHash() == 0)
+		{
+			return;
+		}
+
+		ObjectComposition objectComposition = client.getObjectDefinition(groundObject.getId());
+		int mapIconId = objectComposition.getMapIconId();
+		if (mapIconId < 0)
+		{
+			return;
+		}
+
+		// this parameter is unused
+		SpritePixels sprite = client.getMapAreas()[mapIconId].getMapIcon(false);
+		if (sprite == null)
+		{
+			return;
+		}
+
+		int[] spritePixels = sprite.getPixels();
+		int spriteWidth = sprite.getWidth();
+		int spriteHeight = sprite.getHeight();
+		int left = startX - spriteWidth / 2;
+		int top = startY - spriteHeight / 2;
+
+		grow(left, top, left + spriteWidth, top + spriteHeight);
+
+		int firstX = Math.max(left, clipMinX);
+		int lastX = Math.min(left + spriteWidth, clipMaxX);
+		int firstY = Math.max(top, clipMinY);
+		int lastY = Math.min(top + spriteHeight, clipMaxY);
+
+		for (int py = firstY; py < lastY; ++py)
+		{
+			int sourceOffset = (py - top) * spriteWidth - left;
+			int destOffset = py * width;
+			for (int px = firstX; px < lastX; ++px)
+			{
+				int color = spritePixels[sourceOffset + px];
+				// 0 is transparent
+				if (color != 0)
+				{
+					pixels[destOffset + px] = color & 0xFFFFFF;
+				}
+			}
+		}
+	}
+
+	private void fillTile(int startX, int startY, int color)
+	{
+		grow(startX, startY, startX + TILE_SIZE, startY + TILE_SIZE);
+
+		int firstX = Math.max(startX, clipMinX);
+		int lastX = Math.min(startX + TILE_SIZE, clipMaxX);
+		int firstY = Math.max(startY, clipMinY);
+		int lastY = Math.min(startY + TILE_SIZE, clipMaxY);
+
+		if (firstX >= lastX)
+		{
+			return;
+		}
+
+		for (int py = firstY; py < lastY; ++py)
+		{
+			Arrays.fill(pixels, py * width + firstX, py * width + lastX, color & 0xFFFFFF);
+		}
+	}
+
+	private void setPixel(int px, int py, int color)
+	{
+		if (px >= clipMinX && px < clipMaxX && py >= clipMinY && py < clipMaxY)
+		{
+			pixels[py * width + px] = color;
+		}
+	}
+
+	/**
+	 * Grow the area drawn by the current tile
+	 */
+	private void grow(int areaMinX, int areaMinY, int areaMaxX, int areaMaxY)
+	{
+		int index = current;
+		minX[index] = Math.min(minX[index], areaMinX);
+		minY[index] = Math.min(minY[index], areaMinY);
+		maxX[index] = Math.max(maxX[index], areaMaxX);
+		maxY[index] = Math.max(maxY[index], areaMaxY);
+
+		int tileMinX = (index / size) * TILE_SIZE;
+		int tileMinY = (index % size) * TILE_SIZE;
+		reach = Math.max(reach, Math.max(
+			Math.max(tileMinX - areaMinX, areaMaxX - (tileMinX + TILE_SIZE)),
+			Math.max(tileMinY - areaMinY, areaMaxY - (tileMinY + TILE_SIZE))));
+	}
+
+	private static WallShape getWallShape(int config)
+	{
+		int[][] pixels = ALL;
+		WallOffset wallOffset = NONE;
+
+		//Warning: Gower code below
+		int config1 = config >> 6 & 3;
+		int config2 = config & 31;
+
+		// Straight walls
+		if (config2 == 0)
+		{
+			switch (config1)
+			{
+				case 0:
+					//draw left wall
+					pixels = LEFT;
+					wallOffset = NONE;
+					break;
+				case 1:
+					//draw top wall
+					pixels = TOP;
+					wallOffset = NONE;
+					break;
+				case 2:
+					//draw right wall
+					pixels = RIGHT;
+					wallOffset = NONE;
+					break;
+				case 3:
+					//draw bottom wall
+					pixels = BOTTOM;
+					wallOffset = NONE;
+					break;
+
+			}
+		}
+		// Corners
+		else if (config2 == 2)
+		{
+			switch (config1)
+			{
+				case 0:
+					pixels = TOP_LEFT_CORNER;
+					break;
+				case 1:
+					pixels = TOP_RIGHT_CORNER;
+					wallOffset = NONE;
+					break;
+				case 2:
+					pixels = BOTTOM_RIGHT_CORNER;
+					wallOffset = NONE;
+					break;
+				case 3:
+					pixels = BOTTOM_LEFT_CORNER;
+					wallOffset = NONE;
+					break;
+				default:
+					break;
+			}
+		}
+		// Dots
+		else if (config2 == 3)
+		{
+			switch (config1)
+			{
+				case 0:
+					//draw dot top left
+					pixels = TOP_LEFT_DOT;
+					wallOffset = NONE;
+					break;
+				case 1:
+					//draw dot top right
+					pixels = TOP_RIGHT_DOT;
+					wallOffset = NONE;
+					break;
+				case 2:
+					//draw dot bottom right
+					pixels = BOTTOM_RIGHT_DOT;
+					wallOffset = NONE;
+					break;
+				case 3:
+					//draw dot bottom left
+					pixels = BOTTOM_LEFT_DOT;
+					wallOffset = NONE;
+					break;
+				default:
+					break;
+			}
+		}
+		//This part never gets called, but it's written in the client. ¯\_(ツ)_/¯
+		else if (config2 == 9)
+		{
+			if (config1 != 0 && config1 != 2)
+			{
+				//draw diagonal \
+				pixels = TOP_LEFT_TO_BOTTOM_RIGHT;
+				wallOffset = NONE;
+			}
+			else
+			{
+				//draw diagonal /
+				pixels = BOTTOM_LEFT_TO_TOP_RIGHT;
+				wallOffset = NONE;
+			}
+		}
+		//Diagonals
+		else if (config2 == 1)
+		{
+			switch (config1)
+			{
+				case 0:
+					//draw diagonal /
+					pixels = BOTTOM_LEFT_TO_TOP_RIGHT;
+					wallOffset = TOP_LEFT;
+					break;
+				case 1:
+					//draw diagonal \
+					pixels = TOP_LEFT_TO_BOTTOM_RIGHT;
+					wallOffset = TOP_RIGHT;
+					break;
+				case 2:
+					pixels = BOTTOM_LEFT_TO_TOP_RIGHT;
+					wallOffset = BOTTOM_RIGHT;
+					break;
+				case 3:
+					pixels = TOP_LEFT_TO_BOTTOM_RIGHT;
+					wallOffset = BOTTOM_LEFT;
+					break;
+				default:
+					break;
+			}
+		}
+
+		return new WallShape(pixels, wallOffset);
+	}
+}
@@ -30,41 +30,12 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import javax.inject.Inject;
 import net.runelite.api.Client;
-import net.runelite.api.GameObject;
-import net.runelite.api.GroundObject;
-import net.runelite.api.IndexedSprite;
-import net.runelite.api.ObjectComposition;
 import net.runelite.api.Player;
 import net.runelite.api.Point;
-import net.runelite.api.Region;
-import net.runelite.api.SceneTileModel;
-import net.runelite.api.SceneTilePaint;
-import net.runelite.api.SpritePixels;
 import net.runelite.api.Tile;
-import net.runelite.api.WallObject;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.MapRegionChanged;
-import static net.runelite.client.plugins.instancemap.PixelMaps.ALL;
-import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM;
-import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_LEFT_CORNER;
-import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_LEFT_DOT;
-import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_LEFT_TO_TOP_RIGHT;
-import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_RIGHT_CORNER;
-import static net.runelite.client.plugins.instancemap.PixelMaps.BOTTOM_RIGHT_DOT;
-import static net.runelite.client.plugins.instancemap.PixelMaps.LEFT;
-import static net.runelite.client.plugins.instancemap.PixelMaps.RIGHT;
-import static net.runelite.client.plugins.instancemap.PixelMaps.TOP;
-import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_LEFT_CORNER;
-import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_LEFT_DOT;
-import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_LEFT_TO_BOTTOM_RIGHT;
-import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_RIGHT_CORNER;
-import static net.runelite.client.plugins.instancemap.PixelMaps.TOP_RIGHT_DOT;
-import static net.runelite.client.plugins.instancemap.WallOffset.BOTTOM_LEFT;
-import static net.runelite.client.plugins.instancemap.WallOffset.BOTTOM_RIGHT;
-import static net.runelite.client.plugins.instancemap.WallOffset.NONE;
-import static net.runelite.client.plugins.instancemap.WallOffset.TOP_LEFT;
-import static net.runelite.client.plugins.instancemap.WallOffset.TOP_RIGHT;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
@@ -100,13 +71,19 @@ class InstanceMapOverlay extends Overlay
 	 * and lower this This is used to render parts of an instance below or
 	 * above the local player's current plane.
 	 */
-	private int viewedPlane = 0;
+	private volatile int viewedPlane = 0;
 
 	private final Client client;
 
 	/**
-	 * Saved image of the region, no reason to draw the whole thing every
-	 * frame.
+	 * The maps of the planes viewed since the region changed. They are
+	 * kept up to date as objects change, so switching planes doesn't
+	 * draw the map again. Only used from the client thread.
+	 */
+	private final InstanceMapImage[] planeImages = new InstanceMapImage[MAX_PLANE + 1];
+
+	/**
+	 * The image last drawn, or null if the map is hidden
 	 */
 	private volatile BufferedImage mapImage;
 	private volatile boolean showMap = false;
@@ -137,8 +114,8 @@ class InstanceMapOverlay extends Overlay
 	}
 
 	/**
-	 * Setter for showing the map. When the map is set to show, the map is
-	 * re-rendered
+	 * Setter for showing the map. When the map is set to show, the map
+	 * shows the current plane
 	 *
 	 * @param show Whether or not the map should be shown.
 	 */
@@ -150,7 +127,10 @@ class InstanceMapOverlay extends Overlay
 			//When we open the map show the current plane
 			viewedPlane = client.getPlane();
 		}
-		mapImage = null;
+		else
+		{
+			mapImage = null;
+		}
 	}
 
 	/**
@@ -164,7 +144,6 @@ class InstanceMapOverlay extends Overlay
 		}
 
 		viewedPlane++;//Increment plane
-		mapImage = null;
 	}
 
 	/**
@@ -178,7 +157,6 @@ class InstanceMapOverlay extends Overlay
 		}
 
 		viewedPlane--;
-		mapImage = null;
 	}
 
 	@Override
@@ -189,24 +167,26 @@ class InstanceMapOverlay extends Overlay
 			return null;
 		}
 
-		// avoid locking on fast path by creating a local ref
-		BufferedImage image = mapImage;
+		int plane = viewedPlane;
+		InstanceMapImage planeImage = planeImages[plane];
 
-		if (image == null)
+		if (planeImage == null)
 		{
-			image = drawMapImage(getTiles());
-			synchronized (this)
-			{
-				if (showMap)
-				{
-					mapImage = image;
-				}
-			}
+			planeImage = new InstanceMapImage(client, plane);
+			planeImage.drawAll();
+			planeImages[plane] = planeImage;
 		}
+		else
+		{
+			planeImage.drawChanged();
+		}
+
+		BufferedImage image = planeImage.getImage();
+		mapImage = image;
 
 		graphics.drawImage(image, OVERLAY_POSITION.getX(), OVERLAY_POSITION.getY(), null);
 
-		if (client.getPlane() == viewedPlane)//If we are not viewing the plane we are on, don't show player's position
+		if (client.getPlane() == plane)//If we are not viewing the plane we are on, don't show player's position
 		{
 			drawPlayerDot(graphics, client.getLocalPlayer(), Color.white, Color.black);
 		}
@@ -223,7 +203,7 @@ class InstanceMapOverlay extends Overlay
 	{
 		LocalPoint playerLoc = player.getLocalLocation();
 
-		Tile[][] tiles = getTiles();
+		Tile[][] tiles = client.getRegion().getTiles()[viewedPlane];
 		int tileX = playerLoc.getRegionX();
 		int tileY = (tiles[0].length - 1) - playerLoc.getRegionY(); // flip the y value
 
@@ -236,515 +216,46 @@ class InstanceMapOverlay extends Overlay
 	}
 
 	/**
-	 * Handles region changes and re-draws the map
+	 * Handles region changes, the maps are drawn again when next shown
 	 *
 	 * @param event The region change event
 	 */
 	public void onRegionChange(MapRegionChanged event)
 	{
-		mapImage = drawMapImage(getTiles());
+		clearPlaneImages();
 	}
 
 	/**
-	 * Handles game state changes and re-draws the map
+	 * Handles game state changes, the maps are drawn again when next shown
 	 *
 	 * @param event The game state change event
 	 */
 	public void onGameStateChange(GameStateChanged event)
 	{
-		mapImage = drawMapImage(getTiles());
-	}
-
-	/**
-	 * Get the files for the current viewed plane
-	 *
-	 * @return
-	 */
-	private Tile[][] getTiles()
-	{
-		Tile[][][] regionTiles = client.getRegion().getTiles();
-		return regionTiles[viewedPlane];
-	}
-
-	/**
-	 * Draws the map to the the buffered image mapImage
-	 *
-	 * @param tiles The tiles to draw to the map
-	 */
-	private BufferedImage drawMapImage(Tile[][] tiles)
-	{
-		BufferedImage image = new BufferedImage(tiles.length * TILE_SIZE, tiles[0].length * TILE_SIZE, BufferedImage.TYPE_INT_RGB);
-		Graphics2D g = image.createGraphics();
-		drawInstanceMap(g);
-		g.dispose();
-		return image;
-	}
-
-	/**
-	 * Draws all the tiles on the current plane of client.reigion to the
-	 * screen. This will show instances unlike the world map.
-	 *
-	 * @param graphics graphics to draw to
-	 * @return The dimensions of the map
-	 */
-	private void drawInstanceMap(Graphics2D graphics)
-	{
-		Region region = client.getRegion();
-		Tile[][] tiles = getTiles();
-
-		Dimension mapOverlaySize = new Dimension(tiles.length * TILE_SIZE, tiles[0].length * TILE_SIZE);
-
-		graphics.setColor(Color.black);
-		graphics.fillRect(0, 0, mapOverlaySize.width, mapOverlaySize.height);//draw background
-		graphics.setColor(Color.white);
-		graphics.drawRect(0, 0, mapOverlaySize.width - 1, mapOverlaySize.height - 1);//draw outline
-
-		//These loops are seperated on purpose to prevent layering issues. This is how it's written in the client
-		//Draw the base colors first
-		for (int x = 0; x < tiles.length; x++)
-		{
-			for (int y = tiles[x].length - 1; y >= 0; y--)//flip y value
-			{
-				drawTileColor(graphics, region, tiles[x][(tiles[x].length - 1) - y], x, y);
-			}
-		}
-
-		//environment
-		for (int x = 0; x < tiles.length; x++)
-		{
-			for (int y = tiles[x].length - 1; y >= 0; y--)//Flip y value
-			{
-				drawEnvironment(graphics, region, tiles[x][(tiles[x].length - 1) - y], x, y);//draw trees/rocks/bushes
-			}
-		}
-
-		//Draw walls
-		for (int x = 0; x < tiles.length; x++)
-		{
-			for (int y = tiles[x].length - 1; y >= 0; y--)//Flip y value
-			{
-				drawTileWalls(graphics, tiles[x][(tiles[x].length - 1) - y], x, y);
-			}
-		}
-
-		//Finally draw map icons on top of that
-		for (int x = 0; x < tiles.length; x++)
-		{
-			for (int y = tiles[x].length - 1; y >= 0; y--)//Flip y value
-			{
-				drawMapIcons(graphics, region, tiles[x][(tiles[x].length - 1) - y], x, y);//draw map icons
-			}
-		}
-
-	}
-
-	private void drawTileWalls(Graphics2D graphics, Tile curTile, int x, int y)
-	{
-		if (curTile == null)
-		{
-			return;
-		}
-
-		WallObject wallObject = curTile.getWallObject();
-		if (wallObject != null)
-		{
-			drawWallObject(graphics, wallObject, curTile, x * TILE_SIZE, y * TILE_SIZE);
-		}
-	}
-
-	private void drawTileColor(Graphics2D graphics, Region region, Tile curTile, int x, int y)
-	{
-		if (curTile == null)
-		{
-			return;
-		}
-
-		SceneTilePaint sceneTilePaint = curTile.getSceneTilePaint();
-		SceneTileModel sceneTileModel = curTile.getSceneTileModel();
-
-		if (sceneTilePaint != null)
-		{
-			drawMapPixel(graphics, sceneTilePaint, x * TILE_SIZE, y * TILE_SIZE);
-		}
-		else if (sceneTileModel != null)
-		{
-			drawComplexMapPixel(graphics, sceneTileModel, region, x * TILE_SIZE, y * TILE_SIZE);
-		}
-	}
-
-	private void drawMapIcons(Graphics2D graphics, Region region, Tile curTile, int x, int y)
-	{
-		if (curTile == null)
-		{
-			return;
-		}
-
-		//Draw game objects
-		GroundObject groundObject = curTile.getGroundObject();
-		if (groundObject == null)
-		{
-			return;
-		}
-
-		int hash = groundObject.getHash();
-		int objId = groundObject.getId();
-
-		int startX = x * TILE_SIZE;
-		int startY = y * TILE_SIZE;
-
-		if (hash != 0)
-		{
-			ObjectComposition objectComposition = client.getObjectDefinition(objId);
-			int mapIconId = objectComposition.getMapIconId();
-			if (mapIconId >= 0)
-			{
-				// this parameter is unused
-				SpritePixels sprite = client.getMapAreas()[mapIconId].getMapIcon(false);
-
-				if (sprite == null)
-				{
-					return;
-				}
-
-				BufferedImage img = sprite.toBufferedImage();
-				graphics.drawImage(img, startX - (img.getWidth() / 2), startY - (img.getHeight() / 2), null);
-			}
-		}
-	}
-
-	private void drawEnvironment(Graphics2D graphics, Region region, Tile curTile, int x, int y)
-	{
-		if (curTile == null)
-		{
-			return;
-		}
-
-		//Draw game objects
-		GameObject[] gameObjects = curTile.getGameObjects();
-		if (gameObjects != null)
-		{
-			Tile[][] tiles = getTiles();
-			for (GameObject gameObject : gameObjects)
-			{
-				if (gameObject == null)
-				{
-					continue;
-				}
-
-				int hash = gameObject.getHash();
-				int objId = gameObject.getId();
-
-				int startX = x * TILE_SIZE;
-				int startY = y * TILE_SIZE;
-
-				if (hash == 0)
-				{
-					continue;
-				}
-
-				ObjectComposition objectComposition = client.getObjectDefinition(objId);
-				if (objectComposition.getMapSceneId() != -1)
-				{
-					Point gameObjectLocation = gameObject.getRegionMinLocation();
-					int tileX = x;
-					int tileY = ((tiles[x].length - 1) - y);//flip y value
-
-					if (gameObjectLocation.getX() == tileX && gameObjectLocation.getY() == tileY)
-					{
-
-						IndexedSprite objectMapSprite = client.getMapScene()[objectComposition.getMapSceneId()];
-						if (objectMapSprite != null)
-						{
-							drawIndexedSprite(graphics, objectMapSprite, gameObject, startX, startY);
-						}
-					}
-				}
-
-			}
-		}
-	}
-
-	private void drawIndexedSprite(Graphics2D graphics, IndexedSprite indexedSprite, GameObject gameObject, int startX, int startY)
-	{
-		//Mostly from code in IndexedSprite
-		int sourceOffset = 0;
-
-		//For some reason some sprites don't have a byte array that is the same size as the width*height
-		if (indexedSprite.getPixels().length != indexedSprite.getHeight() * indexedSprite.getWidth())
-		{
-			return;
-		}
-
-		for (int y = -indexedSprite.getHeight(); y < 0; y++)
-		{
-			for (int x = -indexedSprite.getWidth(); x < 0; x++)
-			{
-				int index = indexedSprite.getPixels()[sourceOffset++] & 0xff;
-				if (index != 0)
-				{
-					graphics.setColor(new Color(indexedSprite.getPalette()[index]));//Get color from the pallete
-					drawPoint(graphics, startX + x + indexedSprite.getWidth() + indexedSprite.getOffsetX(), startY + y + indexedSprite.getHeight() / 2 + indexedSprite.getOffsetY());
-				}
-			}
-		}
-	}
-
-	/**
-	 * Draws a tile as 4x4 pixels on the map. This tile will be drawn as a
-	 * set of 4x4 pixels
-	 *
-	 * @param graphics graphics to be drawn to
-	 * @param sceneTilePaint the tiles sceneTilePaint used to get the RGB
-	 * value of that tile
-	 * @param startX the top left point at which the 4x4 is drawn
-	 * @param startY the top left point at which the 4x4 is drawn
-	 */
-	private void drawMapPixel(Graphics2D graphics, SceneTilePaint sceneTilePaint, int startX, int startY)
-	{
-		//Normal map pixels have only 1 solid color
-		Color c = new Color(sceneTilePaint.getRBG());
-		graphics.setColor(c);
-		graphics.fillRect(startX, startY, TILE_SIZE, TILE_SIZE);
-	}
-
-	private WallShape getWallShape(WallObject wallObject)
-	{
-		int[][] pixels = ALL;
-		WallOffset wallOffset = NONE;
-
-		//Warning: Gower code below
-		int flags = wallObject.getConfig() & 255;
-		int config1 = flags >> 6 & 3;
-		int config2 = flags & 31;
-
-		// Straight walls
-		if (config2 == 0)
-		{
-			switch (config1)
-			{
-				case 0:
-					//draw left wall
-					pixels = LEFT;
-					wallOffset = NONE;
-					break;
-				case 1:
-					//draw top wall
-					pixels = TOP;
-					wallOffset = NONE;
-					break;
-				case 2:
-					//draw right wall
-					pixels = RIGHT;
-					wallOffset = NONE;
-					break;
-				case 3:
-					//draw bottom wall
-					pixels = BOTTOM;
-					wallOffset = NONE;
-					break;
-
-			}
-		}
-		// Corners
-		else if (config2 == 2)
-		{
-			switch (config1)
-			{
-				case 0:
-					pixels = TOP_LEFT_CORNER;
-					break;
-				case 1:
-					pixels = TOP_RIGHT_CORNER;
-					wallOffset = NONE;
-					break;
-				case 2:
-					pixels = BOTTOM_RIGHT_CORNER;
-					wallOffset = NONE;
-					break;
-				case 3:
-					pixels = BOTTOM_LEFT_CORNER;
-					wallOffset = NONE;
-					break;
-				default:
-					break;
-			}
-		}
-		// Dots
-		else if (config2 == 3)
-		{
-			switch (config1)
-			{
-				case 0:
-					//draw dot top left
-					pixels = TOP_LEFT_DOT;
-					wallOffset = NONE;
-					break;
-				case 1:
-					//draw dot top right
-					pixels = TOP_RIGHT_DOT;
-					wallOffset = NONE;
-					break;
-				case 2:
-					//draw dot bottom right
-					pixels = BOTTOM_RIGHT_DOT;
-					wallOffset = NONE;
-					break;
-				case 3:
-					//draw dot bottom left
-					pixels = BOTTOM_LEFT_DOT;
-					wallOffset = NONE;
-					break;
-				default:
-					break;
-			}
-		}
-		//This part never gets called, but it's written in the client. ¯\_(ツ)_/¯
-		else if (config2 == 9)
-		{
-			if (config1 != 0 && config1 != 2)
-			{
-				//draw diagonal \
-				pixels = TOP_LEFT_TO_BOTTOM_RIGHT;
-				wallOffset = NONE;
-			}
-			else
-			{
-				//draw diagonal /
-				pixels = BOTTOM_LEFT_TO_TOP_RIGHT;
-				wallOffset = NONE;
-			}
-		}
-		//Diagonals
-		else if (config2 == 1)
-		{
-			switch (config1)
-			{
-				case 0:
-					//draw diagonal /
-					pixels = BOTTOM_LEFT_TO_TOP_RIGHT;
-					wallOffset = TOP_LEFT;
-					break;
-				case 1:
-					//draw diagonal \
-					pixels = TOP_LEFT_TO_BOTTOM_RIGHT;
-					wallOffset = TOP_RIGHT;
-					break;
-				case 2:
-					pixels = BOTTOM_LEFT_TO_TOP_RIGHT;
-					wallOffset = BOTTOM_RIGHT;
-					break;
-				case 3:
-					pixels = TOP_LEFT_TO_BOTTOM_RIGHT;
-					wallOffset = BOTTOM_LEFT;
-					break;
-				default:
-					break;
-			}
-		}
-
-		return new WallShape(pixels, wallOffset);
+		clearPlaneImages();
 	}
 
 	/**
-	 * Draws a wall on the map using a tiles WallObject. This wall will be
-	 * drawn as a set of 4x4 pixels
+	 * Handles an object on a tile spawning, despawning or changing, by
+	 * redrawing the tile on the map of its plane when next shown
 	 *
-	 * @param graphics graphics to be drawn to
-	 * @param wallObject the wall object of the tile
-	 * @param startX the top left point at which the 4x4 is drawn
-	 * @param startY the top left point at which the 4x4 is drawn
+	 * @param tile the tile
 	 */
-	private void drawWallObject(Graphics2D graphics, WallObject wallObject, Tile tile, int startX, int startY)
+	public void onTileChanged(Tile tile)
 	{
-		graphics.setColor(Color.white);
-
-		if (wallObject.getHash() == 0)
-		{
-			return;
-		}
-
-		//door
-		if (wallObject.getHash() > 0)
-		{
-			graphics.setColor(Color.red);
-		}
-		ObjectComposition objectComposition = client.getObjectDefinition(wallObject.getId());
-
-		if (objectComposition.getMapSceneId() != -1)
-		{
-			return;
-		}
-
-		WallShape wallShape = getWallShape(wallObject);
-		int[][] pixels = wallShape.getPixels();
-
-		for (int i = 0; i < pixels.length; i++)
+		InstanceMapImage planeImage = planeImages[tile.getPlane()];
+		if (planeImage != null)
 		{
-			for (int j = 0; j < pixels.length; j++)
-			{
-				if (pixels[i][j] == 1)
-				{
-					//Draw the 4x4 and offset accordingly
-					drawPoint(graphics, startX + wallShape.getOffset().xOffset + j, startY + wallShape.getOffset().yOffset + i);
-				}
-			}
+			Point location = tile.getRegionLocation();
+			planeImage.tileChanged(location.getX(), location.getY());
 		}
-
 	}
 
-	/**
-	 * Draws just one pixel to the screen
-	 *
-	 * @param graphics Graphics to be drawn to
-	 * @param x x position of the pixel
-	 * @param y y position of the pixel
-	 */
-	private void drawPoint(Graphics2D graphics, int x, int y)
+	private void clearPlaneImages()
 	{
-		graphics.drawLine(x, y, x, y);
-	}
-
-	/**
-	 * Draws tiles which have more than one color to them. For example a
-	 * tile that falls on the edge of a river will have one part that is
-	 * grass, and the other part will be water. To draw these tiles we need
-	 * to use two colors. This tile will be drawn as a 4x4 set of pixels
-	 *
-	 * @param graphics the graphics to be drawn to
-	 * @param sceneTileModel The SceneTileModel of the complex tile
-	 * @param region The current region
-	 * @param startX the top left point at which the 4x4 is drawn
-	 * @param startY the top left point at which the 4x4 is drawn
-	 */
-	private void drawComplexMapPixel(Graphics2D graphics, SceneTileModel sceneTileModel, Region region, int startX, int startY)
-	{
-		//Most of this code is directly from the client from minimap rendering
-		int[][] TILE_MASK_2D = region.getTileMask2d();
-		int[][] TILE_ROTATION_2D = region.getTileRotation2d();
-
-		int shape = sceneTileModel.getShape();
-		int rotation = sceneTileModel.getRotation();
-
-		//SceneTileModels have only two colors, and overlay and underlay.
-		int overlay = sceneTileModel.getModelOverlay();
-		int underlay = sceneTileModel.getModelUnderlay();
-
-		int[] shapes = TILE_MASK_2D[shape];
-		int[] rotations = TILE_ROTATION_2D[rotation];
-
-		int rotationIndex = 0;
-
-		for (int i = 0; i < TILE_SIZE; i++)
+		for (int plane = 0; plane < planeImages.length; ++plane)
 		{
-			for (int j = 0; j < TILE_SIZE; j++)
-			{
-				int intColor = (shapes[rotations[rotationIndex++]] == 0) ? underlay : overlay;
-				Color c = new Color(intColor);
-				graphics.setColor(c);
-				graphics.fillRect(startX + j, startY + i, 1, 1);
-			}
+			planeImages[plane] = null;
 		}
-
 	}
-
 }
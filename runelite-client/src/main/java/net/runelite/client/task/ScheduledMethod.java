@@ -24,21 +24,52 @@
  */
 package net.runelite.client.task;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.time.Instant;
+import java.time.Duration;
 
 public class ScheduledMethod
 {
 	private final Schedule schedule;
 	private final Method method;
 	private final Object object;
-	private Instant last = Instant.now();
+	private final MethodHandle handle;
+	private final long periodNanos;
+
+	/**
+	 * System.nanoTime() at which the method is next due, maintained by the scheduler
+	 */
+	long deadline;
+	boolean scheduled;
+	boolean queued;
+	volatile boolean running;
+
+	// statistics, guarded by this
+	private long runs;
+	private long totalNanos;
+	private long maxNanos;
+	private long overruns;
 
 	public ScheduledMethod(Schedule schedule, Method method, Object object)
 	{
 		this.schedule = schedule;
 		this.method = method;
 		this.object = object;
+		this.periodNanos = Duration.of(schedule.period(), schedule.unit()).toNanos();
+
+		try
+		{
+			method.setAccessible(true);
+			this.handle = MethodHandles.lookup().unreflect(method)
+				.bindTo(object)
+				.asType(MethodType.methodType(void.class));
+		}
+		catch (IllegalAccessException ex)
+		{
+			throw new IllegalArgumentException("unable to access scheduled method " + method, ex);
+		}
 	}
 
 	@Override
@@ -62,13 +93,63 @@ public class ScheduledMethod
 		return object;
 	}
 
-	public Instant getLast()
+	/**
+	 * Invoke the method through its prebound handle
+	 *
+	 * @throws Throwable anything the method throws
+	 */
+	void invoke() throws Throwable
+	{
+		handle.invokeExact();
+	}
+
+	long getPeriodNanos()
+	{
+		return periodNanos;
+	}
+
+	synchronized void recordRun(long nanos)
+	{
+		++runs;
+		totalNanos += nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+	}
+
+	synchronized void recordOverrun()
+	{
+		++overruns;
+	}
+
+	/**
+	 * @return how many times the method has run
+	 */
+	public synchronized long getRuns()
+	{
+		return runs;
+	}
+
+	/**
+	 * @return the average run time in nanoseconds
+	 */
+	public synchronized long getAverageNanos()
+	{
+		return runs == 0 ? 0 : totalNanos / runs;
+	}
+
+	/**
+	 * @return the longest run time in nanoseconds
+	 */
+	public synchronized long getMaxNanos()
 	{
-		return last;
+		return maxNanos;
 	}
 
-	public void setLast(Instant last)
+	/**
+	 * @return how many times a run took longer than the period, or the
+	 * method was due while an asynchronous run was still in progress
+	 */
+	public synchronized long getOverruns()
 	{
-		this.last = last;
+		return overruns;
 	}
 }
@@ -24,34 +24,65 @@
  */
 package net.runelite.client.task;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.LongSupplier;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Runs {@link Schedule} methods from the client main loop. Methods are kept
+ * ordered by the time they are next due, so a tick only looks at the methods
+ * which are due.
+ */
 @Singleton
 @Slf4j
 public class Scheduler
 {
 	private final List<ScheduledMethod> scheduledMethods = new CopyOnWriteArrayList<>();
+	// guarded by itself
+	private final PriorityQueue<ScheduledMethod> queue = new PriorityQueue<>(
+		(a, b) -> Long.signum(a.deadline - b.deadline));
+	// only used from tick()
+	private final List<ScheduledMethod> due = new ArrayList<>();
 
 	@Inject
 	ScheduledExecutorService executor;
 
+	LongSupplier clock = System::nanoTime;
+
 	public void addScheduledMethod(ScheduledMethod method)
 	{
+		synchronized (queue)
+		{
+			method.scheduled = true;
+			if (!method.queued)
+			{
+				method.deadline = clock.getAsLong() + method.getPeriodNanos();
+				method.queued = true;
+				queue.add(method);
+			}
+		}
 		scheduledMethods.add(method);
 	}
 
 	public void removeScheduledMethod(ScheduledMethod method)
 	{
+		synchronized (queue)
+		{
+			method.scheduled = false;
+			if (method.queued)
+			{
+				method.queued = false;
+				queue.remove(method);
+			}
+		}
 		scheduledMethods.remove(method);
 	}
 
@@ -62,26 +93,50 @@ public class Scheduler
 
 	public void tick()
 	{
-		Instant now = Instant.now();
+		long now = clock.getAsLong();
 
-		for (ScheduledMethod scheduledMethod : scheduledMethods)
+		synchronized (queue)
 		{
-			Instant last = scheduledMethod.getLast();
-
-			Duration difference = Duration.between(last, now);
+			ScheduledMethod next;
+			while ((next = queue.peek()) != null && next.deadline - now <= 0)
+			{
+				queue.poll();
+				next.queued = false;
+				due.add(next);
+			}
+		}
 
-			Schedule schedule = scheduledMethod.getSchedule();
-			Duration timeSinceRun = Duration.of(schedule.period(), schedule.unit());
+		if (due.isEmpty())
+		{
+			return;
+		}
 
-			if (difference.compareTo(timeSinceRun) > 0)
+		try
+		{
+			for (ScheduledMethod scheduledMethod : due)
 			{
 				log.trace("Scheduled task triggered: {}", scheduledMethod);
 
-				scheduledMethod.setLast(now);
-
-				if (schedule.asynchronous())
+				if (scheduledMethod.getSchedule().asynchronous())
 				{
-					executor.submit(() -> run(scheduledMethod));
+					if (scheduledMethod.running)
+					{
+						log.debug("Skipping scheduled task {}, the previous run has not finished", scheduledMethod);
+						scheduledMethod.recordOverrun();
+					}
+					else
+					{
+						scheduledMethod.running = true;
+						try
+						{
+							executor.submit(() -> run(scheduledMethod));
+						}
+						catch (RejectedExecutionException ex)
+						{
+							log.warn("unable to submit scheduled task {}", scheduledMethod, ex);
+							scheduledMethod.running = false;
+						}
+					}
 				}
 				else
 				{
@@ -89,23 +144,52 @@ public class Scheduler
 				}
 			}
 		}
+		finally
+		{
+			// requeue even if the loop was cut short, so no method is left unscheduled
+			synchronized (queue)
+			{
+				for (ScheduledMethod scheduledMethod : due)
+				{
+					// removed, or removed and added again, while it was running
+					if (!scheduledMethod.scheduled || scheduledMethod.queued)
+					{
+						continue;
+					}
+
+					scheduledMethod.deadline = now + scheduledMethod.getPeriodNanos();
+					scheduledMethod.queued = true;
+					queue.add(scheduledMethod);
+				}
+			}
+
+			due.clear();
+		}
 	}
 
 	private void run(ScheduledMethod scheduledMethod)
 	{
-		Method method = scheduledMethod.getMethod();
+		long start = clock.getAsLong();
 
 		try
 		{
-			method.invoke(scheduledMethod.getObject());
+			scheduledMethod.invoke();
 		}
-		catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex)
+		catch (Throwable ex)
 		{
-			log.warn("error invoking scheduled task", ex);
+			log.warn("error during scheduled task", ex);
 		}
-		catch (Exception ex)
+		finally
 		{
-			log.warn("error during scheduled task", ex);
+			long elapsed = clock.getAsLong() - start;
+			scheduledMethod.recordRun(elapsed);
+			scheduledMethod.running = false;
+
+			if (elapsed > scheduledMethod.getPeriodNanos())
+			{
+				log.debug("Scheduled task {} ran for {}ms, longer than its period", scheduledMethod, elapsed / 1_000_000);
+				scheduledMethod.recordOverrun();
+			}
 		}
 	}
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+
+/**
+ * The state of a graphics context which overlays are allowed to change,
+ * saved once and restored after each overlay instead of giving every
+ * overlay its own copy of the context
+ */
+class GraphicsState
+{
+	private AffineTransform transform;
+	private Shape clip;
+	private Composite composite;
+	private Paint paint;
+	private Color color;
+	private Color background;
+	private Font font;
+	private Stroke stroke;
+	private RenderingHints hints;
+
+	void save(Graphics2D graphics)
+	{
+		transform = graphics.getTransform();
+		clip = graphics.getClip();
+		composite = graphics.getComposite();
+		paint = graphics.getPaint();
+		color = graphics.getColor();
+		background = graphics.getBackground();
+		font = graphics.getFont();
+		stroke = graphics.getStroke();
+		hints = graphics.getRenderingHints();
+	}
+
+	void restore(Graphics2D graphics)
+	{
+		graphics.setTransform(transform);
+		graphics.setClip(clip);
+		graphics.setComposite(composite);
+		graphics.setPaint(paint);
+		graphics.setColor(color);
+		graphics.setBackground(background);
+		graphics.setFont(font);
+		graphics.setStroke(stroke);
+		graphics.setRenderingHints(hints);
+	}
+}
@@ -24,7 +24,6 @@
  */
 package net.runelite.client.ui.overlay;
 
-import com.google.common.base.MoreObjects;
 import com.google.common.eventbus.Subscribe;
 import java.awt.Color;
 import java.awt.Dimension;
@@ -32,16 +31,21 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
@@ -64,6 +68,9 @@ public class OverlayRenderer
 	private static final int BORDER_BOTTOM = 2;
 	private static final int PADDING = 2;
 
+	private static final OverlayLayer[] LAYERS = OverlayLayer.values();
+	private static final OverlayPosition[] POSITIONS = OverlayPosition.values();
+
 	@Inject
 	PluginManager pluginManager;
 
@@ -76,10 +83,34 @@ public class OverlayRenderer
 	@Inject
 	TooltipOverlay tooltipOverlay;
 
-	private final List<Overlay> overlays = new CopyOnWriteArrayList<>();
+	/**
+	 * Overlays of the enabled plugins by layer and position, each in
+	 * render order. Only rebuilt when the plugins change.
+	 */
+	private volatile OverlayStats[][][] partitions = new OverlayStats[LAYERS.length][POSITIONS.length][0];
 	private BufferedImage surface;
 	private Graphics2D surfaceGraphics;
 
+	// Only used from the client thread while rendering
+	private final GraphicsState graphicsState = new GraphicsState();
+	private final GraphicsState surfaceState = new GraphicsState();
+	private final Point parentPoint = new Point();
+	private final Point subPosition = new Point();
+	private final Point topLeftPoint = new Point();
+	private final Point topRightPoint = new Point();
+	private final Point bottomLeftPoint = new Point();
+	private final Point bottomRightPoint = new Point();
+	private final Point rightChatboxPoint = new Point();
+
+	private final com.sun.management.ThreadMXBean allocationCounter = allocationCounter();
+	private long allocationOverhead;
+
+	/**
+	 * Whether render time and allocation of each overlay is recorded
+	 */
+	@Getter
+	private volatile boolean profiling;
+
 	private ConcurrentLinkedQueue<Consumer<BufferedImage>> screenshotRequests = new ConcurrentLinkedQueue<>();
 
 	@Subscribe
@@ -113,8 +144,7 @@ public class OverlayRenderer
 
 	private void refreshPlugins()
 	{
-		overlays.clear();
-		overlays.addAll(Stream
+		final List<Overlay> overlays = Stream
 			.concat(
 				pluginManager.getPlugins()
 					.stream()
@@ -122,8 +152,9 @@ public class OverlayRenderer
 					.flatMap(plugin -> plugin.getOverlays().stream()),
 				Stream.of(infoBoxOverlay, tooltipOverlay))
 			.filter(Objects::nonNull)
-			.collect(Collectors.toList()));
+			.collect(Collectors.toList());
 		sortOverlays(overlays);
+		partitions = partition(overlays, partitions);
 	}
 
 	static void sortOverlays(List<Overlay> overlays)
@@ -148,6 +179,39 @@ public class OverlayRenderer
 		});
 	}
 
+	/**
+	 * Splits sorted overlays by layer and position, keeping the stats of
+	 * overlays which were already partitioned
+	 */
+	static OverlayStats[][][] partition(List<Overlay> overlays, OverlayStats[][][] previous)
+	{
+		final Map<Overlay, OverlayStats> stats = new IdentityHashMap<>();
+		for (OverlayStats[][] positions : previous)
+		{
+			for (OverlayStats[] entries : positions)
+			{
+				for (OverlayStats entry : entries)
+				{
+					stats.put(entry.getOverlay(), entry);
+				}
+			}
+		}
+
+		final OverlayStats[][][] partitions = new OverlayStats[LAYERS.length][POSITIONS.length][];
+		for (OverlayLayer layer : LAYERS)
+		{
+			for (OverlayPosition position : POSITIONS)
+			{
+				partitions[layer.ordinal()][position.ordinal()] = overlays.stream()
+					.filter(overlay -> overlay.getLayer() == layer && overlay.getPosition() == position)
+					.map(overlay -> stats.computeIfAbsent(overlay, OverlayStats::new))
+					.toArray(OverlayStats[]::new);
+			}
+		}
+
+		return partitions;
+	}
+
 	private void updateSurface()
 	{
 		final Client client = clientProvider.get();
@@ -162,6 +226,7 @@ public class OverlayRenderer
 		final Graphics2D subGraphics = temp.createGraphics();
 		subGraphics.setBackground(new Color(0, 0, 0, 0));
 		OverlayUtil.setGraphicProperties(subGraphics);
+		surfaceState.save(subGraphics);
 
 		surface = temp;
 
@@ -176,8 +241,9 @@ public class OverlayRenderer
 	public void render(Graphics2D graphics, OverlayLayer layer)
 	{
 		final Client client = clientProvider.get();
+		final OverlayStats[][] positions = partitions[layer.ordinal()];
 
-		if (client == null || surface == null || overlays.isEmpty())
+		if (client == null || surface == null || isEmpty(positions))
 		{
 			return;
 		}
@@ -202,15 +268,11 @@ public class OverlayRenderer
 			? chatbox.getBounds() : new Rectangle(0, bounds.height, 519, 165);
 
 		OverlayUtil.setGraphicProperties(graphics);
-		final Point topLeftPoint = new Point();
+		graphicsState.save(graphics);
 		topLeftPoint.move(BORDER_LEFT, BORDER_TOP);
-		final Point topRightPoint = new Point();
 		topRightPoint.move(bounds.x + bounds.width - BORDER_RIGHT, BORDER_TOP);
-		final Point bottomLeftPoint = new Point();
 		bottomLeftPoint.move(BORDER_LEFT, bounds.y + bounds.height - BORDER_BOTTOM);
-		final Point bottomRightPoint = new Point();
 		bottomRightPoint.move(bounds.x + bounds.width - BORDER_RIGHT, bounds.y + bounds.height - BORDER_BOTTOM);
-		final Point rightChatboxPoint = new Point();
 		rightChatboxPoint.move(bounds.x + chatboxBounds.width - BORDER_RIGHT, bounds.y + bounds.height - BORDER_BOTTOM);
 
 		//check to see if Chatbox is minimized
@@ -220,14 +282,9 @@ public class OverlayRenderer
 			bottomLeftPoint.y += chatboxBounds.height;
 		}
 
-		for (Overlay overlay : overlays)
+		for (OverlayPosition position : POSITIONS)
 		{
-			if (overlay.getLayer() != layer)
-			{
-				continue;
-			}
-
-			OverlayPosition overlayPosition = overlay.getPosition();
+			OverlayPosition overlayPosition = position;
 			if (overlayPosition == OverlayPosition.ABOVE_CHATBOX_RIGHT && !client.isResized())
 			{
 				// On fixed mode, ABOVE_CHATBOX_RIGHT is in the same location as
@@ -235,72 +292,163 @@ public class OverlayRenderer
 				// drawing over each other.
 				overlayPosition = OverlayPosition.BOTTOM_RIGHT;
 			}
-			final Point subPosition = new Point();
-			switch (overlayPosition)
+
+			for (OverlayStats entry : positions[position.ordinal()])
 			{
-				case BOTTOM_LEFT:
-					subPosition.setLocation(bottomLeftPoint);
-					break;
-				case BOTTOM_RIGHT:
-					subPosition.setLocation(bottomRightPoint);
-					break;
-				case TOP_LEFT:
-					subPosition.setLocation(topLeftPoint);
-					break;
-				case TOP_RIGHT:
-					subPosition.setLocation(topRightPoint);
-					break;
-				case ABOVE_CHATBOX_RIGHT:
-					subPosition.setLocation(rightChatboxPoint);
-					break;
+				renderOverlay(entry, overlayPosition, graphics);
 			}
+		}
+	}
+
+	private void renderOverlay(OverlayStats entry, OverlayPosition overlayPosition, Graphics2D graphics)
+	{
+		if (overlayPosition == OverlayPosition.DYNAMIC || overlayPosition == OverlayPosition.TOOLTIP)
+		{
+			parentPoint.setLocation(0, 0);
+			safeRender(entry, graphics, graphicsState, parentPoint);
+			return;
+		}
 
-			if (overlayPosition == OverlayPosition.DYNAMIC || overlayPosition == OverlayPosition.TOOLTIP)
+		switch (overlayPosition)
+		{
+			case BOTTOM_LEFT:
+				subPosition.setLocation(bottomLeftPoint);
+				break;
+			case BOTTOM_RIGHT:
+				subPosition.setLocation(bottomRightPoint);
+				break;
+			case TOP_LEFT:
+				subPosition.setLocation(topLeftPoint);
+				break;
+			case TOP_RIGHT:
+				subPosition.setLocation(topRightPoint);
+				break;
+			case ABOVE_CHATBOX_RIGHT:
+				subPosition.setLocation(rightChatboxPoint);
+				break;
+		}
+
+		final Dimension dimension = safeRender(entry, surfaceGraphics, surfaceState, subPosition);
+		if (dimension == null || (dimension.width == 0 && dimension.height == 0))
+		{
+			return;
+		}
+
+		switch (overlayPosition)
+		{
+			case BOTTOM_LEFT:
+				bottomLeftPoint.x += dimension.width + (dimension.width == 0 ? 0 : PADDING);
+				break;
+			case BOTTOM_RIGHT:
+				bottomRightPoint.x -= dimension.width + (dimension.width == 0 ? 0 : PADDING);
+				break;
+			case TOP_LEFT:
+				topLeftPoint.y += dimension.height + (dimension.height == 0 ? 0 : PADDING);
+				break;
+			case TOP_RIGHT:
+				topRightPoint.y += dimension.height + (dimension.height == 0 ? 0 : PADDING);
+				break;
+			case ABOVE_CHATBOX_RIGHT:
+				rightChatboxPoint.y -= dimension.height + (dimension.height == 0 ? 0 : PADDING);
+				break;
+		}
+
+		// Copy the rendered area of the surface straight from it rather than through a subimage
+		final Point transformed = OverlayUtil.transformPosition(overlayPosition, dimension);
+		final int x = subPosition.x + transformed.x;
+		final int y = subPosition.y + transformed.y;
+		graphics.drawImage(surface, x, y, x + dimension.width, y + dimension.height,
+			0, 0, dimension.width, dimension.height, null);
+		surfaceGraphics.clearRect(0, 0, dimension.width, dimension.height);
+	}
+
+	private Dimension safeRender(OverlayStats entry, Graphics2D graphics, GraphicsState state, Point point)
+	{
+		if (!profiling)
+		{
+			try
 			{
-				safeRender(overlay, graphics, new Point());
+				return entry.getOverlay().render(graphics, point);
 			}
-			else
+			finally
 			{
-				final Dimension dimension = MoreObjects.firstNonNull(safeRender(overlay, surfaceGraphics, subPosition), new Dimension());
-				if (dimension.width == 0 && dimension.height == 0)
-				{
-					continue;
-				}
+				state.restore(graphics);
+			}
+		}
 
-				final BufferedImage clippedImage = surface.getSubimage(0, 0, dimension.width, dimension.height);
+		final long allocated = allocatedBytes();
+		final long start = System.nanoTime();
 
-				switch (overlayPosition)
-				{
-					case BOTTOM_LEFT:
-						bottomLeftPoint.x += dimension.width + (dimension.width == 0 ? 0 : PADDING);
-						break;
-					case BOTTOM_RIGHT:
-						bottomRightPoint.x -= dimension.width + (dimension.width == 0 ? 0 : PADDING);
-						break;
-					case TOP_LEFT:
-						topLeftPoint.y += dimension.height + (dimension.height == 0 ? 0 : PADDING);
-						break;
-					case TOP_RIGHT:
-						topRightPoint.y += dimension.height + (dimension.height == 0 ? 0 : PADDING);
-						break;
-					case ABOVE_CHATBOX_RIGHT:
-						rightChatboxPoint.y -= dimension.height + (dimension.height == 0 ? 0 : PADDING);
-						break;
-				}
+		try
+		{
+			return entry.getOverlay().render(graphics, point);
+		}
+		finally
+		{
+			final long nanos = System.nanoTime() - start;
+			final long bytes = allocatedBytes() - allocated - allocationOverhead;
+			state.restore(graphics);
+			entry.record(nanos, Math.max(bytes, 0));
+		}
+	}
 
-				final Point transformed = OverlayUtil.transformPosition(overlayPosition, dimension);
-				graphics.drawImage(clippedImage, subPosition.x + transformed.x, subPosition.y + transformed.y, null);
-				surfaceGraphics.clearRect(0, 0, (int) dimension.getWidth(), (int) dimension.getHeight());
+	private static boolean isEmpty(OverlayStats[][] positions)
+	{
+		for (OverlayStats[] entries : positions)
+		{
+			if (entries.length > 0)
+			{
+				return false;
 			}
 		}
+
+		return true;
+	}
+
+	public void setProfiling(boolean profiling)
+	{
+		if (profiling)
+		{
+			// Reading the counter allocates too, so measure by how much
+			final long allocated = allocatedBytes();
+			allocationOverhead = allocatedBytes() - allocated;
+		}
+
+		this.profiling = profiling;
 	}
 
-	private Dimension safeRender(RenderableEntity entity, Graphics2D graphics, Point point)
+	/**
+	 * Gets the render stats of the overlays of the enabled plugins
+	 */
+	public List<OverlayStats> getOverlayStats()
 	{
-		final Graphics2D subGraphics = (Graphics2D) graphics.create();
-		final Dimension dimension = entity.render(subGraphics, point);
-		subGraphics.dispose();
-		return dimension;
+		return Arrays.stream(partitions)
+			.flatMap(Arrays::stream)
+			.flatMap(Arrays::stream)
+			.collect(Collectors.toList());
+	}
+
+	private long allocatedBytes()
+	{
+		if (allocationCounter == null)
+		{
+			return 0;
+		}
+
+		return allocationCounter.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean allocationCounter()
+	{
+		final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean
+			&& ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported())
+		{
+			return (com.sun.management.ThreadMXBean) threadMXBean;
+		}
+
+		return null;
 	}
 
 	public void provideScreenshot(BufferedImage image)
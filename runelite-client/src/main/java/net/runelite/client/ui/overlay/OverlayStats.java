@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Render time and allocation of an overlay, averaged over its recent frames
+ */
+@Getter
+public class OverlayStats
+{
+	/**
+	 * Weight of the latest frame in the averages
+	 */
+	private static final double SMOOTHING = 0.05;
+
+	@Getter(AccessLevel.PACKAGE)
+	private final Overlay overlay;
+
+	private final String name;
+	private long renders;
+	private double averageNanos;
+	private double averageBytes;
+
+	OverlayStats(Overlay overlay)
+	{
+		this.overlay = overlay;
+
+		final Class<?> clazz = overlay.getClass();
+		this.name = clazz.getSimpleName().isEmpty() ? clazz.getName() : clazz.getSimpleName();
+	}
+
+	void record(long nanos, long bytes)
+	{
+		if (renders++ == 0)
+		{
+			averageNanos = nanos;
+			averageBytes = bytes;
+			return;
+		}
+
+		averageNanos += (nanos - averageNanos) * SMOOTHING;
+		averageBytes += (bytes - averageBytes) * SMOOTHING;
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay;
+
+import java.awt.AlphaComposite;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Retained rendering for entities whose pixels only change with their
+ * content. The entity is rendered into an image once, and the image is
+ * drawn until the content key, font or antialiasing changes.
+ * <p>
+ * The cache has to be kept with the entity across frames, and the content
+ * key must compare equal exactly when the entity would render the same.
+ */
+public class RenderCache
+{
+	/**
+	 * Extra pixels kept around the area, for glyphs which reach outside
+	 * of their advance
+	 */
+	private static final int PADDING = 2;
+
+	private BufferedImage image;
+	private Object key;
+	private Font font;
+	private Object antialiasing;
+	private Object textAntialiasing;
+	private Dimension dimension;
+	private int x;
+	private int y;
+	private int width;
+	private int height;
+
+	/**
+	 * Draws the cached pixels, rendering them again first if the content has
+	 * changed
+	 *
+	 * @param graphics graphics to draw to
+	 * @param key      content key of the entity
+	 * @param area     area the entity draws to, in the graphics' coordinates
+	 * @param renderer renders the entity to the given graphics
+	 * @return the dimension the renderer returned for this content
+	 */
+	public Dimension render(Graphics2D graphics, Object key, Supplier<Rectangle> area, Function<Graphics2D, Dimension> renderer)
+	{
+		final AffineTransform transform = graphics.getTransform();
+		if ((transform.getType() & ~AffineTransform.TYPE_TRANSLATION) != 0
+			|| transform.getTranslateX() != Math.rint(transform.getTranslateX())
+			|| transform.getTranslateY() != Math.rint(transform.getTranslateY()))
+		{
+			// Scaled or fractional drawing would not line up with the cached pixels
+			return renderer.apply(graphics);
+		}
+
+		if (!isValid(graphics, key))
+		{
+			update(graphics, key, area.get(), renderer);
+		}
+
+		if (dimension == null)
+		{
+			return null;
+		}
+
+		graphics.drawImage(image, x, y, x + width, y + height, 0, 0, width, height, null);
+		return new Dimension(dimension);
+	}
+
+	/**
+	 * Drops the cached pixels, so the next render draws the entity again
+	 */
+	public void invalidate()
+	{
+		key = null;
+	}
+
+	private boolean isValid(Graphics2D graphics, Object key)
+	{
+		return this.key != null
+			&& this.key.equals(key)
+			&& Objects.equals(font, graphics.getFont())
+			&& Objects.equals(antialiasing, graphics.getRenderingHint(RenderingHints.KEY_ANTIALIASING))
+			&& Objects.equals(textAntialiasing, graphics.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING));
+	}
+
+	private void update(Graphics2D graphics, Object key, Rectangle area, Function<Graphics2D, Dimension> renderer)
+	{
+		final Rectangle bounds = new Rectangle(area);
+		bounds.grow(PADDING, PADDING);
+
+		if (image == null || image.getWidth() < bounds.width || image.getHeight() < bounds.height)
+		{
+			final int imageWidth = Math.max(bounds.width, image != null ? image.getWidth() : 0);
+			final int imageHeight = Math.max(bounds.height, image != null ? image.getHeight() : 0);
+			image = new BufferedImage(Math.max(imageWidth, 1), Math.max(imageHeight, 1), BufferedImage.TYPE_INT_ARGB);
+		}
+
+		final Graphics2D imageGraphics = image.createGraphics();
+
+		try
+		{
+			imageGraphics.setComposite(AlphaComposite.Clear);
+			imageGraphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+			imageGraphics.setComposite(AlphaComposite.SrcOver);
+
+			imageGraphics.setFont(graphics.getFont());
+			imageGraphics.setRenderingHints(graphics.getRenderingHints());
+			imageGraphics.setColor(graphics.getColor());
+			imageGraphics.setStroke(graphics.getStroke());
+			imageGraphics.translate(-bounds.x, -bounds.y);
+
+			dimension = renderer.apply(imageGraphics);
+		}
+		finally
+		{
+			imageGraphics.dispose();
+		}
+
+		this.key = key;
+		this.font = graphics.getFont();
+		this.antialiasing = graphics.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+		this.textAntialiasing = graphics.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+		this.x = bounds.x;
+		this.y = bounds.y;
+		this.width = bounds.width;
+		this.height = bounds.height;
+	}
+}
@@ -31,9 +31,11 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.Objects;
 import javax.annotation.Nullable;
 import lombok.Setter;
+import net.runelite.client.ui.overlay.RenderCache;
 import net.runelite.client.ui.overlay.RenderableEntity;
 
 public class InfoBoxComponent implements RenderableEntity
@@ -57,8 +59,53 @@ public class InfoBoxComponent implements RenderableEntity
 	@Nullable
 	private BufferedImage image;
 
+	/**
+	 * Draws the box from a cache until it changes, for components which
+	 * are kept and rendered every frame. The image is compared by identity.
+	 */
+	@Setter
+	private boolean retained;
+
+	private final RenderCache renderCache = new RenderCache();
+
+	/**
+	 * Gets a key which is equal for as long as the box renders the same
+	 */
+	public Object getContentKey()
+	{
+		return Arrays.asList(text, color, backgroundColor, new Point(position), image);
+	}
+
 	@Override
 	public Dimension render(Graphics2D graphics, Point parent)
+	{
+		if (!retained)
+		{
+			return renderBox(graphics, parent);
+		}
+
+		return renderCache.render(graphics, getContentKey(), () -> getArea(graphics.getFontMetrics()),
+			g -> renderBox(g, parent));
+	}
+
+	private Rectangle getArea(FontMetrics metrics)
+	{
+		final Rectangle area = new Rectangle(position.x, position.y, BOX_SIZE, BOX_SIZE);
+
+		if (Objects.nonNull(image))
+		{
+			area.add(new Rectangle(position.x + (BOX_SIZE - image.getWidth()) / 2,
+				(BOX_SIZE - image.getHeight()) / 2, image.getWidth(), image.getHeight()));
+		}
+
+		final int textWidth = metrics.stringWidth(TextComponent.textWithoutColTags(text));
+		area.add(new Rectangle(position.x + (BOX_SIZE - metrics.stringWidth(text)) / 2,
+			BOX_SIZE - SEPARATOR - metrics.getMaxAscent(),
+			textWidth + 1, metrics.getMaxAscent() + metrics.getMaxDescent() + 1));
+		return area;
+	}
+
+	private Dimension renderBox(Graphics2D graphics, Point parent)
 	{
 		final FontMetrics metrics = graphics.getFontMetrics();
 		final Rectangle bounds = new Rectangle(position.x, position.y, BOX_SIZE, BOX_SIZE);
@@ -32,13 +32,16 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import net.runelite.client.ui.overlay.RenderCache;
 import net.runelite.client.ui.overlay.RenderableEntity;
 
 public class PanelComponent implements RenderableEntity
@@ -81,15 +84,75 @@ public class PanelComponent implements RenderableEntity
 	@Setter
 	private int width = 140;
 
+	/**
+	 * Draws the panel from a cache until its content changes. This is
+	 * for panels which are kept and refilled every frame, rather than
+	 * created anew.
+	 */
+	@Setter
+	private boolean retained;
+
+	private final RenderCache renderCache = new RenderCache();
+
+	/**
+	 * Gets a key which is equal for as long as the panel renders the same
+	 */
+	public Object getContentKey()
+	{
+		final List<Line> lineCopies = lines.stream()
+			.map(line -> new Line(line.getLeft(), line.getLeftColor(), line.getRight(), line.getRightColor()))
+			.collect(Collectors.toList());
+
+		return Arrays.asList(title, titleColor, backgroundColor, new Point(position), width, lineCopies,
+			progressBar == null ? null : progressBar.getContentKey());
+	}
+
 	@Override
 	public Dimension render(Graphics2D graphics, Point parent)
 	{
-		final Dimension dimension = new Dimension();
+		if (!retained)
+		{
+			return renderPanel(graphics, parent);
+		}
+
+		return renderCache.render(graphics, getContentKey(), () -> getArea(graphics.getFontMetrics()),
+			g -> renderPanel(g, parent));
+	}
+
+	private int getHeight(FontMetrics metrics)
+	{
 		final int elementNumber = (Strings.isNullOrEmpty(title) ? 0 : 1) + lines.size() + (Objects.isNull(progressBar) ? 0 : 1);
-		int height = elementNumber == 0 ? 0 :
-			TOP_BORDER + (graphics.getFontMetrics().getHeight() * elementNumber)
+		return elementNumber == 0 ? 0 :
+			TOP_BORDER + (metrics.getHeight() * elementNumber)
 				+ SEPARATOR * elementNumber + (Objects.isNull(progressBar) ? 0 : progressBar.getHeight() / 2)
 					+ BOTTOM_BORDER;
+	}
+
+	private Rectangle getArea(FontMetrics metrics)
+	{
+		final Rectangle area = new Rectangle(position.x, position.y, width, getHeight(metrics));
+
+		// Text too long for the panel is drawn past its edges
+		if (!Strings.isNullOrEmpty(title))
+		{
+			final int titleWidth = metrics.stringWidth(title);
+			area.add(position.x + (width - titleWidth) / 2, position.y);
+			area.add(position.x + (width + titleWidth) / 2 + 1, position.y);
+		}
+
+		for (final Line line : lines)
+		{
+			area.add(position.x + LEFT_BORDER + metrics.stringWidth(TextComponent.textWithoutColTags(line.getLeft())) + 1, position.y);
+			area.add(position.x + width - RIGHT_BORDER - metrics.stringWidth(TextComponent.textWithoutColTags(line.getRight())), position.y);
+		}
+
+		return area;
+	}
+
+	private Dimension renderPanel(Graphics2D graphics, Point parent)
+	{
+		final Dimension dimension = new Dimension();
+		int height = getHeight(graphics.getFontMetrics());
 		dimension.setSize(width, height);
 
 		if (dimension.height == 0)
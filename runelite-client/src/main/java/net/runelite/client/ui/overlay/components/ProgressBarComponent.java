@@ -31,6 +31,7 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.text.DecimalFormat;
+import java.util.Arrays;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -62,6 +63,15 @@ public class ProgressBarComponent
 	@Setter
 	private int height = 16;
 
+	/**
+	 * Gets a key which is equal for as long as the bar renders the same,
+	 * leaving out the position and width which a panel lays out
+	 */
+	Object getContentKey()
+	{
+		return Arrays.asList(text, progress, foregroundColor, backgroundColor, fontColor, height);
+	}
+
 	public Dimension render(Graphics2D graphics, Point parent)
 	{
 		FontMetrics metrics = graphics.getFontMetrics();
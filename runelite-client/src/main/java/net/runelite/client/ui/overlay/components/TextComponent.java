@@ -29,8 +29,11 @@ import java.awt.Dimension;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 import lombok.Setter;
+import net.runelite.client.ui.overlay.RenderCache;
 import net.runelite.client.ui.overlay.RenderableEntity;
 
 public class TextComponent implements RenderableEntity
@@ -48,13 +51,48 @@ public class TextComponent implements RenderableEntity
 	@Setter
 	private Color color = Color.WHITE;
 
+	/**
+	 * Draws the text from a cache until it changes, for components which
+	 * are kept and rendered every frame
+	 */
+	@Setter
+	private boolean retained;
+
+	private final RenderCache renderCache = new RenderCache();
+
 	public static String textWithoutColTags(String text)
 	{
 		return COL_TAG_PATTERN.matcher(text).replaceAll("");
 	}
 
+	/**
+	 * Gets a key which is equal for as long as the text renders the same
+	 */
+	public Object getContentKey()
+	{
+		return Arrays.asList(text, new Point(position), color);
+	}
+
 	@Override
 	public Dimension render(Graphics2D graphics, Point parent)
+	{
+		if (!retained)
+		{
+			return renderText(graphics);
+		}
+
+		return renderCache.render(graphics, getContentKey(), () -> getArea(graphics.getFontMetrics()), this::renderText);
+	}
+
+	private Rectangle getArea(FontMetrics fontMetrics)
+	{
+		// the text is drawn on its baseline, with the shadow one pixel further
+		return new Rectangle(position.x, position.y - fontMetrics.getMaxAscent(),
+			fontMetrics.stringWidth(textWithoutColTags(text)) + 1,
+			fontMetrics.getMaxAscent() + fontMetrics.getMaxDescent() + 1);
+	}
+
+	private Dimension renderText(Graphics2D graphics)
 	{
 		final FontMetrics fontMetrics = graphics.getFontMetrics();
 
@@ -30,7 +30,9 @@ import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import net.runelite.api.Client;
@@ -50,6 +52,9 @@ public class InfoBoxOverlay extends Overlay
 	private final TooltipManager tooltipManager;
 	private final Provider<Client> clientProvider;
 
+	// Kept across frames so each box is only drawn again when it changes
+	private final Map<InfoBox, InfoBoxComponent> components = new IdentityHashMap<>();
+
 	@Inject
 	public InfoBoxOverlay(InfoBoxManager infoboxManager, TooltipManager tooltipManager, Provider<Client> clientProvider)
 	{
@@ -63,6 +68,7 @@ public class InfoBoxOverlay extends Overlay
 	public Dimension render(Graphics2D graphics, Point parent)
 	{
 		List<InfoBox> infoBoxes = infoboxManager.getInfoBoxes();
+		components.keySet().retainAll(infoBoxes);
 
 		if (infoBoxes.isEmpty())
 		{
@@ -79,8 +85,12 @@ public class InfoBoxOverlay extends Overlay
 				continue;
 			}
 
-
-			final InfoBoxComponent infoBoxComponent = new InfoBoxComponent();
+			final InfoBoxComponent infoBoxComponent = components.computeIfAbsent(box, b ->
+			{
+				final InfoBoxComponent component = new InfoBoxComponent();
+				component.setRetained(true);
+				return component;
+			});
 			infoBoxComponent.setColor(box.getTextColor());
 			infoBoxComponent.setImage(box.getImage());
 			infoBoxComponent.setText(box.getText());
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.callback;
+
+import com.google.common.eventbus.Subscribe;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.api.events.ProjectileMoved;
+import net.runelite.client.eventbus.EventDispatcher;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReusableEventTest
+{
+	private EventDispatcher eventBus;
+
+	@Before
+	public void before()
+	{
+		eventBus = new EventDispatcher();
+	}
+
+	@Test
+	public void testReuse()
+	{
+		List<Object> events = new ArrayList<>();
+		List<String> options = new ArrayList<>();
+		eventBus.register(new Object()
+		{
+			@Subscribe
+			public void onMenuEntryAdded(MenuEntryAdded event)
+			{
+				events.add(event);
+				options.add(event.getOption());
+			}
+		});
+
+		ReusableEvent<MenuEntryAdded> reusable = new ReusableEvent<>(MenuEntryAdded::new, null);
+		post(reusable, "Walk here");
+		post(reusable, "Examine");
+
+		assertEquals(Arrays.asList("Walk here", "Examine"), options);
+		assertSame(events.get(0), events.get(1));
+	}
+
+	@Test
+	public void testPostWhileDispatching()
+	{
+		ReusableEvent<MenuEntryAdded> reusable = new ReusableEvent<>(MenuEntryAdded::new, null);
+		List<Object> events = new ArrayList<>();
+		List<String> options = new ArrayList<>();
+
+		eventBus.register(new Object()
+		{
+			@Subscribe
+			public void onMenuEntryAdded(MenuEntryAdded event)
+			{
+				events.add(event);
+				options.add(event.getOption());
+
+				if (event.getOption().equals("Walk here"))
+				{
+					// queued until this event is dispatched, so can't share the instance
+					post(reusable, "Cancel");
+				}
+			}
+		});
+
+		post(reusable, "Walk here");
+
+		assertEquals(Arrays.asList("Walk here", "Cancel"), options);
+		assertNotSame(events.get(0), events.get(1));
+	}
+
+	@Test
+	public void testRetentionChecker()
+	{
+		RetentionChecker retentionChecker = new RetentionChecker();
+		ReusableEvent<MenuEntryAdded> menuEntryAdded = new ReusableEvent<>(MenuEntryAdded::new, retentionChecker);
+		ReusableEvent<ProjectileMoved> projectileMoved = new ReusableEvent<>(ProjectileMoved::new, retentionChecker);
+
+		List<Object> kept = new ArrayList<>();
+		eventBus.register(new Object()
+		{
+			@Subscribe
+			public void onMenuEntryAdded(MenuEntryAdded event)
+			{
+				kept.add(event);
+			}
+
+			@Subscribe
+			public void onProjectileMoved(ProjectileMoved event)
+			{
+				event.getZ();
+			}
+		});
+
+		post(menuEntryAdded, "Walk here");
+		projectileMoved.post(eventBus, projectileMoved.acquire(eventBus));
+
+		System.gc();
+		System.gc();
+
+		assertEquals(Collections.singleton(MenuEntryAdded.class), retentionChecker.check());
+		assertEquals(1, kept.size());
+	}
+
+	/**
+	 * Posts the events of a crowded scene, a rebuilt menu and moving
+	 * projectiles each frame, with and without reusing the events
+	 */
+	@Test
+	public void testCrowdedSceneAllocation()
+	{
+		eventBus.register(new Object()
+		{
+			private int count;
+
+			@Subscribe
+			public void onMenuEntryAdded(MenuEntryAdded event)
+			{
+				count += event.getIdentifier();
+			}
+
+			@Subscribe
+			public void onProjectileMoved(ProjectileMoved event)
+			{
+				count += event.getZ();
+			}
+		});
+
+		ReusableEvent<MenuEntryAdded> menuEntryAdded = new ReusableEvent<>(MenuEntryAdded::new, null);
+		ReusableEvent<ProjectileMoved> projectileMoved = new ReusableEvent<>(ProjectileMoved::new, null);
+
+		// warm up
+		simulate(menuEntryAdded, projectileMoved, true, 100);
+		simulate(menuEntryAdded, projectileMoved, false, 100);
+
+		int frames = 1000;
+		long reused = simulate(menuEntryAdded, projectileMoved, true, frames);
+		long allocated = simulate(menuEntryAdded, projectileMoved, false, frames);
+
+		// reusing events allocates less than a quarter of what allocating them does
+		assertTrue(reused * 4 < allocated);
+	}
+
+	private long simulate(ReusableEvent<MenuEntryAdded> menuEntryAdded, ReusableEvent<ProjectileMoved> projectileMoved, boolean reuse, int frames)
+	{
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long start = threadMXBean.getThreadAllocatedBytes(threadId);
+
+		for (int frame = 0; frame < frames; ++frame)
+		{
+			for (int entry = 0; entry < 200; ++entry)
+			{
+				MenuEntryAdded event = reuse ? menuEntryAdded.acquire(eventBus) : new MenuEntryAdded();
+				event.setOption("Attack");
+				event.setTarget("Goblin");
+				event.setIdentifier(entry);
+				menuEntryAdded.post(eventBus, event);
+			}
+
+			for (int projectile = 0; projectile < 100; ++projectile)
+			{
+				ProjectileMoved event = reuse ? projectileMoved.acquire(eventBus) : new ProjectileMoved();
+				event.setZ(projectile);
+				projectileMoved.post(eventBus, event);
+			}
+		}
+
+		return threadMXBean.getThreadAllocatedBytes(threadId) - start;
+	}
+
+	private void post(ReusableEvent<MenuEntryAdded> reusable, String option)
+	{
+		MenuEntryAdded event = reusable.acquire(eventBus);
+		event.setOption(option);
+		reusable.post(eventBus, event);
+	}
+}
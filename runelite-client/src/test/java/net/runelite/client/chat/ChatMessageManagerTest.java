@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.chat;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import net.runelite.api.ChatLineBuffer;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.MessageNode;
+import net.runelite.api.Varbits;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ChatMessageManagerTest
+{
+	private static final String MESSAGE = new ChatMessageBuilder()
+		.append(ChatColorType.NORMAL)
+		.append("Price of ")
+		.append(ChatColorType.HIGHLIGHT)
+		.append("Abyssal whip")
+		.append(ChatColorType.NORMAL)
+		.append(": GE average ")
+		.append(ChatColorType.HIGHLIGHT)
+		.append("1,500,000")
+		.build();
+
+	private Client client;
+	private ChatMessageManager chatMessageManager;
+	private final Map<Integer, ChatLineBuffer> chatLineMap = new HashMap<>();
+	private MessageNode publicLine;
+	private MessageNode clanLine;
+
+	@Before
+	public void before()
+	{
+		client = mock(Client.class);
+		when(client.getChatLineMap()).thenReturn(chatLineMap);
+
+		ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+		when(executor.submit(any(Runnable.class))).thenAnswer(invocation ->
+		{
+			((Runnable) invocation.getArguments()[0]).run();
+			return null;
+		});
+
+		chatMessageManager = new ChatMessageManager(() -> client, executor);
+
+		publicLine = line(ChatMessageType.PUBLIC);
+		clanLine = line(ChatMessageType.CLANCHAT);
+	}
+
+	private MessageNode line(ChatMessageType type)
+	{
+		MessageNode line = mock(MessageNode.class);
+		when(line.getType()).thenReturn(type);
+		when(line.getRuneLiteFormatMessage()).thenReturn(MESSAGE);
+
+		ChatLineBuffer buffer = mock(ChatLineBuffer.class);
+		when(buffer.getLines()).thenReturn(new MessageNode[]
+		{
+			line, null
+		});
+		chatLineMap.put(type.getType(), buffer);
+		return line;
+	}
+
+	private void setTransparent(boolean transparent)
+	{
+		when(client.isResized()).thenReturn(transparent);
+		when(client.getSetting(Varbits.TRANSPARANT_CHATBOX)).thenReturn(transparent ? 1 : 0);
+	}
+
+	@Test
+	public void testRewrite()
+	{
+		ChatColorRewriter rewriter = new ChatColorRewriter(Arrays.asList(
+			new ChatColor(ChatColorType.NORMAL, Color.RED, false),
+			new ChatColor(ChatColorType.HIGHLIGHT, Color.BLUE, false),
+			new ChatColor(ChatColorType.HIGHLIGHT, Color.GREEN, true)), false);
+
+		assertEquals("<col=ff0000>Price of <col=ff>Abyssal whip<col=ff0000>: GE average <col=ff>1,500,000",
+			rewriter.rewrite(MESSAGE));
+		assertSame(rewriter.rewrite(MESSAGE), rewriter.rewrite(MESSAGE));
+
+		// unknown and malformed tags are left alone
+		assertEquals("<col=ff00ff>a<colNORMAL b<col<col=ff0000>", rewriter.rewrite("<col=ff00ff>a<colNORMAL b<col<colNORMAL>"));
+		assertEquals("plain", rewriter.rewrite("plain"));
+
+		// only the colors for the chatbox transparency are used
+		ChatColorRewriter transparent = new ChatColorRewriter(Arrays.asList(
+			new ChatColor(ChatColorType.NORMAL, Color.RED, false),
+			new ChatColor(ChatColorType.HIGHLIGHT, Color.GREEN, true)), true);
+		assertEquals("<colNORMAL>Price of <col=ff00>Abyssal whip<colNORMAL>: GE average <col=ff00>1,500,000",
+			transparent.rewrite(MESSAGE));
+	}
+
+	@Test
+	public void testRefreshOnlyAffectedTypes()
+	{
+		setTransparent(false);
+		chatMessageManager.cacheColor(new ChatColor(ChatColorType.HIGHLIGHT, Color.RED, false), ChatMessageType.PUBLIC);
+		chatMessageManager.cacheColor(new ChatColor(ChatColorType.HIGHLIGHT, Color.BLUE, false), ChatMessageType.CLANCHAT);
+
+		chatMessageManager.refreshAll();
+		verify(publicLine).setValue("<colNORMAL>Price of <col=ff0000>Abyssal whip<colNORMAL>: GE average <col=ff0000>1,500,000");
+		verify(clanLine).setValue(anyString());
+		verify(client, times(1)).refreshChat();
+
+		// nothing changed
+		chatMessageManager.refreshAll();
+		verify(publicLine, times(1)).setValue(anyString());
+		verify(client, times(1)).refreshChat();
+
+		// caching the same color again changes nothing either
+		chatMessageManager.cacheColor(new ChatColor(ChatColorType.HIGHLIGHT, Color.RED, false), ChatMessageType.PUBLIC);
+		chatMessageManager.refreshAll();
+		verify(publicLine, times(1)).setValue(anyString());
+
+		// a new clan chat color only recolors clan chat
+		chatMessageManager.cacheColor(new ChatColor(ChatColorType.HIGHLIGHT, Color.GREEN, false), ChatMessageType.CLANCHAT);
+		chatMessageManager.refreshAll();
+		verify(publicLine, times(1)).setValue(anyString());
+		verify(clanLine).setValue("<colNORMAL>Price of <col=ff00>Abyssal whip<colNORMAL>: GE average <col=ff00>1,500,000");
+		verify(client, times(2)).refreshChat();
+	}
+
+	@Test
+	public void testRefreshOnTransparencyChange()
+	{
+		MessageNode gameLine = line(ChatMessageType.SERVER);
+
+		setTransparent(false);
+		chatMessageManager.cacheColor(new ChatColor(ChatColorType.HIGHLIGHT, Color.RED, false), ChatMessageType.PUBLIC);
+		chatMessageManager.cacheColor(new ChatColor(ChatColorType.HIGHLIGHT, Color.GREEN, true), ChatMessageType.PUBLIC);
+		chatMessageManager.refreshAll();
+		verify(gameLine).setValue(MESSAGE);
+
+		setTransparent(true);
+		chatMessageManager.refreshAll();
+		verify(publicLine).setValue("<colNORMAL>Price of <col=ff00>Abyssal whip<colNORMAL>: GE average <col=ff00>1,500,000");
+
+		// types without colors look the same either way
+		verify(gameLine, times(1)).setValue(anyString());
+	}
+
+	@Test
+	public void testUpdateWithoutFormattedMessage()
+	{
+		MessageNode line = mock(MessageNode.class);
+		when(line.getType()).thenReturn(ChatMessageType.PUBLIC);
+
+		chatMessageManager.update(line);
+		verify(line, never()).setValue(anyString());
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.config;
+
+import com.google.common.eventbus.EventBus;
+import com.google.inject.Guice;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigInvocationHandlerTest
+{
+	public enum Shape
+	{
+		SQUARE,
+		CIRCLE
+	}
+
+	@ConfigGroup(
+		keyName = "cached",
+		name = "Cached",
+		description = "Cached"
+	)
+	public interface CachedConfig
+	{
+		@ConfigItem(
+			keyName = "color",
+			name = "Color",
+			description = ""
+		)
+		default Color color()
+		{
+			return Color.RED;
+		}
+
+		@ConfigItem(
+			keyName = "size",
+			name = "Size",
+			description = ""
+		)
+		default Dimension size()
+		{
+			return new Dimension(10, 20);
+		}
+
+		@ConfigItem(
+			keyName = "shape",
+			name = "Shape",
+			description = ""
+		)
+		Shape shape();
+
+		@ConfigItem(
+			keyName = "shape",
+			name = "Shape",
+			description = ""
+		)
+		void shape(Shape shape);
+	}
+
+	@Mock
+	@Bind
+	EventBus eventBus;
+
+	@Mock
+	@Bind
+	ScheduledExecutorService executor;
+
+	@Mock
+	@Bind
+	RuneLiteConfig runeliteConfig;
+
+	@Inject
+	ConfigManager manager;
+
+	private CachedConfig config;
+
+	@Before
+	public void before()
+	{
+		Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+		config = manager.getConfig(CachedConfig.class);
+	}
+
+	@Test
+	public void testCachedValue()
+	{
+		manager.setConfiguration("cached", "color", "#00ff00");
+
+		Color color = config.color();
+		assertEquals(Color.GREEN, color);
+		// parsed once, and then returned from the cache
+		assertSame(color, config.color());
+	}
+
+	@Test
+	public void testInvalidate()
+	{
+		assertEquals(Color.RED, config.color());
+		assertEquals(null, config.shape());
+
+		manager.setConfiguration("cached", "color", "#0000ff");
+		config.shape(Shape.CIRCLE);
+		assertEquals(Color.BLUE, config.color());
+		assertEquals(Shape.CIRCLE, config.shape());
+
+		manager.unsetConfiguration("cached", "color");
+		assertEquals(Color.RED, config.color());
+		assertEquals(Shape.CIRCLE, config.shape());
+
+		// the same item through another proxy
+		manager.getConfig(CachedConfig.class).shape(Shape.SQUARE);
+		assertEquals(Shape.SQUARE, config.shape());
+	}
+
+	@Test
+	public void testMutableValueCopied()
+	{
+		config.size().setSize(1, 1);
+		assertEquals(new Dimension(10, 20), config.size());
+
+		manager.setConfiguration("cached", "size", "5x6");
+		config.size().setSize(1, 1);
+		assertEquals(new Dimension(5, 6), config.size());
+	}
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.config;
+
+import com.google.common.eventbus.EventBus;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import net.runelite.client.account.AccountSession;
+import net.runelite.http.api.config.ConfigClient;
+import net.runelite.http.api.config.ConfigEntry;
+import net.runelite.http.api.config.ConfigPatch;
+import net.runelite.http.api.config.Configuration;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import org.mockito.InOrder;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConfigManagerPersistenceTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ScheduledExecutorService executor;
+	private ConfigClient client;
+	private ConfigManager manager;
+	private File settings;
+
+	@Before
+	public void before() throws IOException
+	{
+		executor = mock(ScheduledExecutorService.class);
+		client = mock(ConfigClient.class);
+		settings = new File(folder.newFolder("profile"), "settings.properties");
+
+		manager = new ConfigManager();
+		manager.eventBus = new EventBus();
+		manager.executor = executor;
+		manager.client = client;
+		manager.propertiesFile = settings;
+	}
+
+	@Test
+	public void testDefaultingStorm() throws IOException
+	{
+		// Every config item set at once, as at startup
+		manager.setDefaultConfiguration(manager.getConfig(RuneLiteConfig.class), true);
+		manager.setDefaultConfiguration(manager.getConfig(TestConfig.class), true);
+		manager.setConfiguration("test", "key", "changed");
+		manager.unsetConfiguration("runelite", "gameAlwaysOnTop");
+
+		verify(executor, times(1)).schedule(any(Runnable.class), eq(ConfigManager.SAVE_DELAY_MS), eq(TimeUnit.MILLISECONDS));
+		verify(client, never()).patch(any(ConfigPatch.class));
+		assertFalse(settings.exists());
+
+		manager.sendConfig();
+
+		ArgumentCaptor<ConfigPatch> captor = ArgumentCaptor.forClass(ConfigPatch.class);
+		verify(client, times(1)).patch(captor.capture());
+		ConfigPatch patch = captor.getValue();
+		assertEquals("changed", patch.getEdit().get("test.key"));
+		assertTrue(patch.getEdit().containsKey("runelite.lockWindowSize"));
+		assertFalse(patch.getEdit().containsKey("runelite.gameAlwaysOnTop"));
+		assertTrue(patch.getUnset().contains("runelite.gameAlwaysOnTop"));
+
+		Properties saved = load(settings);
+		assertEquals("changed", saved.getProperty("test.key"));
+		assertNull(saved.getProperty("runelite.gameAlwaysOnTop"));
+		assertEquals(patch.getEdit().size(), saved.size());
+
+		// Nothing changed since, so nothing more to send
+		manager.sendConfig();
+		verify(client, times(1)).patch(any(ConfigPatch.class));
+	}
+
+	@Test
+	public void testOrdering() throws IOException
+	{
+		manager.setConfiguration("test", "key", "1");
+		manager.sendConfig();
+		manager.setConfiguration("test", "key", "2");
+		manager.unsetConfiguration("test", "key");
+		manager.sendConfig();
+		manager.setConfiguration("test", "key", "3");
+		manager.sendConfig();
+
+		ArgumentCaptor<ConfigPatch> captor = ArgumentCaptor.forClass(ConfigPatch.class);
+		InOrder inOrder = inOrder(client);
+		inOrder.verify(client, times(3)).patch(captor.capture());
+		assertEquals("1", captor.getAllValues().get(0).getEdit().get("test.key"));
+		assertTrue(captor.getAllValues().get(1).getEdit().isEmpty());
+		assertTrue(captor.getAllValues().get(1).getUnset().contains("test.key"));
+		assertEquals("3", captor.getAllValues().get(2).getEdit().get("test.key"));
+
+		// A new window is scheduled after each send
+		verify(executor, times(3)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+	}
+
+	@Test
+	public void testFailedPatchKept() throws IOException
+	{
+		doThrow(new IOException()).doNothing().when(client).patch(any(ConfigPatch.class));
+
+		manager.setConfiguration("test", "a", "1");
+		manager.setConfiguration("test", "b", "1");
+		manager.sendConfig();
+
+		// The file is saved even while the service is unreachable
+		assertEquals("1", load(settings).getProperty("test.b"));
+
+		manager.setConfiguration("test", "b", "2");
+		manager.sendConfig();
+
+		ArgumentCaptor<ConfigPatch> captor = ArgumentCaptor.forClass(ConfigPatch.class);
+		verify(client, times(2)).patch(captor.capture());
+		ConfigPatch patch = captor.getAllValues().get(1);
+		assertEquals("1", patch.getEdit().get("test.a"));
+		assertEquals("2", patch.getEdit().get("test.b"));
+	}
+
+	@Test
+	public void testSwitchSessionDropsUnsent() throws IOException
+	{
+		doThrow(new IOException()).when(client).patch(any(ConfigPatch.class));
+
+		manager.setConfiguration("test", "key", "previous account");
+		manager.switchSession(null);
+
+		// The change is saved in the previous profile, but not queued for the next account
+		assertEquals("previous account", load(settings).getProperty("test.key"));
+		verify(client, times(1)).patch(any(ConfigPatch.class));
+
+		ConfigClient nextClient = mock(ConfigClient.class);
+		manager.client = nextClient;
+		manager.propertiesFile = new File(folder.newFolder("next"), "settings.properties");
+
+		manager.sendConfig();
+		verify(nextClient, never()).patch(any(ConfigPatch.class));
+
+		manager.setConfiguration("test", "other", "next account");
+		manager.sendConfig();
+
+		ArgumentCaptor<ConfigPatch> captor = ArgumentCaptor.forClass(ConfigPatch.class);
+		verify(nextClient, times(1)).patch(captor.capture());
+		assertEquals("next account", captor.getValue().getEdit().get("test.other"));
+		assertFalse(captor.getValue().getEdit().containsKey("test.key"));
+	}
+
+	@Test
+	public void testEtagPersisted() throws IOException
+	{
+		ConfigEntry entry = new ConfigEntry();
+		entry.setKey("test.key");
+		entry.setValue("downloaded");
+		Configuration configuration = new Configuration(Collections.singletonList(entry));
+		configuration.setEtag("\"1-1\"");
+		when(client.get(null)).thenReturn(configuration);
+
+		manager.session = session();
+		manager.load();
+		assertEquals("downloaded", load(settings).getProperty("test.key"));
+
+		// After a restart the saved configuration is only checked for changes
+		ConfigClient restarted = mock(ConfigClient.class);
+		manager = restart(restarted);
+		manager.load();
+		verify(restarted).get("\"1-1\"");
+		assertEquals("downloaded", manager.getConfiguration("test", "key"));
+
+		// A local change means the file must be downloaded in full again
+		manager.setConfiguration("test", "key", "changed");
+		manager.sendConfig();
+
+		restarted = mock(ConfigClient.class);
+		manager = restart(restarted);
+		manager.load();
+		verify(restarted).get(null);
+		assertEquals("changed", manager.getConfiguration("test", "key"));
+	}
+
+	@Test
+	public void testInterruptedSave() throws IOException
+	{
+		manager.setConfiguration("test", "key", "saved");
+		manager.sendConfig();
+
+		// A crash while writing leaves a partial temporary file behind
+		File temp = new File(settings.getParentFile(), settings.getName() + ".tmp");
+		try (FileOutputStream out = new FileOutputStream(temp))
+		{
+			out.write("test.key=trunc".getBytes(StandardCharsets.ISO_8859_1));
+		}
+
+		manager.client = null;
+		manager.load();
+		assertEquals("saved", manager.getConfiguration("test", "key"));
+
+		manager.setConfiguration("test", "other", "value");
+		manager.sendConfig();
+		Properties saved = load(settings);
+		assertEquals("saved", saved.getProperty("test.key"));
+		assertEquals("value", saved.getProperty("test.other"));
+		assertFalse(temp.exists());
+	}
+
+	/**
+	 * Reads the settings file while it is saved over and over, each time
+	 * with every value changed. A reader must only ever see a whole file.
+	 */
+	@Test
+	public void testConcurrentReader() throws Exception
+	{
+		final int keys = 200;
+		final int saves = 100;
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicReference<String> failure = new AtomicReference<>();
+
+		Thread reader = new Thread(() ->
+		{
+			while (!done.get())
+			{
+				try
+				{
+					Properties properties = load(settings);
+
+					if (properties.size() != keys || properties.values().stream().distinct().count() != 1)
+					{
+						failure.set("read a partial file with " + properties.size() + " keys");
+						return;
+					}
+				}
+				catch (FileNotFoundException ex)
+				{
+					// not saved yet
+				}
+				catch (IOException ex)
+				{
+					failure.set(ex.toString());
+					return;
+				}
+			}
+		});
+		reader.start();
+
+		for (int save = 0; save < saves; ++save)
+		{
+			for (int key = 0; key < keys; ++key)
+			{
+				manager.setConfiguration("test", "key" + key, "value of save " + save);
+			}
+			manager.sendConfig();
+		}
+
+		done.set(true);
+		reader.join();
+
+		assertNull(failure.get(), failure.get());
+		assertEquals("value of save " + (saves - 1), load(settings).getProperty("test.key0"));
+	}
+
+	private ConfigManager restart(ConfigClient client)
+	{
+		ConfigManager manager = new ConfigManager();
+		manager.eventBus = new EventBus();
+		manager.executor = executor;
+		manager.client = client;
+		manager.propertiesFile = settings;
+		manager.session = session();
+		return manager;
+	}
+
+	private static AccountSession session()
+	{
+		AccountSession session = new AccountSession(UUID.randomUUID(), Instant.now());
+		session.setUsername("test");
+		return session;
+	}
+
+	private static Properties load(File file) throws IOException
+	{
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(file))
+		{
+			properties.load(in);
+		}
+		return properties;
+	}
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.DeadEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventDispatcherTest
+{
+	private final List<String> calls = new ArrayList<>();
+	private final List<Throwable> exceptions = new ArrayList<>();
+	private EventDispatcher eventDispatcher;
+
+	public static class BaseEvent
+	{
+	}
+
+	public static class ChildEvent extends BaseEvent
+	{
+	}
+
+	public class GuavaSubscriber
+	{
+		@com.google.common.eventbus.Subscribe
+		public void onChild(ChildEvent event)
+		{
+			calls.add("guava");
+		}
+	}
+
+	public class PrioritySubscriber
+	{
+		@Subscribe(priority = -1)
+		public void last(ChildEvent event)
+		{
+			calls.add("last");
+		}
+
+		@Subscribe(priority = 1)
+		public void first(ChildEvent event)
+		{
+			calls.add("first");
+		}
+
+		@Subscribe
+		public void base(BaseEvent event)
+		{
+			calls.add("base");
+		}
+	}
+
+	public class PrivateSubscriber
+	{
+		@Subscribe
+		private void onBase(BaseEvent event)
+		{
+			calls.add("private");
+		}
+	}
+
+	public class ThrowingSubscriber
+	{
+		@Subscribe(priority = 2)
+		public void onChild(ChildEvent event)
+		{
+			throw new IllegalStateException();
+		}
+	}
+
+	public class ReentrantSubscriber
+	{
+		@Subscribe
+		public void onChild(ChildEvent event)
+		{
+			calls.add("child");
+			eventDispatcher.post(new BaseEvent());
+			calls.add("child done");
+		}
+
+		@Subscribe
+		public void onBase(BaseEvent event)
+		{
+			// the child event also reaches this subscriber, before or after onChild depending on
+			// the order reflection returns the methods in, so only the posted base event is recorded
+			if (event.getClass() == BaseEvent.class)
+			{
+				calls.add("base");
+			}
+		}
+	}
+
+	public static class RendezvousSubscriber
+	{
+		private final CountDownLatch entered = new CountDownLatch(2);
+		private final List<Boolean> met = new ArrayList<>();
+
+		@Subscribe
+		public void onBase(BaseEvent event) throws InterruptedException
+		{
+			rendezvous();
+		}
+
+		void rendezvous() throws InterruptedException
+		{
+			entered.countDown();
+			boolean both = entered.await(500, TimeUnit.MILLISECONDS);
+			synchronized (met)
+			{
+				met.add(both);
+			}
+		}
+	}
+
+	public static class ConcurrentSubscriber extends RendezvousSubscriber
+	{
+		@Subscribe
+		@AllowConcurrentEvents
+		@Override
+		public void onBase(BaseEvent event) throws InterruptedException
+		{
+			rendezvous();
+		}
+	}
+
+	public class DeadEventSubscriber
+	{
+		@Subscribe
+		public void onDeadEvent(DeadEvent event)
+		{
+			calls.add(event.getEvent().getClass().getSimpleName());
+			assertSame(eventDispatcher, event.getSource());
+		}
+	}
+
+	@Before
+	public void before()
+	{
+		eventDispatcher = new EventDispatcher((exception, event, subscriber) -> exceptions.add(exception));
+	}
+
+	@Test
+	public void testPriority()
+	{
+		eventDispatcher.register(new GuavaSubscriber());
+		eventDispatcher.register(new PrioritySubscriber());
+
+		eventDispatcher.post(new ChildEvent());
+		assertEquals(Arrays.asList("first", "guava", "base", "last"), calls);
+
+		calls.clear();
+		eventDispatcher.post(new BaseEvent());
+		assertEquals(Arrays.asList("base"), calls);
+	}
+
+	@Test
+	public void testPrivateSubscriber()
+	{
+		eventDispatcher.register(new PrivateSubscriber());
+		eventDispatcher.post(new ChildEvent());
+		assertEquals(Arrays.asList(), exceptions);
+		assertEquals(Arrays.asList("private"), calls);
+	}
+
+	@Test
+	public void testExceptionIsolation()
+	{
+		eventDispatcher.register(new ThrowingSubscriber());
+		eventDispatcher.register(new GuavaSubscriber());
+
+		eventDispatcher.post(new ChildEvent());
+		assertEquals(Arrays.asList("guava"), calls);
+		assertEquals(1, exceptions.size());
+		assertTrue(exceptions.get(0) instanceof IllegalStateException);
+	}
+
+	@Test
+	public void testUnregister()
+	{
+		Object subscriber = new PrioritySubscriber();
+		eventDispatcher.register(subscriber);
+		eventDispatcher.register(subscriber);
+		eventDispatcher.post(new BaseEvent());
+		assertEquals(Arrays.asList("base"), calls);
+
+		eventDispatcher.unregister(subscriber);
+		eventDispatcher.post(new BaseEvent());
+		eventDispatcher.post(new ChildEvent());
+		assertEquals(Arrays.asList("base"), calls);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnregisterNotRegistered()
+	{
+		eventDispatcher.unregister(new PrioritySubscriber());
+	}
+
+	@Test
+	public void testReentrantPost()
+	{
+		eventDispatcher.register(new ReentrantSubscriber());
+		eventDispatcher.post(new ChildEvent());
+
+		// events posted by a subscriber are dispatched after the current event
+		assertEquals(Arrays.asList("child", "child done", "base"), calls);
+	}
+
+	@Test
+	public void testSubscriberSerialized() throws Exception
+	{
+		RendezvousSubscriber subscriber = new RendezvousSubscriber();
+		postFromTwoThreads(subscriber);
+
+		// the second thread only enters once the first has left
+		assertEquals(Arrays.asList(false, true), subscriber.met);
+	}
+
+	@Test
+	public void testAllowConcurrentEvents() throws Exception
+	{
+		RendezvousSubscriber subscriber = new ConcurrentSubscriber();
+		postFromTwoThreads(subscriber);
+
+		assertEquals(Arrays.asList(true, true), subscriber.met);
+	}
+
+	@Test
+	public void testDeadEvent()
+	{
+		eventDispatcher.register(new PrioritySubscriber());
+		eventDispatcher.post("no subscribers");
+		assertTrue(calls.isEmpty());
+
+		eventDispatcher.register(new DeadEventSubscriber());
+		eventDispatcher.post("no subscribers");
+		eventDispatcher.post(new BaseEvent());
+		assertEquals(Arrays.asList("String", "base"), calls);
+		assertTrue(exceptions.isEmpty());
+	}
+
+	private void postFromTwoThreads(RendezvousSubscriber subscriber) throws Exception
+	{
+		eventDispatcher.register(subscriber);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			Future<?> first = executor.submit(() -> eventDispatcher.post(new BaseEvent()));
+			Future<?> second = executor.submit(() -> eventDispatcher.post(new BaseEvent()));
+			first.get();
+			second.get();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		assertTrue(exceptions.isEmpty());
+	}
+}
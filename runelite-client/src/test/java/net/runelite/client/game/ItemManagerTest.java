@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.SpritePixels;
+import net.runelite.client.game.ItemManager.PriceEntry;
+import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.api.item.ItemClient;
+import net.runelite.http.api.item.ItemPrice;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ItemManagerTest
+{
+	private static final int WHIP = 4151;
+	private static final int COINS = 995;
+	private static final int RUNE_PLATEBODY = 1127;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final MockWebServer server = new MockWebServer();
+	private ItemClient itemClient;
+	private File itemsDir;
+
+	@Before
+	public void before() throws IOException
+	{
+		server.start();
+
+		itemClient = new ItemClient();
+		itemClient.setApiBase(server.url("/"));
+
+		itemsDir = folder.newFolder("items");
+	}
+
+	@After
+	public void after() throws IOException
+	{
+		server.shutdown();
+	}
+
+	@Test
+	public void testPrefetchContainers() throws Exception
+	{
+		Client client = mock(Client.class);
+		ItemContainer inventory = container(item(WHIP), item(COINS), item(-1), item(WHIP));
+		ItemContainer equipment = container(item(RUNE_PLATEBODY));
+		when(client.getItemContainer(InventoryID.INVENTORY)).thenReturn(inventory);
+		when(client.getItemContainer(InventoryID.EQUIPMENT)).thenReturn(equipment);
+
+		// the service leaves out items without a price
+		enqueuePrices(price(WHIP, 1_500_000), price(COINS, 1));
+
+		ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+		ItemManager itemManager = new ItemManager(client, executor, itemClient, itemsDir);
+		itemManager.prefetchContainers();
+		itemManager.prefetchContainers();
+		assertNull(itemManager.getItemPriceAsync(WHIP));
+		flush(executor);
+
+		assertEquals(1, server.getRequestCount());
+		RecordedRequest request = server.takeRequest();
+		assertEquals("/item/price?id=4151&id=995&id=1127", request.getPath());
+
+		// answered from memory, the executor no longer accepts lookups
+		assertEquals(1_500_000, itemManager.getItemPriceAsync(WHIP).getPrice());
+		assertEquals(1, itemManager.getItemPriceAsync(COINS).getPrice());
+		assertNull(itemManager.getItemPriceAsync(RUNE_PLATEBODY));
+		assertEquals(1, server.getRequestCount());
+	}
+
+	@Test
+	public void testColdStartFromSnapshot() throws Exception
+	{
+		enqueuePrices(price(WHIP, 1_500_000));
+
+		ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+		ItemManager itemManager = new ItemManager(null, executor, itemClient, itemsDir);
+		assertEquals(1_500_000, itemManager.getItemPrice(WHIP).getPrice());
+		flush(executor);
+
+		server.shutdown();
+
+		executor = new ScheduledThreadPoolExecutor(1);
+		itemManager = new ItemManager(null, executor, itemClient, itemsDir);
+
+		ItemPrice itemPrice = itemManager.getItemPriceAsync(WHIP);
+		assertNotNull(itemPrice);
+		assertEquals(1_500_000, itemPrice.getPrice());
+		assertEquals(Instant.ofEpochSecond(1_500_000_000L), itemPrice.getTime());
+		assertEquals(1_500_000, itemManager.getItemPrice(WHIP).getPrice());
+		flush(executor);
+	}
+
+	@Test
+	public void testStaleSnapshotRefreshed() throws Exception
+	{
+		long fetched = System.currentTimeMillis() - ItemManager.PRICE_REFRESH_MS - 1;
+		ItemPriceSnapshot.save(new File(itemsDir, "prices.dat"),
+			Collections.singletonMap(WHIP, new PriceEntry(price(WHIP, 1_000_000), fetched)));
+
+		enqueuePrices(price(WHIP, 2_000_000));
+
+		ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+		ItemManager itemManager = new ItemManager(null, executor, itemClient, itemsDir);
+
+		// the stale price is shown while the new one is fetched
+		assertEquals(1_000_000, itemManager.getItemPriceAsync(WHIP).getPrice());
+		flush(executor);
+
+		assertEquals(1, server.getRequestCount());
+		assertEquals(2_000_000, itemManager.getItemPriceAsync(WHIP).getPrice());
+
+		Map<Integer, PriceEntry> snapshot = ItemPriceSnapshot.load(new File(itemsDir, "prices.dat"));
+		assertEquals(2_000_000, snapshot.get(WHIP).getItemPrice().getPrice());
+	}
+
+	@Test
+	public void testFailedLookupRetried() throws Exception
+	{
+		long fetched = System.currentTimeMillis() - ItemManager.PRICE_REFRESH_MS - 1;
+		ItemPriceSnapshot.save(new File(itemsDir, "prices.dat"),
+			Collections.singletonMap(WHIP, new PriceEntry(price(WHIP, 1_000_000), fetched)));
+
+		server.enqueue(new MockResponse().setResponseCode(500));
+
+		ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+		ItemManager itemManager = new ItemManager(null, executor, itemClient, itemsDir);
+		assertEquals(1_000_000, itemManager.getItemPriceAsync(WHIP).getPrice());
+		assertNull(itemManager.getItemPriceAsync(COINS));
+
+		ArgumentCaptor<Runnable> fetch = ArgumentCaptor.forClass(Runnable.class);
+		verify(executor).schedule(fetch.capture(), anyLong(), any(TimeUnit.class));
+		fetch.getValue().run();
+		assertEquals(1, server.getRequestCount());
+
+		// the old price is kept, and neither item is looked up again until
+		// the retry period is over
+		assertEquals(1_000_000, itemManager.getItemPriceAsync(WHIP).getPrice());
+		assertNull(itemManager.getItemPriceAsync(COINS));
+		itemManager.prefetchPrice(COINS);
+		verify(executor, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+		long retryAt = System.currentTimeMillis() + ItemManager.PRICE_RETRY_MS;
+		assertTrue(itemManager.getPriceEntry(WHIP).getFetched() + ItemManager.PRICE_REFRESH_MS <= retryAt);
+		assertTrue(itemManager.getPriceEntry(COINS).getFetched() + ItemManager.PRICE_REFRESH_MS <= retryAt);
+
+		// the failure is not written to the snapshot
+		Map<Integer, PriceEntry> snapshot = ItemPriceSnapshot.load(new File(itemsDir, "prices.dat"));
+		assertEquals(fetched, snapshot.get(WHIP).getFetched());
+		assertNull(snapshot.get(COINS));
+	}
+
+	@Test
+	public void testImagesStored() throws Exception
+	{
+		BufferedImage rendered = new BufferedImage(36, 32, BufferedImage.TYPE_INT_ARGB);
+		rendered.setRGB(3, 4, 0xff336699);
+		rendered.setRGB(20, 30, 0xffffffff);
+
+		SpritePixels sprite = mock(SpritePixels.class);
+		when(sprite.toBufferedImage()).thenReturn(rendered);
+		Client client = mock(Client.class);
+		when(client.createItemSprite(anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyBoolean())).thenReturn(sprite);
+
+		ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+		ItemManager itemManager = new ItemManager(client, executor, itemClient, itemsDir);
+		itemManager.getImage(WHIP);
+		itemManager.getImage(COINS, 1000, true);
+		flush(executor);
+		verify(client, times(2)).createItemSprite(anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyBoolean());
+
+		Client restarted = mock(Client.class);
+		executor = new ScheduledThreadPoolExecutor(1);
+		itemManager = new ItemManager(restarted, executor, itemClient, itemsDir);
+
+		BufferedImage stored = itemManager.getImage(COINS, 1000, true);
+		assertNotNull(stored);
+		assertEquals(BufferedImage.TYPE_INT_ARGB, stored.getType());
+		assertArrayEquals(pixels(rendered), pixels(stored));
+		assertNotNull(itemManager.getImage(WHIP));
+		verify(restarted, never()).createItemSprite(anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyBoolean());
+		flush(executor);
+	}
+
+	private void enqueuePrices(ItemPrice... itemPrices)
+	{
+		server.enqueue(new MockResponse().setBody(RuneLiteAPI.GSON.toJson(itemPrices)));
+	}
+
+	private static void flush(ScheduledExecutorService executor) throws InterruptedException
+	{
+		// delayed tasks still run after shutdown
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	private static ItemPrice price(int itemId, int price)
+	{
+		net.runelite.http.api.item.Item item = new net.runelite.http.api.item.Item();
+		item.setId(itemId);
+
+		ItemPrice itemPrice = new ItemPrice();
+		itemPrice.setItem(item);
+		itemPrice.setPrice(price);
+		itemPrice.setTime(Instant.ofEpochSecond(1_500_000_000L));
+		return itemPrice;
+	}
+
+	private static Item item(int itemId)
+	{
+		Item item = mock(Item.class);
+		when(item.getId()).thenReturn(itemId);
+		return item;
+	}
+
+	private static ItemContainer container(Item... items)
+	{
+		ItemContainer container = mock(ItemContainer.class);
+		when(container.getItems()).thenReturn(items);
+		return container;
+	}
+
+	private static int[] pixels(BufferedImage image)
+	{
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+}
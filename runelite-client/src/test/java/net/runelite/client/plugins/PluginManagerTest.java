@@ -24,6 +24,7 @@
  */
 package net.runelite.client.plugins;
 
+import com.google.common.eventbus.EventBus;
 import com.google.common.reflect.ClassPath;
 import com.google.common.reflect.ClassPath.ClassInfo;
 import com.google.inject.Guice;
@@ -32,9 +33,12 @@ import com.google.inject.Module;
 import com.google.inject.grapher.graphviz.GraphvizGrapher;
 import com.google.inject.grapher.graphviz.GraphvizModule;
 import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -46,14 +50,23 @@ import net.runelite.api.Client;
 import net.runelite.client.RuneLite;
 import net.runelite.client.RuneLiteModule;
 import net.runelite.client.ui.ClientUI;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.task.Scheduler;
+import net.runelite.client.util.RegionTileManager;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import static org.mockito.Matchers.anyString;
 import org.mockito.Mock;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import org.mockito.runners.MockitoJUnitRunner;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -128,6 +141,75 @@ public class PluginManagerTest
 		assertEquals(expected, plugins.size());
 	}
 
+	@Test
+	public void testPluginIndex() throws Exception
+	{
+		Set<String> indexed = new HashSet<>();
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+			getClass().getClassLoader().getResourceAsStream("META-INF/runelite/plugins"), StandardCharsets.UTF_8)))
+		{
+			in.lines().forEach(indexed::add);
+		}
+
+		Set<String> scanned = new HashSet<>();
+		pluginClasses.forEach(clazz -> scanned.add(clazz.getName()));
+		assertEquals(scanned, indexed);
+	}
+
+	@Test
+	public void testStartupTrace() throws Exception
+	{
+		runelite.setClient(client);
+
+		PluginManager pluginManager = new PluginManager();
+		pluginManager.loadCorePlugins();
+
+		for (Plugin plugin : pluginManager.getPlugins())
+		{
+			assertTrue(plugin.getClass().getSimpleName(),
+				pluginManager.getStartupTrace().getNanos(plugin.getClass(), StartupTrace.Phase.INSTANTIATE) > 0);
+		}
+	}
+
+	@Test
+	public void testStartCorePluginsError() throws Exception
+	{
+		ConfigManager configManager = mock(ConfigManager.class);
+		when(configManager.getConfiguration(anyString(), anyString())).thenReturn("true");
+
+		PluginManager pluginManager = new PluginManager();
+		pluginManager.eventBus = mock(EventBus.class);
+		pluginManager.scheduler = mock(Scheduler.class);
+		pluginManager.configManager = configManager;
+		pluginManager.regionTileManager = mock(RegionTileManager.class);
+
+		Plugin before = new Plugin()
+		{
+		};
+		Plugin failing = new Plugin()
+		{
+			@Override
+			protected void startUp() throws Exception
+			{
+				throw new NoClassDefFoundError();
+			}
+		};
+		Plugin after = new Plugin()
+		{
+		};
+
+		pluginManager.add(before);
+		pluginManager.add(failing);
+		pluginManager.add(after);
+		pluginManager.startCorePlugins();
+
+		// an Error from one plugin does not stop the others from being started and registered
+		verify(pluginManager.eventBus).register(before);
+		verify(pluginManager.eventBus, never()).register(failing);
+		verify(pluginManager.eventBus).register(after);
+		assertFalse(pluginManager.getPlugins().contains(failing));
+	}
+
 	@Test
 	public void dumpGraph() throws Exception
 	{
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.grounditems;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.ItemLayer;
+import net.runelite.api.Point;
+import net.runelite.api.Region;
+import net.runelite.api.Tile;
+import net.runelite.api.events.ConfigChanged;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemLayerChanged;
+import net.runelite.api.events.ItemLayerDespawned;
+import net.runelite.api.events.ItemLayerSpawned;
+import net.runelite.client.game.ItemManager;
+import net.runelite.http.api.item.ItemPrice;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GroundItemsPluginTest
+{
+	private static final int BONES = 526;
+	private static final int COINS = 995;
+	private static final int LOBSTER = 379;
+	private static final int NOTED_LOBSTER = 380;
+
+	@Mock
+	@Bind
+	Client client;
+
+	@Mock
+	@Bind
+	GroundItemsConfig config;
+
+	@Mock
+	@Bind
+	ItemManager itemManager;
+
+	@Inject
+	GroundItemsPlugin plugin;
+
+	GroundItemsOverlay overlay;
+
+	@Before
+	public void before() throws Exception
+	{
+		Injector injector = Guice.createInjector(BoundFieldModule.of(this));
+		injector.injectMembers(this);
+
+		overlay = new GroundItemsOverlay(client, config, plugin);
+		injector.injectMembers(overlay);
+
+		when(config.getHiddenItems()).thenReturn("");
+		when(config.getHighlightItems()).thenReturn("");
+		when(config.defaultColor()).thenReturn(Color.WHITE);
+		when(config.highlightedColor()).thenReturn(Color.MAGENTA);
+
+		composition(BONES, "Bones", -1, 0, 1);
+		composition(COINS, "Coins", -1, 0, 1);
+		composition(LOBSTER, "Lobster", -1, 0, 100);
+		composition(NOTED_LOBSTER, "Lobster", 799, LOBSTER, 100);
+
+		plugin.startUp();
+	}
+
+	@Test
+	public void testTracking()
+	{
+		Tile tile = tile(0, 10, 20);
+		ItemLayer first = itemLayer(item(BONES, 1));
+
+		ItemLayerSpawned spawned = new ItemLayerSpawned();
+		spawned.setTile(tile);
+		spawned.setItemLayer(first);
+		plugin.onItemLayerSpawned(spawned);
+
+		assertEquals(1, plugin.getPiles().size());
+		GroundItemPile pile = plugin.getPiles().iterator().next();
+		assertSame(first, pile.getItemLayer());
+		assertEquals(10, pile.getRegionX());
+		assertEquals(20, pile.getRegionY());
+
+		overlay.buildText(pile, plugin.getConfigRevision(), itemManager.getPricesRevision());
+		assertFalse(pile.isStale(plugin.getConfigRevision(), itemManager.getPricesRevision()));
+
+		ItemLayer second = itemLayer(item(BONES, 2));
+		ItemLayerChanged changed = new ItemLayerChanged();
+		changed.setTile(tile);
+		changed.setPrevious(first);
+		changed.setItemLayer(second);
+		plugin.onItemLayerChanged(changed);
+
+		assertEquals(1, plugin.getPiles().size());
+		assertSame(pile, plugin.getPiles().iterator().next());
+		assertSame(second, pile.getItemLayer());
+		assertTrue(pile.isStale(plugin.getConfigRevision(), itemManager.getPricesRevision()));
+
+		ItemLayerDespawned despawned = new ItemLayerDespawned();
+		despawned.setTile(tile);
+		despawned.setItemLayer(second);
+		plugin.onItemLayerDespawned(despawned);
+
+		assertTrue(plugin.getPiles().isEmpty());
+	}
+
+	@Test
+	public void testRescan()
+	{
+		Tile[][][] tiles = new Tile[4][104][104];
+		tiles[0][1][2] = tile(0, 1, 2);
+		tiles[1][3][4] = tile(1, 3, 4);
+		tiles[2][5][6] = tile(2, 5, 6);
+		ItemLayer itemLayer = itemLayer(item(COINS, 10));
+		ItemLayer other = itemLayer(item(BONES, 1));
+		when(tiles[0][1][2].getItemLayer()).thenReturn(itemLayer);
+		when(tiles[2][5][6].getItemLayer()).thenReturn(other);
+
+		Region region = mock(Region.class);
+		when(region.getTiles()).thenReturn(tiles);
+		when(client.getRegion()).thenReturn(region);
+
+		// picks up piles which spawned before the plugin started
+		plugin.onGameTick(new GameTick());
+		assertEquals(2, plugin.getPiles().size());
+
+		GameStateChanged loading = new GameStateChanged();
+		loading.setGameState(GameState.LOADING);
+		plugin.onGameStateChanged(loading);
+		assertTrue(plugin.getPiles().isEmpty());
+
+		when(tiles[2][5][6].getItemLayer()).thenReturn(null);
+		plugin.onGameTick(new GameTick());
+		assertEquals(1, plugin.getPiles().size());
+		assertSame(itemLayer, plugin.getPiles().iterator().next().getItemLayer());
+
+		// only scanned once per load
+		when(tiles[1][3][4].getItemLayer()).thenReturn(other);
+		plugin.onGameTick(new GameTick());
+		assertEquals(1, plugin.getPiles().size());
+	}
+
+	@Test
+	public void testText()
+	{
+		ItemPrice lobsterPrice = new ItemPrice();
+		lobsterPrice.setPrice(150);
+		when(itemManager.getItemPriceAsync(LOBSTER)).thenReturn(lobsterPrice);
+		when(config.showGEPrice()).thenReturn(true);
+
+		// bottom to top; the noted lobsters stack with the unnoted ones
+		ItemLayer itemLayer = itemLayer(item(LOBSTER, 1), item(BONES, 1), item(NOTED_LOBSTER, 300), item(COINS, 25));
+		GroundItemPile pile = new GroundItemPile(tile(0, 0, 0), itemLayer);
+
+		overlay.buildText(pile, plugin.getConfigRevision(), itemManager.getPricesRevision());
+		assertArrayEquals(new String[]
+		{
+			"Coins (25)", "Bones", "Lobster (301) (EX: 45.1K gp)"
+		}, pile.getTexts());
+
+		when(config.getHiddenItems()).thenReturn("bon*, coins");
+		when(config.getHighlightItems()).thenReturn("LOB*");
+		ConfigChanged configChanged = new ConfigChanged();
+		configChanged.setGroup("grounditems");
+		configChanged.setKey("hiddenItems");
+		plugin.onConfigChanged(configChanged);
+
+		assertTrue(pile.isStale(plugin.getConfigRevision(), itemManager.getPricesRevision()));
+		overlay.buildText(pile, plugin.getConfigRevision(), itemManager.getPricesRevision());
+		assertArrayEquals(new String[]
+		{
+			"Lobster (301) (EX: 45.1K gp)"
+		}, pile.getTexts());
+		assertEquals(Color.MAGENTA, pile.getColors()[0]);
+	}
+
+	private void composition(int itemId, String name, int note, int linkedNoteId, int price)
+	{
+		ItemComposition composition = mock(ItemComposition.class);
+		when(composition.getName()).thenReturn(name);
+		when(composition.getNote()).thenReturn(note);
+		when(composition.getLinkedNoteId()).thenReturn(linkedNoteId);
+		when(composition.getPrice()).thenReturn(price);
+		when(itemManager.getItemComposition(itemId)).thenReturn(composition);
+	}
+
+	private static Tile tile(int plane, int x, int y)
+	{
+		Tile tile = mock(Tile.class);
+		when(tile.getPlane()).thenReturn(plane);
+		when(tile.getRegionLocation()).thenReturn(new Point(x, y));
+		return tile;
+	}
+
+	private static Item item(int itemId, int quantity)
+	{
+		Item item = mock(Item.class);
+		when(item.getId()).thenReturn(itemId);
+		when(item.getQuantity()).thenReturn(quantity);
+		return item;
+	}
+
+	private static ItemLayer itemLayer(Item... items)
+	{
+		List<Item> list = new ArrayList<>();
+		for (Item item : items)
+		{
+			if (!list.isEmpty())
+			{
+				when(list.get(list.size() - 1).getNext()).thenReturn(item);
+			}
+			list.add(item);
+		}
+
+		ItemLayer itemLayer = mock(ItemLayer.class);
+		when(itemLayer.getBottom()).thenReturn(items[0]);
+		return itemLayer;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.grounditems;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ItemMatcherTest
+{
+	@Test
+	public void testNames()
+	{
+		ItemMatcher matcher = ItemMatcher.compile("Bones, coins ,,Rune scimitar");
+		assertTrue(matcher.matches("Bones"));
+		assertTrue(matcher.matches("Coins"));
+		assertTrue(matcher.matches("rune scimitar"));
+		assertFalse(matcher.matches("Big bones"));
+		assertFalse(matcher.matches(""));
+	}
+
+	@Test
+	public void testWildcards()
+	{
+		ItemMatcher matcher = ItemMatcher.compile("*bones, rune*, dragon*shield, a(b)c*");
+		assertTrue(matcher.matches("Bones"));
+		assertTrue(matcher.matches("Big bones"));
+		assertTrue(matcher.matches("Rune platebody"));
+		assertTrue(matcher.matches("Dragon sq shield"));
+		assertTrue(matcher.matches("A(b)cd"));
+		assertFalse(matcher.matches("Bones to peaches"));
+		assertFalse(matcher.matches("Adamant platebody"));
+		assertFalse(matcher.matches("Abcd"));
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		ItemMatcher matcher = ItemMatcher.compile("");
+		assertFalse(matcher.matches("Bones"));
+		assertFalse(matcher.matches(""));
+	}
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.instancemap;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import net.runelite.api.Area;
+import net.runelite.api.Client;
+import net.runelite.api.GameObject;
+import net.runelite.api.GroundObject;
+import net.runelite.api.IndexedSprite;
+import net.runelite.api.ObjectComposition;
+import net.runelite.api.Player;
+import net.runelite.api.Point;
+import net.runelite.api.Region;
+import net.runelite.api.SceneTileModel;
+import net.runelite.api.SceneTilePaint;
+import net.runelite.api.SpritePixels;
+import net.runelite.api.Tile;
+import net.runelite.api.WallObject;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.events.MapRegionChanged;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Renders a generated scene and compares it pixel for pixel with images
+ * drawn by the Graphics2D based renderer the instance map used before it
+ * drew into the image's pixels.
+ */
+public class InstanceMapOverlayTest
+{
+	private static final int SIZE = 104;
+	private static final int OBJECTS = 64;
+	private static final int MAP_SCENES = 16;
+	private static final int MAP_ICONS = 4;
+
+	// a small palette keeps the golden images small
+	private static final int[] COLORS =
+	{
+		0x000000, 0xFFFFFF, 0xFF0000, 0x00FF00, 0x0000FF, 0x7F7F00, 0x007F7F, 0x7F007F,
+		0x3F2A14, 0x4D6B2E, 0x2E4D6B, 0x6B2E4D, 0xC0A060, 0x60C0A0, 0xA060C0, 0x101010
+	};
+
+	private Random random;
+	private Client client;
+	private Tile[][][] tiles;
+	private InstanceMapOverlay overlay;
+
+	@Before
+	public void before()
+	{
+		random = new Random(1337);
+		tiles = new Tile[4][SIZE][SIZE];
+		client = mock(Client.class, withSettings().stubOnly());
+
+		ObjectComposition[] definitions = new ObjectComposition[OBJECTS];
+		for (int id = 0; id < OBJECTS; ++id)
+		{
+			ObjectComposition definition = mock(ObjectComposition.class, withSettings().stubOnly());
+			when(definition.getMapSceneId()).thenReturn(random.nextInt(3) == 0 ? random.nextInt(MAP_SCENES) : -1);
+			when(definition.getMapIconId()).thenReturn(random.nextInt(3) == 0 ? random.nextInt(MAP_ICONS) : -1);
+			when(client.getObjectDefinition(id)).thenReturn(definition);
+			definitions[id] = definition;
+		}
+
+		IndexedSprite[] mapScene = new IndexedSprite[MAP_SCENES];
+		for (int i = 0; i < MAP_SCENES; ++i)
+		{
+			// leave one out, and give one a broken pixel array
+			mapScene[i] = i == 3 ? null : indexedSprite(i == 5);
+		}
+		when(client.getMapScene()).thenReturn(mapScene);
+
+		Area[] mapAreas = new Area[MAP_ICONS];
+		for (int i = 0; i < MAP_ICONS; ++i)
+		{
+			SpritePixels icon = i == 2 ? null : spritePixels();
+			mapAreas[i] = mock(Area.class, withSettings().stubOnly());
+			when(mapAreas[i].getMapIcon(false)).thenReturn(icon);
+		}
+		when(client.getMapAreas()).thenReturn(mapAreas);
+
+		int[][] tileMasks = new int[13][16];
+		for (int[] mask : tileMasks)
+		{
+			for (int i = 0; i < mask.length; ++i)
+			{
+				mask[i] = random.nextInt(2);
+			}
+		}
+		int[][] tileRotations = new int[4][16];
+		for (int[] rotation : tileRotations)
+		{
+			for (int i = 0; i < rotation.length; ++i)
+			{
+				rotation[i] = random.nextInt(16);
+			}
+		}
+
+		for (int plane = 0; plane < 2; ++plane)
+		{
+			for (int x = 0; x < SIZE; ++x)
+			{
+				for (int y = 0; y < SIZE; ++y)
+				{
+					if (random.nextInt(10) < (plane == 0 ? 9 : 3))
+					{
+						tiles[plane][x][y] = tile(plane, x, y);
+					}
+				}
+			}
+		}
+
+		Region region = mock(Region.class, withSettings().stubOnly());
+		when(region.getTiles()).thenReturn(tiles);
+		when(region.getTileMask2d()).thenReturn(tileMasks);
+		when(region.getTileRotation2d()).thenReturn(tileRotations);
+		when(client.getRegion()).thenReturn(region);
+
+		Player player = mock(Player.class, withSettings().stubOnly());
+		when(player.getLocalLocation()).thenReturn(LocalPoint.fromRegion(50, 60));
+		when(client.getLocalPlayer()).thenReturn(player);
+		when(client.getPlane()).thenReturn(0);
+
+		overlay = new InstanceMapOverlay(client);
+	}
+
+	@Test
+	public void testGolden() throws IOException
+	{
+		overlay.setShowMap(true);
+		assertImageEquals(golden("plane0.png"), render(overlay));
+
+		overlay.onAscend();
+		assertImageEquals(golden("plane1.png"), render(overlay));
+
+		// planes which were drawn before are kept
+		overlay.onDescend();
+		assertImageEquals(golden("plane0.png"), render(overlay));
+	}
+
+	@Test
+	public void testObjectChanges()
+	{
+		overlay.setShowMap(true);
+		render(overlay);
+
+		for (int round = 0; round < 5; ++round)
+		{
+			for (int i = 0; i < 50; ++i)
+			{
+				int x = random.nextInt(SIZE);
+				int y = random.nextInt(SIZE);
+				Tile tile = tiles[0][x][y];
+				if (tile == null)
+				{
+					continue;
+				}
+
+				WallObject wallObject = random.nextBoolean() ? wallObject() : null;
+				when(tile.getWallObject()).thenReturn(wallObject);
+
+				GameObject[] gameObjects = new GameObject[5];
+				if (random.nextBoolean())
+				{
+					gameObjects[0] = gameObject(x, y);
+				}
+				when(tile.getGameObjects()).thenReturn(gameObjects);
+
+				GroundObject groundObject = random.nextInt(4) == 0 ? groundObject() : null;
+				when(tile.getGroundObject()).thenReturn(groundObject);
+
+				overlay.onTileChanged(tile);
+			}
+
+			// the patched map is the same as one drawn from scratch
+			InstanceMapOverlay fresh = new InstanceMapOverlay(client);
+			fresh.setShowMap(true);
+			assertImageEquals(render(fresh), render(overlay));
+		}
+	}
+
+	@Test
+	public void testRegionChange()
+	{
+		overlay.setShowMap(true);
+		render(overlay);
+
+		when(client.getRegion().getTiles()).thenReturn(new Tile[4][SIZE][SIZE]);
+		overlay.onRegionChange(new MapRegionChanged());
+
+		InstanceMapOverlay fresh = new InstanceMapOverlay(client);
+		fresh.setShowMap(true);
+		assertImageEquals(render(fresh), render(overlay));
+	}
+
+	private BufferedImage render(InstanceMapOverlay overlay)
+	{
+		BufferedImage image = new BufferedImage(SIZE * 4 + 20, SIZE * 4 + 35, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		overlay.render(graphics, new java.awt.Point());
+		graphics.dispose();
+		return image;
+	}
+
+	private static BufferedImage golden(String name) throws IOException
+	{
+		try (InputStream in = InstanceMapOverlayTest.class.getResourceAsStream(name))
+		{
+			return ImageIO.read(in);
+		}
+	}
+
+	private static void assertImageEquals(BufferedImage expected, BufferedImage actual)
+	{
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+
+		for (int y = 0; y < expected.getHeight(); ++y)
+		{
+			for (int x = 0; x < expected.getWidth(); ++x)
+			{
+				if (expected.getRGB(x, y) != actual.getRGB(x, y))
+				{
+					fail(String.format("pixel %d,%d is %06x, expected %06x", x, y,
+						actual.getRGB(x, y) & 0xFFFFFF, expected.getRGB(x, y) & 0xFFFFFF));
+				}
+			}
+		}
+	}
+
+	private Tile tile(int plane, int x, int y)
+	{
+		Tile tile = mock(Tile.class, withSettings().stubOnly());
+		when(tile.getPlane()).thenReturn(plane);
+		when(tile.getRegionLocation()).thenReturn(new Point(x, y));
+
+		int kind = random.nextInt(10);
+		if (kind < 7)
+		{
+			// the alpha bits are ignored
+			int rgb = color() | (random.nextInt(2) << 24);
+			SceneTilePaint paint = () -> rgb;
+			when(tile.getSceneTilePaint()).thenReturn(paint);
+		}
+		else if (kind < 9)
+		{
+			SceneTileModel model = mock(SceneTileModel.class, withSettings().stubOnly());
+			when(model.getShape()).thenReturn(random.nextInt(13));
+			when(model.getRotation()).thenReturn(random.nextInt(4));
+			when(model.getModelOverlay()).thenReturn(color());
+			when(model.getModelUnderlay()).thenReturn(color());
+			when(tile.getSceneTileModel()).thenReturn(model);
+		}
+
+		if (random.nextInt(4) == 0)
+		{
+			WallObject wallObject = wallObject();
+			when(tile.getWallObject()).thenReturn(wallObject);
+		}
+
+		if (random.nextInt(8) == 0)
+		{
+			GameObject[] gameObjects = new GameObject[5];
+			gameObjects[random.nextInt(5)] = gameObject(x, y);
+			when(tile.getGameObjects()).thenReturn(gameObjects);
+		}
+
+		if (random.nextInt(12) == 0)
+		{
+			GroundObject groundObject = groundObject();
+			when(tile.getGroundObject()).thenReturn(groundObject);
+		}
+
+		return tile;
+	}
+
+	private WallObject wallObject()
+	{
+		WallObject wallObject = mock(WallObject.class, withSettings().stubOnly());
+		// zero, doors and walls
+		when(wallObject.getHash()).thenReturn(random.nextInt(8) == 0 ? 0 : random.nextBoolean() ? 1 + random.nextInt(1000) : -1 - random.nextInt(1000));
+		when(wallObject.getId()).thenReturn(random.nextInt(OBJECTS));
+		when(wallObject.getConfig()).thenReturn(random.nextInt(1024));
+		return wallObject;
+	}
+
+	private GameObject gameObject(int x, int y)
+	{
+		GameObject gameObject = mock(GameObject.class, withSettings().stubOnly());
+		when(gameObject.getHash()).thenReturn(random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(1000));
+		when(gameObject.getId()).thenReturn(random.nextInt(OBJECTS));
+		// objects larger than a tile are drawn from their south west tile
+		when(gameObject.getRegionMinLocation()).thenReturn(random.nextInt(4) == 0 ? new Point(x - 1, y) : new Point(x, y));
+		return gameObject;
+	}
+
+	private GroundObject groundObject()
+	{
+		GroundObject groundObject = mock(GroundObject.class, withSettings().stubOnly());
+		when(groundObject.getHash()).thenReturn(random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(1000));
+		when(groundObject.getId()).thenReturn(random.nextInt(OBJECTS));
+		return groundObject;
+	}
+
+	private IndexedSprite indexedSprite(boolean broken)
+	{
+		int width = 3 + random.nextInt(14);
+		int height = 3 + random.nextInt(14);
+		int[] palette = new int[8];
+		for (int i = 0; i < palette.length; ++i)
+		{
+			palette[i] = color();
+		}
+		byte[] pixels = new byte[broken ? width * height - 1 : width * height];
+		for (int i = 0; i < pixels.length; ++i)
+		{
+			pixels[i] = (byte) (random.nextInt(3) == 0 ? 0 : random.nextInt(palette.length));
+		}
+
+		IndexedSprite sprite = mock(IndexedSprite.class, withSettings().stubOnly());
+		when(sprite.getWidth()).thenReturn(width);
+		when(sprite.getHeight()).thenReturn(height);
+		when(sprite.getOffsetX()).thenReturn(random.nextInt(7) - 3);
+		when(sprite.getOffsetY()).thenReturn(random.nextInt(7) - 3);
+		when(sprite.getPalette()).thenReturn(palette);
+		when(sprite.getPixels()).thenReturn(pixels);
+		return sprite;
+	}
+
+	private SpritePixels spritePixels()
+	{
+		int width = 9 + random.nextInt(8);
+		int height = 9 + random.nextInt(8);
+		int[] pixels = new int[width * height];
+		for (int i = 0; i < pixels.length; ++i)
+		{
+			pixels[i] = random.nextInt(3) == 0 ? 0 : color();
+		}
+
+		SpritePixels sprite = mock(SpritePixels.class, withSettings().stubOnly());
+		when(sprite.getWidth()).thenReturn(width);
+		when(sprite.getHeight()).thenReturn(height);
+		when(sprite.getPixels()).thenReturn(pixels);
+		// as RSSpritePixelsMixin
+		when(sprite.toBufferedImage()).thenAnswer(invocation ->
+		{
+			int[] transPixels = new int[pixels.length];
+			for (int i = 0; i < pixels.length; i++)
+			{
+				if (pixels[i] != 0)
+				{
+					transPixels[i] = pixels[i] | 0xff000000;
+				}
+			}
+			BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			img.setRGB(0, 0, width, height, transPixels, 0, width);
+			return img;
+		});
+		return sprite;
+	}
+
+	private int color()
+	{
+		return COLORS[random.nextInt(COLORS.length)];
+	}
+}
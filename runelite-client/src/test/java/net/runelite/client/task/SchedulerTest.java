@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.task;
+
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SchedulerTest
+{
+	private final List<String> runs = new ArrayList<>();
+	private final List<Runnable> submitted = new ArrayList<>();
+	private long now;
+	private Scheduler scheduler;
+
+	public class Tasks
+	{
+		@Schedule(period = 100, unit = ChronoUnit.MILLIS)
+		public void fast()
+		{
+			runs.add("fast");
+		}
+
+		@Schedule(period = 1, unit = ChronoUnit.SECONDS)
+		public void slow()
+		{
+			runs.add("slow");
+		}
+
+		@Schedule(period = 100, unit = ChronoUnit.MILLIS)
+		public void overrunning()
+		{
+			runs.add("overrunning");
+			now += TimeUnit.MILLISECONDS.toNanos(250);
+		}
+
+		@Schedule(period = 100, unit = ChronoUnit.MILLIS, asynchronous = true)
+		public void async()
+		{
+			runs.add("async");
+		}
+
+		@Schedule(period = 100, unit = ChronoUnit.MILLIS)
+		public void failing()
+		{
+			runs.add("failing");
+			throw new IllegalStateException();
+		}
+
+		@Schedule(period = 100, unit = ChronoUnit.MILLIS)
+		public void erroring()
+		{
+			runs.add("erroring");
+			throw new NoClassDefFoundError();
+		}
+	}
+
+	@Before
+	public void before()
+	{
+		ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+		when(executor.submit(any(Runnable.class))).thenAnswer(invocation ->
+		{
+			submitted.add((Runnable) invocation.getArguments()[0]);
+			return null;
+		});
+
+		scheduler = new Scheduler();
+		scheduler.executor = executor;
+		scheduler.clock = () -> now;
+	}
+
+	private ScheduledMethod schedule(String name) throws NoSuchMethodException
+	{
+		Tasks tasks = new Tasks();
+		ScheduledMethod method = new ScheduledMethod(Tasks.class.getMethod(name).getAnnotation(Schedule.class),
+			Tasks.class.getMethod(name), tasks);
+		scheduler.addScheduledMethod(method);
+		return method;
+	}
+
+	private void advance(long millis)
+	{
+		now += TimeUnit.MILLISECONDS.toNanos(millis);
+		scheduler.tick();
+	}
+
+	@Test
+	public void testRunsWhenDue() throws Exception
+	{
+		schedule("slow");
+		schedule("fast");
+
+		advance(50);
+		assertTrue(runs.isEmpty());
+
+		advance(50);
+		assertEquals(1, runs.size());
+
+		for (int i = 0; i < 9; ++i)
+		{
+			advance(100);
+		}
+
+		assertEquals(10, runs.stream().filter("fast"::equals).count());
+		assertEquals(1, runs.stream().filter("slow"::equals).count());
+	}
+
+	@Test
+	public void testNextRunCountsFromLastRun() throws Exception
+	{
+		ScheduledMethod fast = schedule("fast");
+
+		// a late tick runs the method once rather than catching up
+		advance(450);
+		assertEquals(1, fast.getRuns());
+
+		advance(99);
+		assertEquals(1, fast.getRuns());
+
+		advance(1);
+		assertEquals(2, fast.getRuns());
+	}
+
+	@Test
+	public void testRemove() throws Exception
+	{
+		ScheduledMethod fast = schedule("fast");
+
+		advance(100);
+		scheduler.removeScheduledMethod(fast);
+		advance(1000);
+
+		assertEquals(1, runs.size());
+		assertTrue(scheduler.getScheduledMethods().isEmpty());
+	}
+
+	@Test
+	public void testStatistics() throws Exception
+	{
+		ScheduledMethod fast = schedule("fast");
+		ScheduledMethod overrunning = schedule("overrunning");
+		ScheduledMethod failing = schedule("failing");
+
+		advance(100);
+		advance(350);
+
+		assertEquals(2, fast.getRuns());
+		assertEquals(0, fast.getOverruns());
+
+		assertEquals(2, overrunning.getRuns());
+		assertEquals(2, overrunning.getOverruns());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(250), overrunning.getAverageNanos());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(250), overrunning.getMaxNanos());
+
+		// exceptions are logged and the method stays scheduled
+		assertEquals(2, failing.getRuns());
+	}
+
+	@Test
+	public void testError() throws Exception
+	{
+		ScheduledMethod erroring = schedule("erroring");
+		ScheduledMethod fast = schedule("fast");
+
+		// errors are logged like exceptions, and neither method is left unscheduled
+		advance(100);
+		advance(100);
+
+		assertEquals(2, erroring.getRuns());
+		assertEquals(2, fast.getRuns());
+	}
+
+	@Test
+	public void testRejectedSubmit() throws Exception
+	{
+		ScheduledMethod async = schedule("async");
+		ScheduledMethod fast = schedule("fast");
+		doThrow(new RejectedExecutionException())
+			.doAnswer(invocation ->
+			{
+				submitted.add((Runnable) invocation.getArguments()[0]);
+				return null;
+			})
+			.when(scheduler.executor).submit(any(Runnable.class));
+
+		// the rejected method does not stop the others, and is submitted again when next due
+		advance(100);
+		assertEquals(1, fast.getRuns());
+		assertTrue(submitted.isEmpty());
+
+		advance(100);
+		assertEquals(2, fast.getRuns());
+		assertEquals(1, submitted.size());
+		assertEquals(0, async.getOverruns());
+	}
+
+	@Test
+	public void testAsynchronousOverrun() throws Exception
+	{
+		ScheduledMethod async = schedule("async");
+
+		advance(100);
+		assertEquals(1, submitted.size());
+
+		// the first run has not finished, so this one is skipped
+		advance(100);
+		assertEquals(1, submitted.size());
+		assertEquals(1, async.getOverruns());
+
+		submitted.get(0).run();
+		assertEquals(1, async.getRuns());
+
+		advance(100);
+		assertEquals(2, submitted.size());
+		assertEquals(1, async.getOverruns());
+	}
+}
@@ -24,13 +24,29 @@
  */
 package net.runelite.client.ui.overlay;
 
+import java.awt.Canvas;
+import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.client.plugins.Plugin;
+import net.runelite.client.plugins.PluginManager;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class TestOverlay extends Overlay
 {
@@ -47,6 +63,38 @@ class TestOverlay extends Overlay
 	}
 }
 
+/**
+ * Fills a rectangle, and then leaves the graphics translated and recolored
+ */
+class FillOverlay extends Overlay
+{
+	private final Color color;
+	private final int size;
+	boolean transformIdentity;
+	Color colorSeen;
+
+	FillOverlay(OverlayLayer layer, OverlayPosition position, Color color, int size)
+	{
+		setLayer(layer);
+		setPosition(position);
+		this.color = color;
+		this.size = size;
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics, Point parent)
+	{
+		transformIdentity = graphics.getTransform().isIdentity();
+		colorSeen = graphics.getColor();
+
+		graphics.setColor(color);
+		graphics.fillRect(0, 0, size, size);
+		graphics.translate(50, 50);
+		graphics.setColor(Color.MAGENTA);
+		return getPosition() == OverlayPosition.DYNAMIC ? null : new Dimension(size, size);
+	}
+}
+
 public class OverlayRendererTest
 {
 	@Test
@@ -87,4 +135,154 @@ public class OverlayRendererTest
 		assertEquals(t, overlays.get(2));
 	}
 
+	@Test
+	public void testPartition()
+	{
+		Overlay scene = new FillOverlay(OverlayLayer.ABOVE_SCENE, OverlayPosition.DYNAMIC, Color.RED, 1);
+		Overlay low = new TestOverlay(OverlayPosition.TOP_LEFT, OverlayPriority.LOW);
+		Overlay high = new TestOverlay(OverlayPosition.TOP_LEFT, OverlayPriority.HIGH);
+		Overlay dyn = new TestOverlay(OverlayPosition.DYNAMIC, OverlayPriority.HIGH);
+		List<Overlay> overlays = new ArrayList<>(Arrays.asList(scene, low, high, dyn));
+		OverlayRenderer.sortOverlays(overlays);
+
+		OverlayStats[][][] partitions = OverlayRenderer.partition(overlays, new OverlayStats[0][][]);
+		OverlayStats[][] underWidgets = partitions[OverlayLayer.UNDER_WIDGETS.ordinal()];
+		assertArrayEquals(new Overlay[]{high, low}, overlays(underWidgets[OverlayPosition.TOP_LEFT.ordinal()]));
+		assertArrayEquals(new Overlay[]{dyn}, overlays(underWidgets[OverlayPosition.DYNAMIC.ordinal()]));
+		assertArrayEquals(new Overlay[]{scene}, overlays(partitions[OverlayLayer.ABOVE_SCENE.ordinal()][OverlayPosition.DYNAMIC.ordinal()]));
+		assertEquals(0, partitions[OverlayLayer.ALWAYS_ON_TOP.ordinal()][OverlayPosition.DYNAMIC.ordinal()].length);
+
+		// Stats carry over when the plugins change
+		OverlayStats[][][] repartitioned = OverlayRenderer.partition(Arrays.asList(dyn), partitions);
+		assertSame(underWidgets[OverlayPosition.DYNAMIC.ordinal()][0],
+			repartitioned[OverlayLayer.UNDER_WIDGETS.ordinal()][OverlayPosition.DYNAMIC.ordinal()][0]);
+		assertEquals(0, repartitioned[OverlayLayer.UNDER_WIDGETS.ordinal()][OverlayPosition.TOP_LEFT.ordinal()].length);
+	}
+
+	@Test
+	public void testRender()
+	{
+		FillOverlay red = new FillOverlay(OverlayLayer.UNDER_WIDGETS, OverlayPosition.TOP_LEFT, Color.RED, 10);
+		FillOverlay blue = new FillOverlay(OverlayLayer.UNDER_WIDGETS, OverlayPosition.TOP_LEFT, Color.BLUE, 10);
+		FillOverlay green = new FillOverlay(OverlayLayer.UNDER_WIDGETS, OverlayPosition.DYNAMIC, Color.GREEN, 4);
+		FillOverlay scene = new FillOverlay(OverlayLayer.ABOVE_SCENE, OverlayPosition.DYNAMIC, Color.YELLOW, 2);
+		OverlayRenderer renderer = createRenderer(red, blue, green, scene);
+
+		BufferedImage image = new BufferedImage(765, 503, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		renderer.render(graphics, OverlayLayer.UNDER_WIDGETS);
+
+		// Positioned overlays stack down from the top left border, and the
+		// surface is cleared between them
+		assertEquals(Color.RED.getRGB(), image.getRGB(5, 25));
+		assertEquals(Color.RED.getRGB(), image.getRGB(14, 34));
+		assertEquals(0, image.getRGB(5, 35));
+		assertEquals(Color.BLUE.getRGB(), image.getRGB(5, 37));
+		assertEquals(Color.BLUE.getRGB(), image.getRGB(14, 46));
+		assertEquals(0, image.getRGB(15, 37));
+
+		// Dynamic overlays draw directly, other layers are left alone
+		assertEquals(Color.GREEN.getRGB(), image.getRGB(0, 0));
+		assertEquals(0, image.getRGB(3, 4));
+		assertEquals(null, scene.colorSeen);
+	}
+
+	@Test
+	public void testGraphicsRestored()
+	{
+		FillOverlay first = new FillOverlay(OverlayLayer.UNDER_WIDGETS, OverlayPosition.DYNAMIC, Color.RED, 10);
+		FillOverlay second = new FillOverlay(OverlayLayer.UNDER_WIDGETS, OverlayPosition.DYNAMIC, Color.BLUE, 10);
+		FillOverlay third = new FillOverlay(OverlayLayer.UNDER_WIDGETS, OverlayPosition.TOP_LEFT, Color.RED, 10);
+		FillOverlay fourth = new FillOverlay(OverlayLayer.UNDER_WIDGETS, OverlayPosition.TOP_LEFT, Color.BLUE, 10);
+		OverlayRenderer renderer = createRenderer(first, second, third, fourth);
+
+		BufferedImage image = new BufferedImage(765, 503, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		Color color = graphics.getColor();
+		renderer.render(graphics, OverlayLayer.UNDER_WIDGETS);
+
+		for (FillOverlay overlay : Arrays.asList(first, second, third, fourth))
+		{
+			assertTrue(overlay.transformIdentity);
+		}
+		assertEquals(color, second.colorSeen);
+		assertEquals(third.colorSeen, fourth.colorSeen);
+		assertTrue(graphics.getTransform().isIdentity());
+	}
+
+	@Test
+	public void testProfiling()
+	{
+		FillOverlay fill = new FillOverlay(OverlayLayer.UNDER_WIDGETS, OverlayPosition.DYNAMIC, Color.RED, 10);
+		Overlay allocating = new TestOverlay(OverlayPosition.DYNAMIC, OverlayPriority.HIGH)
+		{
+			@Override
+			public Dimension render(Graphics2D graphics, Point parent)
+			{
+				return new Dimension(new byte[1 << 20].length, 0);
+			}
+		};
+		OverlayRenderer renderer = createRenderer(fill, allocating);
+
+		Graphics2D graphics = new BufferedImage(765, 503, BufferedImage.TYPE_INT_ARGB).createGraphics();
+		renderer.render(graphics, OverlayLayer.UNDER_WIDGETS);
+		assertTrue(renderer.getOverlayStats().stream().allMatch(s -> s.getRenders() == 0));
+
+		renderer.setProfiling(true);
+		renderer.render(graphics, OverlayLayer.UNDER_WIDGETS);
+
+		List<OverlayStats> stats = renderer.getOverlayStats();
+		assertEquals(2, stats.size());
+		for (OverlayStats s : stats)
+		{
+			assertEquals(1, s.getRenders());
+			assertTrue(s.getAverageNanos() > 0);
+		}
+
+		OverlayStats allocated = stats.stream().filter(s -> s.getOverlay() == allocating).findAny().get();
+		if (isAllocationCounted())
+		{
+			assertTrue(allocated.getAverageBytes() >= 1 << 20);
+		}
+	}
+
+	private static OverlayRenderer createRenderer(Overlay... overlays)
+	{
+		Canvas canvas = mock(Canvas.class);
+		when(canvas.getSize()).thenReturn(new Dimension(765, 503));
+
+		Client client = mock(Client.class);
+		when(client.getCanvas()).thenReturn(canvas);
+		when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
+
+		Plugin plugin = new Plugin()
+		{
+			@Override
+			public Collection<Overlay> getOverlays()
+			{
+				return Arrays.asList(overlays);
+			}
+		};
+
+		PluginManager pluginManager = mock(PluginManager.class);
+		when(pluginManager.getPlugins()).thenReturn(Arrays.asList(plugin));
+		when(pluginManager.isPluginEnabled(any(Plugin.class))).thenReturn(true);
+
+		OverlayRenderer renderer = new OverlayRenderer();
+		renderer.pluginManager = pluginManager;
+		renderer.clientProvider = () -> client;
+		renderer.onPluginChanged(null);
+		renderer.onResizableChanged(null);
+		return renderer;
+	}
+
+	private static Overlay[] overlays(OverlayStats[] entries)
+	{
+		return Arrays.stream(entries).map(OverlayStats::getOverlay).toArray(Overlay[]::new);
+	}
+
+	private static boolean isAllocationCounted()
+	{
+		return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean;
+	}
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay.components;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import net.runelite.client.ui.overlay.OverlayUtil;
+import net.runelite.client.ui.overlay.RenderCache;
+import net.runelite.client.ui.overlay.RenderableEntity;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Compares retained rendering of the components with direct rendering,
+ * pixel by pixel
+ */
+public class RetainedRenderingTest
+{
+	private static final int WIDTH = 300;
+	private static final int HEIGHT = 200;
+
+	@Test
+	public void testCacheHit()
+	{
+		RenderCache cache = new RenderCache();
+		AtomicInteger renders = new AtomicInteger();
+		Graphics2D graphics = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB).createGraphics();
+
+		for (String key : new String[]{"a", "a", "b", "b", "a"})
+		{
+			Dimension dimension = cache.render(graphics, key, () -> new Rectangle(0, 0, 10, 10), g ->
+			{
+				renders.incrementAndGet();
+				return new Dimension(10, 10);
+			});
+			assertEquals(new Dimension(10, 10), dimension);
+		}
+		assertEquals(3, renders.get());
+
+		// A different font draws differently
+		graphics.setFont(graphics.getFont().deriveFont(20f));
+		cache.render(graphics, "a", () -> new Rectangle(0, 0, 10, 10), g -> new Dimension(renders.incrementAndGet(), 0));
+		assertEquals(4, renders.get());
+	}
+
+	@Test
+	public void testPanel()
+	{
+		PanelComponent direct = new PanelComponent();
+		PanelComponent retained = new PanelComponent();
+		retained.setRetained(true);
+
+		Consumer<PanelComponent> fill = panel ->
+		{
+			panel.getLines().clear();
+			panel.setTitle("Boosts");
+			panel.setPosition(new Point(10, 20));
+			panel.getLines().add(new PanelComponent.Line("Attack", Color.WHITE, "<col=00ff00>99<col=ffffff>/90", Color.GREEN));
+			panel.getLines().add(new PanelComponent.Line("Strength", Color.WHITE, "+5", Color.GREEN));
+		};
+
+		fill.accept(direct);
+		fill.accept(retained);
+		assertRendersSame(direct, retained);
+
+		// Refilled with the same content, drawn from the cache
+		fill.accept(retained);
+		assertRendersSame(direct, retained);
+
+		// Changed content, including text running past the panel
+		Consumer<PanelComponent> change = panel ->
+		{
+			panel.getLines().get(1).setRightColor(Color.RED);
+			panel.getLines().add(new PanelComponent.Line("A line much too long for the panel", "and then some more"));
+			ProgressBarComponent progressBar = new ProgressBarComponent();
+			progressBar.setProgress(42);
+			panel.setProgressBar(progressBar);
+		};
+		change.accept(direct);
+		change.accept(retained);
+		assertRendersSame(direct, retained);
+	}
+
+	@Test
+	public void testInfoBox()
+	{
+		BufferedImage icon = new BufferedImage(20, 24, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D iconGraphics = icon.createGraphics();
+		iconGraphics.setColor(Color.ORANGE);
+		iconGraphics.fillOval(0, 0, 20, 24);
+		iconGraphics.dispose();
+
+		InfoBoxComponent direct = new InfoBoxComponent();
+		InfoBoxComponent retained = new InfoBoxComponent();
+		retained.setRetained(true);
+
+		for (InfoBoxComponent box : new InfoBoxComponent[]{direct, retained})
+		{
+			box.setImage(icon);
+			box.setText("12");
+			box.setColor(Color.RED);
+			box.setPosition(new Point(37, 0));
+		}
+		assertRendersSame(direct, retained);
+		assertRendersSame(direct, retained);
+
+		direct.setText("1,234,567");
+		retained.setText("1,234,567");
+		assertRendersSame(direct, retained);
+	}
+
+	@Test
+	public void testText()
+	{
+		TextComponent direct = new TextComponent();
+		TextComponent retained = new TextComponent();
+		retained.setRetained(true);
+
+		for (TextComponent text : new TextComponent[]{direct, retained})
+		{
+			text.setText("<col=ff0000>3<col=ffffff> charges");
+			text.setPosition(new Point(40, 60));
+		}
+		assertRendersSame(direct, retained);
+		assertRendersSame(direct, retained);
+
+		direct.setColor(Color.CYAN);
+		retained.setColor(Color.CYAN);
+		direct.setText("Jumpy");
+		retained.setText("Jumpy");
+		assertRendersSame(direct, retained);
+	}
+
+	@Test
+	public void testOverScene()
+	{
+		PanelComponent direct = new PanelComponent();
+		PanelComponent retained = new PanelComponent();
+		retained.setRetained(true);
+
+		for (PanelComponent panel : new PanelComponent[]{direct, retained})
+		{
+			panel.setTitle("Run pouch");
+			panel.getLines().add(new PanelComponent.Line("Essence", "12"));
+		}
+
+		// Blending the panel over the scene in one or two steps rounds a little differently
+		BufferedImage expected = render(direct, Color.DARK_GRAY);
+		render(retained, Color.DARK_GRAY);
+		BufferedImage actual = render(retained, Color.DARK_GRAY);
+
+		for (int y = 0; y < HEIGHT; ++y)
+		{
+			for (int x = 0; x < WIDTH; ++x)
+			{
+				int e = expected.getRGB(x, y);
+				int a = actual.getRGB(x, y);
+				for (int shift = 0; shift < 32; shift += 8)
+				{
+					int difference = Math.abs(((e >>> shift) & 0xff) - ((a >>> shift) & 0xff));
+					assertTrue("pixel " + x + "," + y, difference <= 2);
+				}
+			}
+		}
+	}
+
+	private static void assertRendersSame(RenderableEntity direct, RenderableEntity retained)
+	{
+		BufferedImage expected = render(direct, null);
+		BufferedImage actual = render(retained, null);
+
+		for (int y = 0; y < HEIGHT; ++y)
+		{
+			for (int x = 0; x < WIDTH; ++x)
+			{
+				assertEquals("pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+
+	private static BufferedImage render(RenderableEntity entity, Color scene)
+	{
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+
+		if (scene != null)
+		{
+			graphics.setColor(scene);
+			graphics.fillRect(0, 0, WIDTH, HEIGHT);
+		}
+
+		OverlayUtil.setGraphicProperties(graphics);
+		entity.render(graphics, new Point());
+		graphics.dispose();
+		return image;
+	}
+}
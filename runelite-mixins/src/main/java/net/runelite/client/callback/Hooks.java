@@ -26,7 +26,14 @@ package net.runelite.client.callback;
 
 import com.google.common.eventbus.EventBus;
 import java.awt.Graphics;
+import net.runelite.api.Actor;
+import net.runelite.api.DecorativeObject;
+import net.runelite.api.GameObject;
+import net.runelite.api.GroundObject;
+import net.runelite.api.ItemLayer;
 import net.runelite.api.MainBufferProvider;
+import net.runelite.api.Tile;
+import net.runelite.api.WallObject;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
@@ -102,4 +109,64 @@ public class Hooks
 	{
 		throw new RuntimeException();
 	}
+
+	public static void animationChanged(Actor actor)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void graphicChanged(Actor actor)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void gameObjectSpawned(Tile tile, GameObject gameObject)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void gameObjectDespawned(Tile tile, GameObject gameObject)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void groundObjectSpawned(Tile tile, GroundObject groundObject)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void groundObjectDespawned(Tile tile, GroundObject groundObject)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void wallObjectSpawned(Tile tile, WallObject wallObject)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void wallObjectDespawned(Tile tile, WallObject wallObject)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void decorativeObjectSpawned(Tile tile, DecorativeObject decorativeObject)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void decorativeObjectDespawned(Tile tile, DecorativeObject decorativeObject)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void itemLayerSpawned(Tile tile, ItemLayer itemLayer)
+	{
+		throw new RuntimeException();
+	}
+
+	public static void itemLayerDespawned(Tile tile, ItemLayer itemLayer)
+	{
+		throw new RuntimeException();
+	}
 }
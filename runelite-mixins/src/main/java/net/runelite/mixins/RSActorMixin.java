@@ -35,13 +35,11 @@ import net.runelite.api.Point;
 import net.runelite.api.SpritePixels;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
-import net.runelite.api.events.GraphicChanged;
 import net.runelite.api.mixins.FieldHook;
 import net.runelite.api.mixins.Inject;
 import net.runelite.api.mixins.Mixin;
 import net.runelite.api.mixins.Shadow;
-import net.runelite.api.events.AnimationChanged;
-import static net.runelite.client.callback.Hooks.eventBus;
+import net.runelite.client.callback.Hooks;
 import net.runelite.rs.api.RSActor;
 import net.runelite.rs.api.RSClient;
 import net.runelite.rs.api.RSCombatInfo1;
@@ -175,17 +173,13 @@ public abstract class RSActorMixin implements RSActor
 	@Inject
 	public void animationChanged(int idx)
 	{
-		AnimationChanged animationChange = new AnimationChanged();
-		animationChange.setActor(this);
-		eventBus.post(animationChange);
+		Hooks.animationChanged(this);
 	}
 
 	@FieldHook("graphic")
 	@Inject
 	public void graphicChanged(int idx)
 	{
-		GraphicChanged graphicChanged = new GraphicChanged();
-		graphicChanged.setActor(this);
-		eventBus.post(graphicChanged);
+		Hooks.graphicChanged(this);
 	}
 }
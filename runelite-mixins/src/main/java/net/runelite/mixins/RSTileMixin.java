@@ -28,26 +28,21 @@ import net.runelite.api.Actor;
 import net.runelite.api.DecorativeObject;
 import net.runelite.api.GameObject;
 import net.runelite.api.GroundObject;
+import net.runelite.api.ItemLayer;
 import net.runelite.api.Point;
 import net.runelite.api.WallObject;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.DecorativeObjectChanged;
-import net.runelite.api.events.DecorativeObjectDespawned;
-import net.runelite.api.events.DecorativeObjectSpawned;
 import net.runelite.api.events.GameObjectChanged;
-import net.runelite.api.events.GameObjectDespawned;
-import net.runelite.api.events.GameObjectSpawned;
 import net.runelite.api.events.GroundObjectChanged;
-import net.runelite.api.events.GroundObjectDespawned;
-import net.runelite.api.events.GroundObjectSpawned;
+import net.runelite.api.events.ItemLayerChanged;
 import net.runelite.api.events.WallObjectChanged;
-import net.runelite.api.events.WallObjectDespawned;
-import net.runelite.api.events.WallObjectSpawned;
 import net.runelite.api.mixins.FieldHook;
 import net.runelite.api.mixins.Inject;
 import net.runelite.api.mixins.Mixin;
 import net.runelite.api.mixins.Shadow;
+import net.runelite.client.callback.Hooks;
 import static net.runelite.client.callback.Hooks.eventBus;
 import net.runelite.rs.api.RSClient;
 import net.runelite.rs.api.RSGameObject;
@@ -74,6 +69,9 @@ public abstract class RSTileMixin implements RSTile
 	@Inject
 	private GameObject[] previousGameObjects;
 
+	@Inject
+	private ItemLayer previousItemLayer;
+
 	@Inject
 	@Override
 	public WorldPoint getWorldLocation()
@@ -106,17 +104,11 @@ public abstract class RSTileMixin implements RSTile
 
 		if (current == null && previous != null)
 		{
-			WallObjectDespawned wallObjectDespawned = new WallObjectDespawned();
-			wallObjectDespawned.setTile(this);
-			wallObjectDespawned.setWallObject(previous);
-			eventBus.post(wallObjectDespawned);
+			Hooks.wallObjectDespawned(this, previous);
 		}
 		else if (current != null && previous == null)
 		{
-			WallObjectSpawned wallObjectSpawned = new WallObjectSpawned();
-			wallObjectSpawned.setTile(this);
-			wallObjectSpawned.setWallObject(current);
-			eventBus.post(wallObjectSpawned);
+			Hooks.wallObjectSpawned(this, current);
 		}
 		else if (current != null && previous != null)
 		{
@@ -139,17 +131,11 @@ public abstract class RSTileMixin implements RSTile
 
 		if (current == null && previous != null)
 		{
-			DecorativeObjectDespawned decorativeObjectDespawned = new DecorativeObjectDespawned();
-			decorativeObjectDespawned.setTile(this);
-			decorativeObjectDespawned.setDecorativeObject(previous);
-			eventBus.post(decorativeObjectDespawned);
+			Hooks.decorativeObjectDespawned(this, previous);
 		}
 		else if (current != null && previous == null)
 		{
-			DecorativeObjectSpawned decorativeObjectSpawned = new DecorativeObjectSpawned();
-			decorativeObjectSpawned.setTile(this);
-			decorativeObjectSpawned.setDecorativeObject(current);
-			eventBus.post(decorativeObjectSpawned);
+			Hooks.decorativeObjectSpawned(this, current);
 		}
 		else if (current != null && previous != null)
 		{
@@ -172,17 +158,11 @@ public abstract class RSTileMixin implements RSTile
 
 		if (current == null && previous != null)
 		{
-			GroundObjectDespawned groundObjectDespawned = new GroundObjectDespawned();
-			groundObjectDespawned.setTile(this);
-			groundObjectDespawned.setGroundObject(previous);
-			eventBus.post(groundObjectDespawned);
+			Hooks.groundObjectDespawned(this, previous);
 		}
 		else if (current != null && previous == null)
 		{
-			GroundObjectSpawned groundObjectSpawned = new GroundObjectSpawned();
-			groundObjectSpawned.setTile(this);
-			groundObjectSpawned.setGroundObject(current);
-			eventBus.post(groundObjectSpawned);
+			Hooks.groundObjectSpawned(this, current);
 		}
 		else if (current != null && previous != null)
 		{
@@ -194,6 +174,34 @@ public abstract class RSTileMixin implements RSTile
 		}
 	}
 
+	@FieldHook("itemLayer")
+	@Inject
+	public void itemLayerChanged(int idx)
+	{
+		ItemLayer previous = previousItemLayer;
+		ItemLayer current = getItemLayer();
+
+		previousItemLayer = current;
+
+		// the client builds a new item layer whenever the pile changes
+		if (current == null && previous != null)
+		{
+			Hooks.itemLayerDespawned(this, previous);
+		}
+		else if (current != null && previous == null)
+		{
+			Hooks.itemLayerSpawned(this, current);
+		}
+		else if (current != null && previous != null)
+		{
+			ItemLayerChanged itemLayerChanged = new ItemLayerChanged();
+			itemLayerChanged.setTile(this);
+			itemLayerChanged.setPrevious(previous);
+			itemLayerChanged.setItemLayer(current);
+			eventBus.post(itemLayerChanged);
+		}
+	}
+
 	@FieldHook("objects")
 	@Inject
 	public void gameObjectsChanged(int idx)
@@ -234,17 +242,11 @@ public abstract class RSTileMixin implements RSTile
 		{
 			if (current == null && previous != null)
 			{
-				GameObjectDespawned gameObjectDespawned = new GameObjectDespawned();
-				gameObjectDespawned.setTile(this);
-				gameObjectDespawned.setGameObject(previous);
-				eventBus.post(gameObjectDespawned);
+				Hooks.gameObjectDespawned(this, previous);
 			}
 			else if (current != null && previous == null)
 			{
-				GameObjectSpawned gameObjectSpawned = new GameObjectSpawned();
-				gameObjectSpawned.setTile(this);
-				gameObjectSpawned.setGameObject(current);
-				eventBus.post(gameObjectSpawned);
+				Hooks.gameObjectSpawned(this, current);
 			}
 			else if (current != null && previous != null)
 			{
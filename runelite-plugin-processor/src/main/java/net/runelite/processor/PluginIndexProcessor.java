@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes the binary names of all classes annotated with PluginDescriptor
+ * to {@link #INDEX}, so the client can load its plugins without scanning
+ * the classpath.
+ */
+@SupportedAnnotationTypes(PluginIndexProcessor.PLUGIN_DESCRIPTOR)
+public class PluginIndexProcessor extends AbstractProcessor
+{
+	static final String PLUGIN_DESCRIPTOR = "net.runelite.client.plugins.PluginDescriptor";
+
+	/**
+	 * Class path resource with one plugin class name per line
+	 */
+	public static final String INDEX = "META-INF/runelite/plugins";
+
+	private final Set<String> plugins = new TreeSet<>();
+	private boolean loadedIndex;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		if (!loadedIndex)
+		{
+			loadedIndex = true;
+			loadIndex();
+		}
+
+		for (TypeElement annotation : annotations)
+		{
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+			{
+				if (element.getKind() == ElementKind.CLASS)
+				{
+					plugins.add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+				}
+			}
+		}
+
+		if (roundEnv.processingOver())
+		{
+			writeIndex();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Keep the plugins of an earlier compilation which are still plugins,
+	 * for incremental builds which only compile some of the sources.
+	 */
+	private void loadIndex()
+	{
+		try
+		{
+			FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+
+			try (Reader reader = index.openReader(true);
+				BufferedReader in = new BufferedReader(reader))
+			{
+				String line;
+				while ((line = in.readLine()) != null)
+				{
+					TypeElement type = processingEnv.getElementUtils().getTypeElement(line.replace('$', '.'));
+					if (type != null && isPlugin(type))
+					{
+						plugins.add(line);
+					}
+				}
+			}
+		}
+		catch (IOException ex)
+		{
+			// no earlier index
+		}
+	}
+
+	private void writeIndex()
+	{
+		try
+		{
+			FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+
+			try (Writer out = index.openWriter())
+			{
+				for (String plugin : plugins)
+				{
+					out.write(plugin);
+					out.write('\n');
+				}
+			}
+		}
+		catch (IOException ex)
+		{
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write plugin index: " + ex);
+		}
+	}
+
+	private static boolean isPlugin(TypeElement type)
+	{
+		for (AnnotationMirror annotation : type.getAnnotationMirrors())
+		{
+			if (annotation.getAnnotationType().toString().equals(PLUGIN_DESCRIPTOR))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}